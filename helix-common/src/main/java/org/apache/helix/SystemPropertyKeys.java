@@ -69,9 +69,74 @@ public class SystemPropertyKeys {
 
   public static final String LEGACY_ASYNC_BATCH_MODE_ENABLED = "isAsyncBatchModeEnabled";
 
+  // Participant current state commit queue, coalescing the current state updates of concurrent
+  // state transitions on the same CurrentState ZNode
+  public static final String CURRENT_STATE_COMMIT_QUEUE_ENABLED =
+      "helix.participant.currentStateCommitQueue.enabled";
+
+  public static final String CURRENT_STATE_COMMIT_WINDOW_MS =
+      "helix.participant.currentStateCommitQueue.windowMs";
+
+  public static final String CURRENT_STATE_COMMIT_MAX_BATCH_SIZE =
+      "helix.participant.currentStateCommitQueue.maxBatchSize";
+
+  // Number of threads creating the state transition message handlers of a message callback in
+  // parallel, 0 to create them in the callback thread
+  public static final String MESSAGE_PREPROCESS_THREAD_COUNT =
+      "helix.participant.messagePreprocess.threadCount";
+
+  // Adaptive per-resource state transition thread pools. The resource MAX_THREADS config is the
+  // upper bound of a pool, and the pools of a participant share a global thread cap.
+  public static final String ADAPTIVE_THREAD_POOL_ENABLED =
+      "helix.participant.adaptiveThreadPool.enabled";
+
+  public static final String ADAPTIVE_THREAD_POOL_MIN_THREADS =
+      "helix.participant.adaptiveThreadPool.minThreads";
+
+  public static final String ADAPTIVE_THREAD_POOL_GLOBAL_MAX_THREADS =
+      "helix.participant.adaptiveThreadPool.globalMaxThreads";
+
+  public static final String ADAPTIVE_THREAD_POOL_ADJUST_INTERVAL_MS =
+      "helix.participant.adaptiveThreadPool.adjustIntervalMs";
+
   // Controller
   public static final String CONTROLLER_MESSAGE_PURGE_DELAY = "helix.controller.stages.MessageGenerationPhase.messagePurgeDelay";
 
+  // Number of threads computing the best possible states of the non-WAGED resources in parallel,
+  // the resources are computed one by one if not larger than 1. The resources of a user provided
+  // rebalancer are always computed one by one by the pipeline thread.
+  public static final String BEST_POSSIBLE_CALC_PARALLELISM =
+      "helix.controller.stages.BestPossibleStateCalcStage.parallelism";
+
+  // Skip the message generation of the resources whose current states already match the best
+  // possible states, and have neither pending nor stale messages
+  public static final String MESSAGE_GENERATION_INCREMENTAL =
+      "helix.controller.stages.MessageGenerationPhase.incremental";
+
+  // Number of threads generating the messages of the resources in parallel, the resources are
+  // processed one by one if not larger than 1
+  public static final String MESSAGE_GENERATION_PARALLELISM =
+      "helix.controller.stages.MessageGenerationPhase.parallelism";
+
+  // Number of threads computing the current states of the live instances in parallel, the
+  // instances are processed one by one if not larger than 1
+  public static final String CURRENT_STATE_COMPUTATION_PARALLELISM =
+      "helix.controller.stages.CurrentStateComputationStage.parallelism";
+
+  // Store the partition state maps of the controller pipeline in interned columnar tables
+  public static final String CONTROLLER_COLUMNAR_STATE_MAP = "helix.controller.columnarStateMap";
+
+  // Local directory of the on-disk snapshots of the controller property caches, the snapshots are
+  // not used if not set
+  public static final String CONTROLLER_PROPERTY_SNAPSHOT_DIR =
+      "helix.controller.property.snapshot.dir";
+
+  // View aggregator
+  // Number of threads refreshing the source cluster caches of a view cluster in parallel, the
+  // source clusters are refreshed one by one if not larger than 1
+  public static final String VIEW_AGGREGATOR_SOURCE_REFRESH_PARALLELISM =
+      "helix.viewAggregator.sourceRefresh.parallelism";
+
   // Message
   public static final String MESSAGE_EXPECTED_COMPLETION_PERIOD = "helix.controller.message.ExpectMessageCompletionPeriod";
 
@@ -79,6 +144,16 @@ public class SystemPropertyKeys {
   // MBean monitor for helix.
   public static final String HELIX_MONITOR_TIME_WINDOW_LENGTH_MS = "helix.monitor.slidingTimeWindow.ms";
 
+  // Max number of the resource MBeans registered by the cluster status monitor. The resources with
+  // the most unhealthy partitions are registered, and the per-instance resource MBeans are
+  // aggregated to one per instance. The MBeans are not bounded if not positive.
+  public static final String CLUSTER_STATUS_MONITOR_MAX_RESOURCE_MBEANS =
+      "helix.monitor.clusterStatus.maxResourceMBeans";
+
+  // Port of the embedded HTTP endpoint serving the metrics in the Prometheus text format, the
+  // endpoint is not started if not positive
+  public static final String METRICS_ENDPOINT_PORT = "helix.monitor.metricsEndpoint.port";
+
   // Multi-ZK mode enable/disable flag
   public static final String MULTI_ZK_ENABLED = "helix.multiZkEnabled";
 
@@ -88,6 +163,25 @@ public class SystemPropertyKeys {
 
   public static final String STATEUPDATEUTIL_ERROR_PERSISTENCY_ENABLED = "helix.StateUpdateUtil.errorLog.enabled";
 
+  // Status update sink, one of ZK (default) or RING_BUFFER
+  public static final String STATUS_UPDATE_SINK_TYPE = "helix.StatusUpdateUtil.sink.type";
+
+  public static final String STATUS_UPDATE_RING_BUFFER_CAPACITY =
+      "helix.StatusUpdateUtil.ringBuffer.capacity";
+
+  public static final String STATUS_UPDATE_RING_BUFFER_FLUSH_INTERVAL_MS =
+      "helix.StatusUpdateUtil.ringBuffer.flushIntervalMs";
+
+  // One out of every N non-error status updates is flushed to ZK, 0 to flush errors only
+  public static final String STATUS_UPDATE_RING_BUFFER_FLUSH_SAMPLE_RATE =
+      "helix.StatusUpdateUtil.ringBuffer.flushSampleRate";
+
+  // Optional memory-mapped local log of the status updates
+  public static final String STATUS_UPDATE_LOCAL_LOG_PATH = "helix.StatusUpdateUtil.localLog.path";
+
+  public static final String STATUS_UPDATE_LOCAL_LOG_SIZE_BYTES =
+      "helix.StatusUpdateUtil.localLog.sizeBytes";
+
   public static final String TASK_CURRENT_STATE_PATH_DISABLED =
       "helix.taskCurrentStatePathDisabled";
 }
@@ -26,6 +26,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 
 import org.apache.helix.zookeeper.datamodel.SessionAwareZNRecord;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
@@ -149,6 +151,66 @@ public class HelixProperty {
     }
   }
 
+  /**
+   * A cache of the values parsed from the string fields of a record. A parsed value is only
+   * reused while the record holds the same string object it was parsed from, so a cached value
+   * is never stale, however the record is modified.
+   */
+  protected static class ParsedValueCache<V> {
+    private final BiFunction<String, String, V> _parser;
+    private volatile Map<String, ParsedValue<V>> _values;
+
+    /**
+     * @param parser parses the raw value of a field given its key and raw value, returns null if
+     *               the raw value is invalid
+     */
+    public ParsedValueCache(BiFunction<String, String, V> parser) {
+      _parser = parser;
+    }
+
+    /**
+     * Get the parsed value of a field
+     * @param key the key of the field
+     * @param rawValue the current raw value of the field
+     * @return the parsed value, or null if the raw value is null or invalid
+     */
+    public V get(String key, String rawValue) {
+      if (rawValue == null) {
+        return null;
+      }
+      Map<String, ParsedValue<V>> values = _values;
+      if (values == null) {
+        synchronized (this) {
+          if (_values == null) {
+            _values = new ConcurrentHashMap<>();
+          }
+          values = _values;
+        }
+      }
+      ParsedValue<V> parsedValue = values.get(key);
+      if (parsedValue == null || parsedValue._rawValue != rawValue) {
+        parsedValue = new ParsedValue<>(rawValue, _parser.apply(key, rawValue));
+        values.put(key, parsedValue);
+      }
+      return parsedValue._value;
+    }
+  }
+
+  private static class ParsedValue<V> {
+    private final String _rawValue;
+    private final V _value;
+
+    ParsedValue(String rawValue, V value) {
+      _rawValue = rawValue;
+      _value = value;
+    }
+  }
+
+  // Allocated on the first typed read, most properties are never read through these caches
+  private volatile ParsedValueCache<Long> _longFields;
+  private volatile ParsedValueCache<Integer> _intFields;
+  private volatile ParsedValueCache<Boolean> _booleanFields;
+
   private Stat _stat;
 
   /**
@@ -262,6 +324,77 @@ public class HelixProperty {
     _record.setSimpleField(HelixPropertyAttribute.BUCKET_SIZE.toString(), "" + bucketSize);
   }
 
+  /**
+   * Same as {@link ZNRecord#getLongField(String, long)}, but the field is only parsed again once
+   * its value is changed.
+   */
+  protected long getCachedLongField(String key, long defaultValue) {
+    ParsedValueCache<Long> longFields = _longFields;
+    if (longFields == null) {
+      // A racing thread may replace the cache, which only costs a parse
+      longFields = new ParsedValueCache<>(HelixProperty::parseLong);
+      _longFields = longFields;
+    }
+    Long value = longFields.get(key, _record.getSimpleField(key));
+    return value == null ? defaultValue : value;
+  }
+
+  /**
+   * Same as {@link ZNRecord#getIntField(String, int)}, but the field is only parsed again once its
+   * value is changed.
+   */
+  protected int getCachedIntField(String key, int defaultValue) {
+    ParsedValueCache<Integer> intFields = _intFields;
+    if (intFields == null) {
+      intFields = new ParsedValueCache<>(HelixProperty::parseInt);
+      _intFields = intFields;
+    }
+    Integer value = intFields.get(key, _record.getSimpleField(key));
+    return value == null ? defaultValue : value;
+  }
+
+  /**
+   * Same as {@link ZNRecord#getBooleanField(String, boolean)}, but the field is only parsed again
+   * once its value is changed.
+   */
+  protected boolean getCachedBooleanField(String key, boolean defaultValue) {
+    ParsedValueCache<Boolean> booleanFields = _booleanFields;
+    if (booleanFields == null) {
+      booleanFields = new ParsedValueCache<>(HelixProperty::parseBoolean);
+      _booleanFields = booleanFields;
+    }
+    Boolean value = booleanFields.get(key, _record.getSimpleField(key));
+    return value == null ? defaultValue : value;
+  }
+
+  private static Long parseLong(String key, String rawValue) {
+    try {
+      return Long.parseLong(rawValue);
+    } catch (NumberFormatException e) {
+      LOG.warn("Field {} has an invalid long value: {}", key, rawValue, e);
+      return null;
+    }
+  }
+
+  private static Integer parseInt(String key, String rawValue) {
+    try {
+      return Integer.parseInt(rawValue);
+    } catch (NumberFormatException e) {
+      LOG.warn("Field {} has an invalid int value: {}", key, rawValue, e);
+      return null;
+    }
+  }
+
+  private static Boolean parseBoolean(String key, String rawValue) {
+    // Same as ZNRecord#getBooleanField, only "true" and "false" are valid
+    if (rawValue.equalsIgnoreCase(Boolean.TRUE.toString())) {
+      return true;
+    } else if (rawValue.equalsIgnoreCase(Boolean.FALSE.toString())) {
+      return false;
+    }
+    return null;
+  }
+
   /**
    * static method that converts ZNRecord to an instance that subclasses HelixProperty
    * @param clazz subclass of HelixProperty
@@ -20,7 +20,10 @@ package org.apache.helix;
  */
 
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import org.apache.helix.model.CloudConfig;
 import org.apache.helix.model.ClusterConfig;
@@ -90,6 +93,11 @@ public class PropertyKey {
   // if type is CONFIGS, set configScope; otherwise null
   ConfigScopeProperty _configScope;
 
+  // The path and hash code computed on the first use. A key is not modified once built, and the
+  // String is immutable, so racing threads at worst compute the same values again.
+  private String _path;
+  private int _hashCode;
+
   /**
    * Instantiate with a type, associated class, and parameters
    * @param type
@@ -123,10 +131,14 @@ public class PropertyKey {
 
   @Override
   public int hashCode() {
-    int result = (_type != null ? _type.hashCode() : 0);
-    result = 31 * result + Arrays.hashCode(_params);
-    result = 31 * result + (_typeClazz != null ? _typeClazz.hashCode() : 0);
-    result = 31 * result + (_configScope != null ? _configScope.hashCode() : 0);
+    int result = _hashCode;
+    if (result == 0) {
+      result = (_type != null ? _type.hashCode() : 0);
+      result = 31 * result + Arrays.hashCode(_params);
+      result = 31 * result + (_typeClazz != null ? _typeClazz.hashCode() : 0);
+      result = 31 * result + (_configScope != null ? _configScope.hashCode() : 0);
+      _hashCode = result;
+    }
     return result;
   }
 
@@ -165,11 +177,14 @@ public class PropertyKey {
    * @return absolute path to the property
    */
   public String getPath() {
-    String clusterName = _params[0];
-    String[] subKeys = Arrays.copyOfRange(_params, 1, _params.length);
-    String path = PropertyPathBuilder.getPath(_type, clusterName, subKeys);
+    String path = _path;
     if (path == null) {
-      LOG.error("Invalid property key with type:" + _type + "subKeys:" + Arrays.toString(_params));
+      path = PropertyPathBuilder.getPath(_type, _params);
+      if (path == null) {
+        LOG.error(
+            "Invalid property key with type:" + _type + "subKeys:" + Arrays.toString(_params));
+      }
+      _path = path;
     }
     return path;
   }
@@ -179,6 +194,8 @@ public class PropertyKey {
    */
   public static class Builder {
     private final String _clusterName;
+    // Created on the first cached lookup, many builders only build a few keys
+    private volatile BuilderKeyCache _keyCache;
 
     /**
      * Instantiate with a cluster name
@@ -188,12 +205,23 @@ public class PropertyKey {
       _clusterName = clusterName;
     }
 
+    private BuilderKeyCache getKeyCache() {
+      BuilderKeyCache keyCache = _keyCache;
+      if (keyCache == null) {
+        // A racing thread may replace the cache, which only costs building a few keys again
+        keyCache = new BuilderKeyCache();
+        _keyCache = keyCache;
+      }
+      return keyCache;
+    }
+
     /**
      * Get a property key associated with {@link IdealState}
      * @return {@link PropertyKey}
      */
     public PropertyKey idealStates() {
-      return new PropertyKey(IDEALSTATES, IdealState.class, _clusterName);
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("idealStates",
+          () -> new PropertyKey(IDEALSTATES, IdealState.class, _clusterName));
     }
 
     /**
@@ -202,7 +230,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey idealStates(String resourceName) {
-      return new PropertyKey(IDEALSTATES, IdealState.class, _clusterName, resourceName);
+      return getKeyCache()._idealStates.computeIfAbsent(resourceName,
+          () -> new PropertyKey(IDEALSTATES, IdealState.class, _clusterName, resourceName));
     }
 
     /**
@@ -210,7 +239,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey stateModelDefs() {
-      return new PropertyKey(STATEMODELDEFS, StateModelDefinition.class, _clusterName);
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("stateModelDefs",
+          () -> new PropertyKey(STATEMODELDEFS, StateModelDefinition.class, _clusterName));
     }
 
     /**
@@ -219,8 +249,9 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey stateModelDef(String stateModelName) {
-      return new PropertyKey(STATEMODELDEFS, StateModelDefinition.class, _clusterName,
-          stateModelName);
+      return getKeyCache()._stateModelDefs.computeIfAbsent(stateModelName,
+          () -> new PropertyKey(STATEMODELDEFS, StateModelDefinition.class, _clusterName,
+              stateModelName));
     }
 
     /**
@@ -238,8 +269,9 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey clusterConfig() {
-      return new PropertyKey(CONFIGS, ConfigScopeProperty.CLUSTER, ClusterConfig.class,
-          _clusterName, ConfigScopeProperty.CLUSTER.toString(), _clusterName);
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("clusterConfig",
+          () -> new PropertyKey(CONFIGS, ConfigScopeProperty.CLUSTER, ClusterConfig.class,
+              _clusterName, ConfigScopeProperty.CLUSTER.toString(), _clusterName));
     }
 
     /**
@@ -274,8 +306,9 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey instanceConfigs() {
-      return new PropertyKey(CONFIGS, ConfigScopeProperty.PARTICIPANT, InstanceConfig.class,
-          _clusterName, ConfigScopeProperty.PARTICIPANT.toString());
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("instanceConfigs",
+          () -> new PropertyKey(CONFIGS, ConfigScopeProperty.PARTICIPANT, InstanceConfig.class,
+              _clusterName, ConfigScopeProperty.PARTICIPANT.toString()));
     }
 
     /**
@@ -284,8 +317,9 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey instanceConfig(String instanceName) {
-      return new PropertyKey(CONFIGS, ConfigScopeProperty.PARTICIPANT, InstanceConfig.class,
-          _clusterName, ConfigScopeProperty.PARTICIPANT.toString(), instanceName);
+      return getKeyCache()._instanceConfigs.computeIfAbsent(instanceName,
+          () -> new PropertyKey(CONFIGS, ConfigScopeProperty.PARTICIPANT, InstanceConfig.class,
+              _clusterName, ConfigScopeProperty.PARTICIPANT.toString(), instanceName));
     }
 
     /**
@@ -293,8 +327,9 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey resourceConfigs() {
-      return new PropertyKey(CONFIGS, ConfigScopeProperty.RESOURCE, ResourceConfig.class,
-          _clusterName, ConfigScopeProperty.RESOURCE.toString());
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("resourceConfigs",
+          () -> new PropertyKey(CONFIGS, ConfigScopeProperty.RESOURCE, ResourceConfig.class,
+              _clusterName, ConfigScopeProperty.RESOURCE.toString()));
     }
 
     /**
@@ -303,8 +338,9 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey resourceConfig(String resourceName) {
-      return new PropertyKey(CONFIGS, ConfigScopeProperty.RESOURCE, ResourceConfig.class,
-          _clusterName, ConfigScopeProperty.RESOURCE.toString(), resourceName);
+      return getKeyCache()._resourceConfigs.computeIfAbsent(resourceName,
+          () -> new PropertyKey(CONFIGS, ConfigScopeProperty.RESOURCE, ResourceConfig.class,
+              _clusterName, ConfigScopeProperty.RESOURCE.toString(), resourceName));
     }
 
     /**
@@ -356,7 +392,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey liveInstances() {
-      return new PropertyKey(LIVEINSTANCES, LiveInstance.class, _clusterName);
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("liveInstances",
+          () -> new PropertyKey(LIVEINSTANCES, LiveInstance.class, _clusterName));
     }
 
     /**
@@ -365,7 +402,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey liveInstance(String instanceName) {
-      return new PropertyKey(LIVEINSTANCES, LiveInstance.class, _clusterName, instanceName);
+      return getKeyCache()._liveInstances.computeIfAbsent(instanceName,
+          () -> new PropertyKey(LIVEINSTANCES, LiveInstance.class, _clusterName, instanceName));
     }
 
     /**
@@ -373,7 +411,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey instances() {
-      return new PropertyKey(PropertyType.INSTANCES, null, _clusterName);
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("instances",
+          () -> new PropertyKey(PropertyType.INSTANCES, null, _clusterName));
     }
 
     /**
@@ -390,7 +429,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey messages(String instanceName) {
-      return new PropertyKey(MESSAGES, Message.class, _clusterName, instanceName);
+      return getKeyCache()._messages.computeIfAbsent(instanceName,
+          () -> new PropertyKey(MESSAGES, Message.class, _clusterName, instanceName));
     }
 
     /**
@@ -446,7 +486,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey sessions(String instanceName) {
-      return new PropertyKey(CURRENTSTATES, CurrentState.class, _clusterName, instanceName);
+      return getKeyCache()._sessions.computeIfAbsent(instanceName,
+          () -> new PropertyKey(CURRENTSTATES, CurrentState.class, _clusterName, instanceName));
     }
 
     /**
@@ -701,7 +742,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey externalViews() {
-      return new PropertyKey(EXTERNALVIEW, ExternalView.class, _clusterName);
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("externalViews",
+          () -> new PropertyKey(EXTERNALVIEW, ExternalView.class, _clusterName));
     }
 
     /**
@@ -710,7 +752,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey externalView(String resourceName) {
-      return new PropertyKey(EXTERNALVIEW, ExternalView.class, _clusterName, resourceName);
+      return getKeyCache()._externalViews.computeIfAbsent(resourceName,
+          () -> new PropertyKey(EXTERNALVIEW, ExternalView.class, _clusterName, resourceName));
     }
 
     /**
@@ -840,7 +883,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey controllerLeader() {
-      return new PropertyKey(LEADER, LiveInstance.class, _clusterName);
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("controllerLeader",
+          () -> new PropertyKey(LEADER, LiveInstance.class, _clusterName));
     }
 
     /**
@@ -848,7 +892,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey pause() {
-      return new PropertyKey(PAUSE, PauseSignal.class, _clusterName);
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("pause",
+          () -> new PropertyKey(PAUSE, PauseSignal.class, _clusterName));
     }
 
     /**
@@ -856,7 +901,8 @@ public class PropertyKey {
      * @return {@link PropertyKey}
      */
     public PropertyKey maintenance() {
-      return new PropertyKey(MAINTENANCE, MaintenanceSignal.class, _clusterName);
+      return getKeyCache()._clusterLevelKeys.computeIfAbsent("maintenance",
+          () -> new PropertyKey(MAINTENANCE, MaintenanceSignal.class, _clusterName));
     }
 
     /**
@@ -991,4 +1037,45 @@ public class PropertyKey {
     return _configScope;
   }
 
+  /**
+   * A bounded cache of the property keys of one kind, by their parameter
+   */
+  private static class KeyCache {
+    private static final int MAX_CACHED_KEYS = 10000;
+
+    private final Map<String, PropertyKey> _keys = new ConcurrentHashMap<>();
+
+    PropertyKey computeIfAbsent(String param, Supplier<PropertyKey> keySupplier) {
+      if (param == null) {
+        // A null param is rejected when the key is built
+        return keySupplier.get();
+      }
+      PropertyKey key = _keys.get(param);
+      if (key == null) {
+        key = keySupplier.get();
+        if (_keys.size() >= MAX_CACHED_KEYS) {
+          _keys.clear();
+        }
+        _keys.put(param, key);
+      }
+      return key;
+    }
+  }
+
+  /**
+   * The frequently used property keys built by a builder, so the keys and their paths are not
+   * built again for every lookup. A key is not modified once built, so it is safe to share.
+   */
+  private static class BuilderKeyCache {
+    // The keys without parameter other than the cluster name, by the name of the builder method
+    final KeyCache _clusterLevelKeys = new KeyCache();
+    final KeyCache _idealStates = new KeyCache();
+    final KeyCache _stateModelDefs = new KeyCache();
+    final KeyCache _instanceConfigs = new KeyCache();
+    final KeyCache _resourceConfigs = new KeyCache();
+    final KeyCache _liveInstances = new KeyCache();
+    final KeyCache _messages = new KeyCache();
+    final KeyCache _sessions = new KeyCache();
+    final KeyCache _externalViews = new KeyCache();
+  }
 }
@@ -40,6 +40,7 @@ import org.apache.helix.model.StateModelDefinition;
 import org.apache.helix.model.StatusUpdate;
 import org.apache.helix.task.TaskConstants;
 import org.apache.helix.task.WorkflowContext;
+import org.apache.helix.util.CompiledStringTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +52,9 @@ public class PropertyPathBuilder {
 
   static final Map<PropertyType, Map<Integer, String>> templateMap =
       new HashMap<PropertyType, Map<Integer, String>>();
+  // The templates compiled for instantiation, by the type and the number of keys
+  private static final Map<PropertyType, CompiledStringTemplate[]> compiledTemplateMap =
+      new HashMap<>();
   @Deprecated // typeToClassMapping is not being used anywhere
   static final Map<PropertyType, Class<? extends HelixProperty>> typeToClassMapping =
       new HashMap<PropertyType, Class<? extends HelixProperty>>();
@@ -189,6 +193,23 @@ public class PropertyPathBuilder {
     logger.trace("Adding template for type:" + type.getType() + " arguments:" + numKeys
         + " template:" + template);
     templateMap.get(type).put(numKeys, template);
+
+    CompiledStringTemplate[] compiledTemplates = compiledTemplateMap.get(type);
+    if (compiledTemplates == null || compiledTemplates.length <= numKeys) {
+      CompiledStringTemplate[] newCompiledTemplates = new CompiledStringTemplate[numKeys + 1];
+      if (compiledTemplates != null) {
+        System.arraycopy(compiledTemplates, 0, newCompiledTemplates, 0, compiledTemplates.length);
+      }
+      compiledTemplates = newCompiledTemplates;
+      compiledTemplateMap.put(type, compiledTemplates);
+    }
+    compiledTemplates[numKeys] = new CompiledStringTemplate(template);
+  }
+
+  private static CompiledStringTemplate getCompiledTemplate(PropertyType type, int numKeys) {
+    CompiledStringTemplate[] compiledTemplates = compiledTemplateMap.get(type);
+    return compiledTemplates == null || compiledTemplates.length <= numKeys ? null
+        : compiledTemplates[numKeys];
   }
 
   /**
@@ -206,6 +227,15 @@ public class PropertyPathBuilder {
     if (keys == null) {
       keys = new String[] {};
     }
+    // keys.length+1 since we add clusterName
+    CompiledStringTemplate compiledTemplate = getCompiledTemplate(type, keys.length + 1);
+    if (compiledTemplate != null) {
+      String path = compiledTemplate.instantiate(clusterName, keys);
+      if (path != null) {
+        return path;
+      }
+    }
+    // Some keys are null or contain braces, keep the behavior of the regex based replacement
     String template = null;
     if (templateMap.containsKey(type)) {
       // keys.length+1 since we add clusterName
@@ -235,6 +265,24 @@ public class PropertyPathBuilder {
     return result;
   }
 
+  /**
+   * Get the Zookeeper path given the property type and parameters
+   * @param type
+   * @param params the cluster name followed by the keys
+   * @return a valid path, or null if none exists
+   */
+  static String getPath(PropertyType type, String[] params) {
+    CompiledStringTemplate compiledTemplate = getCompiledTemplate(type, params.length);
+    if (compiledTemplate != null && params.length > 0) {
+      String path = compiledTemplate.instantiate(params);
+      if (path != null) {
+        return path;
+      }
+    }
+    return getPath(type, params.length == 0 ? null : params[0],
+        params.length == 0 ? null : Arrays.copyOfRange(params, 1, params.length));
+  }
+
   /**
    * Given a path, find the name of an instance at that path
    * @param path
@@ -253,211 +301,209 @@ public class PropertyPathBuilder {
   }
 
   public static String idealState(String clusterName) {
-    return String.format("/%s/IDEALSTATES", clusterName);
+    return "/" + clusterName + "/IDEALSTATES";
   }
 
   public static String idealState(String clusterName, String resourceName) {
-    return String.format("/%s/IDEALSTATES/%s", clusterName, resourceName);
+    return "/" + clusterName + "/IDEALSTATES/" + resourceName;
   }
 
   public static String stateModelDef(String clusterName) {
-    return String.format("/%s/STATEMODELDEFS", clusterName);
+    return "/" + clusterName + "/STATEMODELDEFS";
   }
 
   public static String stateModelDef(String clusterName, String stateModelName) {
-    return String.format("/%s/STATEMODELDEFS/%s", clusterName, stateModelName);
+    return "/" + clusterName + "/STATEMODELDEFS/" + stateModelName;
   }
 
   public static String externalView(String clusterName) {
-    return String.format("/%s/EXTERNALVIEW", clusterName);
+    return "/" + clusterName + "/EXTERNALVIEW";
   }
 
   public static String externalView(String clusterName, String resourceName) {
-    return String.format("/%s/EXTERNALVIEW/%s", clusterName, resourceName);
+    return "/" + clusterName + "/EXTERNALVIEW/" + resourceName;
   }
 
   public static String targetExternalView(String clusterName) {
-    return String.format("/%s/TARGETEXTERNALVIEW", clusterName);
+    return "/" + clusterName + "/TARGETEXTERNALVIEW";
   }
 
   public static String targetExternalView(String clusterName, String resourceName) {
-    return String.format("/%s/TARGETEXTERNALVIEW/%s", clusterName, resourceName);
+    return "/" + clusterName + "/TARGETEXTERNALVIEW/" + resourceName;
   }
 
   public static String customizedView(String clusterName) {
-    return String.format("/%s/CUSTOMIZEDVIEW", clusterName);
+    return "/" + clusterName + "/CUSTOMIZEDVIEW";
   }
 
   public static String customizedView(String clusterName, String customizedStateName) {
-    return String.format("/%s/CUSTOMIZEDVIEW/%s", clusterName, customizedStateName);
+    return "/" + clusterName + "/CUSTOMIZEDVIEW/" + customizedStateName;
   }
 
   public static String customizedView(String clusterName, String customizedStateName,
       String resourceName) {
-    return String
-        .format("/%s/CUSTOMIZEDVIEW/%s/%s", clusterName, customizedStateName, resourceName);
+    return "/" + clusterName + "/CUSTOMIZEDVIEW/" + customizedStateName + "/" + resourceName;
   }
 
   public static String liveInstance(String clusterName) {
-    return String.format("/%s/LIVEINSTANCES", clusterName);
+    return "/" + clusterName + "/LIVEINSTANCES";
   }
 
   public static String liveInstance(String clusterName, String instanceName) {
-    return String.format("/%s/LIVEINSTANCES/%s", clusterName, instanceName);
+    return "/" + clusterName + "/LIVEINSTANCES/" + instanceName;
   }
 
   public static String instance(String clusterName) {
-    return String.format("/%s/INSTANCES", clusterName);
+    return "/" + clusterName + "/INSTANCES";
   }
 
   @Deprecated
   public static String instanceProperty(String clusterName, String instanceName, PropertyType type,
       String key) {
-    return String.format("/%s/INSTANCES/%s/%s/%s", clusterName, instanceName, type, key);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/" + type + "/" + key;
   }
 
   public static String instance(String clusterName, String instanceName) {
-    return String.format("/%s/INSTANCES/%s", clusterName, instanceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName;
   }
 
   public static String instanceMessage(String clusterName, String instanceName) {
-    return String.format("/%s/INSTANCES/%s/MESSAGES", clusterName, instanceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/MESSAGES";
   }
 
   public static String instanceMessage(String clusterName, String instanceName, String messageId) {
-    return String.format("/%s/INSTANCES/%s/MESSAGES/%s", clusterName, instanceName, messageId);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/MESSAGES/" + messageId;
   }
 
   public static String instanceCurrentState(String clusterName, String instanceName) {
-    return String.format("/%s/INSTANCES/%s/CURRENTSTATES", clusterName, instanceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/CURRENTSTATES";
   }
 
   public static String instanceCurrentState(String clusterName, String instanceName,
       String sessionId) {
-    return String.format("/%s/INSTANCES/%s/CURRENTSTATES/%s", clusterName, instanceName, sessionId);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/CURRENTSTATES/" + sessionId;
   }
 
   public static String instanceCurrentState(String clusterName, String instanceName,
       String sessionId, String resourceName) {
-    return String.format("/%s/INSTANCES/%s/CURRENTSTATES/%s/%s", clusterName, instanceName,
-        sessionId, resourceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/CURRENTSTATES/" + sessionId + "/"
+        + resourceName;
   }
 
   public static String instanceTaskCurrentState(String clusterName, String instanceName) {
-    return String.format("/%s/INSTANCES/%s/TASKCURRENTSTATES", clusterName, instanceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/TASKCURRENTSTATES";
   }
 
   public static String instanceTaskCurrentState(String clusterName, String instanceName,
       String sessionId) {
-    return String
-        .format("/%s/INSTANCES/%s/TASKCURRENTSTATES/%s", clusterName, instanceName, sessionId);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/TASKCURRENTSTATES/" + sessionId;
   }
 
   public static String instanceTaskCurrentState(String clusterName, String instanceName,
       String sessionId, String resourceName) {
-    return String
-        .format("/%s/INSTANCES/%s/TASKCURRENTSTATES/%s/%s", clusterName, instanceName, sessionId,
-            resourceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/TASKCURRENTSTATES/" + sessionId
+        + "/" + resourceName;
   }
 
   public static String instanceCustomizedState(String clusterName, String instanceName) {
-    return String.format("/%s/INSTANCES/%s/CUSTOMIZEDSTATES", clusterName, instanceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/CUSTOMIZEDSTATES";
   }
 
   public static String instanceCustomizedState(String clusterName, String instanceName,
       String customizedStateName) {
-    return String.format("/%s/INSTANCES/%s/CUSTOMIZEDSTATES/%s", clusterName, instanceName, customizedStateName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/CUSTOMIZEDSTATES/"
+        + customizedStateName;
   }
 
   public static String instanceCustomizedState(String clusterName, String instanceName,
       String customizedStateName, String resourceName) {
-    return String.format("/%s/INSTANCES/%s/CUSTOMIZEDSTATES/%s/%s", clusterName, instanceName,
-        customizedStateName, resourceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/CUSTOMIZEDSTATES/"
+        + customizedStateName + "/" + resourceName;
   }
   public static String instanceError(String clusterName, String instanceName) {
-    return String.format("/%s/INSTANCES/%s/ERRORS", clusterName, instanceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/ERRORS";
   }
 
   public static String instanceError(String clusterName, String instanceName, String sessionId,
       String resourceName, String partitionName) {
-    return String.format("/%s/INSTANCES/%s/ERRORS/%s/%s/%s", clusterName, instanceName, sessionId,
-        resourceName, partitionName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/ERRORS/" + sessionId + "/"
+        + resourceName + "/" + partitionName;
   }
 
   public static String instanceHistory(String clusterName, String instanceName) {
-    return String.format("/%s/INSTANCES/%s/HISTORY", clusterName, instanceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/HISTORY";
   }
 
   public static String instanceStatusUpdate(String clusterName, String instanceName) {
-    return String.format("/%s/INSTANCES/%s/STATUSUPDATES", clusterName, instanceName);
+    return "/" + clusterName + "/INSTANCES/" + instanceName + "/STATUSUPDATES";
   }
 
   public static String propertyStore(String clusterName) {
-    return String.format("/%s/PROPERTYSTORE", clusterName);
+    return "/" + clusterName + "/PROPERTYSTORE";
   }
 
   public static String clusterConfig(String clusterName) {
-    return String.format("/%s/CONFIGS/CLUSTER/%s", clusterName, clusterName);
+    return "/" + clusterName + "/CONFIGS/CLUSTER/" + clusterName;
   }
 
   public static String instanceConfig(String clusterName) {
-    return String.format("/%s/CONFIGS/PARTICIPANT", clusterName);
+    return "/" + clusterName + "/CONFIGS/PARTICIPANT";
   }
 
   public static String instanceConfig(String clusterName, String instanceName) {
-    return String.format("/%s/CONFIGS/PARTICIPANT/%s", clusterName, instanceName);
+    return "/" + clusterName + "/CONFIGS/PARTICIPANT/" + instanceName;
   }
 
   public static String resourceConfig(String clusterName) {
-    return String.format("/%s/CONFIGS/RESOURCE", clusterName);
+    return "/" + clusterName + "/CONFIGS/RESOURCE";
   }
 
   public static String customizedStateConfig(String clusterName) {
-    return String.format("/%s/CONFIGS/CUSTOMIZED_STATE", clusterName);
+    return "/" + clusterName + "/CONFIGS/CUSTOMIZED_STATE";
   }
 
   public static String controller(String clusterName) {
-    return String.format("/%s/CONTROLLER", clusterName);
+    return "/" + clusterName + "/CONTROLLER";
   }
 
   public static String controllerLeader(String clusterName) {
-    return String.format("/%s/CONTROLLER/LEADER", clusterName);
+    return "/" + clusterName + "/CONTROLLER/LEADER";
   }
 
   public static String controllerMessage(String clusterName) {
-    return String.format("/%s/CONTROLLER/MESSAGES", clusterName);
+    return "/" + clusterName + "/CONTROLLER/MESSAGES";
   }
 
   public static String controllerMessage(String clusterName, String messageId) {
-    return String.format("/%s/CONTROLLER/MESSAGES/%s", clusterName, messageId);
+    return "/" + clusterName + "/CONTROLLER/MESSAGES/" + messageId;
   }
 
   public static String controllerStatusUpdate(String clusterName) {
-    return String.format("/%s/CONTROLLER/STATUSUPDATES", clusterName);
+    return "/" + clusterName + "/CONTROLLER/STATUSUPDATES";
   }
 
   public static String controllerStatusUpdate(String clusterName, String subPath,
       String recordName) {
-    return String.format("/%s/CONTROLLER/STATUSUPDATES/%s/%s", clusterName, subPath, recordName);
+    return "/" + clusterName + "/CONTROLLER/STATUSUPDATES/" + subPath + "/" + recordName;
   }
 
   public static String controllerError(String clusterName) {
-    return String.format("/%s/CONTROLLER/ERRORS", clusterName);
+    return "/" + clusterName + "/CONTROLLER/ERRORS";
   }
 
   public static String controllerHistory(String clusterName) {
-    return String.format("/%s/CONTROLLER/HISTORY", clusterName);
+    return "/" + clusterName + "/CONTROLLER/HISTORY";
   }
 
   public static String pause(String clusterName) {
-    return String.format("/%s/CONTROLLER/PAUSE", clusterName);
+    return "/" + clusterName + "/CONTROLLER/PAUSE";
   }
 
   public static String maintenance(String clusterName) {
-    return String.format("/%s/CONTROLLER/MAINTENANCE", clusterName);
+    return "/" + clusterName + "/CONTROLLER/MAINTENANCE";
   }
 
   public static String clusterStatus(String clusterName) {
-    return String.format("/%s/STATUS/CLUSTER/%s", clusterName, clusterName);
+    return "/" + clusterName + "/STATUS/CLUSTER/" + clusterName;
   }
 }
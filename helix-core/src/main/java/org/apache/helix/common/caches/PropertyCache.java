@@ -89,6 +89,9 @@ public class PropertyCache<T extends HelixProperty> extends AbstractDataCache<T>
   private final String _propertyDescription;
   private final boolean _useSelectiveUpdate;
   private final PropertyCacheKeyFuncs<T> _keyFuncs;
+  // The optional on-disk snapshot of the cached properties, null if not enabled
+  private final PropertySnapshotStore _snapshotStore;
+  private boolean _snapshotLoaded = false;
 
   public PropertyCache(ControlContextProvider contextProvider, String propertyDescription,
       PropertyCacheKeyFuncs<T> keyFuncs, boolean useSelectiveUpdate) {
@@ -98,6 +101,10 @@ public class PropertyCache<T extends HelixProperty> extends AbstractDataCache<T>
     _objMap = new HashMap<>();
     _objCache = new HashMap<>();
     _useSelectiveUpdate = useSelectiveUpdate;
+    // The snapshot relies on the stat validation of the selective update
+    _snapshotStore = useSelectiveUpdate ? PropertySnapshotStore
+        .create(contextProvider.getClusterName(), contextProvider.getPipelineName(),
+            propertyDescription) : null;
   }
 
   static class SelectivePropertyRefreshInputs<K extends HelixProperty> {
@@ -170,11 +177,22 @@ public class PropertyCache<T extends HelixProperty> extends AbstractDataCache<T>
   }
 
   private void doRefreshWithSelectiveUpdate(final HelixDataAccessor accessor) {
+    if (_snapshotStore != null && !_snapshotLoaded) {
+      _snapshotLoaded = true;
+      if (_objCache.isEmpty()) {
+        // Start from the snapshot, the stale properties are reloaded by the selective update
+        _objCache = _snapshotStore
+            .load((Class<T>) _keyFuncs.getRootKey(accessor).getTypeClass());
+      }
+    }
     SelectivePropertyRefreshInputs<T> input =
         genSelectiveUpdateInput(accessor, _objCache, _keyFuncs);
     Map<PropertyKey, T> updatedData = refreshProperties(accessor, new HashSet<>(input.getReloadKeys()),
         input.getCachedKeys(), input.getCachedPropertyMap(), new HashSet<>());
     _objCache = propertyKeyMapToStringMap(updatedData, _keyFuncs);
+    if (_snapshotStore != null) {
+      _snapshotStore.update(_objCache);
+    }
 
     // need to separate keys so we can potentially update cache map asynchronously while
     // keeping snapshot unchanged
@@ -0,0 +1,224 @@
+package org.apache.helix.common.caches;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.helix.HelixProperty;
+import org.apache.helix.SystemPropertyKeys;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A local on-disk snapshot of the properties of a {@link PropertyCache}. A controller that starts,
+ * or gains leadership, with an empty cache loads the snapshot, and the selective refresh then
+ * validates the loaded properties against the ZooKeeper stats in bulk, so only the changed znodes
+ * are read.
+ * The records are serialized when they are read from ZooKeeper, before the pipeline can modify
+ * them, and the snapshot file is rewritten asynchronously after the refreshes that change it.
+ * The file is stored as [magic][format version][entry count] followed by the entries, each as
+ * [name length][name][version][creation time][modified time][ephemeral owner][record length]
+ * [serialized record].
+ */
+public class PropertySnapshotStore {
+  private static final Logger LOG = LoggerFactory.getLogger(PropertySnapshotStore.class);
+
+  private static final int MAGIC = 0x48505353;
+  private static final int FORMAT_VERSION = 1;
+
+  // The snapshot files of all the caches in the JVM are written by one background thread
+  private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "PropertySnapshotStore-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final File _file;
+  private final ZNRecordSerializer _serializer = new ZNRecordSerializer();
+  // The serialized properties, by the names used by the cache
+  private Map<String, SnapshotEntry> _entries = new HashMap<>();
+  // The latest entries to write, null if there is no pending write
+  private final AtomicReference<Map<String, SnapshotEntry>> _pendingWrite =
+      new AtomicReference<>();
+
+  private static class SnapshotEntry {
+    private final HelixProperty.Stat _stat;
+    private final byte[] _data;
+
+    SnapshotEntry(HelixProperty.Stat stat, byte[] data) {
+      _stat = stat;
+      _data = data;
+    }
+  }
+
+  /**
+   * Create the snapshot store of a property cache, if the snapshot directory is configured.
+   * @param clusterName the cluster name
+   * @param pipelineName the pipeline name, the caches of each pipeline have their own snapshots
+   * @param propertyDescription the description of the cached property
+   * @return the snapshot store, or null if the snapshot is not enabled
+   */
+  public static PropertySnapshotStore create(String clusterName, String pipelineName,
+      String propertyDescription) {
+    String directory = System.getProperty(SystemPropertyKeys.CONTROLLER_PROPERTY_SNAPSHOT_DIR);
+    if (directory == null || directory.isEmpty()) {
+      return null;
+    }
+    return new PropertySnapshotStore(new File(new File(directory, clusterName),
+        pipelineName + "-" + propertyDescription + ".snapshot"));
+  }
+
+  PropertySnapshotStore(File file) {
+    _file = file;
+  }
+
+  /**
+   * Load the properties of the snapshot file. Any failure is logged and an empty map is returned,
+   * in which case the cache is refreshed from ZooKeeper as if there were no snapshot.
+   * @param clazz the class of the properties
+   * @return the properties by their names in the cache
+   */
+  public synchronized <T extends HelixProperty> Map<String, T> load(Class<T> clazz) {
+    Map<String, T> properties = new HashMap<>();
+    if (!_file.exists()) {
+      return properties;
+    }
+    Map<String, SnapshotEntry> entries = new HashMap<>();
+    try (RandomAccessFile file = new RandomAccessFile(_file, "r")) {
+      ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+        LOG.warn("Ignore the property snapshot {} of an unknown format.", _file);
+        return properties;
+      }
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        String name = new String(readBytes(buffer), StandardCharsets.UTF_8);
+        HelixProperty.Stat stat =
+            new HelixProperty.Stat(buffer.getInt(), buffer.getLong(), buffer.getLong(),
+                buffer.getLong());
+        byte[] data = readBytes(buffer);
+        ZNRecord record = (ZNRecord) _serializer.deserialize(data);
+        record.setVersion(stat.getVersion());
+        record.setCreationTime(stat.getCreationTime());
+        record.setModifiedTime(stat.getModifiedTime());
+        record.setEphemeralOwner(stat.getEphemeralOwner());
+        properties.put(name, HelixProperty.convertToTypedInstance(clazz, record));
+        entries.put(name, new SnapshotEntry(stat, data));
+      }
+    } catch (Exception e) {
+      LOG.warn("Failed to load the property snapshot {}, ignore it.", _file, e);
+      return new HashMap<>();
+    }
+    _entries = entries;
+    LOG.info("Loaded {} properties from the snapshot {}.", properties.size(), _file);
+    return properties;
+  }
+
+  /**
+   * Update the snapshot with the refreshed properties of the cache. Only the properties whose
+   * stats changed are serialized, and the file is written asynchronously if anything changed.
+   * @param properties the properties of the cache, by their names
+   */
+  public synchronized <T extends HelixProperty> void update(Map<String, T> properties) {
+    Map<String, SnapshotEntry> entries = new HashMap<>();
+    boolean changed = properties.size() != _entries.size();
+    for (Map.Entry<String, T> property : properties.entrySet()) {
+      HelixProperty.Stat stat = property.getValue().getStat();
+      SnapshotEntry entry = _entries.get(property.getKey());
+      if (entry == null || !entry._stat.equals(stat)) {
+        changed = true;
+        try {
+          entry = new SnapshotEntry(new HelixProperty.Stat(stat),
+              _serializer.serialize(property.getValue().getRecord()));
+        } catch (Exception e) {
+          // The property is left out of the snapshot, and is read from ZooKeeper after a restart
+          LOG.warn("Failed to serialize property {} for the snapshot {}.", property.getKey(), _file,
+              e);
+          continue;
+        }
+      }
+      entries.put(property.getKey(), entry);
+    }
+    _entries = entries;
+    if (changed && _pendingWrite.getAndSet(entries) == null) {
+      WRITER.submit(this::write);
+    }
+  }
+
+  private void write() {
+    Map<String, SnapshotEntry> entries = _pendingWrite.getAndSet(null);
+    if (entries == null) {
+      return;
+    }
+    File directory = _file.getParentFile();
+    File tmpFile = new File(directory, _file.getName() + ".tmp");
+    try {
+      if (!directory.exists() && !directory.mkdirs()) {
+        throw new IOException("Failed to create the snapshot directory " + directory);
+      }
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, SnapshotEntry> entry : entries.entrySet()) {
+          byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+          HelixProperty.Stat stat = entry.getValue()._stat;
+          out.writeInt(name.length);
+          out.write(name);
+          out.writeInt(stat.getVersion());
+          out.writeLong(stat.getCreationTime());
+          out.writeLong(stat.getModifiedTime());
+          out.writeLong(stat.getEphemeralOwner());
+          out.writeInt(entry.getValue()._data.length);
+          out.write(entry.getValue()._data);
+        }
+      }
+      // Replace the snapshot atomically, so a crash never leaves a partial snapshot
+      Files.move(tmpFile.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (Exception e) {
+      LOG.warn("Failed to write the property snapshot {}.", _file, e);
+    }
+  }
+
+  private static byte[] readBytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,138 @@
+package org.apache.helix.controller.changedetector;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.helix.HelixProperty;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+
+/**
+ * PropertyFingerprint is a cheap change signal of a property recorded in a
+ * ResourceChangeSnapshot. It contains the property object read by the controller cache, the
+ * ZNode stat of that object, and a 64-bit hash of the recorded (possibly trimmed) content.
+ * Since the controller cache keeps the same property object until its ZNode changes, the
+ * fingerprint of a property is computed once and carried over to the following snapshots for as
+ * long as the property is not changed.
+ */
+class PropertyFingerprint {
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final HelixProperty _source;
+  private final int _version;
+  private final long _creationTime;
+  private final long _modifiedTime;
+  // A bucketized record is assembled from the child ZNodes, so the stat of the parent ZNode
+  // does not reflect all the changes.
+  private final boolean _hasZNodeStat;
+  private final long _contentHash;
+
+  /**
+   * @param source the property in the controller cache
+   * @param recorded the property recorded in the snapshot, which is the trimmed copy of the
+   *                 source if the non-topology changes are ignored
+   */
+  PropertyFingerprint(HelixProperty source, HelixProperty recorded) {
+    ZNRecord record = source.getRecord();
+    _source = source;
+    _version = record.getVersion();
+    _creationTime = record.getCreationTime();
+    _modifiedTime = record.getModifiedTime();
+    _hasZNodeStat = _creationTime > 0 && source.getBucketSize() <= 0;
+    _contentHash = hash(recorded.getRecord());
+  }
+
+  HelixProperty getSource() {
+    return _source;
+  }
+
+  /**
+   * @return true if the two fingerprints are for the same property object, or for two objects
+   *         read from the same version of a ZNode
+   */
+  boolean isSameSource(PropertyFingerprint other) {
+    if (_source == other._source) {
+      return true;
+    }
+    return _hasZNodeStat && other._hasZNodeStat && _version == other._version
+        && _creationTime == other._creationTime && _modifiedTime == other._modifiedTime;
+  }
+
+  /**
+   * @return false if the recorded contents are definitely different. A true result might be a
+   *         hash collision, so it needs to be confirmed by comparing the contents.
+   */
+  boolean mayHaveSameContent(PropertyFingerprint other) {
+    return _contentHash == other._contentHash;
+  }
+
+  /**
+   * Compute a 64-bit hash of the simple, list and map fields of the record. The entries are
+   * combined by addition so the hash does not depend on the iteration order of the maps.
+   */
+  static long hash(ZNRecord record) {
+    long hash = 0;
+    for (Map.Entry<String, String> entry : record.getSimpleFields().entrySet()) {
+      hash += mix(hash(hash(FNV_OFFSET_BASIS, entry.getKey()), entry.getValue()));
+    }
+    for (Map.Entry<String, List<String>> entry : record.getListFields().entrySet()) {
+      // List fields are ordered, so the elements are hashed in sequence
+      long entryHash = hash(FNV_OFFSET_BASIS, entry.getKey());
+      if (entry.getValue() != null) {
+        for (String value : entry.getValue()) {
+          entryHash = hash(entryHash, value);
+        }
+      }
+      hash += mix(entryHash ^ 0x1L);
+    }
+    for (Map.Entry<String, Map<String, String>> entry : record.getMapFields().entrySet()) {
+      long valueHash = 0;
+      if (entry.getValue() != null) {
+        for (Map.Entry<String, String> valueEntry : entry.getValue().entrySet()) {
+          valueHash +=
+              mix(hash(hash(FNV_OFFSET_BASIS, valueEntry.getKey()), valueEntry.getValue()));
+        }
+      }
+      hash += mix(hash(FNV_OFFSET_BASIS, entry.getKey()) ^ mix(valueHash) ^ 0x2L);
+    }
+    return hash;
+  }
+
+  // FNV-1a over the chars of the string. A null string is hashed differently from "".
+  private static long hash(long hash, String str) {
+    if (str == null) {
+      return (hash ^ 0xffL) * FNV_PRIME;
+    }
+    for (int i = 0; i < str.length(); i++) {
+      hash = (hash ^ str.charAt(i)) * FNV_PRIME;
+    }
+    // Terminate the string so the concatenated strings are hashed differently
+    return (hash ^ 0xfeL) * FNV_PRIME;
+  }
+
+  // The finalizer of SplitMix64, so the sum of the entry hashes is well distributed
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -64,21 +64,41 @@ public class ResourceChangeDetector implements ChangeDetector {
 
   /**
    * Compare the underlying HelixProperty objects and produce a collection of names of changed
-   * properties.
+   * properties. The fingerprints are checked first, so the records are only compared if the
+   * property has been re-read from a changed ZNode but its recorded content might be the same.
    * @return
    */
   private Collection<String> getChangedItems(Map<String, ? extends HelixProperty> oldPropertyMap,
-      Map<String, ? extends HelixProperty> newPropertyMap) {
+      Map<String, ? extends HelixProperty> newPropertyMap,
+      Map<String, PropertyFingerprint> oldFingerprints,
+      Map<String, PropertyFingerprint> newFingerprints) {
     Collection<String> changedItems = new HashSet<>();
     oldPropertyMap.forEach((name, property) -> {
-      if (newPropertyMap.containsKey(name)
-          && !property.getRecord().equals(newPropertyMap.get(name).getRecord())) {
+      HelixProperty newProperty = newPropertyMap.get(name);
+      if (newProperty != null && !isSameContent(property, newProperty, oldFingerprints.get(name),
+          newFingerprints.get(name))) {
         changedItems.add(name);
       }
     });
     return changedItems;
   }
 
+  private boolean isSameContent(HelixProperty oldProperty, HelixProperty newProperty,
+      PropertyFingerprint oldFingerprint, PropertyFingerprint newFingerprint) {
+    if (oldProperty == newProperty) {
+      return true;
+    }
+    if (oldFingerprint != null && newFingerprint != null) {
+      if (oldFingerprint.isSameSource(newFingerprint)) {
+        return true;
+      }
+      if (!oldFingerprint.mayHaveSameContent(newFingerprint)) {
+        return false;
+      }
+    }
+    return oldProperty.getRecord().equals(newProperty.getRecord());
+  }
+
   /**
    * Return a collection of names that are newly added.
    * @return
@@ -135,6 +155,28 @@ public class ResourceChangeDetector implements ChangeDetector {
     }
   }
 
+  /**
+   * Based on the change type given, return the fingerprints of the properties in the snapshot.
+   * @param changeType
+   * @param snapshot
+   * @return
+   */
+  private Map<String, PropertyFingerprint> determineFingerprintMapByType(
+      HelixConstants.ChangeType changeType, ResourceChangeSnapshot snapshot) {
+    switch (changeType) {
+    case INSTANCE_CONFIG:
+      return snapshot.getInstanceConfigFingerprints();
+    case IDEAL_STATE:
+      return snapshot.getIdealStateFingerprints();
+    case RESOURCE_CONFIG:
+      return snapshot.getResourceConfigFingerprints();
+    case LIVE_INSTANCE:
+      return snapshot.getLiveInstanceFingerprints();
+    default:
+      return Collections.emptyMap();
+    }
+  }
+
   /**
    * Makes the current newSnapshot the oldSnapshot and reads in the up-to-date snapshot for change
    * computation. To be called in the controller pipeline.
@@ -143,7 +185,8 @@ public class ResourceChangeDetector implements ChangeDetector {
   public synchronized void updateSnapshots(ResourceControllerDataProvider dataProvider) {
     // If there are changes, update internal states
     _oldSnapshot = new ResourceChangeSnapshot(_newSnapshot);
-    _newSnapshot = new ResourceChangeSnapshot(dataProvider, _ignoreNonTopologyChange);
+    _newSnapshot =
+        new ResourceChangeSnapshot(dataProvider, _ignoreNonTopologyChange, _oldSnapshot);
     dataProvider.clearRefreshedChangeTypes();
 
     // Invalidate cached computation
@@ -164,7 +207,9 @@ public class ResourceChangeDetector implements ChangeDetector {
   public synchronized Collection<String> getChangesByType(HelixConstants.ChangeType changeType) {
     return _changedItems.computeIfAbsent(changeType,
         changedItems -> getChangedItems(determinePropertyMapByType(changeType, _oldSnapshot),
-            determinePropertyMapByType(changeType, _newSnapshot)));
+            determinePropertyMapByType(changeType, _newSnapshot),
+            determineFingerprintMapByType(changeType, _oldSnapshot),
+            determineFingerprintMapByType(changeType, _newSnapshot)));
   }
 
   @Override
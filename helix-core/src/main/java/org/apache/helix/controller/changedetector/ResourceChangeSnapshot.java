@@ -23,9 +23,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.helix.HelixConstants;
+import org.apache.helix.HelixProperty;
 import org.apache.helix.controller.changedetector.trimmer.ClusterConfigTrimmer;
 import org.apache.helix.controller.changedetector.trimmer.IdealStateTrimmer;
 import org.apache.helix.controller.changedetector.trimmer.InstanceConfigTrimmer;
@@ -55,6 +57,11 @@ class ResourceChangeSnapshot {
   private Map<String, ResourceConfig> _resourceConfigMap;
   private Map<String, LiveInstance> _liveInstances;
   private ClusterConfig _clusterConfig;
+  // The change signals of the recorded properties, keyed by the property names
+  private Map<String, PropertyFingerprint> _instanceConfigFingerprints;
+  private Map<String, PropertyFingerprint> _idealStateFingerprints;
+  private Map<String, PropertyFingerprint> _resourceConfigFingerprints;
+  private Map<String, PropertyFingerprint> _liveInstanceFingerprints;
 
   /**
    * Default constructor that constructs an empty snapshot.
@@ -66,40 +73,85 @@ class ResourceChangeSnapshot {
     _resourceConfigMap = new HashMap<>();
     _liveInstances = new HashMap<>();
     _clusterConfig = null;
+    _instanceConfigFingerprints = new HashMap<>();
+    _idealStateFingerprints = new HashMap<>();
+    _resourceConfigFingerprints = new HashMap<>();
+    _liveInstanceFingerprints = new HashMap<>();
   }
 
   /**
-   * Constructor using controller cache (ResourceControllerDataProvider).
+   * Constructor using controller cache (ResourceControllerDataProvider). The recorded properties
+   * and the fingerprints of the previous snapshot are reused for the properties that are still
+   * the same objects in the cache, so the unchanged properties are neither trimmed nor hashed
+   * again.
    *
    * @param dataProvider
    * @param ignoreNonTopologyChange if true, the snapshot won't record any trivial changes that
    *                                 do not impact the fundamental structure of the cluster.
    *                                 For example, instance disabled or not, rebalance throttling
    *                                 configurations, resource disabled or not, etc.
+   * @param previousSnapshot the snapshot taken in the previous pipeline run
    */
   ResourceChangeSnapshot(ResourceControllerDataProvider dataProvider,
-      boolean ignoreNonTopologyChange) {
+      boolean ignoreNonTopologyChange, ResourceChangeSnapshot previousSnapshot) {
     _changedTypes = new HashSet<>(dataProvider.getRefreshedChangeTypes());
 
-    _instanceConfigMap = ignoreNonTopologyChange ?
-        dataProvider.getInstanceConfigMap().entrySet().parallelStream().collect(Collectors
-            .toMap(e -> e.getKey(),
-                e -> InstanceConfigTrimmer.getInstance().trimProperty(e.getValue()))) :
-        new HashMap<>(dataProvider.getInstanceConfigMap());
-    _idealStateMap = ignoreNonTopologyChange ?
-        dataProvider.getIdealStates().entrySet().parallelStream().collect(Collectors
-            .toMap(e -> e.getKey(),
-                e -> IdealStateTrimmer.getInstance().trimProperty(e.getValue()))) :
-        new HashMap<>(dataProvider.getIdealStates());
-    _resourceConfigMap = ignoreNonTopologyChange ?
-        dataProvider.getResourceConfigMap().entrySet().parallelStream().collect(Collectors
-            .toMap(e -> e.getKey(),
-                e -> ResourceConfigTrimmer.getInstance().trimProperty(e.getValue()))) :
-        new HashMap<>(dataProvider.getResourceConfigMap());
+    _instanceConfigFingerprints = new HashMap<>();
+    _instanceConfigMap = recordProperties(dataProvider.getInstanceConfigMap(),
+        previousSnapshot._instanceConfigMap, previousSnapshot._instanceConfigFingerprints,
+        _instanceConfigFingerprints,
+        ignoreNonTopologyChange ? InstanceConfigTrimmer.getInstance()::trimProperty : null);
+    _idealStateFingerprints = new HashMap<>();
+    _idealStateMap = recordProperties(dataProvider.getIdealStates(),
+        previousSnapshot._idealStateMap, previousSnapshot._idealStateFingerprints,
+        _idealStateFingerprints,
+        ignoreNonTopologyChange ? IdealStateTrimmer.getInstance()::trimProperty : null);
+    _resourceConfigFingerprints = new HashMap<>();
+    _resourceConfigMap = recordProperties(dataProvider.getResourceConfigMap(),
+        previousSnapshot._resourceConfigMap, previousSnapshot._resourceConfigFingerprints,
+        _resourceConfigFingerprints,
+        ignoreNonTopologyChange ? ResourceConfigTrimmer.getInstance()::trimProperty : null);
     _clusterConfig = ignoreNonTopologyChange ?
         ClusterConfigTrimmer.getInstance().trimProperty(dataProvider.getClusterConfig()) :
         dataProvider.getClusterConfig();
-    _liveInstances = new HashMap<>(dataProvider.getLiveInstances());
+    _liveInstanceFingerprints = new HashMap<>();
+    _liveInstances = recordProperties(dataProvider.getLiveInstances(),
+        previousSnapshot._liveInstances, previousSnapshot._liveInstanceFingerprints,
+        _liveInstanceFingerprints, null);
+  }
+
+  /**
+   * Record the properties of the cache in the snapshot, and compute their fingerprints.
+   * @param sourceMap the properties in the controller cache
+   * @param previousMap the properties recorded in the previous snapshot
+   * @param previousFingerprints the fingerprints of the previous snapshot
+   * @param fingerprints output, the fingerprints of the recorded properties
+   * @param trimmer the trimmer of the properties, or null if the properties are not trimmed
+   * @return the recorded properties
+   */
+  private static <T extends HelixProperty> Map<String, T> recordProperties(
+      Map<String, T> sourceMap, Map<String, T> previousMap,
+      Map<String, PropertyFingerprint> previousFingerprints,
+      Map<String, PropertyFingerprint> fingerprints, Function<T, T> trimmer) {
+    Map<String, T> recordedMap = new HashMap<>();
+    Map<String, T> changedSourceMap = new HashMap<>();
+    sourceMap.forEach((name, source) -> {
+      PropertyFingerprint previous = previousFingerprints.get(name);
+      if (previous != null && previous.getSource() == source) {
+        recordedMap.put(name, previousMap.get(name));
+        fingerprints.put(name, previous);
+      } else {
+        changedSourceMap.put(name, source);
+      }
+    });
+    Map<String, T> changedRecordedMap = trimmer == null ? changedSourceMap :
+        changedSourceMap.entrySet().parallelStream()
+            .collect(Collectors.toMap(e -> e.getKey(), e -> trimmer.apply(e.getValue())));
+    recordedMap.putAll(changedRecordedMap);
+    fingerprints.putAll(changedRecordedMap.entrySet().parallelStream().collect(Collectors
+        .toMap(e -> e.getKey(),
+            e -> new PropertyFingerprint(changedSourceMap.get(e.getKey()), e.getValue()))));
+    return recordedMap;
   }
 
   /**
@@ -113,6 +165,10 @@ class ResourceChangeSnapshot {
     _resourceConfigMap = new HashMap<>(snapshot._resourceConfigMap);
     _liveInstances = new HashMap<>(snapshot._liveInstances);
     _clusterConfig = snapshot._clusterConfig;
+    _instanceConfigFingerprints = new HashMap<>(snapshot._instanceConfigFingerprints);
+    _idealStateFingerprints = new HashMap<>(snapshot._idealStateFingerprints);
+    _resourceConfigFingerprints = new HashMap<>(snapshot._resourceConfigFingerprints);
+    _liveInstanceFingerprints = new HashMap<>(snapshot._liveInstanceFingerprints);
   }
 
   Set<HelixConstants.ChangeType> getChangedTypes() {
@@ -138,4 +194,20 @@ class ResourceChangeSnapshot {
   ClusterConfig getClusterConfig() {
     return _clusterConfig;
   }
+
+  Map<String, PropertyFingerprint> getInstanceConfigFingerprints() {
+    return _instanceConfigFingerprints;
+  }
+
+  Map<String, PropertyFingerprint> getIdealStateFingerprints() {
+    return _idealStateFingerprints;
+  }
+
+  Map<String, PropertyFingerprint> getResourceConfigFingerprints() {
+    return _resourceConfigFingerprints;
+  }
+
+  Map<String, PropertyFingerprint> getLiveInstanceFingerprints() {
+    return _liveInstanceFingerprints;
+  }
 }
@@ -0,0 +1,436 @@
+package org.apache.helix.controller.common;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.apache.helix.SystemPropertyKeys;
+import org.apache.helix.model.Partition;
+
+/**
+ * A compact partition->{Instance, State} map of a resource. The instance names and the states
+ * are interned into int ids of the table, and the {Instance, State} pairs of a partition are
+ * stored in one int array, instead of a HashMap per partition.
+ * The instance state maps returned by this map are views backed by the table, so the changes
+ * made through them are written to the table. Unlike a HashMap, an instance state map put into
+ * the table is copied, so the later changes on the given map are not reflected. The compute
+ * methods return the view of the stored map instead of the computed one for the same reason.
+ * WARNING: the methods of this class are not thread-safe.
+ */
+public class ColumnarStateTable extends AbstractMap<Partition, Map<String, String>> {
+  private static final boolean COLUMNAR_STATE_MAP_ENABLED =
+      Boolean.getBoolean(SystemPropertyKeys.CONTROLLER_COLUMNAR_STATE_MAP);
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int[] EMPTY_ROW = new int[0];
+
+  // The ids are scoped to the table, so they are released together with the table. A resource
+  // only has a few distinct instance names and states compared with its partition replicas.
+  private final IdPool _instanceIds = new IdPool();
+  private final IdPool _stateIds = new IdPool();
+
+  private final Map<Partition, Integer> _rowIndex = new HashMap<>();
+  private Partition[] _partitions = new Partition[INITIAL_CAPACITY];
+  // row -> [instance id, state id, instance id, state id, ...]
+  private int[][] _rows = new int[INITIAL_CAPACITY][];
+  private int _rowCount = 0;
+
+  /**
+   * @return a new partition->{Instance, State} map. It is a ColumnarStateTable if the columnar
+   *         state map is enabled by {@link SystemPropertyKeys#CONTROLLER_COLUMNAR_STATE_MAP},
+   *         otherwise a HashMap.
+   */
+  public static Map<Partition, Map<String, String>> newPartitionStateMap() {
+    return COLUMNAR_STATE_MAP_ENABLED ? new ColumnarStateTable() : new HashMap<>();
+  }
+
+  @Override
+  public int size() {
+    return _rowCount;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return _rowIndex.containsKey(key);
+  }
+
+  @Override
+  public Map<String, String> get(Object key) {
+    if (!_rowIndex.containsKey(key)) {
+      return null;
+    }
+    return new Row((Partition) key);
+  }
+
+  @Override
+  public Map<String, String> put(Partition partition, Map<String, String> instanceStateMap) {
+    int[] row = new int[instanceStateMap.size() * 2];
+    int i = 0;
+    for (Map.Entry<String, String> entry : instanceStateMap.entrySet()) {
+      row[i++] = _instanceIds.intern(entry.getKey());
+      row[i++] = _stateIds.intern(entry.getValue());
+    }
+    Integer index = _rowIndex.get(partition);
+    if (index != null) {
+      Map<String, String> previous = toMap(_rows[index]);
+      _rows[index] = row;
+      return previous;
+    }
+    addRow(partition, row);
+    return null;
+  }
+
+  @Override
+  public Map<String, String> computeIfAbsent(Partition partition,
+      Function<? super Partition, ? extends Map<String, String>> mappingFunction) {
+    Map<String, String> instanceStateMap = get(partition);
+    if (instanceStateMap == null) {
+      Map<String, String> newInstanceStateMap = mappingFunction.apply(partition);
+      if (newInstanceStateMap != null) {
+        put(partition, newInstanceStateMap);
+        instanceStateMap = get(partition);
+      }
+    }
+    return instanceStateMap;
+  }
+
+  @Override
+  public Map<String, String> computeIfPresent(Partition partition,
+      BiFunction<? super Partition, ? super Map<String, String>,
+          ? extends Map<String, String>> remappingFunction) {
+    return toView(partition, super.computeIfPresent(partition, remappingFunction));
+  }
+
+  @Override
+  public Map<String, String> compute(Partition partition,
+      BiFunction<? super Partition, ? super Map<String, String>,
+          ? extends Map<String, String>> remappingFunction) {
+    return toView(partition, super.compute(partition, remappingFunction));
+  }
+
+  @Override
+  public Map<String, String> merge(Partition partition, Map<String, String> value,
+      BiFunction<? super Map<String, String>, ? super Map<String, String>,
+          ? extends Map<String, String>> remappingFunction) {
+    return toView(partition, super.merge(partition, value, remappingFunction));
+  }
+
+  /**
+   * @return the view of the stored map of the partition in place of the map that has been copied
+   *         into the table, or null if the partition has been removed
+   */
+  private Map<String, String> toView(Partition partition, Map<String, String> result) {
+    return result == null ? null : get(partition);
+  }
+
+  @Override
+  public Map<String, String> remove(Object key) {
+    Integer index = _rowIndex.remove(key);
+    if (index == null) {
+      return null;
+    }
+    Map<String, String> previous = toMap(_rows[index]);
+    // Move the last row to the removed slot to keep the rows dense
+    int last = --_rowCount;
+    if (index != last) {
+      _partitions[index] = _partitions[last];
+      _rows[index] = _rows[last];
+      _rowIndex.put(_partitions[index], index);
+    }
+    _partitions[last] = null;
+    _rows[last] = null;
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    _rowIndex.clear();
+    Arrays.fill(_partitions, 0, _rowCount, null);
+    Arrays.fill(_rows, 0, _rowCount, null);
+    _rowCount = 0;
+  }
+
+  @Override
+  public Set<Map.Entry<Partition, Map<String, String>>> entrySet() {
+    return new AbstractSet<Map.Entry<Partition, Map<String, String>>>() {
+      @Override
+      public Iterator<Map.Entry<Partition, Map<String, String>>> iterator() {
+        return new Iterator<Map.Entry<Partition, Map<String, String>>>() {
+          private int _next = 0;
+          private Partition _current = null;
+
+          @Override
+          public boolean hasNext() {
+            return _next < _rowCount;
+          }
+
+          @Override
+          public Map.Entry<Partition, Map<String, String>> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            _current = _partitions[_next++];
+            return new SimpleEntry<Partition, Map<String, String>>(_current, new Row(_current)) {
+              @Override
+              public Map<String, String> setValue(Map<String, String> value) {
+                return ColumnarStateTable.this.put(getKey(), value);
+              }
+            };
+          }
+
+          @Override
+          public void remove() {
+            if (_current == null) {
+              throw new IllegalStateException();
+            }
+            ColumnarStateTable.this.remove(_current);
+            // The last row has been moved to the slot of the removed one
+            _next--;
+            _current = null;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return _rowCount;
+      }
+    };
+  }
+
+  private void addRow(Partition partition, int[] row) {
+    if (_rowCount == _rows.length) {
+      _rows = Arrays.copyOf(_rows, _rowCount * 2);
+      _partitions = Arrays.copyOf(_partitions, _rowCount * 2);
+    }
+    _partitions[_rowCount] = partition;
+    _rows[_rowCount] = row;
+    _rowIndex.put(partition, _rowCount);
+    _rowCount++;
+  }
+
+  private Map<String, String> toMap(int[] row) {
+    Map<String, String> map = new HashMap<>();
+    for (int i = 0; i < row.length; i += 2) {
+      map.put(_instanceIds.get(row[i]), _stateIds.get(row[i + 1]));
+    }
+    return map;
+  }
+
+  /**
+   * The {Instance, State} map of one partition, backed by the row of the partition.
+   * If the partition is removed from the table, putting a state through the view adds the
+   * partition back.
+   */
+  private class Row extends AbstractMap<String, String> {
+    private final Partition _partition;
+
+    Row(Partition partition) {
+      _partition = partition;
+    }
+
+    private int[] getRow() {
+      Integer index = _rowIndex.get(_partition);
+      return index == null ? EMPTY_ROW : _rows[index];
+    }
+
+    private void setRow(int[] row) {
+      Integer index = _rowIndex.get(_partition);
+      if (index == null) {
+        addRow(_partition, row);
+      } else {
+        _rows[index] = row;
+      }
+    }
+
+    private int find(int[] row, Object instance) {
+      if (instance != null && !(instance instanceof String)) {
+        return -1;
+      }
+      int instanceId = _instanceIds.getId((String) instance);
+      if (instanceId == IdPool.UNKNOWN_ID) {
+        return -1;
+      }
+      for (int i = 0; i < row.length; i += 2) {
+        if (row[i] == instanceId) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public int size() {
+      return getRow().length / 2;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return find(getRow(), key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+      int[] row = getRow();
+      int i = find(row, key);
+      return i < 0 ? null : _stateIds.get(row[i + 1]);
+    }
+
+    @Override
+    public String put(String instance, String state) {
+      int[] row = getRow();
+      int stateId = _stateIds.intern(state);
+      int i = find(row, instance);
+      if (i >= 0) {
+        String previous = _stateIds.get(row[i + 1]);
+        row[i + 1] = stateId;
+        return previous;
+      }
+      int[] newRow = Arrays.copyOf(row, row.length + 2);
+      newRow[row.length] = _instanceIds.intern(instance);
+      newRow[row.length + 1] = stateId;
+      setRow(newRow);
+      return null;
+    }
+
+    @Override
+    public String remove(Object key) {
+      int[] row = getRow();
+      int i = find(row, key);
+      if (i < 0) {
+        return null;
+      }
+      String previous = _stateIds.get(row[i + 1]);
+      int[] newRow = new int[row.length - 2];
+      System.arraycopy(row, 0, newRow, 0, i);
+      System.arraycopy(row, i + 2, newRow, i, row.length - i - 2);
+      setRow(newRow);
+      return previous;
+    }
+
+    @Override
+    public void clear() {
+      if (_rowIndex.containsKey(_partition)) {
+        setRow(EMPTY_ROW);
+      }
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+      return new AbstractSet<Map.Entry<String, String>>() {
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+          return new Iterator<Map.Entry<String, String>>() {
+            private int[] _row = getRow();
+            private int _next = 0;
+            private String _current = null;
+
+            @Override
+            public boolean hasNext() {
+              return _next < _row.length;
+            }
+
+            @Override
+            public Map.Entry<String, String> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              _current = _instanceIds.get(_row[_next]);
+              String state = _stateIds.get(_row[_next + 1]);
+              _next += 2;
+              return new SimpleEntry<String, String>(_current, state) {
+                @Override
+                public String setValue(String value) {
+                  super.setValue(value);
+                  return Row.this.put(getKey(), value);
+                }
+              };
+            }
+
+            @Override
+            public void remove() {
+              if (_current == null) {
+                throw new IllegalStateException();
+              }
+              Row.this.remove(_current);
+              _row = getRow();
+              _next -= 2;
+              _current = null;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return Row.this.size();
+        }
+      };
+    }
+  }
+
+  /**
+   * Interns strings into int ids. The ids are released together with the pool.
+   */
+  private static class IdPool {
+    static final int NULL_ID = -1;
+    static final int UNKNOWN_ID = -2;
+
+    private final Map<String, Integer> _ids = new HashMap<>();
+    private String[] _values = new String[INITIAL_CAPACITY];
+    private int _size = 0;
+
+    /**
+     * @return the id of the string, or UNKNOWN_ID if the string has never been interned
+     */
+    int getId(String value) {
+      if (value == null) {
+        return NULL_ID;
+      }
+      Integer id = _ids.get(value);
+      return id == null ? UNKNOWN_ID : id;
+    }
+
+    int intern(String value) {
+      int id = getId(value);
+      if (id != UNKNOWN_ID) {
+        return id;
+      }
+      if (_size == _values.length) {
+        _values = Arrays.copyOf(_values, _size * 2);
+      }
+      _values[_size] = value;
+      _ids.put(value, _size);
+      return _size++;
+    }
+
+    String get(int id) {
+      return id == NULL_ID ? null : _values[id];
+    }
+  }
+}
@@ -24,7 +24,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
-import java.util.stream.Collectors;
 import org.apache.helix.model.Partition;
 
 /**
@@ -37,15 +36,16 @@ public class PartitionStateMap {
 
   public PartitionStateMap(String resourceName) {
     _resourceName = resourceName;
-    _stateMap = new HashMap<>();
+    _stateMap = ColumnarStateTable.newPartitionStateMap();
   }
 
   // Deep copy of the partitionStateMap is a safer way.
   public PartitionStateMap(String resourceName, Map<Partition, Map<String, String>> partitionStateMap) {
     _resourceName = resourceName;
-    _stateMap = partitionStateMap.entrySet()
-        .stream()
-        .collect(Collectors.toMap(e -> e.getKey(), e -> new HashMap<>(e.getValue())));
+    _stateMap = ColumnarStateTable.newPartitionStateMap();
+    for (Map.Entry<Partition, Map<String, String>> entry : partitionStateMap.entrySet()) {
+      _stateMap.put(entry.getKey(), new HashMap<>(entry.getValue()));
+    }
   }
 
   public Set<Partition> partitionSet() {
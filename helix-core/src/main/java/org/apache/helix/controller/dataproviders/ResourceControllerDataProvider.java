@@ -38,6 +38,7 @@ import org.apache.helix.common.caches.PropertyCache;
 import org.apache.helix.controller.LogUtil;
 import org.apache.helix.controller.pipeline.Pipeline;
 import org.apache.helix.controller.stages.MissingTopStateRecord;
+import org.apache.helix.controller.stages.PendingTransitionChargeTracker;
 import org.apache.helix.model.CustomizedState;
 import org.apache.helix.model.CustomizedStateConfig;
 import org.apache.helix.model.CustomizedView;
@@ -76,6 +77,10 @@ public class ResourceControllerDataProvider extends BaseControllerDataProvider {
   private Map<String, Map<String, MissingTopStateRecord>> _missingTopStateMap;
   private Map<String, Map<String, String>> _lastTopStateLocationMap;
 
+  // throttle charges of the pending state transitions across pipeline runs
+  private final PendingTransitionChargeTracker _pendingTransitionChargeTracker =
+      new PendingTransitionChargeTracker();
+
   // Maintain a set of all ChangeTypes for change detection
   private Set<HelixConstants.ChangeType> _refreshedChangeTypes;
   private Set<String> _aggregationEnabledTypes = new HashSet<>();
@@ -127,8 +132,8 @@ public class ResourceControllerDataProvider extends BaseControllerDataProvider {
         return obj.getResourceName();
       }
     }, true);
-    _resourceAssignmentCache = new HashMap<>();
-    _idealMappingCache = new HashMap<>();
+    _resourceAssignmentCache = new ConcurrentHashMap<>();
+    _idealMappingCache = new ConcurrentHashMap<>();
     _missingTopStateMap = new HashMap<>();
     _lastTopStateLocationMap = new HashMap<>();
     _refreshedChangeTypes = ConcurrentHashMap.newKeySet();
@@ -150,6 +155,7 @@ public class ResourceControllerDataProvider extends BaseControllerDataProvider {
         || changedTypes.contains(HelixConstants.ChangeType.RESOURCE_CONFIG)
         || changedTypes.contains((HelixConstants.ChangeType.CLUSTER_CONFIG))) {
       clearCachedResourceAssignments();
+      _pendingTransitionChargeTracker.clear();
     }
 
     // Refresh resource controller specific property caches
@@ -360,6 +366,10 @@ public class ResourceControllerDataProvider extends BaseControllerDataProvider {
     return _lastTopStateLocationMap;
   }
 
+  public PendingTransitionChargeTracker getPendingTransitionChargeTracker() {
+    return _pendingTransitionChargeTracker;
+  }
+
   /**
    * Get cached resourceAssignment (bestPossible mapping) for a resource
    * @param resource
@@ -23,14 +23,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.helix.HelixException;
 import org.apache.helix.HelixManager;
 import org.apache.helix.HelixRebalanceException;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.controller.LogUtil;
 import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
 import org.apache.helix.controller.pipeline.AbstractBaseStage;
@@ -68,6 +72,14 @@ public class BestPossibleStateCalcStage extends AbstractBaseStage {
   private static final Logger logger =
       LoggerFactory.getLogger(BestPossibleStateCalcStage.class.getName());
 
+  private final int _parallelism =
+      Integer.getInteger(SystemPropertyKeys.BEST_POSSIBLE_CALC_PARALLELISM, 1);
+
+  // The rebalancers shipped with Helix do not share state across resources, so they can compute
+  // different resources concurrently.
+  private static final String BUILT_IN_REBALANCER_PACKAGE =
+      "org.apache.helix.controller.rebalancer.";
+
   @Override
   public void process(ClusterEvent event) throws Exception {
     _eventId = event.getEventId();
@@ -113,6 +125,7 @@ public class BestPossibleStateCalcStage extends AbstractBaseStage {
             reportResourceState(clusterStatusMonitor, bestPossibleStateOutput, resourceName, is,
                 externalViewMap.get(resourceName), stateModelDefMap.get(is.getStateModelDefRef()));
           }
+          clusterStatusMonitor.updateRegisteredResourceMonitors();
         }
       } catch (Exception e) {
         LogUtil.logError(logger, _eventId, "Could not update cluster status metrics!", e);
@@ -174,25 +187,26 @@ public class BestPossibleStateCalcStage extends AbstractBaseStage {
     // Fallback to the original single resource rebalancer calculation.
     // This is required because we support mixed cluster that uses both WAGED rebalancer and the
     // older rebalancers.
-    Iterator<Resource> itr = remainingResourceMap.values().iterator();
-    while (itr.hasNext()) {
-      Resource resource = itr.next();
-      boolean result = false;
-      try {
-        result = computeSingleResourceBestPossibleState(event, cache, currentStateOutput, resource,
-            output);
-      } catch (HelixException ex) {
-        LogUtil.logError(logger, _eventId, String
-            .format("Exception when calculating best possible states for %s",
-                resource.getResourceName()), ex);
-
-      }
-      if (!result) {
-        failureResources.add(resource.getResourceName());
-        LogUtil.logWarn(logger, _eventId, String
-            .format("Failed to calculate best possible states for %s", resource.getResourceName()));
+    // resource -> calculation latency, in the resource iteration order
+    Map<String, Long> calculationLatencies = new LinkedHashMap<>();
+    if (_parallelism > 1 && remainingResourceMap.size() > 1) {
+      computeResourcesInParallel(event, cache, currentStateOutput, remainingResourceMap, output,
+          failureResources, calculationLatencies);
+    } else {
+      Iterator<Resource> itr = remainingResourceMap.values().iterator();
+      while (itr.hasNext()) {
+        Resource resource = itr.next();
+        long startTime = System.currentTimeMillis();
+        boolean result =
+            computeResourceBestPossibleState(event, cache, currentStateOutput, resource, output);
+        calculationLatencies
+            .put(resource.getResourceName(), System.currentTimeMillis() - startTime);
+        if (!result) {
+          failureResources.add(resource.getResourceName());
+        }
       }
     }
+    reportCalculationLatencies(cache, clusterStatusMonitor, calculationLatencies);
 
     // Check and report if resource rebalance has failure
     updateRebalanceStatus(!isValid || !failureResources.isEmpty(), failureResources, helixManager,
@@ -203,6 +217,131 @@ public class BestPossibleStateCalcStage extends AbstractBaseStage {
     return output;
   }
 
+  /**
+   * Compute the best possible states of the resources on the shared fork-join pool. Each resource
+   * is computed into its own output, and the outputs are merged into the final output in the
+   * resource iteration order by the pipeline thread, so the result is the same as the one of the
+   * serial computation.
+   * The resources of a user provided rebalancer are still computed one by one by the pipeline
+   * thread, since such a rebalancer may not expect to be called concurrently.
+   */
+  private void computeResourcesInParallel(ClusterEvent event,
+      ResourceControllerDataProvider cache, CurrentStateOutput currentStateOutput,
+      Map<String, Resource> resourceMap, BestPossibleStateOutput output,
+      List<String> failureResources, Map<String, Long> calculationLatencies) {
+    List<Resource> resources = new ArrayList<>(resourceMap.values());
+    List<Future<BestPossibleStateOutput>> futures = new ArrayList<>(resources.size());
+    Map<String, Long> latencies = Collections.synchronizedMap(new HashMap<>());
+    for (Resource resource : resources) {
+      // Null for the resources computed by the pipeline thread
+      futures.add(usesBuiltInRebalancer(cache, resource.getResourceName())
+          ? ControllerComputePool.get().submit(
+              () -> computeResourceOutput(event, cache, currentStateOutput, resource, latencies))
+          : null);
+    }
+
+    for (int i = 0; i < resources.size(); i++) {
+      String resourceName = resources.get(i).getResourceName();
+      BestPossibleStateOutput resourceOutput = null;
+      try {
+        Future<BestPossibleStateOutput> future = futures.get(i);
+        resourceOutput = future == null ? computeResourceOutput(event, cache, currentStateOutput,
+            resources.get(i), latencies) : future.get();
+      } catch (InterruptedException e) {
+        LogUtil.logError(logger, _eventId, String
+            .format("Interrupted when calculating best possible states for %s", resourceName), e);
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        LogUtil.logError(logger, _eventId, String
+            .format("Exception when calculating best possible states for %s", resourceName), e);
+      }
+      if (resourceOutput == null) {
+        failureResources.add(resourceName);
+      } else {
+        output.merge(resourceOutput);
+      }
+      Long latency = latencies.get(resourceName);
+      if (latency != null) {
+        calculationLatencies.put(resourceName, latency);
+      }
+    }
+  }
+
+  private BestPossibleStateOutput computeResourceOutput(ClusterEvent event,
+      ResourceControllerDataProvider cache, CurrentStateOutput currentStateOutput,
+      Resource resource, Map<String, Long> latencies) {
+    long startTime = System.currentTimeMillis();
+    BestPossibleStateOutput resourceOutput = new BestPossibleStateOutput();
+    boolean result = computeResourceBestPossibleState(event, cache, currentStateOutput, resource,
+        resourceOutput);
+    latencies.put(resource.getResourceName(), System.currentTimeMillis() - startTime);
+    return result ? resourceOutput : null;
+  }
+
+  /**
+   * Check if the resource is computed by a rebalancer shipped with Helix, see getRebalancer().
+   */
+  private boolean usesBuiltInRebalancer(ResourceControllerDataProvider cache,
+      String resourceName) {
+    IdealState idealState = cache.getIdealState(resourceName);
+    if (idealState == null) {
+      return false;
+    }
+    switch (idealState.getRebalanceMode()) {
+    case SEMI_AUTO:
+    case CUSTOMIZED:
+      return true;
+    case FULL_AUTO:
+      String rebalancerClassName = idealState.getRebalancerClassName();
+      return cache.isMaintenanceModeEnabled() || rebalancerClassName == null
+          || rebalancerClassName.startsWith(BUILT_IN_REBALANCER_PACKAGE);
+    default:
+      return false;
+    }
+  }
+
+  private boolean computeResourceBestPossibleState(ClusterEvent event,
+      ResourceControllerDataProvider cache, CurrentStateOutput currentStateOutput,
+      Resource resource, BestPossibleStateOutput output) {
+    boolean result = false;
+    try {
+      result = computeSingleResourceBestPossibleState(event, cache, currentStateOutput, resource,
+          output);
+    } catch (HelixException ex) {
+      LogUtil.logError(logger, _eventId, String
+          .format("Exception when calculating best possible states for %s",
+              resource.getResourceName()), ex);
+
+    }
+    if (!result) {
+      LogUtil.logWarn(logger, _eventId, String
+          .format("Failed to calculate best possible states for %s", resource.getResourceName()));
+    }
+    return result;
+  }
+
+  private void reportCalculationLatencies(final ResourceControllerDataProvider cache,
+      final ClusterStatusMonitor clusterStatusMonitor,
+      final Map<String, Long> calculationLatencies) {
+    if (clusterStatusMonitor == null || calculationLatencies.isEmpty()) {
+      return;
+    }
+    final Map<String, ResourceConfig> resourceConfigMap = cache.getResourceConfigMap();
+    asyncExecute(cache.getAsyncTasksThreadPool(), () -> {
+      try {
+        Map<String, Long> monitoredLatencies = new HashMap<>(calculationLatencies);
+        monitoredLatencies.keySet().removeIf(
+            resourceName -> resourceConfigMap.containsKey(resourceName) && resourceConfigMap
+                .get(resourceName).isMonitoringDisabled());
+        clusterStatusMonitor.updateBestPossibleCalculationLatencies(monitoredLatencies);
+      } catch (Exception e) {
+        LogUtil.logError(logger, _eventId, "Could not update best possible calculation metrics!",
+            e);
+      }
+      return null;
+    });
+  }
+
   private void updateRebalanceStatus(final boolean hasFailure, final List<String> failedResources,
       final HelixManager helixManager, final ResourceControllerDataProvider cache,
       final ClusterStatusMonitor clusterStatusMonitor, final String errorMessage) {
@@ -105,6 +105,21 @@ public class BestPossibleStateOutput extends ResourcesStateMap {
     _preferenceLists.put(resource, resourcePreferenceLists);
   }
 
+  /**
+   * Add the states and preference lists of all the resources in the other output to this output.
+   * The resources of the other output replace the same resources in this output, if any.
+   * @param other the best possible state output of some other resources
+   */
+  public void merge(BestPossibleStateOutput other) {
+    _resourceStateMap.putAll(other.getResourceStatesMap());
+    if (other._preferenceLists != null) {
+      for (Map.Entry<String, Map<String, List<String>>> entry : other._preferenceLists
+          .entrySet()) {
+        setPreferenceLists(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
   protected boolean containsResource(String resource) {
     return _preferenceLists != null && _preferenceLists.containsKey(resource);
   }
@@ -0,0 +1,57 @@
+package org.apache.helix.controller.stages;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.helix.SystemPropertyKeys;
+
+/**
+ * The fork-join pool shared by the pipeline stages that compute in parallel, and by all the
+ * controllers in the JVM. The pool is created on the first parallel computation and is as large as
+ * the largest configured stage parallelism. Idle workers of a ForkJoinPool exit after a while, so
+ * the pool does not hold threads between the pipeline runs.
+ */
+final class ControllerComputePool {
+  private ControllerComputePool() {
+  }
+
+  private static final String[] PARALLELISM_KEYS = new String[] {
+      SystemPropertyKeys.BEST_POSSIBLE_CALC_PARALLELISM,
+      SystemPropertyKeys.MESSAGE_GENERATION_PARALLELISM,
+      SystemPropertyKeys.CURRENT_STATE_COMPUTATION_PARALLELISM
+  };
+
+  private static class PoolHolder {
+    private static final ForkJoinPool POOL = new ForkJoinPool(getPoolSize());
+  }
+
+  private static int getPoolSize() {
+    int poolSize = 2;
+    for (String parallelismKey : PARALLELISM_KEYS) {
+      poolSize = Math.max(poolSize, Integer.getInteger(parallelismKey, 1));
+    }
+    return poolSize;
+  }
+
+  static ForkJoinPool get() {
+    return PoolHolder.POOL;
+  }
+}
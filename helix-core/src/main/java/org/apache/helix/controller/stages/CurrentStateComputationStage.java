@@ -19,14 +19,19 @@ package org.apache.helix.controller.stages;
  * under the License.
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import org.apache.helix.HelixException;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.controller.LogUtil;
 import org.apache.helix.controller.dataproviders.BaseControllerDataProvider;
 import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
@@ -60,6 +65,8 @@ import org.slf4j.LoggerFactory;
 public class CurrentStateComputationStage extends AbstractBaseStage {
   private static Logger LOG = LoggerFactory.getLogger(CurrentStateComputationStage.class);
   private boolean _isTaskFrameworkPipeline = false;
+  private final int _parallelism =
+      Integer.getInteger(SystemPropertyKeys.CURRENT_STATE_COMPUTATION_PARALLELISM, 1);
 
   @Override
   public void process(ClusterEvent event) throws Exception {
@@ -84,21 +91,15 @@ public class CurrentStateComputationStage extends AbstractBaseStage {
     Map<String, LiveInstance> liveInstances = cache.getLiveInstances();
     final CurrentStateOutput currentStateOutput = new CurrentStateOutput();
 
-    for (LiveInstance instance : liveInstances.values()) {
-      String instanceName = instance.getInstanceName();
-      String instanceSessionId = instance.getEphemeralOwner();
-
-      // update current states.
-      updateCurrentStates(instance,
-          cache.getCurrentState(instanceName, instanceSessionId, _isTaskFrameworkPipeline).values(),
-          currentStateOutput, resourceMap);
-
-      Set<Message> existingStaleMessages = cache.getStaleMessagesByInstance(instanceName);
-      // update pending messages
-      Map<String, Message> messages = cache.getMessages(instanceName);
-      Map<String, Message> relayMessages = cache.getRelayMessages(instanceName);
-      updatePendingMessages(instance, cache, messages.values(), relayMessages.values(),
-          existingStaleMessages, currentStateOutput, resourceMap);
+    if (_parallelism > 1 && liveInstances.size() > 1) {
+      computeInParallel(liveInstances.values(), cache, currentStateOutput, resourceMap);
+    } else {
+      List<Message> staleMessages = new ArrayList<>();
+      for (LiveInstance instance : liveInstances.values()) {
+        computeInstance(instance, cache, currentStateOutput, resourceMap, staleMessages);
+        addStaleMessages(cache, instance.getInstanceName(), staleMessages);
+        staleMessages.clear();
+      }
     }
     event.addAttribute(AttributeName.CURRENT_STATE.name(), currentStateOutput);
 
@@ -113,11 +114,76 @@ public class CurrentStateComputationStage extends AbstractBaseStage {
     }
   }
 
+  /**
+   * Compute the live instances on the shared fork-join pool. Each instance is computed into its
+   * own output, and the outputs are merged by the pipeline thread in the order of the instances,
+   * so the result is the same as the serial computation.
+   */
+  private void computeInParallel(Collection<LiveInstance> liveInstances,
+      final BaseControllerDataProvider cache, CurrentStateOutput currentStateOutput,
+      final Map<String, Resource> resourceMap) throws Exception {
+    List<LiveInstance> instances = new ArrayList<>(liveInstances);
+    List<Future<CurrentStateOutput>> futures = new ArrayList<>(instances.size());
+    List<List<Message>> instanceStaleMessages = new ArrayList<>(instances.size());
+    for (LiveInstance instance : instances) {
+      List<Message> staleMessages = new ArrayList<>();
+      instanceStaleMessages.add(staleMessages);
+      futures.add(ControllerComputePool.get().submit(() -> {
+        CurrentStateOutput instanceOutput = new CurrentStateOutput();
+        computeInstance(instance, cache, instanceOutput, resourceMap, staleMessages);
+        return instanceOutput;
+      }));
+    }
+
+    for (int i = 0; i < instances.size(); i++) {
+      CurrentStateOutput instanceOutput;
+      try {
+        instanceOutput = futures.get(i).get();
+      } catch (ExecutionException e) {
+        // Same as the serial computation, any failure fails the stage
+        if (e.getCause() instanceof Exception) {
+          throw (Exception) e.getCause();
+        }
+        throw new HelixException(e.getCause());
+      }
+      currentStateOutput.merge(instanceOutput);
+      // The stale message cache is not thread safe, so it is only updated by the pipeline thread
+      addStaleMessages(cache, instances.get(i).getInstanceName(), instanceStaleMessages.get(i));
+    }
+  }
+
+  private void computeInstance(LiveInstance instance, BaseControllerDataProvider cache,
+      CurrentStateOutput currentStateOutput, Map<String, Resource> resourceMap,
+      List<Message> staleMessages) {
+    String instanceName = instance.getInstanceName();
+    String instanceSessionId = instance.getEphemeralOwner();
+
+    // update current states.
+    updateCurrentStates(instance,
+        cache.getCurrentState(instanceName, instanceSessionId, _isTaskFrameworkPipeline).values(),
+        currentStateOutput, resourceMap);
+
+    Set<Message> existingStaleMessages = cache.getStaleMessagesByInstance(instanceName);
+    // update pending messages
+    Map<String, Message> messages = cache.getMessages(instanceName);
+    Map<String, Message> relayMessages = cache.getRelayMessages(instanceName);
+    updatePendingMessages(instance, messages.values(), relayMessages.values(),
+        existingStaleMessages, currentStateOutput, resourceMap, staleMessages);
+  }
+
+  private void addStaleMessages(BaseControllerDataProvider cache, String instanceName,
+      List<Message> staleMessages) {
+    for (Message message : staleMessages) {
+      cache.addStaleMessage(instanceName, message);
+    }
+  }
+
   // update all pending messages to CurrentStateOutput.
-  private void updatePendingMessages(LiveInstance instance, BaseControllerDataProvider cache,
+  // The new stale messages are added to staleMessages.
+  private void updatePendingMessages(LiveInstance instance,
       Collection<Message> pendingMessages, Collection<Message> pendingRelayMessages,
       Set<Message> existingStaleMessages, CurrentStateOutput currentStateOutput,
-      Map<String, Resource> resourceMap) {
+      Map<String, Resource> resourceMap, List<Message> staleMessages) {
     String instanceName = instance.getInstanceName();
     String instanceSessionId = instance.getEphemeralOwner();
 
@@ -153,7 +219,7 @@ public class CurrentStateComputationStage extends AbstractBaseStage {
           if (_isTaskFrameworkPipeline || !isStaleMessage(message, currentState)) {
             setMessageState(currentStateOutput, resourceName, partition, instanceName, message);
           } else {
-            cache.addStaleMessage(instanceName, message);
+            staleMessages.add(message);
           }
         } else {
           LogUtil.logDebug(LOG, _eventId, String
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.Sets;
+import org.apache.helix.controller.common.ColumnarStateTable;
 import org.apache.helix.model.CurrentState;
 import org.apache.helix.model.Message;
 import org.apache.helix.model.Partition;
@@ -103,7 +104,7 @@ public class CurrentStateOutput {
   public void setCurrentState(String resourceName, Partition partition, String instanceName,
       String state) {
     if (!_currentStateMap.containsKey(resourceName)) {
-      _currentStateMap.put(resourceName, new HashMap<Partition, Map<String, String>>());
+      _currentStateMap.put(resourceName, ColumnarStateTable.newPartitionStateMap());
     }
     if (!_currentStateMap.get(resourceName).containsKey(partition)) {
       _currentStateMap.get(resourceName).put(partition, new HashMap<String, String>());
@@ -125,7 +126,7 @@ public class CurrentStateOutput {
   public void setRequestedState(String resourceName, Partition partition, String instanceName,
       String state) {
     if (!_requestedStateMap.containsKey(resourceName)) {
-      _requestedStateMap.put(resourceName, new HashMap<Partition, Map<String, String>>());
+      _requestedStateMap.put(resourceName, ColumnarStateTable.newPartitionStateMap());
     }
     if (!_requestedStateMap.get(resourceName).containsKey(partition)) {
       _requestedStateMap.get(resourceName).put(partition, new HashMap<String, String>());
@@ -433,6 +434,64 @@ public class CurrentStateOutput {
     return currentPartitionCount;
   }
 
+  /**
+   * Merge the states and messages of another output into this one. The entries of the other
+   * output overwrite the existing ones, so merging per-instance outputs in the instance order
+   * gives the same result as computing all the instances into one output.
+   * @param other the output to merge
+   */
+  void merge(CurrentStateOutput other) {
+    _resourceStateModelMap.putAll(other._resourceStateModelMap);
+    for (Map.Entry<String, CurrentState> entry : other._curStateMetaMap.entrySet()) {
+      setBucketSize(entry.getKey(), entry.getValue().getBucketSize());
+    }
+    for (String resourceName : other._currentStateMap.keySet()) {
+      forEachEntry(other._currentStateMap.get(resourceName), (partition, instanceName, state) ->
+          setCurrentState(resourceName, partition, instanceName, state));
+    }
+    for (String resourceName : other._requestedStateMap.keySet()) {
+      forEachEntry(other._requestedStateMap.get(resourceName), (partition, instanceName, state) ->
+          setRequestedState(resourceName, partition, instanceName, state));
+    }
+    for (String resourceName : other._infoMap.keySet()) {
+      forEachEntry(other._infoMap.get(resourceName), (partition, instanceName, info) ->
+          setInfo(resourceName, partition, instanceName, info));
+    }
+    for (String resourceName : other._currentStateEndTimeMap.keySet()) {
+      forEachEntry(other._currentStateEndTimeMap.get(resourceName),
+          (partition, instanceName, endTime) ->
+              setEndTime(resourceName, partition, instanceName, endTime));
+    }
+    for (String resourceName : other._pendingMessageMap.keySet()) {
+      forEachEntry(other._pendingMessageMap.get(resourceName),
+          (partition, instanceName, message) ->
+              setPendingMessage(resourceName, partition, instanceName, message));
+    }
+    for (String resourceName : other._cancellationMessageMap.keySet()) {
+      forEachEntry(other._cancellationMessageMap.get(resourceName),
+          (partition, instanceName, message) ->
+              setCancellationMessage(resourceName, partition, instanceName, message));
+    }
+    for (String resourceName : other._pendingRelayMessageMap.keySet()) {
+      forEachEntry(other._pendingRelayMessageMap.get(resourceName),
+          (partition, instanceName, message) ->
+              setPendingRelayMessage(resourceName, partition, instanceName, message));
+    }
+  }
+
+  private interface PartitionEntryConsumer<T> {
+    void accept(Partition partition, String instanceName, T value);
+  }
+
+  private static <T> void forEachEntry(Map<Partition, Map<String, T>> partitionMap,
+      PartitionEntryConsumer<T> consumer) {
+    for (Map.Entry<Partition, Map<String, T>> partitionEntry : partitionMap.entrySet()) {
+      for (Map.Entry<String, T> instanceEntry : partitionEntry.getValue().entrySet()) {
+        consumer.accept(partitionEntry.getKey(), instanceEntry.getKey(), instanceEntry.getValue());
+      }
+    }
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
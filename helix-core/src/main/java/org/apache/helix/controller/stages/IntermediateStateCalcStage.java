@@ -118,6 +118,7 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
     StateTransitionThrottleController throttleController =
         new StateTransitionThrottleController(resourceMap.keySet(), dataCache.getClusterConfig(),
             dataCache.getLiveInstances().keySet());
+    dataCache.getPendingTransitionChargeTracker().retainResources(resourceMap.keySet());
 
     // Resource level prioritization based on the numerical (sortable) priority field.
     // If the resource priority field is null/not set, the resource will be treated as lowest
@@ -352,25 +353,31 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
     // less than the threshold. Otherwise, only allow downward-transition load balance
     boolean onlyDownwardLoadBalance = numPartitionsWithErrorReplica > threshold;
 
+    // The required states of the partitions, shared by the charging and the throttling
+    Map<String, Map<String, Integer>> requiredStatesMap = new HashMap<>();
     chargePendingTransition(resource, currentStateOutput, throttleController, cache,
-        preferenceLists, stateModelDef);
+        preferenceLists, stateModelDef, requiredStatesMap);
 
-    // Sort partitions in case of urgent partition need to take the quota first.
-    List<Partition> partitions = new ArrayList<>(resource.getPartitions());
+    // Sort partitions in case of urgent partition need to take the quota first. Only the
+    // partitions with new messages are throttled, so the others are not sorted.
+    List<Partition> partitions = new ArrayList<>();
+    for (Partition partition : resource.getPartitions()) {
+      if (resourceMessageMap.get(partition) != null && !resourceMessageMap.get(partition)
+          .isEmpty()) {
+        partitions.add(partition);
+      }
+    }
     Collections.sort(partitions,
         new PartitionPriorityComparator(bestPossiblePartitionStateMap.getStateMap(),
             currentStateOutput.getCurrentStateMap(resourceName), stateModelDef.getTopState()));
     for (Partition partition : partitions) {
-      if (resourceMessageMap.get(partition) == null || resourceMessageMap.get(partition)
-          .isEmpty()) {
-        continue;
-      }
       List<Message> messagesToThrottle = new ArrayList<>(resourceMessageMap.get(partition));
       Map<String, String> derivedCurrentStateMap =
           currentStateOutput.getCurrentStateMap(resourceName, partition).entrySet().stream()
               .collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
       List<String> preferenceList = preferenceLists.get(partition.getPartitionName());
-      Map<String, Integer> requiredState = getRequiredStates(resourceName, cache, preferenceList);
+      Map<String, Integer> requiredState =
+          getRequiredStates(resourceName, cache, preferenceList, partition, requiredStatesMap);
       Collections.sort(messagesToThrottle,
           new MessagePriorityComparator(preferenceList, stateModelDef.getStatePriorityMap()));
       for (Message message : messagesToThrottle) {
@@ -464,32 +471,43 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
   }
 
   /**
-   * Check and charge all pending transitions for throttling.
+   * Check and charge all pending transitions for throttling. The charges are kept in the
+   * {@link PendingTransitionChargeTracker} across pipeline runs: the charges of the messages that
+   * are no longer pending are released, only the pending messages that were not charged yet are
+   * evaluated, and then the recorded charges are applied to the throttle controller.
    */
   private void chargePendingTransition(Resource resource, CurrentStateOutput currentStateOutput,
       StateTransitionThrottleController throttleController, ResourceControllerDataProvider cache,
-      Map<String, List<String>> preferenceLists, StateModelDefinition stateModelDefinition) {
+      Map<String, List<String>> preferenceLists, StateModelDefinition stateModelDefinition,
+      Map<String, Map<String, Integer>> requiredStatesMap) {
     String resourceName = resource.getResourceName();
-    // check and charge pending transitions
-    for (Partition partition : resource.getPartitions()) {
-      // To clarify that custom mode does not apply recovery/load rebalance since user can define different number of
-      // replicas for different partitions. Actually, the custom will stopped from resource level checks if this resource
-      // is not FULL_AUTO, we will return best possible state and do nothing.
-      Map<String, Integer> requiredStates =
-          getRequiredStates(resourceName, cache, preferenceLists.get(partition.getPartitionName()));
+    PendingTransitionChargeTracker chargeTracker = cache.getPendingTransitionChargeTracker();
+    Map<Partition, Map<String, Message>> pendingMessageMap =
+        currentStateOutput.getPendingMessageMap(resourceName);
+    Set<String> pendingMessageIds = new HashSet<>();
+    for (Map<String, Message> partitionPendingMessages : pendingMessageMap.values()) {
+      for (Message message : partitionPendingMessages.values()) {
+        pendingMessageIds.add(message.getId());
+      }
+    }
+    chargeTracker.release(resourceName, pendingMessageIds);
+
+    // check and charge the new pending transitions
+    for (Map.Entry<Partition, Map<String, Message>> entry : pendingMessageMap.entrySet()) {
+      Partition partition = entry.getKey();
+      if (resource.getPartition(partition.getPartitionName()) == null) {
+        continue;
+      }
       // Maps instance to its current state
       Map<String, String> currentStateMap =
           currentStateOutput.getCurrentStateMap(resourceName, partition);
-      // Maps instance to its pending (next) state
-      List<Message> pendingMessages = new ArrayList<>(
-          currentStateOutput.getPendingMessageMap(resourceName, partition).values());
-      Collections.sort(pendingMessages,
-          new MessagePriorityComparator(preferenceLists.get(partition.getPartitionName()),
-              stateModelDefinition.getStatePriorityMap()));
-
-      for (Message message : pendingMessages) {
-        StateTransitionThrottleConfig.RebalanceType rebalanceType =
-            getRebalanceTypePerMessage(requiredStates, message, currentStateMap);
+      // The rebalance type of a pending message only depends on the current states, so the
+      // pending messages are charged in any order. A recorded charge is kept as long as the
+      // current states it was evaluated with do not change.
+      for (Message message : entry.getValue().values()) {
+        if (chargeTracker.isCharged(resourceName, message.getId(), currentStateMap)) {
+          continue;
+        }
         String currentState = currentStateMap.get(message.getTgtName());
         if (currentState == null) {
           currentState = stateModelDefinition.getInitialState();
@@ -498,12 +516,18 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
             .equals(currentState) && !cache
             .getDisabledInstancesForPartition(resourceName, partition.getPartitionName())
             .contains(message.getTgtName())) {
-          throttleController.chargeInstance(rebalanceType, message.getTgtName());
-          throttleController.chargeResource(rebalanceType, resourceName);
-          throttleController.chargeCluster(rebalanceType);
+          // To clarify that custom mode does not apply recovery/load rebalance since user can define different number of
+          // replicas for different partitions. Actually, the custom will stopped from resource level checks if this resource
+          // is not FULL_AUTO, we will return best possible state and do nothing.
+          Map<String, Integer> requiredStates = getRequiredStates(resourceName, cache,
+              preferenceLists.get(partition.getPartitionName()), partition, requiredStatesMap);
+          chargeTracker.charge(resourceName, message,
+              getRebalanceTypePerMessage(requiredStates, message, currentStateMap),
+              currentStateMap);
         }
       }
     }
+    chargeTracker.apply(resourceName, throttleController);
   }
 
   /**
@@ -644,6 +668,18 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
         : RebalanceType.LOAD_BALANCE;
   }
 
+  private Map<String, Integer> getRequiredStates(String resourceName,
+      ResourceControllerDataProvider resourceControllerDataProvider, List<String> preferenceList,
+      Partition partition, Map<String, Map<String, Integer>> requiredStatesMap) {
+    Map<String, Integer> requiredStates = requiredStatesMap.get(partition.getPartitionName());
+    if (requiredStates == null) {
+      requiredStates =
+          getRequiredStates(resourceName, resourceControllerDataProvider, preferenceList);
+      requiredStatesMap.put(partition.getPartitionName(), requiredStates);
+    }
+    return requiredStates;
+  }
+
   private Map<String, Integer> getRequiredStates(String resourceName,
       ResourceControllerDataProvider resourceControllerDataProvider, List<String> preferenceList) {
 
@@ -776,10 +812,13 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
   // Compare partitions according following standard:
   // 1) Partition without top state always is the highest priority.
   // 2) For partition with top-state, the more number of active replica it has, the less priority.
+  // The priority of each partition is computed once and reused by all of its comparisons.
   private class PartitionPriorityComparator implements Comparator<Partition> {
     private Map<Partition, Map<String, String>> _bestPossibleMap;
     private Map<Partition, Map<String, String>> _currentStateMap;
     private String _topState;
+    private static final int PRIORITY_KEY_LENGTH = 3;
+    private final Map<Partition, Integer[]> _priorityKeys = new HashMap<>();
 
     PartitionPriorityComparator(Map<Partition, Map<String, String>> bestPossibleMap,
         Map<Partition, Map<String, String>> currentStateMap, String topState) {
@@ -790,25 +829,41 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
 
     @Override
     public int compare(Partition p1, Partition p2) {
-      int missTopState1 = getMissTopStateIndex(p1);
-      int missTopState2 = getMissTopStateIndex(p2);
       // Highest priority for the partition without top state
-      if (missTopState1 != missTopState2) {
-        return Integer.compare(missTopState1, missTopState2);
+      // Then higher priority for the partition with fewer active replicas
+      // Then higher priority for the partition with fewer replicas with states matching with
+      // IdealState
+      for (int i = 0; i < PRIORITY_KEY_LENGTH; i++) {
+        int priority1 = getPriority(p1, i);
+        int priority2 = getPriority(p2, i);
+        if (priority1 != priority2) {
+          return Integer.compare(priority1, priority2);
+        }
       }
-      // Higher priority for the partition with fewer active replicas
-      int currentActiveReplicas1 = getCurrentActiveReplicas(p1);
-      int currentActiveReplicas2 = getCurrentActiveReplicas(p2);
-      if (currentActiveReplicas1 != currentActiveReplicas2) {
-        return Integer.compare(currentActiveReplicas1, currentActiveReplicas2);
+      return p1.getPartitionName().compareTo(p2.getPartitionName());
+    }
+
+    // The priorities are computed lazily, the later ones are only needed for the ties
+    private int getPriority(Partition partition, int index) {
+      Integer[] priorityKey = _priorityKeys.get(partition);
+      if (priorityKey == null) {
+        priorityKey = new Integer[PRIORITY_KEY_LENGTH];
+        _priorityKeys.put(partition, priorityKey);
       }
-      // Higher priority for the partition with fewer replicas with states matching with IdealState
-      int idealStateMatched1 = getIdealStateMatched(p1);
-      int idealStateMatched2 = getIdealStateMatched(p2);
-      if (idealStateMatched1 != idealStateMatched2) {
-        return Integer.compare(idealStateMatched1, idealStateMatched2);
+      if (priorityKey[index] == null) {
+        switch (index) {
+        case 0:
+          priorityKey[index] = getMissTopStateIndex(partition);
+          break;
+        case 1:
+          priorityKey[index] = getCurrentActiveReplicas(partition);
+          break;
+        default:
+          priorityKey[index] = getIdealStateMatched(partition);
+          break;
+        }
       }
-      return p1.getPartitionName().compareTo(p2.getPartitionName());
+      return priorityKey[index];
     }
 
     private int getMissTopStateIndex(Partition partition) {
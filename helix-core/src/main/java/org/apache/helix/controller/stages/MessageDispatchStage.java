@@ -37,17 +37,22 @@ import org.apache.helix.controller.dataproviders.BaseControllerDataProvider;
 import org.apache.helix.controller.dataproviders.WorkflowControllerDataProvider;
 import org.apache.helix.controller.pipeline.AbstractBaseStage;
 import org.apache.helix.controller.pipeline.StageException;
+import org.apache.helix.model.ClusterConfig;
 import org.apache.helix.model.LiveInstance;
 import org.apache.helix.model.Message;
 import org.apache.helix.model.Partition;
 import org.apache.helix.model.Resource;
 import org.apache.helix.monitoring.mbeans.ClusterStatusMonitor;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public abstract class MessageDispatchStage extends AbstractBaseStage {
   private static Logger logger = LoggerFactory.getLogger(MessageDispatchStage.class);
 
+  // Adaptively batched messages of more partitions than this are compressed
+  static final int BATCH_MESSAGE_COMPRESSION_PARTITION_THRESHOLD = 100;
+
   protected void processEvent(ClusterEvent event, MessageOutput messageOutput) throws Exception {
     _eventId = event.getEventId();
     HelixManager manager = event.getAttribute(AttributeName.helixmanager.name());
@@ -75,9 +80,12 @@ public abstract class MessageDispatchStage extends AbstractBaseStage {
       }
     }
 
+    ClusterConfig clusterConfig = cache.getClusterConfig();
+    int adaptiveBatchThreshold =
+        clusterConfig == null ? -1 : clusterConfig.getAdaptiveBatchMessageThreshold();
     List<Message> outputMessages =
         batchMessage(dataAccessor.keyBuilder(), messagesToSend, resourceMap, liveInstanceMap,
-            manager.getProperties());
+            manager.getProperties(), adaptiveBatchThreshold);
 
     // Only expect tests' events don't have EVENT_SESSION, while all events in prod should have it.
     if (!event.containsAttribute(AttributeName.EVENT_SESSION.name())) {
@@ -112,9 +120,28 @@ public abstract class MessageDispatchStage extends AbstractBaseStage {
   List<Message> batchMessage(Builder keyBuilder, List<Message> messages,
       Map<String, Resource> resourceMap, Map<String, LiveInstance> liveInstanceMap,
       HelixManagerProperties properties) {
+    return batchMessage(keyBuilder, messages, resourceMap, liveInstanceMap, properties, -1);
+  }
+
+  /**
+   * Batch the state transition messages of the resources in batch message mode. If an instance
+   * receives more than adaptiveBatchThreshold state transition messages in this pipeline run, the
+   * messages of the other resources sent to the instance are batched as well.
+   */
+  List<Message> batchMessage(Builder keyBuilder, List<Message> messages,
+      Map<String, Resource> resourceMap, Map<String, LiveInstance> liveInstanceMap,
+      HelixManagerProperties properties, int adaptiveBatchThreshold) {
     // group messages by its CurrentState path + "/" + fromState + "/" + toState
     Map<String, Message> batchMessages = new HashMap<String, Message>();
     List<Message> outputMessages = new ArrayList<Message>();
+    Map<String, Integer> stateTransitionMsgCounts = new HashMap<>();
+    if (adaptiveBatchThreshold > 0) {
+      for (Message message : messages) {
+        if (isAdaptiveBatchable(message)) {
+          stateTransitionMsgCounts.merge(message.getTgtName(), 1, Integer::sum);
+        }
+      }
+    }
 
     Iterator<Message> iter = messages.iterator();
     while (iter.hasNext()) {
@@ -129,7 +156,10 @@ public abstract class MessageDispatchStage extends AbstractBaseStage {
         participantVersion = liveInstance.getHelixVersion();
       }
 
-      if (resource == null || !resource.getBatchMessageMode() || participantVersion == null
+      boolean adaptiveBatch = adaptiveBatchThreshold > 0 && isAdaptiveBatchable(message)
+          && stateTransitionMsgCounts.getOrDefault(instanceName, 0) > adaptiveBatchThreshold;
+      if (resource == null || !(resource.getBatchMessageMode() || adaptiveBatch)
+          || participantVersion == null
           || !properties.isFeatureSupported("batch_message", participantVersion)) {
         outputMessages.add(message);
         continue;
@@ -149,9 +179,22 @@ public abstract class MessageDispatchStage extends AbstractBaseStage {
       batchMessages.get(key).addPartitionName(message.getPartitionName());
     }
 
+    for (Message batchMessage : batchMessages.values()) {
+      if (adaptiveBatchThreshold > 0
+          && batchMessage.getPartitionNames().size() > BATCH_MESSAGE_COMPRESSION_PARTITION_THRESHOLD) {
+        batchMessage.getRecord().setBooleanField(ZNRecord.ENABLE_COMPRESSION_BOOLEAN_FIELD, true);
+      }
+    }
+
     return outputMessages;
   }
 
+  private static boolean isAdaptiveBatchable(Message message) {
+    // Relay messages are attached to the message of a specific partition, so it is not batched.
+    return Message.MessageType.STATE_TRANSITION.name().equals(message.getMsgType())
+        && !message.hasRelayMessages();
+  }
+
   // return the messages actually sent
   protected List<Message> sendMessages(HelixDataAccessor dataAccessor, List<Message> messages) {
     List<Message> messageSent = new ArrayList<>();
@@ -21,11 +21,14 @@ package org.apache.helix.controller.stages;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixDefinedState;
@@ -71,6 +74,11 @@ public class MessageGenerationPhase extends AbstractBaseStage {
 
   private static Logger logger = LoggerFactory.getLogger(MessageGenerationPhase.class);
 
+  private final boolean _incremental =
+      Boolean.getBoolean(SystemPropertyKeys.MESSAGE_GENERATION_INCREMENTAL);
+  private final int _parallelism =
+      Integer.getInteger(SystemPropertyKeys.MESSAGE_GENERATION_PARALLELISM, 1);
+
   @Override
   public void process(ClusterEvent event) throws Exception {
     BestPossibleStateOutput bestPossibleStateOutput =
@@ -98,13 +106,24 @@ public class MessageGenerationPhase extends AbstractBaseStage {
     }
     MessageOutput output = new MessageOutput();
 
-    for (Resource resource : resourceMap.values()) {
-      try {
-        generateMessage(resource, cache, bestPossibleStateOutput, currentStateOutput, manager,
-            sessionIdMap, event.getEventType(), output, messagesToCleanUp);
-      } catch (HelixException ex) {
-        LogUtil.logError(logger, _eventId,
-            "Failed to generate message for resource " + resource.getResourceName(), ex);
+    List<Resource> resources = new ArrayList<>(resourceMap.values());
+    if (_incremental) {
+      Set<String> staleMessageResources = getStaleMessageResources(cache);
+      resources.removeIf(
+          resource -> isConverged(resource, bestPossibleStateOutput, currentStateOutput,
+              staleMessageResources));
+      LogUtil.logDebug(logger, _eventId, String
+          .format("Skip generating messages for %d converged resources",
+              resourceMap.size() - resources.size()));
+    }
+
+    if (_parallelism > 1 && resources.size() > 1) {
+      generateMessagesInParallel(resources, cache, bestPossibleStateOutput, currentStateOutput,
+          manager, sessionIdMap, event.getEventType(), output, messagesToCleanUp);
+    } else {
+      for (Resource resource : resources) {
+        generateResourceMessages(resource, cache, bestPossibleStateOutput, currentStateOutput,
+            manager, sessionIdMap, event.getEventType(), output, messagesToCleanUp);
       }
     }
 
@@ -116,6 +135,104 @@ public class MessageGenerationPhase extends AbstractBaseStage {
     event.addAttribute(AttributeName.MESSAGES_ALL.name(), output);
   }
 
+  /**
+   * Generate the messages of the resources on the shared fork-join pool. Each resource is
+   * processed into its own output, and the outputs are merged by the pipeline thread.
+   */
+  private void generateMessagesInParallel(List<Resource> resources,
+      final BaseControllerDataProvider cache, final ResourcesStateMap resourcesStateMap,
+      final CurrentStateOutput currentStateOutput, final HelixManager manager,
+      final Map<String, String> sessionIdMap, final ClusterEventType eventType,
+      MessageOutput output, Map<String, Map<String, Message>> messagesToCleanUp)
+      throws Exception {
+    List<Future<MessageOutput>> futures = new ArrayList<>(resources.size());
+    List<Map<String, Map<String, Message>>> resourceMessagesToCleanUp =
+        new ArrayList<>(resources.size());
+    for (Resource resource : resources) {
+      Map<String, Map<String, Message>> cleanUp = new HashMap<>();
+      resourceMessagesToCleanUp.add(cleanUp);
+      futures.add(ControllerComputePool.get().submit(() -> {
+        MessageOutput resourceOutput = new MessageOutput();
+        generateResourceMessages(resource, cache, resourcesStateMap, currentStateOutput, manager,
+            sessionIdMap, eventType, resourceOutput, cleanUp);
+        return resourceOutput;
+      }));
+    }
+
+    for (int i = 0; i < resources.size(); i++) {
+      String resourceName = resources.get(i).getResourceName();
+      MessageOutput resourceOutput;
+      try {
+        resourceOutput = futures.get(i).get();
+      } catch (ExecutionException e) {
+        // Same as the serial generation, any failure other than a HelixException fails the stage
+        if (e.getCause() instanceof Exception) {
+          throw (Exception) e.getCause();
+        }
+        throw new HelixException(e.getCause());
+      }
+      for (Map.Entry<Partition, List<Message>> entry : resourceOutput
+          .getResourceMessageMap(resourceName).entrySet()) {
+        output.addMessages(resourceName, entry.getKey(), entry.getValue());
+      }
+      for (Map.Entry<String, Map<String, Message>> entry : resourceMessagesToCleanUp.get(i)
+          .entrySet()) {
+        messagesToCleanUp.computeIfAbsent(entry.getKey(), instance -> new HashMap<>())
+            .putAll(entry.getValue());
+      }
+    }
+  }
+
+  private void generateResourceMessages(final Resource resource,
+      final BaseControllerDataProvider cache, final ResourcesStateMap resourcesStateMap,
+      final CurrentStateOutput currentStateOutput, final HelixManager manager,
+      final Map<String, String> sessionIdMap, final ClusterEventType eventType,
+      MessageOutput output, Map<String, Map<String, Message>> messagesToCleanUp) {
+    try {
+      generateMessage(resource, cache, resourcesStateMap, currentStateOutput, manager,
+          sessionIdMap, eventType, output, messagesToCleanUp);
+    } catch (HelixException ex) {
+      LogUtil.logError(logger, _eventId,
+          "Failed to generate message for resource " + resource.getResourceName(), ex);
+    }
+  }
+
+  /**
+   * A resource does not need any message if the best possible state of every partition is
+   * already its current state, and the resource has neither pending nor stale messages to cancel
+   * or clean up. Generating the messages of such a resource never produces any output.
+   */
+  private boolean isConverged(Resource resource, ResourcesStateMap resourcesStateMap,
+      CurrentStateOutput currentStateOutput, Set<String> staleMessageResources) {
+    String resourceName = resource.getResourceName();
+    if (staleMessageResources.contains(resourceName)) {
+      return false;
+    }
+    for (Map<String, Message> pendingMessages : currentStateOutput
+        .getPendingMessageMap(resourceName).values()) {
+      if (!pendingMessages.isEmpty()) {
+        return false;
+      }
+    }
+    for (Partition partition : resource.getPartitions()) {
+      if (!resourcesStateMap.getInstanceStateMap(resourceName, partition)
+          .equals(currentStateOutput.getCurrentStateMap(resourceName, partition))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Set<String> getStaleMessageResources(BaseControllerDataProvider cache) {
+    Set<String> resources = new HashSet<>();
+    for (Map<String, Message> staleMessages : cache.getStaleMessages().values()) {
+      for (Message staleMessage : staleMessages.values()) {
+        resources.add(staleMessage.getResourceName());
+      }
+    }
+    return resources;
+  }
+
   private void generateMessage(final Resource resource, final BaseControllerDataProvider cache,
       final ResourcesStateMap resourcesStateMap, final CurrentStateOutput currentStateOutput,
       final HelixManager manager, final Map<String, String> sessionIdMap,
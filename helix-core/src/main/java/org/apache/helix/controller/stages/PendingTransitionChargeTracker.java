@@ -0,0 +1,150 @@
+package org.apache.helix.controller.stages;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.helix.api.config.StateTransitionThrottleConfig.RebalanceType;
+import org.apache.helix.model.Message;
+
+/**
+ * Keeps the throttle charges of the pending state transitions across pipeline runs. A pending
+ * message is evaluated when it is first seen, the charge applied for it is recorded together with
+ * the current states of the partition it was evaluated with, and the charge is released once the
+ * message is no longer pending. A recorded charge is evaluated again once the current states of the
+ * partition change, since they decide both whether the message is charged and its rebalance type.
+ * So a pipeline run only evaluates the transitions that started or whose partitions changed since
+ * the previous run, and re-applies the recorded charges.
+ * The tracker is only accessed by the pipeline thread and is not thread safe.
+ */
+public class PendingTransitionChargeTracker {
+  // resource -> pending message id -> charge recorded for the message
+  private final Map<String, Map<String, Charge>> _charges = new HashMap<>();
+
+  static class Charge {
+    private final String _instance;
+    private final RebalanceType _rebalanceType;
+    // instance -> current state of the partition when the charge was evaluated
+    private final Map<String, String> _currentStateMap;
+
+    Charge(String instance, RebalanceType rebalanceType, Map<String, String> currentStateMap) {
+      _instance = instance;
+      _rebalanceType = rebalanceType;
+      _currentStateMap = new HashMap<>(currentStateMap);
+    }
+
+    String getInstance() {
+      return _instance;
+    }
+
+    RebalanceType getRebalanceType() {
+      return _rebalanceType;
+    }
+  }
+
+  /**
+   * Release the charges of the messages of a resource that are no longer pending.
+   * @param resourceName
+   * @param pendingMessageIds ids of the messages that are still pending
+   */
+  void release(String resourceName, Set<String> pendingMessageIds) {
+    Map<String, Charge> charges = _charges.get(resourceName);
+    if (charges == null) {
+      return;
+    }
+    charges.keySet().retainAll(pendingMessageIds);
+    if (charges.isEmpty()) {
+      _charges.remove(resourceName);
+    }
+  }
+
+  /**
+   * Record the charge of a pending message.
+   * @param currentStateMap the current states of the partition the charge is evaluated with
+   */
+  void charge(String resourceName, Message message, RebalanceType rebalanceType,
+      Map<String, String> currentStateMap) {
+    _charges.computeIfAbsent(resourceName, k -> new HashMap<>())
+        .put(message.getId(), new Charge(message.getTgtName(), rebalanceType, currentStateMap));
+  }
+
+  /**
+   * Check whether the recorded charge of a pending message is still valid. A charge evaluated with
+   * other current states of the partition is dropped, so that the message is evaluated again.
+   * @param currentStateMap the current states of the partition in this run
+   * @return true if the message is charged with the same current states
+   */
+  boolean isCharged(String resourceName, String messageId, Map<String, String> currentStateMap) {
+    Map<String, Charge> charges = _charges.get(resourceName);
+    if (charges == null) {
+      return false;
+    }
+    Charge charge = charges.get(messageId);
+    if (charge == null) {
+      return false;
+    }
+    if (charge._currentStateMap.equals(currentStateMap)) {
+      return true;
+    }
+    charges.remove(messageId);
+    if (charges.isEmpty()) {
+      _charges.remove(resourceName);
+    }
+    return false;
+  }
+
+  /**
+   * Apply the recorded charges of a resource to the throttle controller of the current run.
+   */
+  void apply(String resourceName, StateTransitionThrottleController throttleController) {
+    for (Charge charge : getCharges(resourceName).values()) {
+      throttleController.chargeInstance(charge.getRebalanceType(), charge.getInstance());
+      throttleController.chargeResource(charge.getRebalanceType(), resourceName);
+      throttleController.chargeCluster(charge.getRebalanceType());
+    }
+  }
+
+  /**
+   * @return the recorded charges of a resource, keyed by message id
+   */
+  Map<String, Charge> getCharges(String resourceName) {
+    Map<String, Charge> charges = _charges.get(resourceName);
+    return charges == null ? Collections.emptyMap() : Collections.unmodifiableMap(charges);
+  }
+
+  /**
+   * Drop the charges of the resources that are not rebalanced anymore.
+   */
+  void retainResources(Set<String> resourceNames) {
+    _charges.keySet().retainAll(resourceNames);
+  }
+
+  /**
+   * Drop all the recorded charges, so that the pending messages are evaluated again. This is
+   * required when the inputs of the evaluation, such as the ideal states or the live instances,
+   * change.
+   */
+  public void clear() {
+    _charges.clear();
+  }
+}
@@ -87,6 +87,7 @@ import org.apache.helix.model.LiveInstance;
 import org.apache.helix.monitoring.ZKPathDataDumpTask;
 import org.apache.helix.monitoring.mbeans.HelixCallbackMonitor;
 import org.apache.helix.monitoring.mbeans.MonitorLevel;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.MetricsHttpEndpoint;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
 import org.apache.helix.participant.HelixStateMachineEngine;
 import org.apache.helix.participant.StateMachineEngine;
@@ -184,6 +185,12 @@ public class ZKHelixManager implements HelixManager, IZkStateListener {
    */
   private CloudEventListener _cloudEventListener;
 
+  /**
+   * Metrics endpoint fields
+   */
+  private final int _metricsEndpointPort;
+  private boolean _metricsEndpointAcquired = false;
+
   /**
    * status dump timer-task
    */
@@ -310,6 +317,9 @@ public class ZKHelixManager implements HelixManager, IZkStateListener {
         .getSystemPropertyAsInt(SystemPropertyKeys.PARTICIPANT_HEALTH_REPORT_LATENCY,
             ParticipantHealthReportTask.DEFAULT_REPORT_LATENCY);
 
+    _metricsEndpointPort =
+        HelixUtil.getSystemPropertyAsInt(SystemPropertyKeys.METRICS_ENDPOINT_PORT, 0);
+
     MonitorLevel configuredMonitorLevel;
     try {
       configuredMonitorLevel = MonitorLevel.valueOf(
@@ -825,6 +835,8 @@ public class ZKHelixManager implements HelixManager, IZkStateListener {
       throw e;
     }
 
+    acquireMetricsEndpoint();
+
     if (_helixManagerProperty != null) {
       HelixCloudProperty helixCloudProperty = _helixManagerProperty.getHelixCloudProperty();
       if (helixCloudProperty != null && helixCloudProperty.isCloudEventCallbackEnabled()) {
@@ -838,6 +850,25 @@ public class ZKHelixManager implements HelixManager, IZkStateListener {
     }
   }
 
+  private synchronized void acquireMetricsEndpoint() {
+    if (_metricsEndpointPort <= 0 || _metricsEndpointAcquired) {
+      return;
+    }
+    try {
+      MetricsHttpEndpoint.acquire(_metricsEndpointPort);
+      _metricsEndpointAcquired = true;
+    } catch (IOException e) {
+      LOG.error("Failed to start the metrics endpoint on port " + _metricsEndpointPort, e);
+    }
+  }
+
+  private synchronized void releaseMetricsEndpoint() {
+    if (_metricsEndpointAcquired) {
+      MetricsHttpEndpoint.release();
+      _metricsEndpointAcquired = false;
+    }
+  }
+
   @Override
   public void disconnect() {
     if (_zkclient == null || _zkclient.isClosed()) {
@@ -879,6 +910,8 @@ public class ZKHelixManager implements HelixManager, IZkStateListener {
         callbackMonitor.unregister();
       }
 
+      releaseMetricsEndpoint();
+
       _helixPropertyStore = null;
 
       if (_cloudEventListener != null) {
@@ -0,0 +1,209 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A thread pool whose concurrency is adjusted between a minimum and a maximum size according to
+ * its queue depth and the observed task latency. The threads above the minimum size are taken
+ * from a {@link ThreadBudget} shared by all the adaptive pools of a participant, so the total
+ * number of threads stays under a participant-wide cap.
+ * The pool size is only changed by {@link #adjust()}, which is expected to be called periodically.
+ */
+public class AdaptiveThreadPoolExecutor extends ThreadPoolExecutor {
+  private static final Logger LOG = LoggerFactory.getLogger(AdaptiveThreadPoolExecutor.class);
+
+  private static final long KEEP_ALIVE_TIME_MS = 60 * 1000L;
+
+  /**
+   * The number of threads that can be allocated by the adaptive pools of one participant.
+   */
+  public static class ThreadBudget {
+    private final int _capacity;
+    private final AtomicInteger _allocated = new AtomicInteger(0);
+
+    public ThreadBudget(int capacity) {
+      _capacity = capacity;
+    }
+
+    /**
+     * Reserve the minimum threads of a pool. The reservation always succeeds, even if it exceeds
+     * the capacity, so the pools can never starve.
+     */
+    void reserve(int threads) {
+      _allocated.addAndGet(threads);
+    }
+
+    boolean tryAcquire(int threads) {
+      while (true) {
+        int allocated = _allocated.get();
+        if (allocated + threads > _capacity) {
+          return false;
+        }
+        if (_allocated.compareAndSet(allocated, allocated + threads)) {
+          return true;
+        }
+      }
+    }
+
+    void release(int threads) {
+      _allocated.addAndGet(-threads);
+    }
+
+    public int getCapacity() {
+      return _capacity;
+    }
+
+    public int getAllocated() {
+      return _allocated.get();
+    }
+  }
+
+  private final String _name;
+  private final int _minThreads;
+  private final int _maxThreads;
+  private final long _adjustIntervalMs;
+  private final ThreadBudget _budget;
+
+  private final ThreadLocal<Long> _taskStartTime = new ThreadLocal<>();
+  private final AtomicLong _completedTaskCount = new AtomicLong(0);
+  private final AtomicLong _totalTaskLatency = new AtomicLong(0);
+  // The average task latency observed in the last adjustment interval that completed any task
+  private long _lastAvgTaskLatency = 0;
+  // The threads taken from the budget, returned once the pool is terminated
+  private final AtomicInteger _budgetedThreads = new AtomicInteger(0);
+
+  /**
+   * @param name the name of the pool, used to name its threads
+   * @param minThreads the minimum number of threads, which are always available to the pool
+   * @param maxThreads the maximum number of threads
+   * @param adjustIntervalMs the expected interval between two calls of {@link #adjust()}
+   * @param budget the thread budget shared by the adaptive pools of the participant
+   */
+  public AdaptiveThreadPoolExecutor(String name, int minThreads, int maxThreads,
+      long adjustIntervalMs, ThreadBudget budget) {
+    super(minThreads, Math.max(minThreads, maxThreads), KEEP_ALIVE_TIME_MS, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), new ThreadFactoryWithName(name));
+    if (minThreads <= 0 || maxThreads < minThreads) {
+      throw new IllegalArgumentException(String
+          .format("Illegal adaptive thread pool size, min: %d, max: %d", minThreads, maxThreads));
+    }
+    _name = name;
+    _minThreads = minThreads;
+    _maxThreads = maxThreads;
+    _adjustIntervalMs = adjustIntervalMs;
+    _budget = budget;
+    _budget.reserve(minThreads);
+    _budgetedThreads.set(minThreads);
+  }
+
+  @Override
+  protected void beforeExecute(Thread t, Runnable r) {
+    super.beforeExecute(t, r);
+    _taskStartTime.set(System.currentTimeMillis());
+  }
+
+  @Override
+  protected void afterExecute(Runnable r, Throwable t) {
+    Long startTime = _taskStartTime.get();
+    if (startTime != null) {
+      _totalTaskLatency.addAndGet(System.currentTimeMillis() - startTime);
+      _completedTaskCount.incrementAndGet();
+      _taskStartTime.remove();
+    }
+    super.afterExecute(r, t);
+  }
+
+  /**
+   * Grow the pool by one thread if the queued tasks are not expected to be drained within the
+   * next adjustment interval at the current concurrency, and the budget allows it. Shrink the
+   * pool by one thread if the queue is empty and some threads are idle.
+   * A growth is skipped if the task latency has doubled since the last interval, which usually
+   * means the tasks are contending on a shared resource and more threads will not help.
+   */
+  public synchronized void adjust() {
+    if (isShutdown()) {
+      return;
+    }
+    long completed = _completedTaskCount.getAndSet(0);
+    long totalLatency = _totalTaskLatency.getAndSet(0);
+    long avgLatency = completed == 0 ? _lastAvgTaskLatency : totalLatency / completed;
+
+    int poolSize = getCorePoolSize();
+    int queueSize = getQueue().size();
+    if (queueSize > 0 && poolSize < _maxThreads) {
+      // The expected time to drain the queue with the current threads
+      long drainTimeMs = queueSize * Math.max(avgLatency, 1) / poolSize;
+      boolean latencyDegraded = _lastAvgTaskLatency > 0 && avgLatency > 2 * _lastAvgTaskLatency;
+      if (drainTimeMs > _adjustIntervalMs && !latencyDegraded && _budget.tryAcquire(1)) {
+        _budgetedThreads.incrementAndGet();
+        setCorePoolSize(poolSize + 1);
+        LOG.debug("Grow thread pool {} to {}, queue size {}, average task latency {} ms", _name,
+            poolSize + 1, queueSize, avgLatency);
+      }
+    } else if (queueSize == 0 && poolSize > _minThreads && getActiveCount() < poolSize) {
+      setCorePoolSize(poolSize - 1);
+      _budgetedThreads.decrementAndGet();
+      _budget.release(1);
+      LOG.debug("Shrink thread pool {} to {}", _name, poolSize - 1);
+    }
+    if (completed > 0) {
+      _lastAvgTaskLatency = avgLatency;
+    }
+  }
+
+  public int getMinThreads() {
+    return _minThreads;
+  }
+
+  public int getMaxThreads() {
+    return _maxThreads;
+  }
+
+  @Override
+  protected void terminated() {
+    super.terminated();
+    _budget.release(_budgetedThreads.getAndSet(0));
+  }
+
+  private static class ThreadFactoryWithName implements ThreadFactory {
+    private final String _name;
+    private final AtomicInteger _threadId = new AtomicInteger(0);
+
+    ThreadFactoryWithName(String name) {
+      _name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      return new Thread(r, "AdaptiveThreadPoolExecutor-" + _name + "_thread_" + _threadId
+          .getAndIncrement());
+    }
+  }
+}
@@ -19,7 +19,9 @@ package org.apache.helix.messaging.handling;
  * under the License.
  */
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +31,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixException;
 import org.apache.helix.HelixManager;
@@ -50,6 +54,13 @@ public class BatchMessageHandler extends MessageHandler {
   final List<MessageHandler> _subMessageHandlers;
   final BatchMessageWrapper _batchMsgWrapper;
 
+  /**
+   * Key in the task result map under which the per-partition results of a batch message are
+   * kept, as a JSON map from partition name to "true" or "false".
+   */
+  public static final String PARTITION_RESULTS_KEY = "BATCH_PARTITION_RESULTS";
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
   public BatchMessageHandler(Message msg, NotificationContext context, MessageHandlerFactory fty,
       BatchMessageWrapper wrapper, TaskExecutor executor) {
     super(msg, context);
@@ -170,31 +181,43 @@ public class BatchMessageHandler extends MessageHandler {
         // return result;
       }
 
-      // combine sub-results to result
+      // combine sub-results to result, and keep the result of each partition
       if (futures != null) {
         boolean isBatchTaskSucceed = true;
+        Map<String, String> partitionResults = new HashMap<String, String>();
 
         for (int i = 0; i < futures.size(); i++) {
           Future<HelixTaskResult> future = futures.get(i);
           MessageTask subTask = batchTasks.get(i);
+          boolean isSubTaskSucceed = false;
           try {
             HelixTaskResult subTaskResult = future.get();
-            if (!subTaskResult.isSuccess()) {
-              isBatchTaskSucceed = false;
-            }
+            isSubTaskSucceed = subTaskResult.isSuccess();
           } catch (InterruptedException e) {
-            isBatchTaskSucceed = false;
             LOG.error("interrupted in executing batch-msg: " + _message.getId() + ", sub-msg: "
                 + subTask.getTaskId(), e);
           } catch (ExecutionException e) {
-            isBatchTaskSucceed = false;
             LOG.error(
                 "fail to execute batch-msg: " + _message.getId() + ", sub-msg: "
                     + subTask.getTaskId(), e);
           }
+          isBatchTaskSucceed &= isSubTaskSucceed;
+          for (Message subMsg : ((HelixBatchMessageTask) subTask).getSubMessages()) {
+            partitionResults.put(subMsg.getPartitionName(), "" + isSubTaskSucceed);
+          }
         }
         result = new HelixTaskResult();
         result.setSuccess(isBatchTaskSucceed);
+        try {
+          result.getTaskResultMap()
+              .put(PARTITION_RESULTS_KEY, OBJECT_MAPPER.writeValueAsString(partitionResults));
+        } catch (IOException e) {
+          LOG.warn("fail to serialize partition results of batch-msg: " + _message.getId(), e);
+        }
+        if (!isBatchTaskSucceed) {
+          LOG.warn("batch-msg: {} partially failed, partition results: {}", _message.getId(),
+              partitionResults);
+        }
       }
 
       result.setCompleteTime(System.currentTimeMillis());
@@ -206,6 +229,25 @@ public class BatchMessageHandler extends MessageHandler {
     }
   }
 
+  /**
+   * Get the per-partition results of a batch message.
+   * @param result task result returned by {@link #handleMessage()}
+   * @return map from partition name to "true" or "false", empty if the result has none
+   */
+  public static Map<String, String> getPartitionResults(HelixTaskResult result) {
+    String partitionResults = result.getTaskResultMap().get(PARTITION_RESULTS_KEY);
+    if (partitionResults == null) {
+      return Collections.emptyMap();
+    }
+    try {
+      return OBJECT_MAPPER.readValue(partitionResults, new TypeReference<Map<String, String>>() {
+      });
+    } catch (IOException e) {
+      LOG.warn("fail to deserialize partition results: " + partitionResults, e);
+      return Collections.emptyMap();
+    }
+  }
+
   @Override
   public void onError(Exception e, ErrorCode code, ErrorType type) {
     // if one sub-message execution fails, call onError on all sub-message handlers
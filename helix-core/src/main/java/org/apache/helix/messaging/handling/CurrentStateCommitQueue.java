@@ -0,0 +1,247 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.CurrentState;
+import org.apache.helix.monitoring.mbeans.ParticipantStatusMonitor;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces the current state deltas of concurrent state transitions that target the same
+ * CurrentState ZNode. Deltas committed within a short window are merged using
+ * {@link CurrentStateUpdate#merge(CurrentState)} and written to ZK in one update, instead of one
+ * ZK write per partition transition. The committing thread blocks until its delta is persisted,
+ * so the latency added to a state transition is bounded by the commit window.
+ */
+public class CurrentStateCommitQueue {
+  private static final Logger LOG = LoggerFactory.getLogger(CurrentStateCommitQueue.class);
+
+  public static final long DEFAULT_COMMIT_WINDOW_MS = 20L;
+  public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+  private static final int FLUSH_THREAD_COUNT = 4;
+
+  private static AtomicLong thread_uid = new AtomicLong(0);
+
+  private static class PendingCommit {
+    final HelixDataAccessor _accessor;
+    // The deltas are kept in commit order. Deltas carrying a delta list (e.g. the removal of a
+    // DROPPED partition) cannot be merged and start a new update.
+    final List<CurrentStateUpdate> _updates = new ArrayList<>();
+    final CompletableFuture<Boolean> _result = new CompletableFuture<>();
+    final long _firstCommitTime = System.currentTimeMillis();
+    int _deltaCount = 0;
+
+    PendingCommit(HelixDataAccessor accessor) {
+      _accessor = accessor;
+    }
+
+    void add(PropertyKey key, CurrentState delta) {
+      _deltaCount++;
+      if (!_updates.isEmpty()) {
+        CurrentStateUpdate last = _updates.get(_updates.size() - 1);
+        if (last._delta.getRecord().getDeltaList().isEmpty() && delta.getRecord().getDeltaList()
+            .isEmpty()) {
+          last.merge(delta);
+          return;
+        }
+      }
+      _updates.add(new CurrentStateUpdate(key, copyOf(delta)));
+    }
+  }
+
+  private final Map<String, PendingCommit> _pendingCommits = new HashMap<>();
+  private final ScheduledExecutorService _flushExecutor;
+  private final long _commitWindowMs;
+  private final int _maxBatchSize;
+  private final ParticipantStatusMonitor _monitor;
+  // Guarded by _pendingCommits, so no commit is queued once the pending commits are flushed on
+  // shutdown.
+  private boolean _isShutdown = false;
+
+  public CurrentStateCommitQueue(long commitWindowMs, int maxBatchSize,
+      ParticipantStatusMonitor monitor) {
+    if (commitWindowMs < 0 || maxBatchSize <= 0) {
+      throw new IllegalArgumentException(String
+          .format("Illegal current state commit window %d or max batch size %d", commitWindowMs,
+              maxBatchSize));
+    }
+    _commitWindowMs = commitWindowMs;
+    _maxBatchSize = maxBatchSize;
+    _monitor = monitor;
+    _flushExecutor = Executors.newScheduledThreadPool(FLUSH_THREAD_COUNT, r -> {
+      Thread thread =
+          new Thread(r, "CurrentStateCommitQueue-flush_thread_" + thread_uid.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Commit a current state delta, and wait until it is persisted together with the other deltas
+   * of the same window.
+   * @param accessor the accessor used to write the current state
+   * @param key the CurrentState (or TaskCurrentState) property key
+   * @param delta the current state delta
+   * @return true if the delta is persisted successfully
+   */
+  public boolean commit(HelixDataAccessor accessor, PropertyKey key, CurrentState delta) {
+    String path = key.getPath();
+    PendingCommit pending;
+    boolean flushNow = false;
+    synchronized (_pendingCommits) {
+      if (_isShutdown) {
+        pending = null;
+      } else {
+        pending = _pendingCommits.get(path);
+        if (pending == null) {
+          pending = new PendingCommit(accessor);
+          _pendingCommits.put(path, pending);
+          if (!scheduleFlush(path, pending)) {
+            // The flush executor is rejecting the tasks, write the delta without waiting for the
+            // window.
+            flushNow = true;
+          }
+        }
+        pending.add(key, delta);
+        if (flushNow || pending._deltaCount >= _maxBatchSize) {
+          _pendingCommits.remove(path);
+          flushNow = true;
+        }
+      }
+    }
+    if (pending == null) {
+      return accessor.updateProperty(key, delta);
+    }
+    if (flushNow) {
+      flush(pending);
+    }
+
+    try {
+      return pending._result.get();
+    } catch (InterruptedException e) {
+      LOG.error("Interrupted while committing current state of {}", path, e);
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      LOG.error("Failed to commit current state of {}", path, e.getCause());
+      return false;
+    }
+  }
+
+  private boolean scheduleFlush(String path, PendingCommit pending) {
+    try {
+      _flushExecutor.schedule(() -> {
+        synchronized (_pendingCommits) {
+          // The pending commit may have been flushed already because of the batch size limit.
+          if (!_pendingCommits.remove(path, pending)) {
+            return;
+          }
+        }
+        flush(pending);
+      }, _commitWindowMs, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  private void flush(PendingCommit pending) {
+    boolean success = true;
+    try {
+      for (CurrentStateUpdate update : pending._updates) {
+        if (!pending._accessor.updateProperty(update._key, update._delta)) {
+          LOG.error("Fails to persist current state back to ZK for key {}", update._key);
+          success = false;
+        }
+      }
+    } catch (Exception e) {
+      LOG.error("Error when committing current state updates", e);
+      success = false;
+    } finally {
+      pending._result.complete(success);
+      if (_monitor != null) {
+        _monitor.reportCurrentStateCommit(pending._deltaCount, pending._updates.size(),
+            System.currentTimeMillis() - pending._firstCommitTime);
+      }
+    }
+  }
+
+  /**
+   * Persist all the pending deltas immediately.
+   */
+  public void flushAll() {
+    flushAll(false);
+  }
+
+  /**
+   * Persist all the pending deltas and stop batching. Any later commit is written directly.
+   */
+  public void shutdown() {
+    // Stop queueing the commits together with taking the pending ones, so no commit is left
+    // waiting for a flush task that is cancelled below.
+    flushAll(true);
+    _flushExecutor.shutdownNow();
+  }
+
+  private void flushAll(boolean shutdown) {
+    List<PendingCommit> toFlush;
+    synchronized (_pendingCommits) {
+      if (shutdown) {
+        _isShutdown = true;
+      }
+      toFlush = new ArrayList<>(_pendingCommits.values());
+      _pendingCommits.clear();
+    }
+    for (PendingCommit pending : toFlush) {
+      flush(pending);
+    }
+  }
+
+  private static CurrentState copyOf(CurrentState delta) {
+    ZNRecord record = delta.getRecord();
+    if (!record.getDeltaList().isEmpty()) {
+      // Delta list is not copied by the ZNRecord copy constructor. And this delta is never merged.
+      return delta;
+    }
+    ZNRecord copy = new ZNRecord(record);
+    for (Map.Entry<String, Map<String, String>> entry : record.getMapFields().entrySet()) {
+      copy.setMapField(entry.getKey(),
+          entry.getValue() == null ? null : new TreeMap<>(entry.getValue()));
+    }
+    return new CurrentState(copy);
+  }
+}
@@ -43,6 +43,10 @@ public class HelixBatchMessageTask implements MessageTask {
     _handlers = handlers;
   }
 
+  public List<Message> getSubMessages() {
+    return _subMsgs;
+  }
+
   @Override
   public HelixTaskResult call() throws Exception {
     HelixTaskResult taskResult = null;
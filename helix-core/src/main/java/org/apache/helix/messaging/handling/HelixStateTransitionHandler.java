@@ -236,7 +236,10 @@ public class HelixStateTransitionHandler extends MessageHandler {
           .currentState(instanceName, sessionId, resource, bucketizer.getBucketName(partitionKey));
       if (_message.getAttribute(Attributes.PARENT_MSG_ID) == null) {
         // normal message
-        if (!accessor.updateProperty(key, _currentStateDelta)) {
+        CurrentStateCommitQueue commitQueue = getCurrentStateCommitQueue();
+        boolean success = commitQueue == null ? accessor.updateProperty(key, _currentStateDelta)
+            : commitQueue.commit(accessor, key, _currentStateDelta);
+        if (!success) {
           throw new HelixException(
               "Fails to persist current state back to ZK for resource " + resource + " partition: "
                   + _message.getPartitionName());
@@ -260,6 +263,14 @@ public class HelixStateTransitionHandler extends MessageHandler {
 
   }
 
+  private CurrentStateCommitQueue getCurrentStateCommitQueue() {
+    Object executor = _notificationContext.get(MapKey.TASK_EXECUTOR.toString());
+    if (executor instanceof HelixTaskExecutor) {
+      return ((HelixTaskExecutor) executor).getCurrentStateCommitQueue();
+    }
+    return null;
+  }
+
   @Override
   public HelixTaskResult handleMessage() {
     NotificationContext context = _notificationContext;
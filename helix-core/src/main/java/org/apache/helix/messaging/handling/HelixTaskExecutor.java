@@ -33,10 +33,13 @@ import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -69,6 +72,7 @@ import org.apache.helix.model.Message.MessageType;
 import org.apache.helix.model.builder.HelixConfigScopeBuilder;
 import org.apache.helix.monitoring.mbeans.MessageQueueMonitor;
 import org.apache.helix.monitoring.mbeans.ParticipantMessageMonitor;
+import org.apache.helix.monitoring.mbeans.ParticipantMessageMonitor.MessagePreprocessStage;
 import org.apache.helix.monitoring.mbeans.ParticipantMessageMonitor.ProcessedMessageState;
 import org.apache.helix.monitoring.mbeans.ParticipantStatusMonitor;
 import org.apache.helix.participant.HelixStateMachineEngine;
@@ -130,6 +134,9 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
   // From storage point of view, only bootstrap case is expensive
   // and we need to throttle, which is mostly IO / network bounded.
   public static final int DEFAULT_PARALLEL_TASKS = TaskExecutor.DEFAULT_PARALLEL_TASKS;
+  public static final int DEFAULT_ADAPTIVE_THREAD_POOL_MIN_THREADS = 1;
+  public static final int DEFAULT_ADAPTIVE_THREAD_POOL_GLOBAL_MAX_THREADS = 200;
+  public static final long DEFAULT_ADAPTIVE_THREAD_POOL_ADJUST_INTERVAL_MS = 1000L;
   // TODO: create per-task type threadpool with customizable pool size
   protected final Map<String, MessageTaskInfo> _taskMap;
   private final Object _lock;
@@ -145,6 +152,7 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
   private String _freezeSessionId;
   private LiveInstanceStatus _liveInstanceStatus;
   private static final int SESSION_SYNC_INTERVAL = 2000; // 2 seconds
+  private static final long CURRENT_STATE_NAMES_REFRESH_INTERVAL = 30 * 1000L; // 30 seconds
   private static final String SESSION_SYNC = "SESSION-SYNC";
 
   /**
@@ -168,6 +176,25 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
   // timer for schedule timeout tasks
   final Timer _timer;
 
+  // null if current state updates are not batched
+  private final CurrentStateCommitQueue _currentStateCommitQueue;
+
+  // null if the per-resource state transition thread pools have a fixed size
+  private final ScheduledExecutorService _adaptiveThreadPoolAdjuster;
+  private final AdaptiveThreadPoolExecutor.ThreadBudget _adaptiveThreadBudget;
+  private final Map<String, AdaptiveThreadPoolExecutor> _adaptiveThreadPools;
+  private final long _adaptiveThreadPoolAdjustIntervalMs;
+  private final int _adaptiveThreadPoolMinThreads;
+
+  // null if the message handlers are created in the message callback thread
+  private final ExecutorService _messagePreprocessExecutor;
+
+  // Names of the current state ZNodes known to exist in the current session. It is loaded from ZK
+  // once per session and then maintained from the current states created by this executor.
+  private final Set<String> _knownCurrentStateNames;
+  private String _knownCurrentStateSessionId;
+  private long _knownCurrentStateReadTime;
+
   private boolean _isShuttingDown;
 
   public HelixTaskExecutor() {
@@ -202,6 +229,51 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     // created as a daemon timer thread to handle task timeout
     _timer = new Timer("HelixTaskExecutor_Timer", true);
 
+    if (Boolean.getBoolean(SystemPropertyKeys.CURRENT_STATE_COMMIT_QUEUE_ENABLED)) {
+      _currentStateCommitQueue = new CurrentStateCommitQueue(
+          Long.getLong(SystemPropertyKeys.CURRENT_STATE_COMMIT_WINDOW_MS,
+              CurrentStateCommitQueue.DEFAULT_COMMIT_WINDOW_MS),
+          Integer.getInteger(SystemPropertyKeys.CURRENT_STATE_COMMIT_MAX_BATCH_SIZE,
+              CurrentStateCommitQueue.DEFAULT_MAX_BATCH_SIZE), _monitor);
+    } else {
+      _currentStateCommitQueue = null;
+    }
+
+    int preprocessThreadCount =
+        Integer.getInteger(SystemPropertyKeys.MESSAGE_PREPROCESS_THREAD_COUNT, 0);
+    if (preprocessThreadCount > 0) {
+      _messagePreprocessExecutor = Executors.newFixedThreadPool(preprocessThreadCount,
+          r -> new Thread(r,
+              "HelixTaskExecutor-message_preprocess_thread_" + thread_uid.getAndIncrement()));
+    } else {
+      _messagePreprocessExecutor = null;
+    }
+    _knownCurrentStateNames = ConcurrentHashMap.newKeySet();
+
+    _adaptiveThreadPools = new ConcurrentHashMap<>();
+    _adaptiveThreadPoolMinThreads = Integer
+        .getInteger(SystemPropertyKeys.ADAPTIVE_THREAD_POOL_MIN_THREADS,
+            DEFAULT_ADAPTIVE_THREAD_POOL_MIN_THREADS);
+    _adaptiveThreadPoolAdjustIntervalMs = Long
+        .getLong(SystemPropertyKeys.ADAPTIVE_THREAD_POOL_ADJUST_INTERVAL_MS,
+            DEFAULT_ADAPTIVE_THREAD_POOL_ADJUST_INTERVAL_MS);
+    if (Boolean.getBoolean(SystemPropertyKeys.ADAPTIVE_THREAD_POOL_ENABLED)) {
+      _adaptiveThreadBudget = new AdaptiveThreadPoolExecutor.ThreadBudget(Integer
+          .getInteger(SystemPropertyKeys.ADAPTIVE_THREAD_POOL_GLOBAL_MAX_THREADS,
+              DEFAULT_ADAPTIVE_THREAD_POOL_GLOBAL_MAX_THREADS));
+      _adaptiveThreadPoolAdjuster = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "HelixTaskExecutor-adaptive_threadpool_adjuster");
+        thread.setDaemon(true);
+        return thread;
+      });
+      _adaptiveThreadPoolAdjuster.scheduleWithFixedDelay(this::adjustAdaptiveThreadPools,
+          _adaptiveThreadPoolAdjustIntervalMs, _adaptiveThreadPoolAdjustIntervalMs,
+          TimeUnit.MILLISECONDS);
+    } else {
+      _adaptiveThreadBudget = null;
+      _adaptiveThreadPoolAdjuster = null;
+    }
+
     _isShuttingDown = false;
     _liveInstanceStatus = LiveInstanceStatus.NORMAL;
 
@@ -269,6 +341,14 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     return _monitor;
   }
 
+  /**
+   * @return the queue that batches the current state updates of state transitions, or null if
+   *         the current state updates are written individually
+   */
+  public CurrentStateCommitQueue getCurrentStateCommitQueue() {
+    return _currentStateCommitQueue;
+  }
+
   private void startMonitorThread() {
     // start a thread which monitors the completions of task
   }
@@ -342,7 +422,17 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
         }
       }
       final String key = msgInfo.getMessageIdentifier(Message.MessageInfo.MessageIdentifierBase.PER_RESOURCE);
-      if (threadpoolSize > 0) {
+      if (threadpoolSize > 0 && _adaptiveThreadBudget != null) {
+        // The configured size is the upper bound of the adaptive pool.
+        AdaptiveThreadPoolExecutor executor = new AdaptiveThreadPoolExecutor(key,
+            Math.min(_adaptiveThreadPoolMinThreads, threadpoolSize), threadpoolSize,
+            _adaptiveThreadPoolAdjustIntervalMs, _adaptiveThreadBudget);
+        _adaptiveThreadPools.put(key, executor);
+        _executorMap.put(key, executor);
+        _monitor.createExecutorMonitor(key, executor);
+        LOG.info("Added adaptive dedicate threadpool for resource: " + resourceName
+            + " with max size: " + threadpoolSize);
+      } else if (threadpoolSize > 0) {
         _executorMap.put(key, Executors.newFixedThreadPool(threadpoolSize,
             r -> new Thread(r, "GerenricHelixController-message_handle_" + key)));
         LOG.info("Added dedicate threadpool for resource: " + resourceName + " with size: " + threadpoolSize);
@@ -365,6 +455,16 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     }
   }
 
+  private void adjustAdaptiveThreadPools() {
+    for (AdaptiveThreadPoolExecutor executor : _adaptiveThreadPools.values()) {
+      try {
+        executor.adjust();
+      } catch (Exception e) {
+        LOG.warn("Failed to adjust the adaptive threadpool {}.", executor, e);
+      }
+    }
+  }
+
   /**
    * Find the executor service for the message. A message can have a per-statemodelfactory
    * executor service, or per-message type executor service.
@@ -718,6 +818,10 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
 
     shutdownExecutors();
 
+    if (_currentStateCommitQueue != null) {
+      _currentStateCommitQueue.flushAll();
+    }
+
     synchronized (_hdlrFtyRegistry) {
       _hdlrFtyRegistry.values()
           .stream()
@@ -749,6 +853,11 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
 
     _knownMessageIds.clear();
 
+    synchronized (_knownCurrentStateNames) {
+      _knownCurrentStateNames.clear();
+      _knownCurrentStateSessionId = null;
+    }
+
     _lastSessionSyncTime = null;
     _isCleanState = true;
   }
@@ -907,25 +1016,30 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     Map<String, Message> msgsToBeUpdated = new HashMap<>();
 
     String sessionId = manager.getSessionId();
-    List<String> curResourceNames =
-        accessor.getChildNames(keyBuilder.currentStates(instanceName, sessionId));
-    List<String> taskCurResourceNames =
-        accessor.getChildNames(keyBuilder.taskCurrentStates(instanceName, sessionId));
     List<PropertyKey> createCurStateKeys = new ArrayList<>();
     List<CurrentState> metaCurStates = new ArrayList<>();
     Set<String> createCurStateNames = new HashSet<>();
 
+    long handlerCreationStartTime = System.currentTimeMillis();
+    Map<String, PreparedMessageHandler> preparedHandlers =
+        prepareStateTransitionHandlers(messages, changeContext, sessionId);
+    long handlerCreationLatency = System.currentTimeMillis() - handlerCreationStartTime;
+
     for (Message message : messages) {
       if (checkAndProcessNoOpMessage(message, instanceName, changeContext, manager, sessionId,
           stateTransitionHandlers)) {
         // skip the following operations for the no-op messages.
         continue;
       }
-      NotificationContext msgWorkingContext = changeContext.clone();
+      PreparedMessageHandler preparedHandler = preparedHandlers.get(message.getId());
+      NotificationContext msgWorkingContext =
+          preparedHandler == null ? changeContext.clone() : preparedHandler._context;
       MessageHandler msgHandler = null;
+      long createStartTime = System.currentTimeMillis();
       try {
         // create message handlers, if handlers not found but no exception, leave its state as NEW
-        msgHandler = createMessageHandler(message, msgWorkingContext);
+        msgHandler = preparedHandler == null ? createMessageHandler(message, msgWorkingContext)
+            : preparedHandler.getHandler();
       } catch (Exception ex) {
         // Failed to create message handler and there is an Exception.
         int remainingRetryCount = message.getRetryCount();
@@ -948,6 +1062,10 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
         }
         msgsToBeUpdated.put(message.getId(), message);
         // continue processing in the next section where handler object is double-checked.
+      } finally {
+        if (preparedHandler == null) {
+          handlerCreationLatency += System.currentTimeMillis() - createStartTime;
+        }
       }
 
       if (msgHandler == null) {
@@ -988,7 +1106,7 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
       if (!message.isControlerMsg() && message.getMsgType()
           .equals(Message.MessageType.STATE_TRANSITION.name())) {
         String resourceName = message.getResourceName();
-        if (!curResourceNames.contains(resourceName) && !taskCurResourceNames.contains(resourceName)
+        if (!getKnownCurrentStateNames(accessor, instanceName, sessionId).contains(resourceName)
             && !createCurStateNames.contains(resourceName)) {
           createCurStateNames.add(resourceName);
           PropertyKey curStateKey = keyBuilder.currentState(instanceName, sessionId, resourceName);
@@ -1013,11 +1131,22 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
         }
       }
     }
+    _monitor.reportMessagePreprocessLatency(MessagePreprocessStage.HANDLER_CREATION,
+        handlerCreationLatency);
 
+    long messageStateUpdateStartTime = System.currentTimeMillis();
     // batch create curState meta
     if (createCurStateKeys.size() > 0) {
       try {
-        accessor.createChildren(createCurStateKeys, metaCurStates);
+        boolean[] created = accessor.createChildren(createCurStateKeys, metaCurStates);
+        for (int i = 0; i < created.length; i++) {
+          // A creation usually fails because the ZNode already exists. Otherwise the name is left
+          // out, so the ZNode is created again for the next message of the resource.
+          if (created[i] || accessor.getBaseDataAccessor()
+              .exists(createCurStateKeys.get(i).getPath(), AccessOption.PERSISTENT)) {
+            _knownCurrentStateNames.add(metaCurStates.get(i).getResourceName());
+          }
+        }
       } catch (Exception e) {
         LOG.error("fail to create cur-state znodes for messages: " + msgsToBeUpdated, e);
       }
@@ -1025,6 +1154,10 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
 
     // update message state in batch and schedule tasks for all read messages
     updateMessageState(msgsToBeUpdated.values(), accessor, instanceName);
+    _monitor.reportMessagePreprocessLatency(MessagePreprocessStage.MESSAGE_STATE_UPDATE,
+        System.currentTimeMillis() - messageStateUpdateStartTime);
+
+    long taskSchedulingStartTime = System.currentTimeMillis();
 
     for (Map.Entry<String, MessageHandler> handlerEntry : stateTransitionHandlers.entrySet()) {
       MessageHandler handler = handlerEntry.getValue();
@@ -1056,6 +1189,122 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
       NotificationContext context = nonStateTransitionContexts.get(i);
       scheduleTaskForMessage(instanceName, accessor, handler, context);
     }
+    _monitor.reportMessagePreprocessLatency(MessagePreprocessStage.TASK_SCHEDULING,
+        System.currentTimeMillis() - taskSchedulingStartTime);
+  }
+
+  /**
+   * A message handler created ahead of the serial message processing, or the exception thrown
+   * when creating it.
+   */
+  private static class PreparedMessageHandler {
+    final NotificationContext _context;
+    final MessageHandler _handler;
+    final Exception _exception;
+
+    PreparedMessageHandler(NotificationContext context, MessageHandler handler,
+        Exception exception) {
+      _context = context;
+      _handler = handler;
+      _exception = exception;
+    }
+
+    MessageHandler getHandler() throws Exception {
+      if (_exception != null) {
+        throw _exception;
+      }
+      return _handler;
+    }
+  }
+
+  /**
+   * Create the handlers of the state transition messages that will be processed in this callback
+   * in parallel. Only the messages that pass the checks of the serial processing before the
+   * handler creation are prepared: new, unexpired messages of the current session, and only the
+   * first message of a partition that has neither a state transition in progress nor a
+   * cancellation message in this callback. The other messages are either dropped or discarded as
+   * duplicates by the serial processing, so their handlers, state models and user code are never
+   * created ahead. One message per partition also means the state models are never created
+   * concurrently for one partition.
+   * @return map of message id to the prepared handler, empty if parallel preparing is disabled
+   */
+  private Map<String, PreparedMessageHandler> prepareStateTransitionHandlers(
+      List<Message> messages, NotificationContext changeContext, String sessionId) {
+    if (_messagePreprocessExecutor == null || messages.size() < 2) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, Message> messageByTarget = new HashMap<>();
+    Set<String> skippedTargets = new HashSet<>();
+    for (Message message : messages) {
+      String messageTarget =
+          getMessageTarget(message.getResourceName(), message.getPartitionName());
+      if (message.getMsgType().equals(MessageType.STATE_TRANSITION_CANCELLATION.name())) {
+        skippedTargets.add(messageTarget);
+        continue;
+      }
+      if (message.getMsgType().equals(MessageType.STATE_TRANSITION.name())
+          && MessageState.NEW == message.getMsgState() && !message.isExpired() && (
+          sessionId.equals(message.getTgtSessionId()) || "*".equals(message.getTgtSessionId()))) {
+        // The later messages of the same partition are discarded as duplicates
+        messageByTarget.putIfAbsent(messageTarget, message);
+      }
+    }
+    messageByTarget.keySet().removeAll(skippedTargets);
+    messageByTarget.keySet().removeIf(this::isStateTransitionInProgress);
+    if (messageByTarget.size() < 2) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, PreparedMessageHandler> preparedHandlers = new ConcurrentHashMap<>();
+    List<Callable<Void>> prepareTasks = new ArrayList<>(messageByTarget.size());
+    for (Message message : messageByTarget.values()) {
+      prepareTasks.add(() -> {
+        NotificationContext msgWorkingContext = changeContext.clone();
+        try {
+          preparedHandlers.put(message.getId(), new PreparedMessageHandler(msgWorkingContext,
+              createMessageHandler(message, msgWorkingContext), null));
+        } catch (Exception ex) {
+          preparedHandlers
+              .put(message.getId(), new PreparedMessageHandler(msgWorkingContext, null, ex));
+        }
+        return null;
+      });
+    }
+    try {
+      _messagePreprocessExecutor.invokeAll(prepareTasks);
+    } catch (InterruptedException e) {
+      LOG.warn("Interrupted while creating message handlers in parallel.", e);
+      Thread.currentThread().interrupt();
+    } catch (RejectedExecutionException e) {
+      // The executor is shutting down. The handlers not prepared are created in the serial loop.
+      LOG.warn("Failed to create message handlers in parallel.", e);
+    }
+    return preparedHandlers;
+  }
+
+  /**
+   * Get the names of the current state ZNodes, including the task current states, known to exist
+   * in the given session. The names are read from ZK again when the session changes, and
+   * periodically to notice the ZNodes removed by others, such as the cleanup of an expired session.
+   */
+  private Set<String> getKnownCurrentStateNames(HelixDataAccessor accessor, String instanceName,
+      String sessionId) {
+    synchronized (_knownCurrentStateNames) {
+      long currentTime = System.currentTimeMillis();
+      if (!sessionId.equals(_knownCurrentStateSessionId)
+          || currentTime - _knownCurrentStateReadTime > CURRENT_STATE_NAMES_REFRESH_INTERVAL) {
+        Builder keyBuilder = accessor.keyBuilder();
+        _knownCurrentStateNames.clear();
+        _knownCurrentStateNames
+            .addAll(accessor.getChildNames(keyBuilder.currentStates(instanceName, sessionId)));
+        _knownCurrentStateNames
+            .addAll(accessor.getChildNames(keyBuilder.taskCurrentStates(instanceName, sessionId)));
+        _knownCurrentStateSessionId = sessionId;
+        _knownCurrentStateReadTime = currentTime;
+      }
+    }
+    return _knownCurrentStateNames;
   }
 
   /**
@@ -1473,6 +1722,20 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
 
     shutdownExecutors();
     reset();
+    if (_currentStateCommitQueue != null) {
+      _currentStateCommitQueue.shutdown();
+    }
+    if (_messagePreprocessExecutor != null) {
+      _messagePreprocessExecutor.shutdown();
+    }
+    if (_adaptiveThreadPoolAdjuster != null) {
+      _adaptiveThreadPoolAdjuster.shutdownNow();
+      for (Map.Entry<String, AdaptiveThreadPoolExecutor> entry : _adaptiveThreadPools.entrySet()) {
+        _monitor.removeExecutorMonitor(entry.getKey());
+        entry.getValue().shutdown();
+      }
+      _adaptiveThreadPools.clear();
+    }
     _monitor.shutDown();
     LOG.info("Shutdown HelixTaskExecutor finished");
   }
@@ -147,6 +147,11 @@ public class ClusterConfig extends HelixProperty {
     // The unit is milliseconds.
     OFFLINE_DURATION_FOR_PURGE_MS,
 
+    // The number of state transition messages sent to one instance in a pipeline run above which
+    // the messages are batched per resource and transition, even if the resources are not in
+    // batch message mode. Non-positive to disable.
+    ADAPTIVE_BATCH_MESSAGE_THRESHOLD,
+
     // The following 3 keywords are for metadata in batch disabled instance
     HELIX_ENABLED_DISABLE_TIMESTAMP,
     HELIX_DISABLED_REASON,
@@ -504,6 +509,25 @@ public class ClusterConfig extends HelixProperty {
     return _record.getIntField(ClusterConfigProperty.MAX_PARTITIONS_PER_INSTANCE.name(), -1);
   }
 
+  /**
+   * Set the number of state transition messages sent to one instance in a pipeline run above
+   * which the controller batches the messages of each resource and transition into one message,
+   * as in batch message mode.
+   * @param threshold the message count threshold, non-positive to disable adaptive batching
+   */
+  public void setAdaptiveBatchMessageThreshold(int threshold) {
+    _record.setIntField(ClusterConfigProperty.ADAPTIVE_BATCH_MESSAGE_THRESHOLD.name(), threshold);
+  }
+
+  /**
+   * Get the number of state transition messages sent to one instance in a pipeline run above
+   * which the messages are batched.
+   * @return the message count threshold, or -1 if adaptive batching is disabled
+   */
+  public int getAdaptiveBatchMessageThreshold() {
+    return _record.getIntField(ClusterConfigProperty.ADAPTIVE_BATCH_MESSAGE_THRESHOLD.name(), -1);
+  }
+
   /**
    * Set the max offline instances allowed for the cluster. If number of pff-line or disabled
    * instances
@@ -60,6 +60,12 @@ public class CurrentState extends HelixProperty {
     super(resourceName);
   }
 
+  // The parsed start and end time of each partition
+  private final ParsedValueCache<Long> _startTimes =
+      new ParsedValueCache<>((partition, rawValue) -> Long.parseLong(rawValue));
+  private final ParsedValueCache<Long> _endTimes =
+      new ParsedValueCache<>((partition, rawValue) -> Long.parseLong(rawValue));
+
   /**
    * Instantiate a current state with a pre-populated ZNRecord
    * @param record a ZNRecord corresponding to the current state
@@ -127,12 +133,12 @@ public class CurrentState extends HelixProperty {
 
   public long getStartTime(String partitionName) {
     String startTime = getProperty(partitionName, CurrentStateProperty.START_TIME);
-    return startTime == null ? -1L : Long.parseLong(startTime);
+    return startTime == null ? -1L : _startTimes.get(partitionName, startTime);
   }
 
   public long getEndTime(String partitionName) {
     String endTime = getProperty(partitionName, CurrentStateProperty.END_TIME);
-    return endTime == null ? -1L : Long.parseLong(endTime);
+    return endTime == null ? -1L : _endTimes.get(partitionName, endTime);
   }
 
   public String getTriggerHost(String partitionName) {
@@ -164,7 +164,7 @@ public class IdealState extends HelixProperty {
    * @return the partition capacity of an instance for this resource, or Integer.MAX_VALUE
    */
   public int getMaxPartitionsPerInstance() {
-    return _record.getIntField(IdealStateProperty.MAX_PARTITIONS_PER_INSTANCE.toString(),
+    return getCachedIntField(IdealStateProperty.MAX_PARTITIONS_PER_INSTANCE.toString(),
         Integer.MAX_VALUE);
   }
 
@@ -242,7 +242,7 @@ public class IdealState extends HelixProperty {
    * @return
    */
   public long getRebalanceDelay() {
-    return _record.getLongField(IdealStateProperty.REBALANCE_DELAY.name(), -1);
+    return getCachedLongField(IdealStateProperty.REBALANCE_DELAY.name(), -1);
   }
 
   /**
@@ -261,9 +261,9 @@ public class IdealState extends HelixProperty {
    */
   public boolean isDelayRebalanceEnabled() {
     boolean disabled =
-        _record.getBooleanField(IdealStateProperty.DELAY_REBALANCE_DISABLED.name(), false);
+        getCachedBooleanField(IdealStateProperty.DELAY_REBALANCE_DISABLED.name(), false);
     boolean enabled =
-        _record.getBooleanField(ResourceConfigProperty.DELAY_REBALANCE_ENABLED.name(), true);
+        getCachedBooleanField(ResourceConfigProperty.DELAY_REBALANCE_ENABLED.name(), true);
     if (disabled) {
       return false;
     }
@@ -286,7 +286,7 @@ public class IdealState extends HelixProperty {
    * @return true if enabled; false otherwise
    */
   public boolean isResourceGroupEnabled() {
-    return _record.getBooleanField(IdealStateProperty.GROUP_ROUTING_ENABLED.name(), false);
+    return getCachedBooleanField(IdealStateProperty.GROUP_ROUTING_ENABLED.name(), false);
   }
 
   /**
@@ -305,7 +305,7 @@ public class IdealState extends HelixProperty {
    * @return true if the external view should be disabled for this resource.
    */
   public boolean isExternalViewDisabled() {
-    return _record.getBooleanField(IdealStateProperty.EXTERNAL_VIEW_DISABLED.name(), false);
+    return getCachedBooleanField(IdealStateProperty.EXTERNAL_VIEW_DISABLED.name(), false);
   }
 
   /**
@@ -523,7 +523,7 @@ public class IdealState extends HelixProperty {
    * @return the number of partitions
    */
   public int getNumPartitions() {
-    return _record.getIntField(IdealStateProperty.NUM_PARTITIONS.toString(), -1);
+    return getCachedIntField(IdealStateProperty.NUM_PARTITIONS.toString(), -1);
   }
 
   /**
@@ -541,7 +541,7 @@ public class IdealState extends HelixProperty {
    * @return
    */
   public int getMinActiveReplicas() {
-    return _record.getIntField(IdealStateProperty.MIN_ACTIVE_REPLICAS.toString(), -1);
+    return getCachedIntField(IdealStateProperty.MIN_ACTIVE_REPLICAS.toString(), -1);
   }
 
   /**
@@ -648,7 +648,7 @@ public class IdealState extends HelixProperty {
    * @return the rebalancing timer period
    */
   public long getRebalanceTimerPeriod() {
-    return _record.getLongField(IdealStateProperty.REBALANCE_TIMER_PERIOD.toString(), -1);
+    return getCachedLongField(IdealStateProperty.REBALANCE_TIMER_PERIOD.toString(), -1);
   }
 
   @Override
@@ -790,7 +790,7 @@ public class IdealState extends HelixProperty {
    * @return true if enabled; false otherwise
    */
   public boolean isEnabled() {
-    return _record.getBooleanField(IdealStateProperty.HELIX_ENABLED.name(), true);
+    return getCachedBooleanField(IdealStateProperty.HELIX_ENABLED.name(), true);
   }
 
   /**
@@ -70,6 +70,11 @@ public class InstanceConfig extends HelixProperty {
 
   private static final Logger _logger = LoggerFactory.getLogger(InstanceConfig.class.getName());
 
+  // The disabled partitions of each resource, parsed from the HELIX_DISABLED_PARTITION map field
+  private final ParsedValueCache<Set<String>> _disabledPartitions =
+      new ParsedValueCache<>((resource, rawValue) -> new HashSet<>(
+          HelixUtil.deserializeByComma(rawValue)));
+
   /**
    * Instantiate for a specific instance
    * @param instanceId the instance identifier
@@ -253,7 +258,7 @@ public class InstanceConfig extends HelixProperty {
    * @return true if enabled, false if disabled
    */
   public boolean getInstanceEnabled() {
-    return _record.getBooleanField(InstanceConfigProperty.HELIX_ENABLED.toString(), true);
+    return getCachedBooleanField(InstanceConfigProperty.HELIX_ENABLED.toString(), true);
   }
 
   /**
@@ -326,7 +331,7 @@ public class InstanceConfig extends HelixProperty {
    * @return
    */
   public long getInstanceEnabledTime() {
-    return _record.getLongField(InstanceConfigProperty.HELIX_ENABLED_TIMESTAMP.name(), -1);
+    return getCachedLongField(InstanceConfigProperty.HELIX_ENABLED_TIMESTAMP.name(), -1);
   }
 
   /**
@@ -358,8 +363,9 @@ public class InstanceConfig extends HelixProperty {
         _record.getListField(InstanceConfigProperty.HELIX_DISABLED_PARTITION.name());
     Map<String, String> disabledPartitionsMap =
         _record.getMapField(InstanceConfigProperty.HELIX_DISABLED_PARTITION.name());
-    if ((disabledPartitionsMap != null && disabledPartitionsMap.containsKey(resource) && HelixUtil
-        .deserializeByComma(disabledPartitionsMap.get(resource)).contains(partition))
+    Set<String> disabledPartitions = disabledPartitionsMap == null ? null
+        : _disabledPartitions.get(resource, disabledPartitionsMap.get(resource));
+    if ((disabledPartitions != null && disabledPartitions.contains(partition))
         || oldDisabledPartition != null && oldDisabledPartition.contains(partition)) {
       return false;
     } else {
@@ -540,9 +546,8 @@ public class InstanceConfig extends HelixProperty {
    * @return
    */
   public boolean isDelayRebalanceEnabled() {
-    return _record
-        .getBooleanField(ResourceConfig.ResourceConfigProperty.DELAY_REBALANCE_ENABLED.name(),
-            true);
+    return getCachedBooleanField(
+        ResourceConfig.ResourceConfigProperty.DELAY_REBALANCE_ENABLED.name(), true);
   }
 
   /**
@@ -560,7 +565,8 @@ public class InstanceConfig extends HelixProperty {
    * @return the maximum task count
    */
   public int getMaxConcurrentTask() {
-    return _record.getIntField(InstanceConfigProperty.MAX_CONCURRENT_TASK.name(), MAX_CONCURRENT_TASK_NOT_SET);
+    return getCachedIntField(InstanceConfigProperty.MAX_CONCURRENT_TASK.name(),
+        MAX_CONCURRENT_TASK_NOT_SET);
   }
 
   public void setMaxConcurrentTask(int maxConcurrentTask) {
@@ -572,9 +578,9 @@ public class InstanceConfig extends HelixProperty {
    * @return the target size of task thread pool
    */
   public int getTargetTaskThreadPoolSize() {
-    return _record
-        .getIntField(InstanceConfig.InstanceConfigProperty.TARGET_TASK_THREAD_POOL_SIZE.name(),
-            TARGET_TASK_THREAD_POOL_SIZE_NOT_SET);
+    return getCachedIntField(
+        InstanceConfig.InstanceConfigProperty.TARGET_TASK_THREAD_POOL_SIZE.name(),
+        TARGET_TASK_THREAD_POOL_SIZE_NOT_SET);
   }
 
   /**
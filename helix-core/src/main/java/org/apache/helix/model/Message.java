@@ -539,7 +539,7 @@ public class Message extends HelixProperty {
    * @return UNIX timestamp (in ms)
    */
   public long getReadTimeStamp() {
-    return _record.getLongField(Attributes.READ_TIMESTAMP.toString(), 0L);
+    return getCachedLongField(Attributes.READ_TIMESTAMP.toString(), 0L);
   }
 
   /**
@@ -547,7 +547,7 @@ public class Message extends HelixProperty {
    * @return UNIX timestamp (in ms)
    */
   public long getExecuteStartTimeStamp() {
-    return _record.getLongField(Attributes.EXECUTE_START_TIMESTAMP.toString(), 0L);
+    return getCachedLongField(Attributes.EXECUTE_START_TIMESTAMP.toString(), 0L);
   }
 
   /**
@@ -555,7 +555,7 @@ public class Message extends HelixProperty {
    * @return UNIX timestamp (in ms)
    */
   public long getCreateTimeStamp() {
-    return _record.getLongField(Attributes.CREATE_TIMESTAMP.toString(), 0L);
+    return getCachedLongField(Attributes.CREATE_TIMESTAMP.toString(), 0L);
   }
 
   /**
@@ -563,7 +563,7 @@ public class Message extends HelixProperty {
    * @return UNIX timestamp (in ms)
    */
   public long getCompletionDueTimeStamp() {
-    long completionDue = _record.getLongField(Attributes.COMPLETION_DUE_TIMESTAMP.name(), 0L);
+    long completionDue = getCachedLongField(Attributes.COMPLETION_DUE_TIMESTAMP.name(), 0L);
     if (completionDue == 0) {
       completionDue = getCreateTimeStamp() + MESSAGE_EXPECT_COMPLETION_PERIOD;
     }
@@ -592,7 +592,7 @@ public class Message extends HelixProperty {
    * @return the timeout in ms, or -1 indicating no timeout
    */
   public int getExecutionTimeout() {
-    return _record.getIntField(Attributes.TIMEOUT.toString(), -1);
+    return getCachedIntField(Attributes.TIMEOUT.toString(), -1);
   }
 
   /**
@@ -618,7 +618,7 @@ public class Message extends HelixProperty {
    * @return maximum number of retries
    */
   public int getRetryCount() {
-    return _record.getIntField(Attributes.RETRY_COUNT.toString(), 0);
+    return getCachedIntField(Attributes.RETRY_COUNT.toString(), 0);
   }
 
   /**
@@ -656,7 +656,7 @@ public class Message extends HelixProperty {
   // TODO: remove this. impl in HelixProperty
   @Override
   public int getBucketSize() {
-    return _record.getIntField(Attributes.BUCKET_SIZE.toString(), 0);
+    return getCachedIntField(Attributes.BUCKET_SIZE.toString(), 0);
   }
 
   @Override
@@ -756,7 +756,7 @@ public class Message extends HelixProperty {
    * @return
    */
   public long getRelayTime() {
-    return _record.getLongField(Attributes.RELAY_TIME.name(), -1);
+    return getCachedLongField(Attributes.RELAY_TIME.name(), -1);
   }
 
   /**
@@ -904,7 +904,7 @@ public class Message extends HelixProperty {
    * @return
    */
   public long getExpiryPeriod() {
-    return _record.getLongField(Attributes.EXPIRY_PERIOD.name(), -1);
+    return getCachedLongField(Attributes.EXPIRY_PERIOD.name(), -1);
   }
 
   /**
@@ -20,9 +20,11 @@ package org.apache.helix.monitoring.mbeans;
  */
 
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -35,9 +37,11 @@ import javax.management.JMException;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Sets;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.controller.dataproviders.WorkflowControllerDataProvider;
 import org.apache.helix.controller.stages.BestPossibleStateOutput;
 import org.apache.helix.model.ExternalView;
@@ -47,6 +51,7 @@ import org.apache.helix.model.Message;
 import org.apache.helix.model.Partition;
 import org.apache.helix.model.Resource;
 import org.apache.helix.model.StateModelDefinition;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.MetricsTextExporter;
 import org.apache.helix.task.JobConfig;
 import org.apache.helix.task.TaskState;
 import org.apache.helix.task.WorkflowConfig;
@@ -67,6 +72,18 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
   static final String JOB_TYPE_DN_KEY = "jobType";
   static final String DEFAULT_WORKFLOW_JOB_TYPE = "DEFAULT";
   public static final String DEFAULT_TAG = "DEFAULT";
+  // Resource name of the per-instance MBeans that aggregate all the resources of an instance
+  public static final String ALL_RESOURCES = "AllResources";
+
+  // The most unhealthy resources first, then the largest ones
+  private static final Comparator<ResourceMonitor> RESOURCE_MBEAN_PRIORITY = Comparator
+      .comparingLong((ResourceMonitor monitor) -> monitor.getErrorPartitionGauge()
+          + monitor.getMissingTopStatePartitionGauge()
+          + monitor.getMissingMinActiveReplicaPartitionGauge()
+          + monitor.getMissingReplicaPartitionGauge()
+          + monitor.getDifferenceWithIdealStateGauge()).reversed()
+      .thenComparing(Comparator.comparingLong(ResourceMonitor::getPartitionGauge).reversed())
+      .thenComparing(ResourceMonitor::getResourceName);
 
   private final String _clusterName;
   private final MBeanServer _beanServer;
@@ -109,6 +126,15 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
 
   private final Map<String, JobMonitor> _perTypeJobMonitorMap = new ConcurrentHashMap<>();
 
+  // Max number of the registered resource MBeans, not bounded if not positive
+  private final int _maxResourceMBeans =
+      Integer.getInteger(SystemPropertyKeys.CLUSTER_STATUS_MONITOR_MAX_RESOURCE_MBEANS, 0);
+  // The resources with a registered MBean when the MBeans are bounded
+  private final Set<String> _registeredResources = ConcurrentHashMap.newKeySet();
+  // The latest partition count of the resources on each instance: instance->resource->count
+  private volatile Map<String, Map<String, Long>> _perInstanceResourcePartitions =
+      Collections.emptyMap();
+
   public ClusterStatusMonitor(String clusterName) {
     _clusterName = clusterName;
     _beanServer = ManagementFactory.getPlatformMBeanServer();
@@ -463,27 +489,47 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
         }
       }
     }
+    Map<String, Map<String, Long>> partitionCounts = new HashMap<>();
+    for (Map.Entry<PerInstanceResourceMonitor.BeanName, Map<Partition, String>> entry : beanMap
+        .entrySet()) {
+      PerInstanceResourceMonitor.BeanName beanName = entry.getKey();
+      String stateModelDefName = resourceMap.get(beanName.resourceName()).getStateModelDefRef();
+      partitionCounts.computeIfAbsent(beanName.instanceName(), k -> new HashMap<>()).put(
+          beanName.resourceName(), PerInstanceResourceMonitor
+              .countPartitions(entry.getValue(), stateModelDefMap.get(stateModelDefName)));
+    }
+    _perInstanceResourcePartitions = partitionCounts;
+
+    // beanName->partition count, one bean per instance if the MBeans are bounded
+    Map<PerInstanceResourceMonitor.BeanName, Long> beanCounts = new HashMap<>();
+    for (Map.Entry<String, Map<String, Long>> instanceEntry : partitionCounts.entrySet()) {
+      String instance = instanceEntry.getKey();
+      for (Map.Entry<String, Long> entry : instanceEntry.getValue().entrySet()) {
+        String resource = isResourceMBeanBounded() ? ALL_RESOURCES : entry.getKey();
+        beanCounts.merge(new PerInstanceResourceMonitor.BeanName(_clusterName, instance, resource),
+            entry.getValue(), Long::sum);
+      }
+    }
+
     synchronized (_perInstanceResourceMonitorMap) {
       // Unregister beans for per-instance resources that no longer exist
       Set<PerInstanceResourceMonitor.BeanName> toUnregister =
           Sets.newHashSet(_perInstanceResourceMonitorMap.keySet());
-      toUnregister.removeAll(beanMap.keySet());
+      toUnregister.removeAll(beanCounts.keySet());
       try {
         unregisterPerInstanceResources(toUnregister);
       } catch (MalformedObjectNameException e) {
         LOG.error("Fail to unregister per-instance resource from MBean server: " + toUnregister, e);
       }
       // Register beans for per-instance resources that are newly configured
-      Set<PerInstanceResourceMonitor.BeanName> toRegister = Sets.newHashSet(beanMap.keySet());
+      Set<PerInstanceResourceMonitor.BeanName> toRegister = Sets.newHashSet(beanCounts.keySet());
       toRegister.removeAll(_perInstanceResourceMonitorMap.keySet());
       Set<PerInstanceResourceMonitor> monitorsToRegister = Sets.newHashSet();
       for (PerInstanceResourceMonitor.BeanName beanName : toRegister) {
         PerInstanceResourceMonitor bean = new PerInstanceResourceMonitor(_clusterName,
             beanName.instanceName(), beanName.resourceName());
-        String stateModelDefName = resourceMap.get(beanName.resourceName()).getStateModelDefRef();
         InstanceConfig config = instanceConfigMap.get(beanName.instanceName());
-        bean.update(beanMap.get(beanName), Sets.newHashSet(config.getTags()),
-            stateModelDefMap.get(stateModelDefName));
+        bean.update(beanCounts.get(beanName), Sets.newHashSet(config.getTags()));
         monitorsToRegister.add(bean);
       }
       try {
@@ -494,10 +540,8 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
       // Update existing beans
       for (PerInstanceResourceMonitor.BeanName beanName : _perInstanceResourceMonitorMap.keySet()) {
         PerInstanceResourceMonitor bean = _perInstanceResourceMonitorMap.get(beanName);
-        String stateModelDefName = resourceMap.get(beanName.resourceName()).getStateModelDefRef();
         InstanceConfig config = instanceConfigMap.get(beanName.instanceName());
-        bean.update(beanMap.get(beanName), Sets.newHashSet(config.getTags()),
-            stateModelDefMap.get(stateModelDefName));
+        bean.update(beanCounts.get(beanName), Sets.newHashSet(config.getTags()));
       }
     }
   }
@@ -514,6 +558,12 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
     }
     resourcesToRemove.removeAll(resourceNames);
 
+    if (isResourceMBeanBounded()) {
+      // The registered resources are selected by updateRegisteredResourceMonitors
+      unregisterResources(resourcesToRemove);
+      return;
+    }
+
     try {
       registerResources(resourceNames);
     } catch (JMException e) {
@@ -529,6 +579,73 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
     }
   }
 
+  /**
+   * Register the MBeans of the resources with the most unhealthy partitions, up to the max number
+   * of resource MBeans, and unregister the others. Does nothing if the MBeans are not bounded. The
+   * unregistered resources are still aggregated in the cluster MBean and the status snapshot.
+   */
+  public void updateRegisteredResourceMonitors() {
+    if (!isResourceMBeanBounded()) {
+      return;
+    }
+    List<ResourceMonitor> monitors = new ArrayList<>(_resourceMonitorMap.values());
+    monitors.sort(RESOURCE_MBEAN_PRIORITY);
+    Set<String> selected = new HashSet<>();
+    for (ResourceMonitor monitor : monitors.subList(0,
+        Math.min(_maxResourceMBeans, monitors.size()))) {
+      selected.add(monitor.getResourceName());
+    }
+
+    synchronized (_resourceMonitorMap) {
+      for (String resourceName : new ArrayList<>(_registeredResources)) {
+        if (!selected.contains(resourceName)) {
+          ResourceMonitor monitor = _resourceMonitorMap.get(resourceName);
+          if (monitor != null) {
+            monitor.unregister();
+          }
+          _registeredResources.remove(resourceName);
+        }
+      }
+      for (String resourceName : selected) {
+        ResourceMonitor monitor = _resourceMonitorMap.get(resourceName);
+        if (monitor != null && _registeredResources.add(resourceName)) {
+          try {
+            monitor.register();
+          } catch (JMException e) {
+            _registeredResources.remove(resourceName);
+            LOG.error("Fail to register resource mbean, resource: " + resourceName, e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Pull based export of the resource status gauges, including the resources without a
+   * registered MBean.
+   * @return resource->gauge name->value
+   */
+  public Map<String, Map<String, Long>> getResourceStatusSnapshot() {
+    Map<String, Map<String, Long>> snapshot = new HashMap<>();
+    for (ResourceMonitor monitor : _resourceMonitorMap.values()) {
+      snapshot.put(monitor.getResourceName(), monitor.getStatusGauges());
+    }
+    return snapshot;
+  }
+
+  /**
+   * Pull based export of the partition count of the resources on each instance in the best
+   * possible state, including the ones aggregated into a per-instance MBean.
+   * @return instance->resource->partition count
+   */
+  public Map<String, Map<String, Long>> getPerInstanceResourcePartitionSnapshot() {
+    return Collections.unmodifiableMap(_perInstanceResourcePartitions);
+  }
+
+  private boolean isResourceMBeanBounded() {
+    return _maxResourceMBeans > 0;
+  }
+
   public void setResourceState(String resourceName, ExternalView externalView,
       IdealState idealState, StateModelDefinition stateModelDef) {
     try {
@@ -583,6 +700,19 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
     }
   }
 
+  /**
+   * Update the time spent computing the best possible state of each resource.
+   * @param calculationLatencies map of resource name to the calculation latency in milliseconds
+   */
+  public void updateBestPossibleCalculationLatencies(Map<String, Long> calculationLatencies) {
+    for (Map.Entry<String, Long> entry : calculationLatencies.entrySet()) {
+      ResourceMonitor resourceMonitor = getOrCreateResourceMonitor(entry.getKey());
+      if (resourceMonitor != null) {
+        resourceMonitor.updateBestPossibleCalculationLatency(entry.getValue());
+      }
+    }
+  }
+
   public void updateRebalancerStats(String resourceName, long numPendingRecoveryRebalancePartitions,
       long numPendingLoadRebalancePartitions, long numRecoveryRebalanceThrottledPartitions,
       long numLoadRebalanceThrottledPartitions, boolean rebalanceThrottledByErrorPartitions) {
@@ -623,7 +753,10 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
   public void active() {
     LOG.info("Active ClusterStatusMonitor");
     try {
-      register(this, getObjectName(clusterBeanName()));
+      ObjectName objectName = getObjectName(clusterBeanName());
+      register(this, objectName);
+      MetricsTextExporter.getDefault()
+          .addSource(objectName, new StandardMBean(this, ClusterStatusMonitorMBean.class));
     } catch (Exception e) {
       LOG.error("Fail to register ClusterStatusMonitor", e);
     }
@@ -635,10 +768,14 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
       unregisterAllResources();
       unregisterAllInstances();
       unregisterAllPerInstanceResources();
-      unregister(getObjectName(clusterBeanName()));
+      ObjectName objectName = getObjectName(clusterBeanName());
+      MetricsTextExporter.getDefault().removeSource(objectName);
+      unregister(objectName);
       unregisterAllEventMonitors();
       unregisterAllWorkflowsMonitor();
       unregisterAllJobs();
+      _registeredResources.clear();
+      _perInstanceResourcePartitions = Collections.emptyMap();
 
       _liveInstances.clear();
       _instances.clear();
@@ -868,6 +1005,7 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
           monitor.unregister();
         }
       }
+      _registeredResources.removeAll(resources);
       _resourceMonitorMap.keySet().removeAll(resources);
     }
   }
@@ -25,12 +25,12 @@ import java.util.concurrent.TimeUnit;
 import javax.management.JMException;
 
 import com.codahale.metrics.Histogram;
-import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import org.apache.helix.model.Message;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMBeanProvider;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.HistogramDynamicMetric;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.SimpleDynamicMetric;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.SlidingTimeWindowHistogramReservoir;
 
 public class MessageLatencyMonitor extends DynamicMBeanProvider {
   private static final String MBEAN_DESCRIPTION = "Helix Message Latency Monitor";
@@ -49,7 +49,7 @@ public class MessageLatencyMonitor extends DynamicMBeanProvider {
         "MessageLatency");
 
     _messageLatencyGauge = new HistogramDynamicMetric("MessagelatencyGauge", new Histogram(
-        new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+        new SlidingTimeWindowHistogramReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
     _totalMessageLatency = new SimpleDynamicMetric("TotalMessageLatency", 0l);
     _totalMessageCount = new SimpleDynamicMetric("TotalMessageCount", 0l);
   }
@@ -21,10 +21,14 @@ package org.apache.helix.monitoring.mbeans;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.management.JMException;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMBeanProvider;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.HistogramDynamicMetric;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.SimpleDynamicMetric;
 
 public class ParticipantMessageMonitor extends DynamicMBeanProvider {
@@ -39,6 +43,12 @@ public class ParticipantMessageMonitor extends DynamicMBeanProvider {
   private SimpleDynamicMetric<Long> _completedMessages;
   private SimpleDynamicMetric<Long> _failedMessages;
   private SimpleDynamicMetric<Long> _pendingMessages;
+  private SimpleDynamicMetric<Long> _committedCurrentStateDeltas;
+  private SimpleDynamicMetric<Long> _currentStateZkWrites;
+  private HistogramDynamicMetric _currentStateCommitLatencyGauge;
+  private HistogramDynamicMetric _handlerCreationLatencyGauge;
+  private HistogramDynamicMetric _messageStateUpdateLatencyGauge;
+  private HistogramDynamicMetric _taskSchedulingLatencyGauge;
 
   /**
    * The current processed state of the message
@@ -49,6 +59,15 @@ public class ParticipantMessageMonitor extends DynamicMBeanProvider {
     COMPLETED
   }
 
+  /**
+   * The stages of pre-processing a batch of messages in one message callback
+   */
+  public enum MessagePreprocessStage {
+    HANDLER_CREATION,
+    MESSAGE_STATE_UPDATE,
+    TASK_SCHEDULING
+  }
+
   public ParticipantMessageMonitor(String domainName, String participantName) {
     _domainName = domainName;
     _participantName = participantName;
@@ -57,6 +76,20 @@ public class ParticipantMessageMonitor extends DynamicMBeanProvider {
     _completedMessages = new SimpleDynamicMetric("CompletedMessages", 0L);
     _failedMessages = new SimpleDynamicMetric("FailedMessages", 0L);
     _pendingMessages = new SimpleDynamicMetric("PendingMessages", 0L);
+    _committedCurrentStateDeltas = new SimpleDynamicMetric("CommittedCurrentStateDeltas", 0L);
+    _currentStateZkWrites = new SimpleDynamicMetric("CurrentStateZkWrites", 0L);
+    _currentStateCommitLatencyGauge = new HistogramDynamicMetric("CurrentStateCommitLatencyGauge",
+        new Histogram(
+            new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+    _handlerCreationLatencyGauge = new HistogramDynamicMetric("HandlerCreationLatencyGauge",
+        new Histogram(
+            new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+    _messageStateUpdateLatencyGauge = new HistogramDynamicMetric("MessageStateUpdateLatencyGauge",
+        new Histogram(
+            new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+    _taskSchedulingLatencyGauge = new HistogramDynamicMetric("TaskSchedulingLatencyGauge",
+        new Histogram(
+            new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
   }
 
   public void incrementReceivedMessages(long count) {
@@ -83,6 +116,37 @@ public class ParticipantMessageMonitor extends DynamicMBeanProvider {
     incrementSimpleDynamicMetric(_pendingMessages, -1 * count);
   }
 
+  /**
+   * Record a batched current state commit.
+   * @param deltaCount number of current state deltas coalesced in the commit
+   * @param zkWriteCount number of ZK writes issued for the commit
+   * @param latency time from the first delta being queued to the commit completing, in ms
+   */
+  public void updateCurrentStateCommit(int deltaCount, int zkWriteCount, long latency) {
+    incrementSimpleDynamicMetric(_committedCurrentStateDeltas, deltaCount);
+    incrementSimpleDynamicMetric(_currentStateZkWrites, zkWriteCount);
+    _currentStateCommitLatencyGauge.updateValue(latency);
+  }
+
+  /**
+   * Record the time spent in one pre-processing stage of a message callback.
+   * @param stage the pre-processing stage
+   * @param latency the time spent, in ms
+   */
+  public void updateMessagePreprocessLatency(MessagePreprocessStage stage, long latency) {
+    switch (stage) {
+      case HANDLER_CREATION:
+        _handlerCreationLatencyGauge.updateValue(latency);
+        break;
+      case MESSAGE_STATE_UPDATE:
+        _messageStateUpdateLatencyGauge.updateValue(latency);
+        break;
+      case TASK_SCHEDULING:
+        _taskSchedulingLatencyGauge.updateValue(latency);
+        break;
+    }
+  }
+
   @Override
   public String getSensorName() {
     return PARTICIPANT_STATUS_KEY;
@@ -101,6 +165,12 @@ public class ParticipantMessageMonitor extends DynamicMBeanProvider {
     attributeList.add(_completedMessages);
     attributeList.add(_failedMessages);
     attributeList.add(_pendingMessages);
+    attributeList.add(_committedCurrentStateDeltas);
+    attributeList.add(_currentStateZkWrites);
+    attributeList.add(_currentStateCommitLatencyGauge);
+    attributeList.add(_handlerCreationLatencyGauge);
+    attributeList.add(_messageStateUpdateLatencyGauge);
+    attributeList.add(_taskSchedulingLatencyGauge);
     doRegister(attributeList, MBEAN_DESCRIPTION, _domainName,
         ParticipantStatusMonitor.PARTICIPANT_KEY, _participantName, "MonitorType",
         ParticipantMessageMonitor.class.getSimpleName());
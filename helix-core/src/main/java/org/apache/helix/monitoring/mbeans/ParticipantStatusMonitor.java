@@ -98,6 +98,20 @@ public class ParticipantStatusMonitor {
     }
   }
 
+  public synchronized void reportCurrentStateCommit(int deltaCount, int zkWriteCount,
+      long latency) {
+    if (_messageMonitor != null) {  // is participant
+      _messageMonitor.updateCurrentStateCommit(deltaCount, zkWriteCount, latency);
+    }
+  }
+
+  public void reportMessagePreprocessLatency(
+      ParticipantMessageMonitor.MessagePreprocessStage stage, long latency) {
+    if (_messageMonitor != null) {  // is participant
+      _messageMonitor.updateMessagePreprocessLatency(stage, latency);
+    }
+  }
+
   public void reportTransitionStat(StateTransitionContext cxt, StateTransitionDataPoint data) {
     if (_beanServer == null) {
       LOG.warn("bean server is null, skip reporting");
@@ -146,13 +146,32 @@ public class PerInstanceResourceMonitor extends DynamicMBeanProvider {
    */
   public synchronized void update(Map<Partition, String> stateMap, Set<String> tags,
       StateModelDefinition stateModelDef) {
+    update(countPartitions(stateMap, stateModelDef), tags);
+  }
+
+  /**
+   * Update per-instance resource bean
+   * @param partitionCount the number of partitions that are neither dropped nor in initial state
+   * @param tags instance tags
+   */
+  public synchronized void update(long partitionCount, Set<String> tags) {
     if (tags == null || tags.isEmpty()) {
       _tags = ImmutableList.of(ClusterStatusMonitor.DEFAULT_TAG);
     } else {
       _tags = Lists.newArrayList(tags);
       Collections.sort(_tags);
     }
+    _partitions.updateValue(partitionCount);
+  }
 
+  /**
+   * Count the partitions of a resource on an instance
+   * @param stateMap partition->state
+   * @param stateModelDef
+   * @return the number of partitions that are neither dropped nor in initial state
+   */
+  public static long countPartitions(Map<Partition, String> stateMap,
+      StateModelDefinition stateModelDef) {
     int cnt = 0;
     for (String state : stateMap.values()) {
       // Skip DROPPED and initial state (e.g. OFFLINE)
@@ -162,7 +181,7 @@ public class PerInstanceResourceMonitor extends DynamicMBeanProvider {
       }
       cnt++;
     }
-    _partitions.updateValue((long) cnt);
+    return cnt;
   }
 
   @Override
@@ -24,9 +24,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
 import javax.management.ObjectName;
 
 import com.codahale.metrics.Histogram;
@@ -88,6 +90,7 @@ public class ResourceMonitor extends DynamicMBeanProvider {
   // Histograms
   private HistogramDynamicMetric _partitionTopStateHandoffDurationGauge;
   private HistogramDynamicMetric _partitionTopStateHandoffHelixLatencyGauge;
+  private HistogramDynamicMetric _bestPossibleCalculationLatencyGauge;
 
   private SimpleDynamicMetric<String> _rebalanceState;
 
@@ -152,6 +155,9 @@ public class ResourceMonitor extends DynamicMBeanProvider {
     _partitionTopStateNonGracefulHandoffDurationGauge =
         new HistogramDynamicMetric("PartitionTopStateNonGracefulHandoffGauge", new Histogram(
             new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+    _bestPossibleCalculationLatencyGauge =
+        new HistogramDynamicMetric("BestPossibleCalculationLatencyGauge", new Histogram(
+            new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
 
     _totalMessageReceived = new SimpleDynamicMetric("TotalMessageReceived", 0L);
     _totalMessageReceivedCounter = new SimpleDynamicMetric("TotalMessageReceivedCounter", 0L);
@@ -435,6 +441,10 @@ public class ResourceMonitor extends DynamicMBeanProvider {
         "Resource monitor for resource: " + getResourceName());
   }
 
+  public void updateBestPossibleCalculationLatency(long latency) {
+    _bestPossibleCalculationLatencyGauge.updateValue(latency);
+  }
+
   public void setRebalanceState(RebalanceStatus state) {
     _rebalanceState.updateValue(state.name());
   }
@@ -479,6 +489,23 @@ public class ResourceMonitor extends DynamicMBeanProvider {
     return _rebalanceThrottledByErrorPartitionGauge.getValue();
   }
 
+  /**
+   * @return the long attributes of the resource MBean, attribute name->value. Available whether
+   * the MBean is registered or not.
+   */
+  public Map<String, Long> getStatusGauges() {
+    Map<String, Long> gauges = new TreeMap<>();
+    for (DynamicMetric<?, ?> metric : buildAttributeList()) {
+      for (MBeanAttributeInfo attributeInfo : metric.getAttributeInfos()) {
+        Object value = metric.getAttributeValue(attributeInfo.getName());
+        if (value instanceof Long) {
+          gauges.put(attributeInfo.getName(), (Long) value);
+        }
+      }
+    }
+    return gauges;
+  }
+
   public void resetMaxTopStateHandoffGauge() {
     if (_lastResetTime + DEFAULT_RESET_INTERVAL_MS <= System.currentTimeMillis()) {
       _maxSinglePartitionTopStateHandoffDuration.updateValue(0L);
@@ -508,6 +535,7 @@ public class ResourceMonitor extends DynamicMBeanProvider {
         _partitionTopStateHandoffDurationGauge,
         _partitionTopStateHandoffHelixLatencyGauge,
         _partitionTopStateNonGracefulHandoffDurationGauge,
+        _bestPossibleCalculationLatencyGauge,
         _totalMessageReceived,
         _totalMessageReceivedCounter,
         _numPendingStateTransitions,
@@ -26,13 +26,13 @@ import javax.management.JMException;
 import javax.management.ObjectName;
 
 import com.codahale.metrics.Histogram;
-import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import org.apache.helix.monitoring.StateTransitionContext;
 import org.apache.helix.monitoring.StateTransitionDataPoint;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMBeanProvider;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.HistogramDynamicMetric;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.SimpleDynamicMetric;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.SlidingTimeWindowHistogramReservoir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,13 +63,15 @@ public class StateTransitionStatMonitor extends DynamicMBeanProvider {
     _totalSuccessTransitionCounter = new SimpleDynamicMetric<>("TotalSuccessTransitionCounter", 0L);
 
     _transitionLatencyGauge = new HistogramDynamicMetric("TransitionLatencyGauge", new Histogram(
-        new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+        new SlidingTimeWindowHistogramReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
     _transitionExecutionLatencyGauge = new HistogramDynamicMetric("TransitionExecutionLatencyGauge",
         new Histogram(
-            new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+            new SlidingTimeWindowHistogramReservoir(getResetIntervalInMs(),
+                TimeUnit.MILLISECONDS)));
     _transitionMessageLatency = new HistogramDynamicMetric("TransitionMessageLatencyGauge",
         new Histogram(
-            new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+            new SlidingTimeWindowHistogramReservoir(getResetIntervalInMs(),
+                TimeUnit.MILLISECONDS)));
   }
 
   @Override
@@ -22,7 +22,7 @@ package org.apache.helix.monitoring.metrics.implementation;
 import java.util.concurrent.TimeUnit;
 
 import com.codahale.metrics.Histogram;
-import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.SlidingTimeWindowHistogramReservoir;
 import org.apache.helix.monitoring.metrics.model.LatencyMetric;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +40,7 @@ public class RebalanceLatencyGauge extends LatencyMetric {
    */
   public RebalanceLatencyGauge(String metricName, long slidingTimeWindow) {
     super(metricName, new Histogram(
-        new SlidingTimeWindowArrayReservoir(slidingTimeWindow, TimeUnit.MILLISECONDS)));
+        new SlidingTimeWindowHistogramReservoir(slidingTimeWindow, TimeUnit.MILLISECONDS)));
     _metricName = metricName;
     _startTime = ThreadLocal.withInitial(() -> VALUE_NOT_SET);
   }
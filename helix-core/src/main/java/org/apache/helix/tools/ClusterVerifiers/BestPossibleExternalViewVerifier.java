@@ -27,9 +27,16 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.helix.HelixConstants;
 import org.apache.helix.HelixDefinedState;
+import org.apache.helix.HelixProperty;
 import org.apache.helix.HelixRebalanceException;
 import org.apache.helix.PropertyKey;
 import org.apache.helix.controller.common.PartitionStateMap;
@@ -48,6 +55,8 @@ import org.apache.helix.manager.zk.ZkBucketDataAccessor;
 import org.apache.helix.model.ClusterConfig;
 import org.apache.helix.model.ExternalView;
 import org.apache.helix.model.IdealState;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.LiveInstance;
 import org.apache.helix.model.Partition;
 import org.apache.helix.model.Resource;
 import org.apache.helix.model.ResourceAssignment;
@@ -61,6 +70,13 @@ import org.slf4j.LoggerFactory;
 /**
  * verifier that the ExternalViews of given resources (or all resources in the cluster)
  * match its best possible mapping states.
+ *
+ * In the incremental mode, the data provider is kept warm across the callbacks and the verify
+ * calls, and only the resources whose IdealState or ExternalView changed since the last
+ * verification are recomputed. The changes are detected by comparing the stats of the ZNodes with
+ * the ones of the last verification, so the changes between the verify calls are not missed. Any
+ * live instance or config change re-verifies all the resources. The convergence of each verified
+ * resource is reported by {@link #getResourceConvergence()}.
  */
 public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
   private static Logger LOG = LoggerFactory.getLogger(BestPossibleExternalViewVerifier.class);
@@ -69,6 +85,18 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
   private final Set<String> _resources;
   private final Set<String> _expectLiveInstances;
   private final ResourceControllerDataProvider _dataProvider;
+  private final boolean _incremental;
+
+  // Incremental mode states
+  private final AtomicBoolean _fullVerifyRequired = new AtomicBoolean(true);
+  private final Map<String, Boolean> _resourceConvergence = new ConcurrentHashMap<>();
+  // resource -> stat of the IdealState or ExternalView of the last verification
+  private final Map<String, HelixProperty.Stat> _verifiedIdealStateStats = new HashMap<>();
+  private final Map<String, HelixProperty.Stat> _verifiedExternalViewStats = new HashMap<>();
+  // ZNode path -> stat of the cluster wide inputs of the last verification
+  private Map<String, HelixProperty.Stat> _clusterInputStats = Collections.emptyMap();
+  // The resources recomputed during the last verify call
+  private final Set<String> _recomputedResources = ConcurrentHashMap.newKeySet();
 
   /**
    * Deprecated - please use the Builder to construct this class.
@@ -87,11 +115,18 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
   @Deprecated
   public BestPossibleExternalViewVerifier(String zkAddr, String clusterName, Set<String> resources,
       Map<String, Map<String, String>> errStates, Set<String> expectLiveInstances, int waitTillVerify) {
+    this(zkAddr, clusterName, resources, errStates, expectLiveInstances, waitTillVerify, false);
+  }
+
+  private BestPossibleExternalViewVerifier(String zkAddr, String clusterName,
+      Set<String> resources, Map<String, Map<String, String>> errStates,
+      Set<String> expectLiveInstances, int waitTillVerify, boolean incremental) {
     super(zkAddr, clusterName, waitTillVerify);
     _errStates = errStates;
     _resources = resources;
     _expectLiveInstances = expectLiveInstances;
     _dataProvider = new ResourceControllerDataProvider();
+    _incremental = incremental;
     // _zkClient should be closed with BestPossibleExternalViewVerifier
   }
 
@@ -107,7 +142,7 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
   public BestPossibleExternalViewVerifier(RealmAwareZkClient zkClient, String clusterName,
       Set<String> resources, Map<String, Map<String, String>> errStates,
       Set<String> expectLiveInstances) {
-    this(zkClient, clusterName, errStates, resources, expectLiveInstances, 0, true);
+    this(zkClient, clusterName, errStates, resources, expectLiveInstances, 0, true, false);
   }
 
   @Deprecated
@@ -116,12 +151,14 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
       Set<String> expectLiveInstances, int waitTillVerify) {
     // usesExternalZkClient = true because ZkClient is given by the caller
     // at close(), we will not close this ZkClient because it might be being used elsewhere
-    this(zkClient, clusterName, errStates, resources, expectLiveInstances, waitTillVerify, true);
+    this(zkClient, clusterName, errStates, resources, expectLiveInstances, waitTillVerify, true,
+        false);
   }
 
   private BestPossibleExternalViewVerifier(RealmAwareZkClient zkClient, String clusterName,
       Map<String, Map<String, String>> errStates, Set<String> resources,
-      Set<String> expectLiveInstances, int waitPeriodTillVerify, boolean usesExternalZkClient) {
+      Set<String> expectLiveInstances, int waitPeriodTillVerify, boolean usesExternalZkClient,
+      boolean incremental) {
     // Initialize BestPossibleExternalViewVerifier with usesExternalZkClient = false so that
     // BestPossibleExternalViewVerifier::close() would close ZkClient to prevent thread leakage
     super(zkClient, clusterName, usesExternalZkClient, waitPeriodTillVerify);
@@ -134,6 +171,7 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
     _expectLiveInstances =
         expectLiveInstances == null ? new HashSet<>() : new HashSet<>(expectLiveInstances);
     _dataProvider = new ResourceControllerDataProvider();
+    _incremental = incremental;
   }
 
   public static class Builder extends ZkHelixClusterVerifier.Builder<Builder> {
@@ -142,6 +180,7 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
     private Set<String> _resources;
     private Set<String> _expectLiveInstances;
     private RealmAwareZkClient _zkClient;
+    private boolean _incremental = false;
 
     public Builder(String clusterName) {
       _clusterName = clusterName;
@@ -155,20 +194,20 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
       // _usesExternalZkClient == true
       if (_zkClient != null) {
         return new BestPossibleExternalViewVerifier(_zkClient, _clusterName, _errStates, _resources,
-            _expectLiveInstances, _waitPeriodTillVerify, true);
+            _expectLiveInstances, _waitPeriodTillVerify, true, _incremental);
       }
       // _usesExternalZkClient == false
       if (_realmAwareZkConnectionConfig == null || _realmAwareZkClientConfig == null) {
         // For backward-compatibility
         return new BestPossibleExternalViewVerifier(_zkAddress, _clusterName, _resources,
-            _errStates, _expectLiveInstances, _waitPeriodTillVerify);
+            _errStates, _expectLiveInstances, _waitPeriodTillVerify, _incremental);
       }
 
       validate();
       return new BestPossibleExternalViewVerifier(
           createZkClient(RealmAwareZkClient.RealmMode.SINGLE_REALM, _realmAwareZkConnectionConfig,
               _realmAwareZkClientConfig, _zkAddress), _clusterName, _errStates, _resources,
-          _expectLiveInstances, _waitPeriodTillVerify, false);
+          _expectLiveInstances, _waitPeriodTillVerify, false, _incremental);
     }
 
     public String getClusterName() {
@@ -210,6 +249,19 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
       _zkClient = zkClient;
       return this;
     }
+
+    public boolean isIncremental() {
+      return _incremental;
+    }
+
+    /**
+     * Verify incrementally on the ZK callbacks, only the resources changed since the last
+     * verification are recomputed.
+     */
+    public Builder setIncremental(boolean incremental) {
+      _incremental = incremental;
+      return this;
+    }
   }
 
   @Override
@@ -237,11 +289,68 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
       triggers.add(new ClusterVerifyTrigger(_keyBuilder.externalViews(), false, true, true));
     }
 
+    if (!_incremental) {
+      return verifyByCallback(timeout, triggers);
+    }
+
+    // The unchanged resources are not re-verified, so the cluster wide changes that may alter their
+    // best possible states need to trigger a full verification.
+    triggers.add(new ClusterVerifyTrigger(_keyBuilder.liveInstances(), false, true, false));
+    triggers.add(new ClusterVerifyTrigger(_keyBuilder.instanceConfigs(), false, true, true));
+    triggers.add(new ClusterVerifyTrigger(_keyBuilder.clusterConfig(), true, false, false));
+
+    _recomputedResources.clear();
     return verifyByCallback(timeout, triggers);
   }
 
+  @Override
+  protected void beforeFinalVerify() {
+    // Make the final verification a full one in case a change was missed
+    _fullVerifyRequired.set(true);
+  }
+
+  /**
+   * @return the convergence of the verified resources in the incremental mode, true if the
+   *         ExternalView of the resource matches its best possible states.
+   */
+  public Map<String, Boolean> getResourceConvergence() {
+    return Collections.unmodifiableMap(new TreeMap<>(_resourceConvergence));
+  }
+
+  /**
+   * @return the verified resources whose ExternalViews do not match the best possible states yet
+   *         in the incremental mode.
+   */
+  public Set<String> getPendingResources() {
+    Set<String> pendingResources = new HashSet<>();
+    _resourceConvergence.forEach((resource, converged) -> {
+      if (!converged) {
+        pendingResources.add(resource);
+      }
+    });
+    return pendingResources;
+  }
+
+  /**
+   * @return the resources recomputed during the last verify call in the incremental mode.
+   */
+  @VisibleForTesting
+  Set<String> getRecomputedResources() {
+    return new HashSet<>(_recomputedResources);
+  }
+
   @Override
   protected synchronized boolean verifyState() {
+    if (_incremental) {
+      try {
+        return verifyStateIncrementally();
+      } catch (Exception e) {
+        LOG.error("exception in incremental verification", e);
+        // The changes of this round may not be verified
+        _fullVerifyRequired.set(true);
+        return false;
+      }
+    }
     try {
       PropertyKey.Builder keyBuilder = _accessor.keyBuilder();
 
@@ -357,6 +466,161 @@ public class BestPossibleExternalViewVerifier extends ZkHelixClusterVerifier {
     }
   }
 
+  private boolean verifyStateIncrementally() throws Exception {
+    boolean fullVerify = _fullVerifyRequired.getAndSet(false);
+
+    // Keep the data provider warm, the property caches only reload the changed ZNodes. The
+    // ExternalViews are not cached since only the changed ones are read below.
+    _dataProvider.notifyDataChange(HelixConstants.ChangeType.IDEAL_STATE);
+    _dataProvider.notifyDataChange(HelixConstants.ChangeType.LIVE_INSTANCE);
+    _dataProvider.notifyDataChange(HelixConstants.ChangeType.INSTANCE_CONFIG);
+    _dataProvider.notifyDataChange(HelixConstants.ChangeType.RESOURCE_CONFIG);
+    _dataProvider.notifyDataChange(HelixConstants.ChangeType.CLUSTER_CONFIG);
+    _dataProvider.refresh(_accessor);
+    _dataProvider.setClusterEventId("ClusterStateVerifier");
+
+    if (_expectLiveInstances != null && !_expectLiveInstances.isEmpty()) {
+      Set<String> actualLiveNodes = _dataProvider.getLiveInstances().keySet();
+      if (!_expectLiveInstances.equals(actualLiveNodes)) {
+        LOG.warn("Live instances are not as expected. Actual live nodes: " + actualLiveNodes);
+        // The best possible states computed with the other live instances are not valid
+        _fullVerifyRequired.set(true);
+        return false;
+      }
+    }
+
+    // Any change of the cluster wide inputs may alter the best possible states of all the resources
+    Map<String, HelixProperty.Stat> clusterInputStats = getClusterInputStats();
+    if (!clusterInputStats.equals(_clusterInputStats)) {
+      fullVerify = true;
+      _clusterInputStats = clusterInputStats;
+    }
+
+    Map<String, IdealState> idealStates = new HashMap<>(_dataProvider.getIdealStates());
+    idealStates.entrySet().removeIf(
+        pair -> pair.getValue().getStateModelDefRef().equals(TaskConstants.STATE_MODEL_NAME));
+    Set<String> allResources = new HashSet<>(idealStates.keySet());
+    allResources.addAll(_accessor.getChildNames(_keyBuilder.externalViews()));
+    if (_resources != null && !_resources.isEmpty()) {
+      allResources.retainAll(_resources);
+    }
+    _resourceConvergence.keySet().retainAll(allResources);
+    _verifiedIdealStateStats.keySet().retainAll(allResources);
+    _verifiedExternalViewStats.keySet().retainAll(allResources);
+
+    // Verify the changed resources and the ones that have not been verified
+    List<String> allResourceList = new ArrayList<>(allResources);
+    List<PropertyKey> allExtViewKeys = new ArrayList<>();
+    for (String resource : allResourceList) {
+      allExtViewKeys.add(_keyBuilder.externalView(resource));
+    }
+    List<HelixProperty.Stat> extViewStats = _accessor.getPropertyStats(allExtViewKeys);
+    Set<String> resourcesToVerify = new HashSet<>();
+    for (int i = 0; i < allResourceList.size(); i++) {
+      String resource = allResourceList.get(i);
+      IdealState is = idealStates.get(resource);
+      if (fullVerify || !_resourceConvergence.containsKey(resource) || !Objects
+          .equals(is == null ? null : is.getStat(), _verifiedIdealStateStats.get(resource))
+          || !Objects.equals(extViewStats.get(i), _verifiedExternalViewStats.get(resource))) {
+        resourcesToVerify.add(resource);
+      }
+    }
+
+    if (!resourcesToVerify.isEmpty()) {
+      List<String> resourceList = new ArrayList<>(resourcesToVerify);
+      List<PropertyKey> extViewKeys = new ArrayList<>();
+      for (String resource : resourceList) {
+        extViewKeys.add(_keyBuilder.externalView(resource));
+      }
+      List<ExternalView> extViewList = _accessor.getProperty(extViewKeys, true);
+      Map<String, ExternalView> extViews = new HashMap<>();
+      for (int i = 0; i < resourceList.size(); i++) {
+        if (extViewList.get(i) != null) {
+          extViews.put(resourceList.get(i), extViewList.get(i));
+        }
+      }
+
+      BestPossibleStateOutput bestPossOutput = calcBestPossState(_dataProvider, resourcesToVerify);
+      _recomputedResources.addAll(resourcesToVerify);
+      for (String resourceName : resourceList) {
+        IdealState is = idealStates.get(resourceName);
+        ExternalView extView = extViews.get(resourceName);
+        // Record the stats of the verified data, a later change is verified by the next round
+        _verifiedIdealStateStats.put(resourceName, is == null ? null : is.getStat());
+        _verifiedExternalViewStats.put(resourceName, extView == null ? null : extView.getStat());
+        if (is == null) {
+          if (extView == null) {
+            // removed in between
+            _resourceConvergence.remove(resourceName);
+            continue;
+          }
+          // if externalView is not empty and idealState doesn't exist
+          // add empty idealState for the resource
+          is = new IdealState(resourceName);
+          is.getRecord().setSimpleFields(extView.getRecord().getSimpleFields());
+        }
+        _resourceConvergence.put(resourceName,
+            verifyResource(resourceName, is, extView, bestPossOutput));
+      }
+    }
+
+    Set<String> pendingResources = getPendingResources();
+    LOG.info("{} of {} resources converged to the best possible states, pending resources: {}",
+        _resourceConvergence.size() - pendingResources.size(), _resourceConvergence.size(),
+        pendingResources);
+    return pendingResources.isEmpty();
+  }
+
+  private Map<String, HelixProperty.Stat> getClusterInputStats() {
+    Map<String, HelixProperty.Stat> clusterInputStats = new HashMap<>();
+    for (LiveInstance liveInstance : _dataProvider.getLiveInstances().values()) {
+      clusterInputStats.put(_keyBuilder.liveInstance(liveInstance.getInstanceName()).getPath(),
+          liveInstance.getStat());
+    }
+    for (InstanceConfig instanceConfig : _dataProvider.getInstanceConfigMap().values()) {
+      clusterInputStats.put(_keyBuilder.instanceConfig(instanceConfig.getInstanceName()).getPath(),
+          instanceConfig.getStat());
+    }
+    ClusterConfig clusterConfig = _dataProvider.getClusterConfig();
+    if (clusterConfig != null) {
+      clusterInputStats.put(_keyBuilder.clusterConfig().getPath(), clusterConfig.getStat());
+    }
+    return clusterInputStats;
+  }
+
+  private boolean verifyResource(String resourceName, IdealState is, ExternalView extView,
+      BestPossibleStateOutput bestPossOutput) {
+    if (extView == null) {
+      if (is.isExternalViewDisabled()) {
+        return true;
+      }
+      extView = new ExternalView(resourceName);
+    }
+    StateModelDefinition stateModelDef = _dataProvider.getStateModelDef(is.getStateModelDefRef());
+    if (stateModelDef == null) {
+      LOG.error("State model definition " + is.getStateModelDefRef()
+          + " for resource not found!" + resourceName);
+      return false;
+    }
+
+    PartitionStateMap bpStateMap = bestPossOutput.getPartitionStateMap(resourceName);
+    // set error states
+    Map<String, String> partErrStates = _errStates == null ? null : _errStates.get(resourceName);
+    if (partErrStates != null) {
+      for (Map.Entry<String, String> errState : partErrStates.entrySet()) {
+        bpStateMap.setState(new Partition(errState.getKey()), errState.getValue(),
+            HelixDefinedState.ERROR.toString());
+      }
+    }
+
+    boolean result = verifyExternalView(extView, bpStateMap, stateModelDef);
+    if (!result && LOG.isDebugEnabled()) {
+      LOG.debug("verifyExternalView fails for " + resourceName + "! ExternalView: " + extView
+          + " BestPossibleState: " + bpStateMap);
+    }
+    return result;
+  }
+
   private boolean verifyExternalView(ExternalView externalView,
       PartitionStateMap bestPossibleState, StateModelDefinition stateModelDef) {
     Set<String> ignoreStates = new HashSet<>(
@@ -60,8 +60,7 @@ public abstract class ZkHelixClusterVerifier
   private CountDownLatch _countdown;
   protected final int _waitPeriodTillVerify;
 
-  private ExecutorService _verifyTaskThreadPool =
-      Executors.newSingleThreadExecutor(r -> new Thread(r, "ZkHelixClusterVerifier-verify_thread"));
+  private volatile ExecutorService _verifyTaskThreadPool = createVerifyTaskThreadPool();
 
   protected static class ClusterVerifyTrigger {
     final PropertyKey _triggerKey;
@@ -242,6 +241,10 @@ public abstract class ZkHelixClusterVerifier
 
   protected boolean verifyByCallback(long timeout, List<ClusterVerifyTrigger> triggers) {
     _countdown = new CountDownLatch(1);
+    // The pool is shut down by the previous verification if the verifier is reused
+    if (_verifyTaskThreadPool.isShutdown()) {
+      _verifyTaskThreadPool = createVerifyTaskThreadPool();
+    }
 
     for (ClusterVerifyTrigger trigger : triggers) {
       subscribeTrigger(trigger);
@@ -254,6 +257,7 @@ public abstract class ZkHelixClusterVerifier
         success = _countdown.await(timeout, TimeUnit.MILLISECONDS);
         if (!success) {
           // make a final try if timeout
+          beforeFinalVerify();
           success = verifyState();
           if (!success) {
             LOG.error("verifyByCallback failed due to timeout {}", timeout);
@@ -271,6 +275,18 @@ public abstract class ZkHelixClusterVerifier
     return success;
   }
 
+  private static ExecutorService createVerifyTaskThreadPool() {
+    return Executors
+        .newSingleThreadExecutor(r -> new Thread(r, "ZkHelixClusterVerifier-verify_thread"));
+  }
+
+  /**
+   * Called before the final verification of {@link #verifyByCallback} once the timeout has
+   * passed. Subclasses may override it to prepare a more thorough final verification.
+   */
+  protected void beforeFinalVerify() {
+  }
+
   private void subscribeTrigger(ClusterVerifyTrigger trigger) {
     String path = trigger.getTriggerKey().getPath();
     if (trigger.isTriggerOnDataChange()) {
@@ -0,0 +1,447 @@
+package org.apache.helix.tools.commandtools;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.helix.AccessOption;
+import org.apache.helix.BaseDataAccessor;
+import org.apache.helix.HelixException;
+import org.apache.helix.manager.zk.ZkBaseDataAccessor;
+import org.apache.helix.zookeeper.api.client.HelixZkClient;
+import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncCallbacks;
+import org.apache.helix.zookeeper.zkclient.exception.ZkException;
+import org.apache.helix.zookeeper.zkclient.exception.ZkNoNodeException;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copy a zk path to another zk path with concurrent subtree traversal.
+ *
+ * Each znode with children is a task of the thread pool. A task lists the children, reads them
+ * with async calls while the previous batch is being written, and writes each batch with one
+ * multi create. A batch that fails, e.g. because a znode already exists, falls back to creating
+ * the znodes one by one, and the existing znodes are skipped. Only the children that have
+ * children themselves are traversed, so the leaf znodes cost no getChildren call.
+ *
+ * The copied subtrees are appended to an optional checkpoint file. A copy resumed with the same
+ * checkpoint file skips them.
+ */
+public class ParallelZkCopy {
+  private static Logger logger = LoggerFactory.getLogger(ParallelZkCopy.class);
+
+  public static final int DEFAULT_BATCH_SIZE = 100;
+  // Keep the multi requests well below the default 1MB jute.maxbuffer
+  private static final int MAX_BATCH_BYTES = 512 * 1024;
+  private static final long REPORT_INTERVAL_MS = 10 * 1000L;
+  private static final String ROOT_CHECKPOINT = "/";
+  private static final String CHECKPOINT_HEADER_PREFIX = "# ";
+
+  private final HelixZkClient _srcClient;
+  private final String _srcRootPath;
+  private final HelixZkClient _dstClient;
+  private final String _dstRootPath;
+  private final int _parallelism;
+  private final int _batchSize;
+  private final File _checkpointFile;
+  private final BaseDataAccessor<Object> _dstAccessor;
+
+  private final AtomicLong _copiedCount = new AtomicLong();
+  private final AtomicLong _skippedCount = new AtomicLong();
+  private final AtomicInteger _pendingSubtrees = new AtomicInteger();
+  private final AtomicReference<Exception> _error = new AtomicReference<>();
+  private final CountDownLatch _done = new CountDownLatch(1);
+  private Set<String> _copiedSubtrees = Collections.emptySet();
+  private BufferedWriter _checkpointWriter;
+  private ExecutorService _executor;
+
+  /**
+   * @param srcClient the source zk client
+   * @param srcRootPath the normalized source path
+   * @param dstClient the destination zk client
+   * @param dstRootPath the normalized destination path
+   * @param parallelism number of threads traversing the subtrees
+   * @param batchSize max number of znodes read ahead and created in one multi call
+   * @param checkpointFile the checkpoint file to resume from and append to, null if not used
+   */
+  public ParallelZkCopy(HelixZkClient srcClient, String srcRootPath, HelixZkClient dstClient,
+      String dstRootPath, int parallelism, int batchSize, File checkpointFile) {
+    if (parallelism < 1 || batchSize < 1) {
+      throw new IllegalArgumentException(
+          "parallelism and batchSize must be positive, was parallelism: " + parallelism
+              + ", batchSize: " + batchSize);
+    }
+    _srcClient = srcClient;
+    _srcRootPath = srcRootPath;
+    _dstClient = dstClient;
+    _dstRootPath = dstRootPath;
+    _parallelism = parallelism;
+    _batchSize = batchSize;
+    _checkpointFile = checkpointFile;
+    _dstAccessor = new ZkBaseDataAccessor<>(dstClient);
+  }
+
+  /**
+   * Copy the source path to the destination path, blocking until the copy completes.
+   * @throws HelixException if the copy fails, the copied subtrees are kept in the checkpoint
+   */
+  public void copy() throws IOException, InterruptedException {
+    openCheckpoint();
+    if (_copiedSubtrees.contains(ROOT_CHECKPOINT)) {
+      logger.info("{} has been copied to {} according to the checkpoint {}", _srcRootPath,
+          _dstRootPath, _checkpointFile);
+      closeCheckpoint();
+      return;
+    }
+
+    long startTime = System.currentTimeMillis();
+    _executor = Executors.newFixedThreadPool(_parallelism, r -> {
+      Thread thread = new Thread(r, "ParallelZkCopy-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "ParallelZkCopy-reporter");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reporter.scheduleAtFixedRate(() -> reportProgress(startTime), REPORT_INTERVAL_MS,
+        REPORT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+    try {
+      copyRoot();
+      submit(new SubtreeTask("", null));
+      _done.await();
+    } finally {
+      reporter.shutdownNow();
+      _executor.shutdownNow();
+      closeCheckpoint();
+    }
+
+    reportProgress(startTime);
+    Exception error = _error.get();
+    if (error != null) {
+      throw new HelixException("Failed to copy " + _srcRootPath + " to " + _dstRootPath, error);
+    }
+  }
+
+  public long getCopiedCount() {
+    return _copiedCount.get();
+  }
+
+  public long getSkippedCount() {
+    return _skippedCount.get();
+  }
+
+  private void reportProgress(long startTime) {
+    long elapsedMs = Math.max(System.currentTimeMillis() - startTime, 1L);
+    long copied = _copiedCount.get();
+    logger.info("Copied {} znodes ({} znodes/s), skipped {} znodes, {} subtrees in progress",
+        copied, copied * 1000 / elapsedMs, _skippedCount.get(), _pendingSubtrees.get());
+  }
+
+  private void copyRoot() {
+    Stat stat = new Stat();
+    Object data = _srcClient.readData(_srcRootPath, stat);
+    if (_dstAccessor.create(_dstRootPath, data, AccessOption.PERSISTENT)) {
+      _copiedCount.incrementAndGet();
+    } else {
+      _skippedCount.incrementAndGet();
+    }
+  }
+
+  private void submit(SubtreeTask task) {
+    _pendingSubtrees.incrementAndGet();
+    _executor.execute(task);
+  }
+
+  private void openCheckpoint() throws IOException {
+    if (_checkpointFile == null) {
+      return;
+    }
+    String header = CHECKPOINT_HEADER_PREFIX + _srcRootPath + " -> " + _dstRootPath;
+    if (_checkpointFile.exists()) {
+      Set<String> copiedSubtrees = new HashSet<>();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+          new FileInputStream(_checkpointFile), StandardCharsets.UTF_8))) {
+        String line = reader.readLine();
+        if (line != null && !line.equals(header)) {
+          throw new IllegalArgumentException(
+              "Checkpoint " + _checkpointFile + " is for another copy: " + line);
+        }
+        while ((line = reader.readLine()) != null) {
+          if (!line.isEmpty()) {
+            copiedSubtrees.add(line);
+          }
+        }
+      }
+      _copiedSubtrees = copiedSubtrees;
+      logger.info("Resume copying with {} copied subtrees in the checkpoint {}",
+          copiedSubtrees.size(), _checkpointFile);
+    }
+    boolean newFile = !_checkpointFile.exists() || _checkpointFile.length() == 0;
+    _checkpointWriter = new BufferedWriter(new OutputStreamWriter(
+        new FileOutputStream(_checkpointFile, true), StandardCharsets.UTF_8));
+    if (newFile) {
+      _checkpointWriter.write(header);
+      _checkpointWriter.newLine();
+      _checkpointWriter.flush();
+    }
+  }
+
+  private synchronized void checkpoint(String path) {
+    if (_checkpointWriter == null) {
+      return;
+    }
+    try {
+      _checkpointWriter.write(path.isEmpty() ? ROOT_CHECKPOINT : path);
+      _checkpointWriter.newLine();
+      _checkpointWriter.flush();
+    } catch (IOException e) {
+      // The subtree is copied again on resume
+      logger.warn("Failed to write the checkpoint of " + path, e);
+    }
+  }
+
+  private synchronized void closeCheckpoint() throws IOException {
+    if (_checkpointWriter != null) {
+      _checkpointWriter.close();
+      _checkpointWriter = null;
+    }
+  }
+
+  /**
+   * Copies the children of a znode and traverses the children that have children. The subtree
+   * is complete once the task and all the tasks of its descendants are done.
+   */
+  private class SubtreeTask implements Runnable {
+    private final String _path;
+    private final SubtreeTask _parent;
+    // this task and the running descendant tasks
+    private final AtomicInteger _pending = new AtomicInteger(1);
+
+    SubtreeTask(String path, SubtreeTask parent) {
+      _path = path;
+      _parent = parent;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (_error.get() == null) {
+          copyChildren();
+        }
+      } catch (Exception e) {
+        logger.error("Failed to copy the children of " + ZkCopy.concatenate(_srcRootPath, _path),
+            e);
+        _error.compareAndSet(null, e);
+      } finally {
+        _pendingSubtrees.decrementAndGet();
+        complete();
+      }
+    }
+
+    private void complete() {
+      if (_pending.decrementAndGet() > 0) {
+        return;
+      }
+      if (_error.get() == null) {
+        checkpoint(_path);
+      }
+      if (_parent != null) {
+        _parent.complete();
+      } else {
+        _done.countDown();
+      }
+    }
+
+    private void copyChildren() {
+      List<String> children;
+      try {
+        children = _srcClient.getChildren(ZkCopy.concatenate(_srcRootPath, _path));
+      } catch (ZkNoNodeException e) {
+        // deleted in the middle of the copy
+        return;
+      }
+      if (children == null || children.isEmpty()) {
+        return;
+      }
+
+      List<String> childPaths = new ArrayList<>(children.size());
+      for (String child : children) {
+        childPaths.add(ZkCopy.concatenate(_path, child));
+      }
+
+      // Pipeline the reads of the next batch with the writes of the current batch
+      List<ChildRead> batch = readAsync(childPaths, 0);
+      for (int start = 0; batch != null; start += _batchSize) {
+        int nextStart = start + _batchSize;
+        List<ChildRead> nextBatch =
+            nextStart < childPaths.size() ? readAsync(childPaths, nextStart) : null;
+        write(batch);
+        for (ChildRead read : batch) {
+          if (read._traverse && !_copiedSubtrees.contains(read._path)) {
+            _pending.incrementAndGet();
+            submit(new SubtreeTask(read._path, this));
+          }
+        }
+        batch = nextBatch;
+      }
+    }
+
+    private List<ChildRead> readAsync(List<String> childPaths, int start) {
+      int end = Math.min(start + _batchSize, childPaths.size());
+      List<ChildRead> reads = new ArrayList<>(end - start);
+      for (int i = start; i < end; i++) {
+        ChildRead read = new ChildRead(childPaths.get(i));
+        _srcClient.asyncGetData(ZkCopy.concatenate(_srcRootPath, read._path), read._callback);
+        reads.add(read);
+      }
+      return reads;
+    }
+
+    private void write(List<ChildRead> batch) {
+      List<Op> ops = new ArrayList<>();
+      List<String> dstPaths = new ArrayList<>();
+      List<Object> records = new ArrayList<>();
+      int batchBytes = 0;
+      for (ChildRead read : batch) {
+        if (!read.await()) {
+          continue;
+        }
+        String srcPath = ZkCopy.concatenate(_srcRootPath, read._path);
+        if (read._callback._stat.getEphemeralOwner() != 0) {
+          logger.warn("Skip copying ephemeral znode: " + srcPath);
+          _skippedCount.incrementAndGet();
+          continue;
+        }
+        String dstPath = ZkCopy.concatenate(_dstRootPath, read._path);
+        Object record = _srcClient.deserialize(read._callback._data, srcPath);
+        byte[] bytes = _dstClient.serialize(record, dstPath);
+        int bytesLength = bytes == null ? 0 : bytes.length;
+        if (!ops.isEmpty() && batchBytes + bytesLength > MAX_BATCH_BYTES) {
+          create(ops, dstPaths, records);
+          ops = new ArrayList<>();
+          dstPaths = new ArrayList<>();
+          records = new ArrayList<>();
+          batchBytes = 0;
+        }
+        ops.add(Op.create(dstPath, bytes, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT));
+        dstPaths.add(dstPath);
+        records.add(record);
+        batchBytes += bytesLength;
+        read._traverse = read._callback._stat.getNumChildren() > 0;
+      }
+      if (!ops.isEmpty()) {
+        create(ops, dstPaths, records);
+      }
+    }
+
+    private void create(List<Op> ops, List<String> dstPaths, List<Object> records) {
+      try {
+        _dstClient.multi(ops);
+        _copiedCount.addAndGet(ops.size());
+        return;
+      } catch (ZkException e) {
+        logger.debug("Batch create failed, creating the znodes one by one", e);
+      }
+      ZkAsyncCallbacks.CreateCallbackHandler[] callbacks =
+          new ZkAsyncCallbacks.CreateCallbackHandler[dstPaths.size()];
+      for (int i = 0; i < dstPaths.size(); i++) {
+        callbacks[i] = new ZkAsyncCallbacks.CreateCallbackHandler();
+        _dstClient
+            .asyncCreate(dstPaths.get(i), records.get(i), CreateMode.PERSISTENT, callbacks[i]);
+      }
+      // Only the existing znodes are skipped. Any other failure fails the subtree so that it is
+      // not checkpointed, and the parent of a failed znode is not created empty by its children.
+      String failedPath = null;
+      int failedRc = KeeperException.Code.OK.intValue();
+      for (int i = 0; i < callbacks.length; i++) {
+        callbacks[i].waitForSuccess();
+        int rc = callbacks[i].getRc();
+        if (rc == KeeperException.Code.OK.intValue()) {
+          _copiedCount.incrementAndGet();
+        } else if (rc == KeeperException.Code.NODEEXISTS.intValue()) {
+          _skippedCount.incrementAndGet();
+        } else if (failedPath == null) {
+          failedPath = dstPaths.get(i);
+          failedRc = rc;
+        }
+      }
+      if (failedPath != null) {
+        throw new HelixException(
+            "Failed to create " + failedPath + ", rc: " + KeeperException.Code.get(failedRc));
+      }
+    }
+  }
+
+  private static class ChildRead {
+    private final String _path;
+    private final ZkAsyncCallbacks.GetDataCallbackHandler _callback =
+        new ZkAsyncCallbacks.GetDataCallbackHandler();
+    private boolean _traverse;
+
+    ChildRead(String path) {
+      _path = path;
+    }
+
+    /**
+     * @return true if the znode is read, false if it no longer exists
+     */
+    boolean await() {
+      _callback.waitForSuccess();
+      int rc = _callback.getRc();
+      if (rc == KeeperException.Code.NONODE.intValue()) {
+        return false;
+      }
+      if (rc != KeeperException.Code.OK.intValue()) {
+        throw new HelixException(
+            "Failed to read " + _path + ", rc: " + KeeperException.Code.get(rc));
+      }
+      return true;
+    }
+  }
+}
@@ -42,6 +42,7 @@ import org.apache.jute.Record;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.ZooDefs.OpCode;
 import org.apache.zookeeper.data.Stat;
+import org.apache.zookeeper.data.StatPersisted;
 import org.apache.zookeeper.server.DataNode;
 import org.apache.zookeeper.server.DataTree;
 import org.apache.zookeeper.server.TxnLogEntry;
@@ -159,6 +160,16 @@ public class ZKLogFormatter {
   }
 
   private static void format(int id, Pair pair, DataNode head, byte[] data) throws Exception {
+    String line = formatNode(id, pair._parentId, pair._path, head.stat, data);
+    if (bw != null) {
+      bw.write(line);
+      bw.newLine();
+    } else {
+      System.out.println(line);
+    }
+  }
+
+  static String formatNode(int id, int parentId, String path, StatPersisted stat, byte[] data) {
     String dataStr = "";
     if (data != null) {
       dataStr = new String(data).replaceAll("[\\s]+", "");
@@ -166,31 +177,24 @@ public class ZKLogFormatter {
     StringBuffer sb = new StringBuffer();
     // @formatter:off
     sb.append("id").append(fieldDelim).append(id).append(fieldSep);
-    sb.append("parent").append(fieldDelim).append(pair._parentId).append(fieldSep);
-    sb.append("path").append(fieldDelim).append(pair._path).append(fieldSep);
+    sb.append("parent").append(fieldDelim).append(parentId).append(fieldSep);
+    sb.append("path").append(fieldDelim).append(path).append(fieldSep);
     sb.append("session").append(fieldDelim)
-        .append("0x" + Long.toHexString(head.stat.getEphemeralOwner())).append(fieldSep);
-    sb.append("czxid").append(fieldDelim).append("0x" + Long.toHexString(head.stat.getCzxid()))
+        .append("0x" + Long.toHexString(stat.getEphemeralOwner())).append(fieldSep);
+    sb.append("czxid").append(fieldDelim).append("0x" + Long.toHexString(stat.getCzxid()))
         .append(fieldSep);
-    sb.append("ctime").append(fieldDelim).append(head.stat.getCtime()).append(fieldSep);
-    sb.append("mtime").append(fieldDelim).append(head.stat.getMtime()).append(fieldSep);
-    sb.append("cmzxid").append(fieldDelim).append("0x" + Long.toHexString(head.stat.getMzxid()))
+    sb.append("ctime").append(fieldDelim).append(stat.getCtime()).append(fieldSep);
+    sb.append("mtime").append(fieldDelim).append(stat.getMtime()).append(fieldSep);
+    sb.append("cmzxid").append(fieldDelim).append("0x" + Long.toHexString(stat.getMzxid()))
         .append(fieldSep);
-    sb.append("pzxid").append(fieldDelim).append("0x" + Long.toHexString(head.stat.getPzxid()))
+    sb.append("pzxid").append(fieldDelim).append("0x" + Long.toHexString(stat.getPzxid()))
         .append(fieldSep);
-    sb.append("aversion").append(fieldDelim).append(head.stat.getAversion()).append(fieldSep);
-    sb.append("cversion").append(fieldDelim).append(head.stat.getCversion()).append(fieldSep);
-    sb.append("version").append(fieldDelim).append(head.stat.getVersion()).append(fieldSep);
+    sb.append("aversion").append(fieldDelim).append(stat.getAversion()).append(fieldSep);
+    sb.append("cversion").append(fieldDelim).append(stat.getCversion()).append(fieldSep);
+    sb.append("version").append(fieldDelim).append(stat.getVersion()).append(fieldSep);
     sb.append("data").append(fieldDelim).append(dataStr).append(fieldSep);
     // @formatter:on
-
-    if (bw != null) {
-      bw.write(sb.toString());
-      bw.newLine();
-    } else {
-      System.out.println(sb);
-    }
-
+    return sb.toString();
   }
 
   private static void readTransactionLog(String logfilepath) throws FileNotFoundException,
@@ -300,7 +304,7 @@ public class ZKLogFormatter {
     }
   }
 
-  private static String formatTransaction(TxnHeader header, Record txn) {
+  static String formatTransaction(TxnHeader header, Record txn) {
     StringBuilder sb = new StringBuilder();
 
     sb.append("time").append(fieldDelim).append(header.getTime());
@@ -19,6 +19,7 @@ package org.apache.helix.tools.commandtools;
  * under the License.
  */
 
+import java.io.File;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -55,6 +56,9 @@ public class ZkCopy {
   private static Logger logger = LoggerFactory.getLogger(ZkCopy.class);
   private static final String src = "src";
   private static final String dst = "dst";
+  private static final String parallelism = "parallelism";
+  private static final String batchSize = "batchSize";
+  private static final String checkpoint = "checkpoint";
 
   @SuppressWarnings("static-access")
   private static Options constructCmdLineOpt() {
@@ -68,9 +72,28 @@ public class ZkCopy {
             .withArgName("destination-URI (e.g. zk://localhost:2181/dst-path")
             .withDescription("Provide destination URI").create();
 
+    Option parallelismOpt =
+        OptionBuilder.withLongOpt(parallelism).hasArgs(1).isRequired(false)
+            .withArgName("number of threads copying the subtrees concurrently (default 1)")
+            .withDescription("Provide copy parallelism").create();
+
+    Option batchSizeOpt =
+        OptionBuilder.withLongOpt(batchSize).hasArgs(1).isRequired(false)
+            .withArgName("max number of znodes created in one multi call (default "
+                + ParallelZkCopy.DEFAULT_BATCH_SIZE + ")")
+            .withDescription("Provide parallel copy batch size").create();
+
+    Option checkpointOpt =
+        OptionBuilder.withLongOpt(checkpoint).hasArgs(1).isRequired(false)
+            .withArgName("local file recording the copied subtrees to resume from")
+            .withDescription("Provide parallel copy checkpoint file").create();
+
     Options options = new Options();
     options.addOption(srcOpt);
     options.addOption(dstOpt);
+    options.addOption(parallelismOpt);
+    options.addOption(batchSizeOpt);
+    options.addOption(checkpointOpt);
     return options;
   }
 
@@ -80,7 +103,7 @@ public class ZkCopy {
     helpFormatter.printHelp("java " + ZkCopy.class.getName(), cliOptions);
   }
 
-  private static String concatenate(String path, String suffix) {
+  static String concatenate(String path, String suffix) {
     if (suffix == null || suffix.isEmpty()) {
       return path;
     }
@@ -147,24 +170,22 @@ public class ZkCopy {
     }
   }
 
-  private static void zkCopy(HelixZkClient srcClient, String srcRootPath, HelixZkClient dstClient,
-      String dstRootPath) {
+  private static String normalizePath(String path) {
     // Strip off tailing "/"
-    if (!srcRootPath.equals("/") && srcRootPath.endsWith("/")) {
-      srcRootPath = srcRootPath.substring(0, srcRootPath.length() - 1);
-    }
-
-    if (!dstRootPath.equals("/") && dstRootPath.endsWith("/")) {
-      dstRootPath = dstRootPath.substring(0, dstRootPath.length() - 1);
+    if (!path.equals("/") && path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
     }
+    PathUtils.validatePath(path);
+    return path;
+  }
 
-    // Validate paths
-    PathUtils.validatePath(srcRootPath);
-    PathUtils.validatePath(dstRootPath);
-
+  /**
+   * @return false if the copy should be skipped
+   */
+  private static boolean validateCopyPaths(String srcRootPath, String dstRootPath) {
     if (srcRootPath.equals(dstRootPath)) {
       logger.info("srcPath == dstPath. Skip copying");
-      return;
+      return false;
     }
 
     if (srcRootPath.startsWith(dstRootPath) || dstRootPath.startsWith(srcRootPath)) {
@@ -172,6 +193,16 @@ public class ZkCopy {
           "srcPath/dstPath can't be prefix of dstPath/srcPath, was srcPath: " + srcRootPath
               + ", dstPath: " + dstRootPath);
     }
+    return true;
+  }
+
+  private static void zkCopy(HelixZkClient srcClient, String srcRootPath, HelixZkClient dstClient,
+      String dstRootPath) {
+    srcRootPath = normalizePath(srcRootPath);
+    dstRootPath = normalizePath(dstRootPath);
+    if (!validateCopyPaths(srcRootPath, dstRootPath)) {
+      return;
+    }
 
     // Recursive copy using BFS
     List<String> queue = new LinkedList<String>();
@@ -196,6 +227,23 @@ public class ZkCopy {
     }
   }
 
+  private static void parallelZkCopy(HelixZkClient srcClient, String srcRootPath,
+      HelixZkClient dstClient, String dstRootPath, int parallelism, int batchSize,
+      File checkpointFile) throws Exception {
+    srcRootPath = normalizePath(srcRootPath);
+    dstRootPath = normalizePath(dstRootPath);
+    if (!validateCopyPaths(srcRootPath, dstRootPath)) {
+      return;
+    }
+
+    ParallelZkCopy parallelCopy =
+        new ParallelZkCopy(srcClient, srcRootPath, dstClient, dstRootPath, parallelism,
+            batchSize, checkpointFile);
+    parallelCopy.copy();
+    System.out.println("Copied " + parallelCopy.getCopiedCount() + " znodes, skipped "
+        + parallelCopy.getSkippedCount() + " znodes");
+  }
+
   public static void main(String[] args) throws Exception {
     CommandLineParser cliParser = new GnuParser();
     Options cliOptions = constructCmdLineOpt();
@@ -238,7 +286,17 @@ public class ZkCopy {
         }
         String srcPath = srcUri.getPath();
         String dstPath = dstUri.getPath();
-        zkCopy(srcClient, srcPath, dstClient, dstPath);
+        int copyParallelism = Integer.parseInt(cmd.getOptionValue(parallelism, "1"));
+        if (copyParallelism > 1 || cmd.hasOption(checkpoint)) {
+          int copyBatchSize = Integer.parseInt(
+              cmd.getOptionValue(batchSize, String.valueOf(ParallelZkCopy.DEFAULT_BATCH_SIZE)));
+          File checkpointFile =
+              cmd.hasOption(checkpoint) ? new File(cmd.getOptionValue(checkpoint)) : null;
+          parallelZkCopy(srcClient, srcPath, dstClient, dstPath, copyParallelism, copyBatchSize,
+              checkpointFile);
+        } else {
+          zkCopy(srcClient, srcPath, dstClient, dstPath);
+        }
       } finally {
         if (srcClient != null) {
           srcClient.close();
@@ -59,6 +59,8 @@ import org.slf4j.LoggerFactory;
  * 3) zkgrep --zkCfg zkCfg --between t1 t2 --pattern "/{cluster}" | grep "CURRENTSTATES" |
  * grep "setData" | tail -1
  * fail-over latency = timestamp difference between 2) and 3)
+ * - add --stream [--threads n] to scan the binary logs directly with {@link ZkLogScanner}
+ * instead of formatting them to ~/zklog-parsed first
  */
 public class ZkGrep {
   private static Logger LOG = LoggerFactory.getLogger(ZkGrep.class);
@@ -67,6 +69,8 @@ public class ZkGrep {
   private static final String pattern = "pattern";
   private static final String by = "by";
   private static final String between = "between";
+  private static final String stream = "stream";
+  private static final String threads = "threads";
 
   public static final String log = "log";
   public static final String snapshot = "snapshot";
@@ -94,6 +98,16 @@ public class ZkGrep {
             .withArgName("t (timestamp in ms or yyMMdd_hhmmss_SSS)").withDescription("grep by t")
             .create();
 
+    Option streamOption =
+        OptionBuilder.hasArg(false).isRequired(false).withLongOpt(stream)
+            .withDescription("scan the zk logs and snapshots without formatting them first")
+            .create();
+
+    Option threadsOption =
+        OptionBuilder.hasArgs(1).isRequired(false).withLongOpt(threads)
+            .withArgName("number of zk logs scanned in parallel (default number of processors)")
+            .withDescription("provide stream scan parallelism").create();
+
     OptionGroup group = new OptionGroup();
     group.setRequired(true);
     group.addOption(betweenOption);
@@ -102,6 +116,8 @@ public class ZkGrep {
     Options options = new Options();
     options.addOption(zkCfgOption);
     options.addOption(patternOption);
+    options.addOption(streamOption);
+    options.addOption(threadsOption);
     options.addOptionGroup(group);
     return options;
   }
@@ -373,24 +389,9 @@ public class ZkGrep {
    */
   static List<File> parseZkLogs(String zkLogDir, long start, long end) {
     File zkParsedDir = new File(String.format("%s/zklog-parsed", System.getProperty("user.home")));
-    File[] zkLogs = getSortedFiles(zkLogDir, log);
-    // printFiles(zkDataFiles);
     List<File> parsedZkLogs = new ArrayList<File>();
 
-    boolean stop = false;
-    for (File zkLog : zkLogs) {
-      if (stop) {
-        break;
-      }
-
-      if (zkLog.lastModified() < start) {
-        continue;
-      }
-
-      if (zkLog.lastModified() > end) {
-        stop = true;
-      }
-
+    for (File zkLog : getZkLogs(zkLogDir, start, end)) {
       try {
         File parsedZkLog = new File(zkParsedDir, stripGzSuffix(zkLog.getName()) + ".parsed");
         if (!parsedZkLog.exists() || parsedZkLog.lastModified() <= zkLog.lastModified()) {
@@ -425,6 +426,51 @@ public class ZkGrep {
     return parsedZkLogs;
   }
 
+  /**
+   * get zk-transaction-logs between start and end
+   * @param zkLogDir
+   * @param start
+   * @param end
+   * @return list of zklogs between start and end, in order of last modified timestamp
+   */
+  static List<File> getZkLogs(String zkLogDir, long start, long end) {
+    File[] zkLogs = getSortedFiles(zkLogDir, log);
+    // printFiles(zkDataFiles);
+    List<File> selectedZkLogs = new ArrayList<File>();
+
+    for (File zkLog : zkLogs) {
+      if (zkLog.lastModified() < start) {
+        continue;
+      }
+
+      selectedZkLogs.add(zkLog);
+      if (zkLog.lastModified() > end) {
+        break;
+      }
+    }
+    return selectedZkLogs;
+  }
+
+  /**
+   * get the last zk-snapshot by by-time
+   * @param zkSnapshotDir
+   * @param byTime
+   * @return the last zk-snapshot by by-time, or null if none
+   */
+  static File getLastZkSnapshot(String zkSnapshotDir, long byTime) {
+    File[] zkSnapshots = getSortedFiles(zkSnapshotDir, snapshot);
+    // printFiles(zkDataFiles);
+    File lastZkSnapshot = null;
+    for (int i = 0; i < zkSnapshots.length; i++) {
+      File zkSnapshot = zkSnapshots[i];
+      if (zkSnapshot.lastModified() >= byTime) {
+        break;
+      }
+      lastZkSnapshot = zkSnapshot;
+    }
+    return lastZkSnapshot;
+  }
+
   /**
    * Strip off a .gz suffix if any
    * @param filename
@@ -478,17 +524,8 @@ public class ZkGrep {
   static File[] parseZkSnapshot(String zkSnapshotDir, long byTime) {
     File[] retFiles = new File[2];
     File zkParsedDir = new File(String.format("%s/zklog-parsed", System.getProperty("user.home")));
-    File[] zkSnapshots = getSortedFiles(zkSnapshotDir, snapshot);
-    // printFiles(zkDataFiles);
-    File lastZkSnapshot = null;
-    for (int i = 0; i < zkSnapshots.length; i++) {
-      File zkSnapshot = zkSnapshots[i];
-      if (zkSnapshot.lastModified() >= byTime) {
-        break;
-      }
-      lastZkSnapshot = zkSnapshot;
-      retFiles[0] = lastZkSnapshot;
-    }
+    File lastZkSnapshot = getLastZkSnapshot(zkSnapshotDir, byTime);
+    retFiles[0] = lastZkSnapshot;
 
     try {
       File parsedZkSnapshot =
@@ -527,6 +564,34 @@ public class ZkGrep {
     return null;
   }
 
+  /**
+   * grep zk-transaction-logs between start and end, and the last zk-snapshot by end if
+   * withSnapshot, with a streaming scanner
+   */
+  static void streamGrep(String[] zkDataDirs, long start, long end, boolean withSnapshot,
+      int parallelism, File zkParsedDir, String... patterns) {
+    try {
+      if (withSnapshot) {
+        // zkDataDirs[1] is the snapshot dir
+        File lastZkSnapshot = getLastZkSnapshot(zkDataDirs[1], end);
+        if (lastZkSnapshot == null) {
+          LOG.error("no zk-snapshot by " + end + " in " + zkDataDirs[1]);
+          return;
+        }
+        // need to grep transaction logs between last-modified-time of snapshot and byTime also
+        new ZkLogScanner(start, end, zkParsedDir, patterns).scanSnapshot(lastZkSnapshot,
+            System.out);
+        start = lastZkSnapshot.lastModified();
+      }
+
+      // zkDataDirs[0] is the transaction log dir
+      ZkLogScanner scanner = new ZkLogScanner(start, end, zkParsedDir, patterns);
+      scanner.scanLogs(getZkLogs(zkDataDirs[0], start, end), parallelism, System.out);
+    } catch (Exception e) {
+      LOG.error("exception in stream grep", e);
+    }
+  }
+
   public static void processCommandLineArgs(String[] cliArgs) {
     CommandLineParser cliParser = new GnuParser();
     Options cliOptions = constructCommandLineOptions();
@@ -584,6 +649,12 @@ public class ZkGrep {
       zkParsedDir.mkdirs();
     }
 
+    boolean streaming = cmd.hasOption(stream);
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    if (cmd.hasOption(threads)) {
+      parallelism = Integer.parseInt(cmd.getOptionValue(threads));
+    }
+
     if (cmd.hasOption(between)) {
       String[] timeStrings = cmd.getOptionValues(between);
 
@@ -605,6 +676,10 @@ public class ZkGrep {
         LOG.warn("empty window: " + startTime + " - " + endTime);
         System.exit(1);
       }
+      if (streaming) {
+        streamGrep(zkDataDirs, startTime, endTime, false, parallelism, zkParsedDir, patterns);
+        return;
+      }
       // zkDataDirs[0] is the transaction log dir
       List<File> parsedZkLogs = parseZkLogs(zkDataDirs[0], startTime, endTime);
       grepZkLogDir(parsedZkLogs, startTime, endTime, patterns);
@@ -619,6 +694,11 @@ public class ZkGrep {
         System.exit(1);
       }
 
+      if (streaming) {
+        streamGrep(zkDataDirs, 0, byTime, true, parallelism, zkParsedDir, patterns);
+        return;
+      }
+
       // zkDataDirs[1] is the snapshot dir
       File[] lastZkSnapshot = parseZkSnapshot(zkDataDirs[1], byTime);
 
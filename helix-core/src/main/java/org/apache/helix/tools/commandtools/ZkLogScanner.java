@@ -0,0 +1,689 @@
+package org.apache.helix.tools.commandtools;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Adler32;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.jute.BinaryInputArchive;
+import org.apache.zookeeper.data.StatPersisted;
+import org.apache.zookeeper.server.TxnLogEntry;
+import org.apache.zookeeper.server.persistence.FileSnap;
+import org.apache.zookeeper.server.persistence.FileTxnLog;
+import org.apache.zookeeper.server.util.SerializeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming grep over the binary zk transaction logs and snapshots. Unlike
+ * {@link ZkGrep#grepZkLog}, the files are not formatted to text first:
+ * - the transaction logs are scanned in parallel, one file per thread, and the matched lines are
+ * printed in the order of the files
+ * - the uncompressed transaction logs are memory-mapped, the gzipped ones are streamed
+ * - the time range is checked on the raw transaction header, and the patterns that are zk paths
+ * (starting with "/") are checked on the raw record bytes, so only the candidate records are
+ * deserialized and formatted. The formatted lines are the same as {@link ZKLogFormatter}'s, and
+ * are matched against all the patterns as before.
+ * - a sparse time index of each transaction log is kept in the index dir, so a later scan of the
+ * same log seeks to the start time
+ * The snapshot nodes are numbered in the snapshot order instead of the level order.
+ */
+public class ZkLogScanner {
+  private static Logger LOG = LoggerFactory.getLogger(ZkLogScanner.class);
+
+  private static final String gzSuffix = ".gz";
+  private static final String indexSuffix = ".idx";
+  private static final int INDEX_MAGIC = 0x5A4B4958; // "ZKIX"
+  // Number of records between two time index entries
+  private static final int INDEX_INTERVAL = 1000;
+  // FileHeader: magic int, version int, dbid long
+  private static final int FILE_HEADER_SIZE = 16;
+  // TxnHeader: clientId long, cxid int, zxid long, time long, type int
+  private static final int TXN_HEADER_TIME_OFFSET = 20;
+  private static final int TXN_HEADER_SIZE = 32;
+  private static final byte END_OF_RECORD = 'B';
+
+  private final long _start;
+  private final long _end;
+  private final String[] _patterns;
+  private final String[] _pathPatterns;
+  private final byte[][] _rawPatterns;
+  private final File _indexDir;
+  private final AtomicLong _bytesScanned = new AtomicLong();
+  private final AtomicLong _matchCount = new AtomicLong();
+
+  /**
+   * @param start start of the time range of the transactions
+   * @param end end of the time range of the transactions
+   * @param indexDir dir of the transaction log time indexes, null to not use the indexes
+   * @param patterns the patterns a matched line must contain
+   */
+  public ZkLogScanner(long start, long end, File indexDir, String... patterns) {
+    _start = start;
+    _end = end;
+    _indexDir = indexDir;
+    _patterns = patterns;
+    List<String> pathPatterns = new ArrayList<>();
+    for (String pattern : patterns) {
+      // A path only shows in the path or the data of the formatted line, whose whitespaces are
+      // removed. The other patterns may match the formatted fields, e.g. the transaction type.
+      if (pattern.startsWith("/") && !pattern.matches(".*\\s.*")) {
+        pathPatterns.add(pattern);
+      }
+    }
+    _pathPatterns = pathPatterns.toArray(new String[0]);
+    _rawPatterns = new byte[_pathPatterns.length][];
+    for (int i = 0; i < _pathPatterns.length; i++) {
+      _rawPatterns[i] = _pathPatterns[i].getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  public long getBytesScanned() {
+    return _bytesScanned.get();
+  }
+
+  public long getMatchCount() {
+    return _matchCount.get();
+  }
+
+  /**
+   * Scan the transaction logs with the given parallelism, the matched lines are printed in the
+   * order of the logs.
+   */
+  public void scanLogs(List<File> zkLogs, int parallelism, PrintStream out)
+      throws InterruptedException {
+    long startTime = System.currentTimeMillis();
+    long startBytes = _bytesScanned.get();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+      Thread thread = new Thread(r, "ZkLogScanner-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<Future<List<String>>> results = new ArrayList<>();
+      for (File zkLog : zkLogs) {
+        results.add(executor.submit(() -> scanLog(zkLog)));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        try {
+          for (String line : results.get(i).get()) {
+            out.println(line);
+          }
+        } catch (ExecutionException e) {
+          LOG.error("exception in scan zk-log: " + zkLogs.get(i), e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    reportThroughput(zkLogs.size() + " zk-logs", startTime, startBytes);
+  }
+
+  /**
+   * Scan a transaction log, stops at the first transaction after the end time.
+   * @return the matched lines
+   */
+  List<String> scanLog(File zkLog) throws IOException {
+    List<String> lines = new ArrayList<>();
+    TimeIndex index = TimeIndex.load(getIndexFile(zkLog), zkLog);
+    if (index.getFirstTime() > _end) {
+      return lines;
+    }
+
+    try (RecordReader reader = zkLog.getName().endsWith(gzSuffix) ? new StreamRecordReader(zkLog)
+        : new MappedRecordReader(zkLog)) {
+      if (reader.readHeader() != FileTxnLog.TXNLOG_MAGIC) {
+        LOG.error("Invalid magic number for " + zkLog);
+        return lines;
+      }
+      long seekOffset = index.getSeekOffset(_start);
+      if (seekOffset > reader.getOffset()) {
+        reader.seek(seekOffset);
+      }
+      long scanStart = reader.getOffset();
+
+      int recordsSinceIndexed = INDEX_INTERVAL;
+      while (reader.next()) {
+        ByteBuffer buffer = reader._buffer;
+        int recordStart = reader._recordStart;
+        int recordLength = reader._recordLength;
+        if (recordLength < TXN_HEADER_SIZE) {
+          break;
+        }
+        long time = buffer.getLong(recordStart + TXN_HEADER_TIME_OFFSET);
+        if (reader._recordOffset > index.getIndexedOffset()
+            && ++recordsSinceIndexed >= INDEX_INTERVAL) {
+          index.add(time, reader._recordOffset);
+          recordsSinceIndexed = 0;
+        }
+        if (time > _end) {
+          break;
+        }
+        if (time < _start || !matchRaw(buffer, recordStart, recordStart + recordLength)) {
+          continue;
+        }
+
+        byte[] bytes = new byte[recordLength];
+        ByteBuffer record = buffer.duplicate();
+        record.position(recordStart);
+        record.get(bytes);
+        Adler32 crc = new Adler32();
+        crc.update(bytes, 0, bytes.length);
+        if (crc.getValue() != reader._crc) {
+          LOG.error("CRC doesn't match " + reader._crc + " vs " + crc.getValue() + " in " + zkLog);
+          break;
+        }
+        TxnLogEntry entry = SerializeUtils.deserializeTxn(bytes);
+        String line = ZKLogFormatter.formatTransaction(entry.getHeader(), entry.getTxn());
+        if (match(line)) {
+          lines.add(line);
+        }
+      }
+      _bytesScanned.addAndGet(reader.getOffset() - scanStart);
+    }
+    _matchCount.addAndGet(lines.size());
+
+    if (index.isChanged()) {
+      index.save(getIndexFile(zkLog), zkLog);
+    }
+    return lines;
+  }
+
+  /**
+   * Scan a snapshot without building its data tree.
+   */
+  public void scanSnapshot(File zkSnapshot, PrintStream out) throws IOException {
+    long startTime = System.currentTimeMillis();
+    long startBytes = _bytesScanned.get();
+    CountingInputStream counter = new CountingInputStream(new FileInputStream(zkSnapshot));
+    InputStream in = zkSnapshot.getName().endsWith(gzSuffix) ? new GZIPInputStream(counter)
+        : counter;
+    try (InputStream bin = new BufferedInputStream(in)) {
+      BinaryInputArchive ia = BinaryInputArchive.getArchive(bin);
+      if (ia.readInt("magic") != FileSnap.SNAP_MAGIC) {
+        LOG.error("mismatching magic headers in " + zkSnapshot);
+        return;
+      }
+      ia.readInt("version");
+      ia.readLong("dbid");
+
+      Map<Long, Integer> sessions = new HashMap<>();
+      for (int count = ia.readInt("count"); count > 0; count--) {
+        long id = ia.readLong("id");
+        int timeout = ia.readInt("timeout");
+        sessions.put(id, timeout);
+      }
+      printIfMatch(sessions.toString(), out);
+
+      // ACL cache
+      for (int count = ia.readInt("map"); count > 0; count--) {
+        ia.readLong("long");
+        for (int acls = ia.readInt("acls"); acls > 0; acls--) {
+          ia.readInt("perms");
+          ia.readString("scheme");
+          ia.readString("id");
+        }
+      }
+
+      // The nodes are serialized in pre-order until the "/" sentinel, so the ancestors of a node
+      // are on the stack when the node is read
+      LinkedList<String> ancestorPaths = new LinkedList<>();
+      LinkedList<Integer> ancestorIds = new LinkedList<>();
+      int id = 1;
+      String path = ia.readString("path");
+      while (!"/".equals(path)) {
+        byte[] data = ia.readBuffer("data");
+        ia.readLong("acl");
+        StatPersisted stat = new StatPersisted();
+        stat.deserialize(ia, "statpersisted");
+
+        while (!ancestorPaths.isEmpty() && !path.startsWith(ancestorPaths.peek() + "/")) {
+          ancestorPaths.pop();
+          ancestorIds.pop();
+        }
+        int parentId = ancestorIds.isEmpty() ? 1 : ancestorIds.peek();
+        if (_rawPatterns.length == 0 || matchRawNode(path, data)) {
+          printIfMatch(ZKLogFormatter
+              .formatNode(id, parentId, path.isEmpty() ? "/" : path, stat, data), out);
+        }
+        ancestorPaths.push(path);
+        ancestorIds.push(id);
+        id++;
+        path = ia.readString("path");
+      }
+    } finally {
+      _bytesScanned.addAndGet(counter._count);
+    }
+    reportThroughput("zk-snapshot " + zkSnapshot.getName(), startTime, startBytes);
+  }
+
+  private void printIfMatch(String line, PrintStream out) {
+    if (match(line)) {
+      _matchCount.incrementAndGet();
+      out.println(line);
+    }
+  }
+
+  private boolean match(String line) {
+    for (String pattern : _patterns) {
+      if (line.indexOf(pattern) == -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean matchRaw(ByteBuffer buffer, int from, int to) {
+    for (byte[] rawPattern : _rawPatterns) {
+      if (!contains(buffer, from, to, rawPattern)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean matchRawNode(String path, byte[] data) {
+    ByteBuffer dataBuffer = data == null ? null : ByteBuffer.wrap(data);
+    for (int i = 0; i < _pathPatterns.length; i++) {
+      if (!path.contains(_pathPatterns[i]) && (dataBuffer == null || !contains(dataBuffer, 0,
+          data.length, _rawPatterns[i]))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the buffer range contains the pattern, the whitespaces in the buffer are
+   *         skipped since they are removed from the formatted data
+   */
+  static boolean contains(ByteBuffer buffer, int from, int to, byte[] pattern) {
+    byte first = pattern[0];
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) != first) {
+        continue;
+      }
+      int j = 1;
+      int k = i + 1;
+      while (j < pattern.length && k < to) {
+        byte b = buffer.get(k++);
+        if (isWhitespace(b)) {
+          continue;
+        }
+        if (b != pattern[j]) {
+          break;
+        }
+        j++;
+      }
+      if (j == pattern.length) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+  }
+
+  private void reportThroughput(String target, long startTime, long startBytes) {
+    long elapsedMs = Math.max(System.currentTimeMillis() - startTime, 1L);
+    double mb = (_bytesScanned.get() - startBytes) / (1024.0 * 1024.0);
+    LOG.info(String.format("Scanned %.1f MB of %s in %d ms (%.1f MB/s), %d matches so far", mb,
+        target, elapsedMs, mb * 1000 / elapsedMs, _matchCount.get()));
+  }
+
+  private File getIndexFile(File zkLog) {
+    if (_indexDir == null) {
+      return null;
+    }
+    String name = zkLog.getName();
+    if (name.endsWith(gzSuffix)) {
+      name = name.substring(0, name.length() - gzSuffix.length());
+    }
+    return new File(_indexDir, name + indexSuffix);
+  }
+
+  /**
+   * Sparse index of the transaction times to the record offsets of a transaction log. The offsets
+   * of a gzipped log are in the uncompressed stream.
+   */
+  static class TimeIndex {
+    private long[] _times;
+    private long[] _offsets;
+    private int _size;
+    private boolean _changed;
+
+    private TimeIndex(long[] times, long[] offsets) {
+      _times = times;
+      _offsets = offsets;
+      _size = times.length;
+    }
+
+    static TimeIndex load(File indexFile, File zkLog) {
+      if (indexFile != null && indexFile.exists()) {
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(indexFile)))) {
+          if (in.readInt() == INDEX_MAGIC && in.readLong() == zkLog.length()
+              && in.readLong() == zkLog.lastModified()) {
+            int size = in.readInt();
+            long[] times = new long[size];
+            long[] offsets = new long[size];
+            for (int i = 0; i < size; i++) {
+              times[i] = in.readLong();
+              offsets[i] = in.readLong();
+            }
+            return new TimeIndex(times, offsets);
+          }
+        } catch (IOException e) {
+          LOG.warn("fail to load zk-log index: " + indexFile, e);
+        }
+      }
+      return new TimeIndex(new long[0], new long[0]);
+    }
+
+    void save(File indexFile, File zkLog) {
+      if (indexFile == null) {
+        return;
+      }
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+        out.writeInt(INDEX_MAGIC);
+        out.writeLong(zkLog.length());
+        out.writeLong(zkLog.lastModified());
+        out.writeInt(_size);
+        for (int i = 0; i < _size; i++) {
+          out.writeLong(_times[i]);
+          out.writeLong(_offsets[i]);
+        }
+        _changed = false;
+      } catch (IOException e) {
+        LOG.warn("fail to save zk-log index: " + indexFile, e);
+      }
+    }
+
+    void add(long time, long offset) {
+      if (_size == _times.length) {
+        int capacity = Math.max(16, _size * 2);
+        _times = Arrays.copyOf(_times, capacity);
+        _offsets = Arrays.copyOf(_offsets, capacity);
+      }
+      _times[_size] = time;
+      _offsets[_size] = offset;
+      _size++;
+      _changed = true;
+    }
+
+    /**
+     * @return offset of the last indexed record before the start time, 0 if none
+     */
+    long getSeekOffset(long start) {
+      long offset = 0;
+      for (int i = 0; i < _size && _times[i] < start; i++) {
+        offset = _offsets[i];
+      }
+      return offset;
+    }
+
+    /**
+     * @return time of the first indexed record, Long.MIN_VALUE if none
+     */
+    long getFirstTime() {
+      return _size == 0 ? Long.MIN_VALUE : _times[0];
+    }
+
+    long getIndexedOffset() {
+      return _size == 0 ? -1 : _offsets[_size - 1];
+    }
+
+    boolean isChanged() {
+      return _changed;
+    }
+  }
+
+  /**
+   * Reads the transaction log records: crc long, length int, record bytes and the end of record
+   * byte. The current record is in _buffer[_recordStart, _recordStart + _recordLength).
+   */
+  private static abstract class RecordReader implements AutoCloseable {
+    ByteBuffer _buffer;
+    int _recordStart;
+    int _recordLength;
+    long _recordOffset;
+    long _crc;
+
+    abstract int readHeader() throws IOException;
+
+    abstract long getOffset();
+
+    abstract void seek(long offset) throws IOException;
+
+    /**
+     * @return false at the end of the log, including the preallocated empty space
+     */
+    abstract boolean next() throws IOException;
+
+    @Override
+    public abstract void close() throws IOException;
+  }
+
+  private static class MappedRecordReader extends RecordReader {
+    private final RandomAccessFile _file;
+    private int _position;
+
+    MappedRecordReader(File zkLog) throws IOException {
+      _file = new RandomAccessFile(zkLog, "r");
+      FileChannel channel = _file.getChannel();
+      if (channel.size() > Integer.MAX_VALUE) {
+        _file.close();
+        throw new IOException("zk-log is too large to be mapped: " + zkLog);
+      }
+      _buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    @Override
+    int readHeader() {
+      if (_buffer.limit() < FILE_HEADER_SIZE) {
+        return 0;
+      }
+      _position = FILE_HEADER_SIZE;
+      return _buffer.getInt(0);
+    }
+
+    @Override
+    long getOffset() {
+      return _position;
+    }
+
+    @Override
+    void seek(long offset) {
+      _position = (int) offset;
+    }
+
+    @Override
+    boolean next() {
+      // crc long and length int
+      if (_position + 12 > _buffer.limit()) {
+        return false;
+      }
+      int length = _buffer.getInt(_position + 8);
+      int end = _position + 12 + length;
+      if (length <= 0 || end + 1 > _buffer.limit()) {
+        return false;
+      }
+      if (_buffer.get(end) != END_OF_RECORD) {
+        LOG.error("Last transaction was partial.");
+        return false;
+      }
+      _recordOffset = _position;
+      _crc = _buffer.getLong(_position);
+      _recordStart = _position + 12;
+      _recordLength = length;
+      _position = end + 1;
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      _file.close();
+    }
+  }
+
+  private static class StreamRecordReader extends RecordReader {
+    private final CountingInputStream _counter;
+    private final DataInputStream _in;
+    private byte[] _bytes = new byte[4096];
+
+    StreamRecordReader(File zkLog) throws IOException {
+      FileInputStream fis = new FileInputStream(zkLog);
+      try {
+        _counter = new CountingInputStream(
+            new BufferedInputStream(new GZIPInputStream(new BufferedInputStream(fis))));
+      } catch (IOException e) {
+        fis.close();
+        throw e;
+      }
+      _in = new DataInputStream(_counter);
+      _buffer = ByteBuffer.wrap(_bytes);
+    }
+
+    @Override
+    int readHeader() throws IOException {
+      int magic = _in.readInt();
+      _in.readInt();
+      _in.readLong();
+      return magic;
+    }
+
+    @Override
+    long getOffset() {
+      return _counter._count;
+    }
+
+    @Override
+    void seek(long offset) throws IOException {
+      long toSkip = offset - _counter._count;
+      while (toSkip > 0) {
+        long skipped = _in.skip(toSkip);
+        if (skipped <= 0) {
+          throw new EOFException("fail to seek to " + offset);
+        }
+        toSkip -= skipped;
+      }
+    }
+
+    @Override
+    boolean next() throws IOException {
+      long offset = _counter._count;
+      long crc;
+      int length;
+      try {
+        crc = _in.readLong();
+        length = _in.readInt();
+        if (length <= 0) {
+          return false;
+        }
+        if (length > _bytes.length) {
+          _bytes = new byte[Math.max(length, _bytes.length * 2)];
+          _buffer = ByteBuffer.wrap(_bytes);
+        }
+        _in.readFully(_bytes, 0, length);
+        if (_in.readByte() != END_OF_RECORD) {
+          LOG.error("Last transaction was partial.");
+          return false;
+        }
+      } catch (EOFException e) {
+        return false;
+      }
+      _recordOffset = offset;
+      _crc = crc;
+      _recordStart = 0;
+      _recordLength = length;
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      _in.close();
+    }
+  }
+
+  private static class CountingInputStream extends FilterInputStream {
+    private long _count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        _count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) {
+        _count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      if (skipped > 0) {
+        _count += skipped;
+      }
+      return skipped;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * A string template, e.g. "/{clusterName}/IDEALSTATES/{resourceName}", compiled into its literal
+ * segments and variables, so it is instantiated in a single pass without any regex matching.
+ * The n-th variable of the template is replaced by the n-th argument, except that a repeated
+ * variable is replaced by the argument of its first occurrence, same as
+ * {@link StringTemplate#instantiate(Enum, String...)}.
+ */
+public class CompiledStringTemplate {
+  private final String _template;
+  // The literal segments around the variables, one more than the variables
+  private final String[] _segments;
+  // The index of the argument that replaces each variable
+  private final int[] _argIndices;
+  private final int _literalLength;
+
+  public CompiledStringTemplate(String template) {
+    _template = template;
+    List<String> segments = new ArrayList<>();
+    List<Integer> argIndices = new ArrayList<>();
+    Map<String, Integer> firstOccurrences = new HashMap<>();
+    Matcher matcher = StringTemplate.pattern.matcher(template);
+    int literalStart = 0;
+    int literalLength = 0;
+    while (matcher.find()) {
+      String literal = template.substring(literalStart, matcher.start());
+      segments.add(literal);
+      literalLength += literal.length();
+      Integer firstOccurrence = firstOccurrences.get(matcher.group());
+      if (firstOccurrence == null) {
+        firstOccurrence = argIndices.size();
+        firstOccurrences.put(matcher.group(), firstOccurrence);
+      }
+      argIndices.add(firstOccurrence);
+      literalStart = matcher.end();
+    }
+    String literal = template.substring(literalStart);
+    segments.add(literal);
+    _literalLength = literalLength + literal.length();
+    _segments = segments.toArray(new String[0]);
+    _argIndices = new int[argIndices.size()];
+    for (int i = 0; i < _argIndices.length; i++) {
+      _argIndices[i] = argIndices.get(i);
+    }
+  }
+
+  /**
+   * Instantiate the template with the arguments
+   * @param first the first argument
+   * @param rest the other arguments, starting from the second one
+   * @return the instantiated string, or null if there are not enough arguments, or any argument is
+   *         null or contains a brace, in which case the instantiation is not well defined
+   */
+  public String instantiate(String first, String[] rest) {
+    return instantiate(first, rest, 0);
+  }
+
+  /**
+   * Instantiate the template with the arguments
+   * @see #instantiate(String, String[])
+   */
+  public String instantiate(String[] args) {
+    return instantiate(args.length == 0 ? null : args[0], args, 1);
+  }
+
+  private String instantiate(String first, String[] rest, int restOffset) {
+    int argCount = _argIndices.length;
+    if (argCount > 1 + rest.length - restOffset) {
+      return null;
+    }
+    int length = _literalLength;
+    for (int i = 0; i < argCount; i++) {
+      String arg = i == 0 ? first : rest[restOffset + i - 1];
+      if (arg == null || arg.indexOf('{') > -1 || arg.indexOf('}') > -1) {
+        return null;
+      }
+      if (_argIndices[i] == i) {
+        length += arg.length();
+      }
+    }
+    StringBuilder builder = new StringBuilder(length);
+    builder.append(_segments[0]);
+    for (int i = 0; i < argCount; i++) {
+      int argIndex = _argIndices[i];
+      builder.append(argIndex == 0 ? first : rest[restOffset + argIndex - 1]);
+      builder.append(_segments[i + 1]);
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public String toString() {
+    return _template;
+  }
+}
@@ -0,0 +1,161 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed size, memory-mapped local log of status update records. The log is written circularly:
+ * once the end of the file is reached, writing restarts from the beginning of the file.
+ * Each entry is stored as [length][timestamp][path length][path][serialized record].
+ */
+public class MappedStatusUpdateLog {
+  private static final Logger LOG = LoggerFactory.getLogger(MappedStatusUpdateLog.class);
+
+  // The header stores the current write position.
+  private static final int HEADER_SIZE = Long.BYTES;
+  private static final int ENTRY_OVERHEAD = Integer.BYTES + Long.BYTES + Integer.BYTES;
+  private static final int WRAP_MARKER = -1;
+
+  private final RandomAccessFile _file;
+  private final MappedByteBuffer _buffer;
+  private final ZNRecordSerializer _serializer = new ZNRecordSerializer();
+
+  public static class Entry {
+    private final long _timestamp;
+    private final String _path;
+    private final ZNRecord _record;
+
+    Entry(long timestamp, String path, ZNRecord record) {
+      _timestamp = timestamp;
+      _path = path;
+      _record = record;
+    }
+
+    public long getTimestamp() {
+      return _timestamp;
+    }
+
+    public String getPath() {
+      return _path;
+    }
+
+    public ZNRecord getRecord() {
+      return _record;
+    }
+  }
+
+  /**
+   * Open, or create, a local status update log.
+   * @param file the log file
+   * @param sizeInBytes the size of the mapped log file
+   * @throws IOException if the file cannot be mapped
+   */
+  public MappedStatusUpdateLog(File file, int sizeInBytes) throws IOException {
+    if (sizeInBytes <= HEADER_SIZE + ENTRY_OVERHEAD) {
+      throw new IllegalArgumentException("Status update log size is too small: " + sizeInBytes);
+    }
+    _file = new RandomAccessFile(file, "rw");
+    _buffer = _file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, sizeInBytes);
+    long position = _buffer.getLong(0);
+    if (position < HEADER_SIZE || position > sizeInBytes) {
+      position = HEADER_SIZE;
+      _buffer.putLong(0, position);
+    }
+    _buffer.position((int) position);
+  }
+
+  /**
+   * Append a record to the log. Records that are larger than the log itself are dropped.
+   */
+  public synchronized void append(long timestamp, String path, ZNRecord record) {
+    byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+    byte[] recordBytes = _serializer.serialize(record);
+    int length = ENTRY_OVERHEAD + pathBytes.length + recordBytes.length;
+    if (length > _buffer.capacity() - HEADER_SIZE) {
+      LOG.warn("Status update record of path {} is too large for the local log, size {}", path,
+          length);
+      return;
+    }
+    if (_buffer.remaining() < length) {
+      if (_buffer.remaining() >= Integer.BYTES) {
+        _buffer.putInt(WRAP_MARKER);
+      }
+      _buffer.position(HEADER_SIZE);
+    }
+    _buffer.putInt(length);
+    _buffer.putLong(timestamp);
+    _buffer.putInt(pathBytes.length);
+    _buffer.put(pathBytes);
+    _buffer.put(recordBytes);
+    _buffer.putLong(0, _buffer.position());
+  }
+
+  /**
+   * Read the entries written since the log last wrapped around, in write order.
+   */
+  public synchronized List<Entry> readAll() {
+    List<Entry> entries = new ArrayList<>();
+    int end = (int) _buffer.getLong(0);
+    int position = HEADER_SIZE;
+    while (position + ENTRY_OVERHEAD <= end) {
+      int length = _buffer.getInt(position);
+      if (length <= 0 || position + length > end) {
+        break;
+      }
+      long timestamp = _buffer.getLong(position + Integer.BYTES);
+      int pathLength = _buffer.getInt(position + Integer.BYTES + Long.BYTES);
+      byte[] pathBytes = new byte[pathLength];
+      byte[] recordBytes = new byte[length - ENTRY_OVERHEAD - pathLength];
+      int dataStart = position + ENTRY_OVERHEAD;
+      for (int i = 0; i < pathBytes.length; i++) {
+        pathBytes[i] = _buffer.get(dataStart + i);
+      }
+      for (int i = 0; i < recordBytes.length; i++) {
+        recordBytes[i] = _buffer.get(dataStart + pathLength + i);
+      }
+      entries.add(new Entry(timestamp, new String(pathBytes, StandardCharsets.UTF_8),
+          (ZNRecord) _serializer.deserialize(recordBytes)));
+      position += length;
+    }
+    return entries;
+  }
+
+  public synchronized void close() {
+    _buffer.force();
+    try {
+      _file.close();
+    } catch (IOException e) {
+      LOG.warn("Failed to close the local status update log.", e);
+    }
+  }
+}
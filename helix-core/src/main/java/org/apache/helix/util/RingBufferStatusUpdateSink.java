@@ -0,0 +1,191 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.AccessOption;
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.datamodel.ZNRecordUpdater;
+import org.apache.helix.zookeeper.zkclient.DataUpdater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link StatusUpdateSink} that keeps the most recent status updates in an in-memory ring
+ * buffer, and optionally in a memory-mapped local log, instead of writing each of them to
+ * zookeeper. Error updates and a sample of the other updates are merged per ZNode and flushed to
+ * zookeeper in batches periodically.
+ */
+public class RingBufferStatusUpdateSink implements StatusUpdateSink {
+  private static final Logger LOG = LoggerFactory.getLogger(RingBufferStatusUpdateSink.class);
+
+  private static class BufferedUpdate {
+    private final String _path;
+    private final ZNRecord _record;
+
+    BufferedUpdate(String path, ZNRecord record) {
+      _path = path;
+      _record = record;
+    }
+  }
+
+  private final BufferedUpdate[] _ring;
+  private int _next = 0;
+  private final int _flushSampleRate;
+  private long _publishCount = 0;
+  private final MappedStatusUpdateLog _localLog;
+
+  // accessor -> path -> merged record pending flush to zookeeper
+  private final Map<HelixDataAccessor, Map<String, ZNRecord>> _pendingFlush = new HashMap<>();
+  private int _pendingCount = 0;
+  private final ScheduledExecutorService _flushExecutor;
+
+  /**
+   * @param capacity the number of status updates kept in memory
+   * @param flushIntervalMs the interval of flushing the pending updates to zookeeper, no periodic
+   *          flush if non-positive
+   * @param flushSampleRate one out of every flushSampleRate non-error updates is flushed to
+   *          zookeeper, no non-error update is flushed if non-positive
+   * @param localLog the optional local log that records all the status updates, may be null
+   */
+  public RingBufferStatusUpdateSink(int capacity, long flushIntervalMs, int flushSampleRate,
+      MappedStatusUpdateLog localLog) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Status update ring buffer capacity must be positive.");
+    }
+    _ring = new BufferedUpdate[capacity];
+    _flushSampleRate = flushSampleRate;
+    _localLog = localLog;
+    if (flushIntervalMs > 0) {
+      _flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "RingBufferStatusUpdateSink-flush_thread");
+        thread.setDaemon(true);
+        return thread;
+      });
+      _flushExecutor
+          .scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs,
+              TimeUnit.MILLISECONDS);
+    } else {
+      _flushExecutor = null;
+    }
+  }
+
+  @Override
+  public void publish(PropertyKey key, ZNRecord record, StatusUpdateUtil.Level level,
+      HelixDataAccessor accessor) {
+    String path = key.getPath();
+    boolean flushNow;
+    synchronized (this) {
+      _ring[_next] = new BufferedUpdate(path, record);
+      _next = (_next + 1) % _ring.length;
+      _publishCount++;
+
+      boolean sampled = level == StatusUpdateUtil.Level.HELIX_ERROR
+          || (_flushSampleRate > 0 && _publishCount % _flushSampleRate == 0);
+      if (sampled) {
+        Map<String, ZNRecord> pendingRecords =
+            _pendingFlush.computeIfAbsent(accessor, k -> new LinkedHashMap<>());
+        ZNRecord pending = pendingRecords.get(path);
+        if (pending == null) {
+          pendingRecords.put(path, new ZNRecord(record));
+          _pendingCount++;
+        } else {
+          pending.merge(record);
+        }
+      }
+      // Do not let the pending updates grow beyond the buffer capacity.
+      flushNow = _pendingCount >= _ring.length;
+    }
+
+    if (_localLog != null) {
+      _localLog.append(System.currentTimeMillis(), path, record);
+    }
+    if (flushNow) {
+      flush();
+    }
+  }
+
+  @Override
+  public synchronized List<ZNRecord> fetch(String path) {
+    List<ZNRecord> records = new ArrayList<>();
+    for (int i = 0; i < _ring.length; i++) {
+      BufferedUpdate update = _ring[(_next + i) % _ring.length];
+      if (update != null && update._path.equals(path)) {
+        records.add(update._record);
+      }
+    }
+    return records;
+  }
+
+  /**
+   * @return the number of distinct ZNodes that have updates pending flush to zookeeper
+   */
+  public synchronized int getPendingFlushCount() {
+    return _pendingCount;
+  }
+
+  @Override
+  public void flush() {
+    Map<HelixDataAccessor, Map<String, ZNRecord>> toFlush;
+    synchronized (this) {
+      if (_pendingFlush.isEmpty()) {
+        return;
+      }
+      toFlush = new HashMap<>(_pendingFlush);
+      _pendingFlush.clear();
+      _pendingCount = 0;
+    }
+
+    for (Map.Entry<HelixDataAccessor, Map<String, ZNRecord>> entry : toFlush.entrySet()) {
+      List<String> paths = new ArrayList<>(entry.getValue().size());
+      List<DataUpdater<ZNRecord>> updaters = new ArrayList<>(entry.getValue().size());
+      for (Map.Entry<String, ZNRecord> pending : entry.getValue().entrySet()) {
+        paths.add(pending.getKey());
+        updaters.add(new ZNRecordUpdater(pending.getValue()));
+      }
+      try {
+        entry.getKey().updateChildren(paths, updaters, AccessOption.PERSISTENT);
+      } catch (Exception e) {
+        LOG.error("Failed to flush {} status updates to zookeeper.", paths.size(), e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (_flushExecutor != null) {
+      _flushExecutor.shutdown();
+    }
+    flush();
+    if (_localLog != null) {
+      _localLog.close();
+    }
+  }
+}
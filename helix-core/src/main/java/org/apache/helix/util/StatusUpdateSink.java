@@ -0,0 +1,60 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+
+/**
+ * Destination of the status update records generated by {@link StatusUpdateUtil}. The default
+ * sink writes every record to the STATUSUPDATES ZNodes directly; alternative sinks may keep the
+ * records locally and only persist part of them to zookeeper.
+ */
+public interface StatusUpdateSink {
+  /**
+   * Publish a status update record.
+   * @param key the STATUSUPDATES property key the record belongs to
+   * @param record the status update record, to be merged with the existing record of the key
+   * @param level the level of the status update
+   * @param accessor the data accessor that can be used to write the record to zookeeper
+   */
+  void publish(PropertyKey key, ZNRecord record, StatusUpdateUtil.Level level,
+      HelixDataAccessor accessor);
+
+  /**
+   * Fetch the status update records that are held locally by this sink for the given path.
+   * @param path the STATUSUPDATES path
+   * @return the records in the order they were published, empty if nothing is held locally
+   */
+  List<ZNRecord> fetch(String path);
+
+  /**
+   * Write all the records pending persistence to zookeeper.
+   */
+  void flush();
+
+  /**
+   * Flush the pending records and release the resources held by the sink.
+   */
+  void close();
+}
@@ -19,6 +19,8 @@ package org.apache.helix.util;
  * under the License.
  */
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.DateFormat;
@@ -43,7 +45,6 @@ import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.model.Error;
 import org.apache.helix.model.Message;
 import org.apache.helix.model.Message.MessageType;
-import org.apache.helix.model.StatusUpdate;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +60,88 @@ public class StatusUpdateUtil {
   public static final boolean ERROR_LOG_TO_ZK_ENABLED =
       Boolean.getBoolean(SystemPropertyKeys.STATEUPDATEUTIL_ERROR_PERSISTENCY_ENABLED);
 
+  public enum SinkType {
+    ZK,
+    RING_BUFFER
+  }
+
+  private static final int DEFAULT_RING_BUFFER_CAPACITY = 10000;
+  private static final long DEFAULT_RING_BUFFER_FLUSH_INTERVAL_MS = 30 * 1000L;
+  private static final int DEFAULT_LOCAL_LOG_SIZE_BYTES = 64 * 1024 * 1024;
+
+  private static volatile StatusUpdateSink _defaultSink;
+
+  // Null if the updates go to the process wide sink, which is looked up on each write
+  private final StatusUpdateSink _sink;
+
+  public StatusUpdateUtil() {
+    this(null);
+  }
+
+  public StatusUpdateUtil(StatusUpdateSink sink) {
+    _sink = sink;
+  }
+
+  /**
+   * Get the process wide status update sink, which is configured by the system properties
+   * {@link SystemPropertyKeys#STATUS_UPDATE_SINK_TYPE} and related keys.
+   */
+  public static StatusUpdateSink getDefaultStatusUpdateSink() {
+    StatusUpdateSink sink = _defaultSink;
+    if (sink == null) {
+      synchronized (StatusUpdateUtil.class) {
+        if (_defaultSink == null) {
+          _defaultSink = createStatusUpdateSink();
+        }
+        sink = _defaultSink;
+      }
+    }
+    return sink;
+  }
+
+  /**
+   * Replace the process wide status update sink. The previous sink is not closed, since writes
+   * that already looked it up may still be publishing to it.
+   * @return the previous sink, or null if none was created yet
+   */
+  public static synchronized StatusUpdateSink setDefaultStatusUpdateSink(StatusUpdateSink sink) {
+    StatusUpdateSink previousSink = _defaultSink;
+    _defaultSink = sink;
+    return previousSink;
+  }
+
+  private StatusUpdateSink getSink() {
+    return _sink != null ? _sink : getDefaultStatusUpdateSink();
+  }
+
+  private static StatusUpdateSink createStatusUpdateSink() {
+    SinkType sinkType = SinkType.valueOf(
+        System.getProperty(SystemPropertyKeys.STATUS_UPDATE_SINK_TYPE, SinkType.ZK.name()));
+    if (sinkType == SinkType.ZK) {
+      return new ZkStatusUpdateSink();
+    }
+
+    MappedStatusUpdateLog localLog = null;
+    String localLogPath = System.getProperty(SystemPropertyKeys.STATUS_UPDATE_LOCAL_LOG_PATH);
+    if (localLogPath != null) {
+      try {
+        localLog = new MappedStatusUpdateLog(new File(localLogPath),
+            Integer.getInteger(SystemPropertyKeys.STATUS_UPDATE_LOCAL_LOG_SIZE_BYTES,
+                DEFAULT_LOCAL_LOG_SIZE_BYTES));
+      } catch (IOException e) {
+        _logger.error("Failed to open local status update log {}, continue without it.",
+            localLogPath, e);
+      }
+    }
+    return new RingBufferStatusUpdateSink(
+        Integer.getInteger(SystemPropertyKeys.STATUS_UPDATE_RING_BUFFER_CAPACITY,
+            DEFAULT_RING_BUFFER_CAPACITY),
+        Long.getLong(SystemPropertyKeys.STATUS_UPDATE_RING_BUFFER_FLUSH_INTERVAL_MS,
+            DEFAULT_RING_BUFFER_FLUSH_INTERVAL_MS),
+        Integer.getInteger(SystemPropertyKeys.STATUS_UPDATE_RING_BUFFER_FLUSH_SAMPLE_RATE, 0),
+        localLog);
+  }
+
   public static class Transition implements Comparable<Transition> {
     private final String _msgID;
     private final long _timeStamp;
@@ -451,6 +534,17 @@ public class StatusUpdateUtil {
     return message.getMsgId();
   }
 
+  private String getStatusUpdateSessionId(Message message) {
+    String sessionId = message.getExecutionSessionId();
+    if (sessionId == null) {
+      sessionId = message.getTgtSessionId();
+    }
+    if (sessionId == null) {
+      sessionId = "*";
+    }
+    return sessionId;
+  }
+
   /**
    * Generate the sub-path under STATUSUPDATE or ERROR path for a status update
    */
@@ -486,13 +580,7 @@ public class StatusUpdateUtil {
     String instanceName = message.getTgtName();
     String statusUpdateSubPath = getStatusUpdateSubPath(message);
     String statusUpdateKey = getStatusUpdateKey(message);
-    String sessionId = message.getExecutionSessionId();
-    if (sessionId == null) {
-      sessionId = message.getTgtSessionId();
-    }
-    if (sessionId == null) {
-      sessionId = "*";
-    }
+    String sessionId = getStatusUpdateSessionId(message);
 
     Builder keyBuilder = accessor.keyBuilder();
     if (!_recordedMessages.containsKey(message.getMsgId())) {
@@ -506,7 +594,7 @@ public class StatusUpdateUtil {
             keyBuilder.stateTransitionStatus(instanceName, sessionId, statusUpdateSubPath,
                 statusUpdateKey);
       }
-      accessor.updateProperty(propertyKey, new StatusUpdate(statusUpdateRecord));
+      getSink().publish(propertyKey, statusUpdateRecord, level, accessor);
 
       if (_logger.isTraceEnabled()) {
         _logger.trace("StatusUpdate path:" + propertyKey.getPath() + ", updates:"
@@ -523,7 +611,7 @@ public class StatusUpdateUtil {
           keyBuilder.stateTransitionStatus(instanceName, sessionId, statusUpdateSubPath,
               statusUpdateKey);
     }
-    accessor.updateProperty(propertyKey, new StatusUpdate(record));
+    getSink().publish(propertyKey, record, level, accessor);
 
     if (_logger.isTraceEnabled()) {
       _logger.trace("StatusUpdate path:" + propertyKey.getPath() + ", updates:" + record);
@@ -32,6 +32,9 @@ public class StringTemplate {
   private static Logger LOG = LoggerFactory.getLogger(StringTemplate.class);
 
   Map<Enum, Map<Integer, String>> templateMap = new HashMap<Enum, Map<Integer, String>>();
+  // The templates compiled for instantiation, by the type and the number of keys
+  private final Map<Enum, Map<Integer, CompiledStringTemplate>> compiledTemplateMap =
+      new HashMap<>();
   static Pattern pattern = Pattern.compile("(\\{.+?\\})");
 
   public void addEntry(Enum type, int numKeys, String template) {
@@ -41,6 +44,8 @@ public class StringTemplate {
     LOG.trace("Add template for type: " + type.name() + ", arguments: " + numKeys + ", template: "
         + template);
     templateMap.get(type).put(numKeys, template);
+    compiledTemplateMap.computeIfAbsent(type, k -> new HashMap<>())
+        .put(numKeys, new CompiledStringTemplate(template));
   }
 
   public String instantiate(Enum type, String... keys) {
@@ -48,6 +53,17 @@ public class StringTemplate {
       keys = new String[] {};
     }
 
+    Map<Integer, CompiledStringTemplate> compiledTemplates = compiledTemplateMap.get(type);
+    CompiledStringTemplate compiledTemplate =
+        compiledTemplates == null ? null : compiledTemplates.get(keys.length);
+    if (compiledTemplate != null) {
+      String result = compiledTemplate.instantiate(keys);
+      if (result != null) {
+        return result;
+      }
+    }
+
+    // Some keys are null or contain braces, keep the behavior of the regex based replacement
     String template = null;
     if (templateMap.containsKey(type)) {
       template = templateMap.get(type).get(keys.length);
@@ -0,0 +1,56 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.StatusUpdate;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+
+/**
+ * The default {@link StatusUpdateSink} which writes every status update to zookeeper
+ * synchronously.
+ */
+public class ZkStatusUpdateSink implements StatusUpdateSink {
+  @Override
+  public void publish(PropertyKey key, ZNRecord record, StatusUpdateUtil.Level level,
+      HelixDataAccessor accessor) {
+    accessor.updateProperty(key, new StatusUpdate(record));
+  }
+
+  @Override
+  public List<ZNRecord> fetch(String path) {
+    // Nothing is held locally, all the records are in zookeeper.
+    return Collections.emptyList();
+  }
+
+  @Override
+  public void flush() {
+    // Nothing to flush
+  }
+
+  @Override
+  public void close() {
+    // Nothing to release
+  }
+}
@@ -60,4 +60,36 @@ public class TestPropertyPathBuilder {
     actual = PropertyPathBuilder.clusterStatus("test_cluster");
     Assert.assertEquals(actual, "/test_cluster/STATUS/CLUSTER/test_cluster");
   }
+
+  @Test
+  public void testCompiledTemplates() {
+    Assert.assertEquals(PropertyPathBuilder.getPath(PropertyType.STATUS, "test_cluster", "other"),
+        "/test_cluster/STATUS/test_cluster");
+    Assert.assertEquals(
+        PropertyPathBuilder.getPath(PropertyType.JOB_CONFIG, "test_cluster", "wf", "job"),
+        "/test_cluster/CONFIGS/RESOURCE/wf_job");
+    // Keys with braces are replaced the same way as before
+    Assert.assertEquals(
+        PropertyPathBuilder.getPath(PropertyType.IDEALSTATES, "test_cluster", "{resourceName}"),
+        "/test_cluster/IDEALSTATES/{resourceName}");
+    Assert.assertNull(PropertyPathBuilder.getPath(PropertyType.IDEALSTATES, "test_cluster", "a",
+        "b"));
+
+    PropertyKey.Builder keyBuilder = new PropertyKey.Builder("test_cluster");
+    PropertyKey key = keyBuilder.currentState("instanceName1", "sessionId", "resource");
+    Assert.assertEquals(key.getPath(),
+        "/test_cluster/INSTANCES/instanceName1/CURRENTSTATES/sessionId/resource");
+    Assert.assertEquals(keyBuilder.instanceConfig("instanceName1").getPath(),
+        "/test_cluster/CONFIGS/PARTICIPANT/instanceName1");
+    // The frequently used keys are built once by a builder
+    Assert.assertSame(keyBuilder.liveInstance("instanceName1"),
+        keyBuilder.liveInstance("instanceName1"));
+    Assert.assertSame(keyBuilder.idealStates(), keyBuilder.idealStates());
+    // The keys are cached by each builder, but equal across builders of the same cluster
+    PropertyKey.Builder otherKeyBuilder = new PropertyKey.Builder("test_cluster");
+    Assert.assertNotSame(otherKeyBuilder.idealStates(), keyBuilder.idealStates());
+    Assert.assertEquals(otherKeyBuilder.idealStates(), keyBuilder.idealStates());
+    Assert.assertFalse(
+        new PropertyKey.Builder("other_cluster").idealStates().equals(keyBuilder.idealStates()));
+  }
 }
@@ -0,0 +1,89 @@
+package org.apache.helix.common.caches;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.helix.TestHelper;
+import org.apache.helix.model.IdealState;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link PropertySnapshotStore}
+ */
+public class TestPropertySnapshotStore {
+
+  private IdealState createIdealState(String resourceName, int version) {
+    IdealState idealState = new IdealState(resourceName);
+    idealState.setNumPartitions(version + 1);
+    idealState.getRecord().setVersion(version);
+    idealState.getRecord().setCreationTime(1000L);
+    idealState.getRecord().setModifiedTime(2000L + version);
+    return new IdealState(idealState.getRecord());
+  }
+
+  @Test
+  public void testSnapshotRoundTrip() throws Exception {
+    File directory = Files.createTempDirectory("TestPropertySnapshotStore").toFile();
+    File file = new File(directory, "IdealState.snapshot");
+    try {
+      PropertySnapshotStore store = new PropertySnapshotStore(file);
+      Assert.assertTrue(store.load(IdealState.class).isEmpty());
+
+      Map<String, IdealState> properties = new HashMap<>();
+      properties.put("db0", createIdealState("db0", 1));
+      properties.put("db1", createIdealState("db1", 2));
+      store.update(properties);
+      Assert.assertTrue(TestHelper.verify(file::exists, TestHelper.WAIT_DURATION));
+
+      Map<String, IdealState> loaded = new PropertySnapshotStore(file).load(IdealState.class);
+      Assert.assertEquals(loaded.keySet(), properties.keySet());
+      for (String name : properties.keySet()) {
+        Assert.assertEquals(loaded.get(name).getRecord(), properties.get(name).getRecord());
+        Assert.assertEquals(loaded.get(name).getStat(), properties.get(name).getStat());
+        Assert.assertEquals(loaded.get(name).getNumPartitions(),
+            properties.get(name).getNumPartitions());
+      }
+
+      // A changed property is written again
+      properties.put("db1", createIdealState("db1", 3));
+      properties.remove("db0");
+      store.update(properties);
+      Assert.assertTrue(TestHelper.verify(() -> {
+        Map<String, IdealState> reloaded = new PropertySnapshotStore(file).load(IdealState.class);
+        return reloaded.size() == 1 && reloaded.get("db1").getStat().getVersion() == 3;
+      }, TestHelper.WAIT_DURATION));
+
+      // A corrupted snapshot is ignored
+      try (FileOutputStream out = new FileOutputStream(file)) {
+        out.write(new byte[] {1, 2, 3});
+      }
+      Assert.assertTrue(new PropertySnapshotStore(file).load(IdealState.class).isEmpty());
+    } finally {
+      file.delete();
+      directory.delete();
+    }
+  }
+}
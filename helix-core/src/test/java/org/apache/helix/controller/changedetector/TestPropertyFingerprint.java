@@ -0,0 +1,105 @@
+package org.apache.helix.controller.changedetector;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.helix.model.IdealState;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestPropertyFingerprint {
+
+  private ZNRecord createRecord(boolean reversed) {
+    ZNRecord record = new ZNRecord("TestDB");
+    record.setSimpleField("NUM_PARTITIONS", "2");
+    record.setListField("TestDB_0", Arrays.asList("localhost_0", "localhost_1"));
+    Map<String, String> stateMap = new LinkedHashMap<>();
+    if (reversed) {
+      stateMap.put("localhost_1", "SLAVE");
+      stateMap.put("localhost_0", "MASTER");
+    } else {
+      stateMap.put("localhost_0", "MASTER");
+      stateMap.put("localhost_1", "SLAVE");
+    }
+    record.setMapField("TestDB_0", stateMap);
+    return record;
+  }
+
+  @Test
+  public void testContentHash() {
+    long hash = PropertyFingerprint.hash(createRecord(false));
+    // The hash does not depend on the iteration order of the maps
+    Assert.assertEquals(PropertyFingerprint.hash(createRecord(true)), hash);
+
+    ZNRecord record = createRecord(false);
+    record.getMapField("TestDB_0").put("localhost_0", "SLAVE");
+    Assert.assertTrue(PropertyFingerprint.hash(record) != hash);
+
+    // The order of a list field matters
+    record = createRecord(false);
+    record.setListField("TestDB_0", Arrays.asList("localhost_1", "localhost_0"));
+    Assert.assertTrue(PropertyFingerprint.hash(record) != hash);
+
+    // The same string in a different field is hashed differently
+    record = createRecord(false);
+    record.getSimpleFields().clear();
+    record.setMapField("NUM_PARTITIONS", new HashMap<>());
+    Assert.assertTrue(
+        PropertyFingerprint.hash(record) != PropertyFingerprint.hash(createRecord(false)));
+  }
+
+  @Test
+  public void testSameSource() {
+    IdealState idealState = new IdealState(createRecord(false));
+    PropertyFingerprint fingerprint = new PropertyFingerprint(idealState, idealState);
+    Assert.assertTrue(fingerprint.isSameSource(new PropertyFingerprint(idealState, idealState)));
+
+    // Two objects without ZNode stat are not known to be the same
+    IdealState copy = new IdealState(createRecord(false));
+    PropertyFingerprint copyFingerprint = new PropertyFingerprint(copy, copy);
+    Assert.assertFalse(fingerprint.isSameSource(copyFingerprint));
+    Assert.assertTrue(fingerprint.mayHaveSameContent(copyFingerprint));
+
+    // Two objects read from the same ZNode version
+    for (IdealState property : Arrays.asList(idealState, copy)) {
+      property.getRecord().setVersion(3);
+      property.getRecord().setCreationTime(1000L);
+      property.getRecord().setModifiedTime(2000L);
+    }
+    fingerprint = new PropertyFingerprint(idealState, idealState);
+    Assert.assertTrue(fingerprint.isSameSource(new PropertyFingerprint(copy, copy)));
+
+    copy.getRecord().setVersion(4);
+    Assert.assertFalse(fingerprint.isSameSource(new PropertyFingerprint(copy, copy)));
+
+    // A bucketized record cannot be identified by the stat of the parent ZNode
+    idealState.setBucketSize(10);
+    copy.setBucketSize(10);
+    copy.getRecord().setVersion(3);
+    Assert.assertFalse(new PropertyFingerprint(idealState, idealState)
+        .isSameSource(new PropertyFingerprint(copy, copy)));
+  }
+}
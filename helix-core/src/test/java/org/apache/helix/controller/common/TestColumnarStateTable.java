@@ -0,0 +1,150 @@
+package org.apache.helix.controller.common;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.helix.model.Partition;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestColumnarStateTable {
+  private static final String[] STATES = {"MASTER", "SLAVE", "OFFLINE", "ERROR", null};
+
+  @Test
+  public void testSameAsHashMap() {
+    Map<Partition, Map<String, String>> expected = new HashMap<>();
+    ColumnarStateTable table = new ColumnarStateTable();
+    Random random = new Random(1000);
+    for (int i = 0; i < 10000; i++) {
+      Partition partition = new Partition("TestDB_" + random.nextInt(50));
+      String instance = "localhost_" + random.nextInt(10);
+      String state = STATES[random.nextInt(STATES.length)];
+      switch (random.nextInt(5)) {
+      case 0:
+        Map<String, String> stateMap = new HashMap<>();
+        stateMap.put(instance, state);
+        Assert.assertEquals(table.put(partition, stateMap), expected.put(partition, stateMap));
+        break;
+      case 1:
+        Assert.assertEquals(table.remove(partition), expected.remove(partition));
+        break;
+      case 2:
+        if (expected.containsKey(partition)) {
+          Assert.assertEquals(table.get(partition).remove(instance),
+              expected.get(partition).remove(instance));
+        }
+        break;
+      default:
+        if (!expected.containsKey(partition)) {
+          expected.put(partition, new HashMap<>());
+          table.put(partition, new HashMap<>());
+        }
+        Assert.assertEquals(table.get(partition).put(instance, state),
+            expected.get(partition).put(instance, state));
+        break;
+      }
+      Assert.assertEquals(table.size(), expected.size());
+      Assert.assertEquals(table.get(partition), expected.get(partition));
+    }
+    Assert.assertEquals(table, expected);
+    Assert.assertEquals(expected, table);
+    Assert.assertEquals(table.hashCode(), expected.hashCode());
+    Assert.assertNull(table.get(new Partition("TestDB_100")));
+    Assert.assertNull(table.get("TestDB_0"));
+  }
+
+  @Test
+  public void testIteratorRemoval() {
+    ColumnarStateTable table = new ColumnarStateTable();
+    for (int p = 0; p < 10; p++) {
+      Partition partition = new Partition("TestDB_" + p);
+      table.put(partition, new HashMap<>());
+      for (int i = 0; i < 3; i++) {
+        table.get(partition).put("localhost_" + i, i == 0 ? "MASTER" : "SLAVE");
+      }
+    }
+
+    // Remove the MASTER replicas through the entry iterators of the partition views
+    for (Map<String, String> stateMap : table.values()) {
+      stateMap.entrySet().removeIf(entry -> entry.getValue().equals("MASTER"));
+    }
+    // Remove half of the partitions through the table iterator
+    Iterator<Map.Entry<Partition, Map<String, String>>> iterator = table.entrySet().iterator();
+    while (iterator.hasNext()) {
+      String partitionName = iterator.next().getKey().getPartitionName();
+      if (Integer.parseInt(partitionName.substring(partitionName.indexOf('_') + 1)) % 2 == 0) {
+        iterator.remove();
+      }
+    }
+
+    Assert.assertEquals(table.size(), 5);
+    for (Map.Entry<Partition, Map<String, String>> entry : table.entrySet()) {
+      Map<String, String> expected = new HashMap<>();
+      expected.put("localhost_1", "SLAVE");
+      expected.put("localhost_2", "SLAVE");
+      Assert.assertEquals(entry.getValue(), expected);
+    }
+  }
+
+  @Test
+  public void testComputeWritesThrough() {
+    ColumnarStateTable table = new ColumnarStateTable();
+    Partition partition = new Partition("TestDB_0");
+    // The maps returned by the compute methods are backed by the table
+    table.computeIfAbsent(partition, p -> new HashMap<>()).put("localhost_0", "MASTER");
+    Assert.assertEquals(table.get(partition).get("localhost_0"), "MASTER");
+    table.computeIfAbsent(partition, p -> new HashMap<>()).put("localhost_1", "SLAVE");
+    Assert.assertEquals(table.get(partition).size(), 2);
+
+    table.compute(partition, (p, stateMap) -> new HashMap<>(stateMap)).put("localhost_2", "SLAVE");
+    Assert.assertEquals(table.get(partition).get("localhost_2"), "SLAVE");
+    table.computeIfPresent(partition, (p, stateMap) -> stateMap).remove("localhost_0");
+    Assert.assertFalse(table.get(partition).containsKey("localhost_0"));
+
+    Partition otherPartition = new Partition("TestDB_1");
+    table.merge(otherPartition, new HashMap<>(), (oldMap, newMap) -> oldMap)
+        .put("localhost_0", "OFFLINE");
+    Assert.assertEquals(table.get(otherPartition).get("localhost_0"), "OFFLINE");
+
+    Assert.assertNull(table.compute(otherPartition, (p, stateMap) -> null));
+    Assert.assertFalse(table.containsKey(otherPartition));
+    Assert.assertEquals(table.size(), 1);
+  }
+
+  @Test
+  public void testIdsScopedToTable() {
+    ColumnarStateTable table = new ColumnarStateTable();
+    ColumnarStateTable otherTable = new ColumnarStateTable();
+    Partition partition = new Partition("TestDB_0");
+    table.put(partition, new HashMap<>());
+    table.get(partition).put("localhost_0", "MASTER");
+    otherTable.put(partition, new HashMap<>());
+    otherTable.get(partition).put("localhost_1", "SLAVE");
+    // The instances interned by another table are not known by this one
+    Assert.assertFalse(table.get(partition).containsKey("localhost_1"));
+    Assert.assertFalse(otherTable.get(partition).containsKey("localhost_0"));
+    Assert.assertEquals(otherTable.get(partition).get("localhost_1"), "SLAVE");
+  }
+}
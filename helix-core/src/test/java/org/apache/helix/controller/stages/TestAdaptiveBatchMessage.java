@@ -0,0 +1,93 @@
+package org.apache.helix.controller.stages;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.helix.HelixManagerProperties;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.LiveInstance;
+import org.apache.helix.model.Message;
+import org.apache.helix.model.Resource;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestAdaptiveBatchMessage {
+  private static final String CLUSTER = "TestCluster";
+  private static final String INSTANCE = "localhost_12918";
+  private static final String SESSION = "session_0";
+
+  private final MessageDispatchStage _stage = new MessageDispatchStage() {
+  };
+
+  private List<Message> createMessages(String resourceName, int partitionCount) {
+    List<Message> messages = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      Message message =
+          new Message(Message.MessageType.STATE_TRANSITION, UUID.randomUUID().toString());
+      message.setTgtName(INSTANCE);
+      message.setTgtSessionId(SESSION);
+      message.setResourceName(resourceName);
+      message.setPartitionName(resourceName + "_" + i);
+      message.setFromState("OFFLINE");
+      message.setToState("SLAVE");
+      messages.add(message);
+    }
+    return messages;
+  }
+
+  @Test
+  public void testAdaptiveBatching() {
+    Map<String, Resource> resourceMap =
+        Collections.singletonMap("TestDB", new Resource("TestDB"));
+    LiveInstance liveInstance = new LiveInstance(INSTANCE);
+    liveInstance.setHelixVersion("1.0.0");
+    Map<String, LiveInstance> liveInstanceMap = Collections.singletonMap(INSTANCE, liveInstance);
+    PropertyKey.Builder keyBuilder = new PropertyKey.Builder(CLUSTER);
+    HelixManagerProperties properties = new HelixManagerProperties();
+
+    // Below the threshold, the messages are sent individually
+    List<Message> output = _stage
+        .batchMessage(keyBuilder, createMessages("TestDB", 10), resourceMap, liveInstanceMap,
+            properties, 10);
+    Assert.assertEquals(output.size(), 10);
+    output = _stage
+        .batchMessage(keyBuilder, createMessages("TestDB", 200), resourceMap, liveInstanceMap,
+            properties, -1);
+    Assert.assertEquals(output.size(), 200);
+
+    // Above the threshold, all the transitions of the resource are sent in one batch message
+    output = _stage
+        .batchMessage(keyBuilder, createMessages("TestDB", 200), resourceMap, liveInstanceMap,
+            properties, 10);
+    Assert.assertEquals(output.size(), 1);
+    Message batchMessage = output.get(0);
+    Assert.assertTrue(batchMessage.getBatchMessageMode());
+    Assert.assertEquals(batchMessage.getPartitionNames().size(), 200);
+    Assert.assertTrue(batchMessage.getRecord()
+        .getBooleanField(ZNRecord.ENABLE_COMPRESSION_BOOLEAN_FIELD, false));
+  }
+}
@@ -19,13 +19,19 @@ package org.apache.helix.controller.stages;
  * under the License.
  */
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.rebalancer.SemiAutoRebalancer;
 import org.apache.helix.model.BuiltInStateModelDefinitions;
 import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.IdealState;
 import org.apache.helix.model.IdealState.RebalanceMode;
 import org.apache.helix.model.Partition;
 import org.apache.helix.model.Resource;
@@ -75,6 +81,111 @@ public class TestBestPossibleStateCalcStage extends BaseStageTest {
         + new Date(System.currentTimeMillis()));
   }
 
+  @Test
+  public void testParallelComputation() {
+    String[] resources = new String[] {
+        "testResourceName_0", "testResourceName_1", "testResourceName_2", "testResourceName_3"
+    };
+    int numPartition = 5;
+
+    setupIdealState(5, resources, numPartition, 1, RebalanceMode.SEMI_AUTO,
+        BuiltInStateModelDefinitions.MasterSlave.name());
+    setupLiveInstances(5);
+    setupStateModel();
+
+    Map<String, Resource> resourceMap =
+        getResourceMap(resources, numPartition, BuiltInStateModelDefinitions.MasterSlave.name());
+    event.addAttribute(AttributeName.RESOURCES.name(), resourceMap);
+    event.addAttribute(AttributeName.RESOURCES_TO_REBALANCE.name(), resourceMap);
+    event.addAttribute(AttributeName.CURRENT_STATE.name(), new CurrentStateOutput());
+    event.addAttribute(AttributeName.ControllerDataProvider.name(),
+        new ResourceControllerDataProvider());
+    runStage(event, new ReadClusterDataStage());
+
+    runStage(event, new BestPossibleStateCalcStage());
+    BestPossibleStateOutput serialOutput =
+        event.getAttribute(AttributeName.BEST_POSSIBLE_STATE.name());
+
+    String previous =
+        System.setProperty(SystemPropertyKeys.BEST_POSSIBLE_CALC_PARALLELISM, "4");
+    try {
+      runStage(event, new BestPossibleStateCalcStage());
+    } finally {
+      if (previous == null) {
+        System.clearProperty(SystemPropertyKeys.BEST_POSSIBLE_CALC_PARALLELISM);
+      } else {
+        System.setProperty(SystemPropertyKeys.BEST_POSSIBLE_CALC_PARALLELISM, previous);
+      }
+    }
+    BestPossibleStateOutput parallelOutput =
+        event.getAttribute(AttributeName.BEST_POSSIBLE_STATE.name());
+
+    Assert.assertEquals(parallelOutput.resourceSet(), serialOutput.resourceSet());
+    for (String resource : resources) {
+      Assert.assertEquals(parallelOutput.getPartitionStateMap(resource).getStateMap(),
+          serialOutput.getPartitionStateMap(resource).getStateMap());
+      Assert.assertEquals(parallelOutput.getPreferenceLists(resource),
+          serialOutput.getPreferenceLists(resource));
+    }
+  }
+
+  @Test
+  public void testUserRebalancerIsNotRunConcurrently() {
+    String[] resources = new String[] {
+        "userResourceName_0", "userResourceName_1", "userResourceName_2", "userResourceName_3"
+    };
+    int numPartition = 5;
+
+    setupIdealState(5, resources, numPartition, 1, RebalanceMode.USER_DEFINED,
+        BuiltInStateModelDefinitions.MasterSlave.name(),
+        ThreadRecordingRebalancer.class.getName());
+    setupLiveInstances(5);
+    setupStateModel();
+
+    Map<String, Resource> resourceMap =
+        getResourceMap(resources, numPartition, BuiltInStateModelDefinitions.MasterSlave.name());
+    event.addAttribute(AttributeName.RESOURCES.name(), resourceMap);
+    event.addAttribute(AttributeName.RESOURCES_TO_REBALANCE.name(), resourceMap);
+    event.addAttribute(AttributeName.CURRENT_STATE.name(), new CurrentStateOutput());
+    event.addAttribute(AttributeName.ControllerDataProvider.name(),
+        new ResourceControllerDataProvider());
+    runStage(event, new ReadClusterDataStage());
+
+    ThreadRecordingRebalancer.THREADS.clear();
+    String previous =
+        System.setProperty(SystemPropertyKeys.BEST_POSSIBLE_CALC_PARALLELISM, "4");
+    try {
+      runStage(event, new BestPossibleStateCalcStage());
+    } finally {
+      if (previous == null) {
+        System.clearProperty(SystemPropertyKeys.BEST_POSSIBLE_CALC_PARALLELISM);
+      } else {
+        System.setProperty(SystemPropertyKeys.BEST_POSSIBLE_CALC_PARALLELISM, previous);
+      }
+    }
+
+    BestPossibleStateOutput output = event.getAttribute(AttributeName.BEST_POSSIBLE_STATE.name());
+    for (String resource : resources) {
+      Assert.assertEquals(output.getPartitionStateMap(resource).partitionSet().size(),
+          numPartition);
+    }
+    // The user provided rebalancer is only run by the pipeline thread
+    Assert.assertEquals(ThreadRecordingRebalancer.THREADS,
+        Collections.singleton(Thread.currentThread()));
+  }
+
+  public static class ThreadRecordingRebalancer
+      extends SemiAutoRebalancer<ResourceControllerDataProvider> {
+    static final Set<Thread> THREADS = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public IdealState computeNewIdealState(String resourceName, IdealState currentIdealState,
+        CurrentStateOutput currentStateOutput, ResourceControllerDataProvider clusterData) {
+      THREADS.add(Thread.currentThread());
+      return currentIdealState;
+    }
+  }
+
   /*
    * Tests the pipeline detects offline instances exceed the threshold and auto enters maintenance,
    * the maintenance rebalancer is used immediately. No bootstraps in the best possible output.
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.helix.PropertyKey.Builder;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.controller.dataproviders.WorkflowControllerDataProvider;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
@@ -172,4 +173,81 @@ public class TestCurrentStateComputationStage extends BaseStageTest {
     AssertJUnit.assertEquals(taskCurrentState, "INIT");
   }
 
+  @Test
+  public void testParallelCS() {
+    Map<String, Resource> resourceMap = getResourceMap();
+    setupLiveInstances(5);
+    Builder keyBuilder = accessor.keyBuilder();
+    for (int i = 0; i < 5; i++) {
+      CurrentState currentState = new CurrentState("testResourceName");
+      currentState.setSessionId(SESSION_PREFIX + i);
+      currentState.setStateModelDefRef("MasterSlave");
+      currentState.setState("testResourceName_" + i, i == 0 ? "MASTER" : "SLAVE");
+      currentState.setState("testResourceName_" + ((i + 1) % 5), "SLAVE");
+      currentState.setEndTime("testResourceName_" + i, 1000L + i);
+      accessor.setProperty(
+          keyBuilder.currentState(HOSTNAME_PREFIX + i, SESSION_PREFIX + i, "testResourceName"),
+          currentState);
+
+      Message message = new Message(Message.MessageType.STATE_TRANSITION, "msg" + i);
+      message.setFromState("OFFLINE");
+      message.setToState("SLAVE");
+      message.setResourceName("testResourceName");
+      message.setPartitionName("testResourceName_" + ((i + 2) % 5));
+      message.setTgtName(HOSTNAME_PREFIX + i);
+      message.setTgtSessionId(SESSION_PREFIX + i);
+      accessor.setProperty(keyBuilder.message(HOSTNAME_PREFIX + i, message.getId()), message);
+    }
+    // A stale message, the partition is already in the target state
+    Message staleMessage = new Message(Message.MessageType.STATE_TRANSITION, "staleMsg");
+    staleMessage.setFromState("OFFLINE");
+    staleMessage.setToState("SLAVE");
+    staleMessage.setResourceName("testResourceName");
+    staleMessage.setPartitionName("testResourceName_4");
+    staleMessage.setTgtName(HOSTNAME_PREFIX + 4);
+    staleMessage.setTgtSessionId(SESSION_PREFIX + 4);
+    accessor.setProperty(keyBuilder.message(HOSTNAME_PREFIX + 4, staleMessage.getId()),
+        staleMessage);
+
+    event.addAttribute(AttributeName.RESOURCES.name(), resourceMap);
+    event.addAttribute(AttributeName.RESOURCES_TO_REBALANCE.name(), resourceMap);
+    ResourceControllerDataProvider dataCache = new ResourceControllerDataProvider();
+    event.addAttribute(AttributeName.ControllerDataProvider.name(), dataCache);
+    runStage(event, new ReadClusterDataStage());
+    runStage(event, new CurrentStateComputationStage());
+    CurrentStateOutput serialOutput = event.getAttribute(AttributeName.CURRENT_STATE.name());
+    AssertJUnit.assertTrue(dataCache.getStaleMessages().get("localhost_4").containsKey("staleMsg"));
+
+    System.setProperty(SystemPropertyKeys.CURRENT_STATE_COMPUTATION_PARALLELISM, "4");
+    CurrentStateComputationStage parallelStage;
+    try {
+      parallelStage = new CurrentStateComputationStage();
+    } finally {
+      System.clearProperty(SystemPropertyKeys.CURRENT_STATE_COMPUTATION_PARALLELISM);
+    }
+    dataCache = new ResourceControllerDataProvider();
+    event.addAttribute(AttributeName.ControllerDataProvider.name(), dataCache);
+    runStage(event, new ReadClusterDataStage());
+    runStage(event, parallelStage);
+    CurrentStateOutput parallelOutput = event.getAttribute(AttributeName.CURRENT_STATE.name());
+    AssertJUnit.assertNotSame(serialOutput, parallelOutput);
+    AssertJUnit.assertTrue(dataCache.getStaleMessages().get("localhost_4").containsKey("staleMsg"));
+
+    AssertJUnit.assertEquals(parallelOutput.getResourceStateModelDef("testResourceName"),
+        serialOutput.getResourceStateModelDef("testResourceName"));
+    for (int i = 0; i < 5; i++) {
+      Partition partition = new Partition("testResourceName_" + i);
+      AssertJUnit.assertEquals(parallelOutput.getCurrentStateMap("testResourceName", partition),
+          serialOutput.getCurrentStateMap("testResourceName", partition));
+      AssertJUnit.assertEquals(parallelOutput.getPendingMessageMap("testResourceName", partition),
+          serialOutput.getPendingMessageMap("testResourceName", partition));
+      for (int j = 0; j < 5; j++) {
+        AssertJUnit.assertEquals(
+            parallelOutput.getEndTime("testResourceName", partition, HOSTNAME_PREFIX + j),
+            serialOutput.getEndTime("testResourceName", partition, HOSTNAME_PREFIX + j));
+      }
+    }
+    AssertJUnit.assertEquals(parallelOutput.getCurrentStateMap("testResourceName", new Partition(
+        "testResourceName_1")).size(), 2);
+  }
 }
@@ -0,0 +1,127 @@
+package org.apache.helix.controller.stages;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.helix.SystemPropertyKeys;
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.model.BuiltInStateModelDefinitions;
+import org.apache.helix.model.IdealState.RebalanceMode;
+import org.apache.helix.model.Message;
+import org.apache.helix.model.Partition;
+import org.apache.helix.model.Resource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestIncrementalMessageGeneration extends BaseStageTest {
+  private static final int NUM_INSTANCES = 3;
+  private static final int NUM_PARTITIONS = 4;
+
+  @Test
+  public void testIncrementalParallelGeneration() {
+    String[] resources = new String[] {
+        "convergedResource", "newResource", "changedResource"
+    };
+    setupIdealState(NUM_INSTANCES, resources, NUM_PARTITIONS, 2, RebalanceMode.SEMI_AUTO,
+        BuiltInStateModelDefinitions.MasterSlave.name());
+    setupLiveInstances(NUM_INSTANCES);
+    setupStateModel();
+    Map<String, Resource> resourceMap = getResourceMap(resources, NUM_PARTITIONS,
+        BuiltInStateModelDefinitions.MasterSlave.name());
+
+    BestPossibleStateOutput bestPossibleStateOutput = new BestPossibleStateOutput();
+    CurrentStateOutput currentStateOutput = new CurrentStateOutput();
+    for (String resource : resources) {
+      for (int p = 0; p < NUM_PARTITIONS; p++) {
+        Partition partition = new Partition(resource + "_" + p);
+        Map<String, String> stateMap = new HashMap<>();
+        stateMap.put(HOSTNAME_PREFIX + p % NUM_INSTANCES, "MASTER");
+        stateMap.put(HOSTNAME_PREFIX + (p + 1) % NUM_INSTANCES, "SLAVE");
+        bestPossibleStateOutput.setState(resource, partition, stateMap);
+        if (!resource.equals("newResource")) {
+          for (Map.Entry<String, String> entry : stateMap.entrySet()) {
+            currentStateOutput
+                .setCurrentState(resource, partition, entry.getKey(), entry.getValue());
+          }
+        }
+      }
+    }
+    // One replica of changedResource still needs to be promoted
+    currentStateOutput.setCurrentState("changedResource", new Partition("changedResource_0"),
+        HOSTNAME_PREFIX + 0, "SLAVE");
+
+    event.addAttribute(AttributeName.RESOURCES.name(), resourceMap);
+    event.addAttribute(AttributeName.RESOURCES_TO_REBALANCE.name(), resourceMap);
+    event.addAttribute(AttributeName.CURRENT_STATE.name(), currentStateOutput);
+    event.addAttribute(AttributeName.BEST_POSSIBLE_STATE.name(), bestPossibleStateOutput);
+    event.addAttribute(AttributeName.ControllerDataProvider.name(),
+        new ResourceControllerDataProvider());
+    runStage(event, new ReadClusterDataStage());
+
+    runStage(event, new MessageGenerationPhase());
+    MessageOutput expectedOutput = event.getAttribute(AttributeName.MESSAGES_ALL.name());
+
+    String previousIncremental =
+        System.setProperty(SystemPropertyKeys.MESSAGE_GENERATION_INCREMENTAL, "true");
+    String previousParallelism =
+        System.setProperty(SystemPropertyKeys.MESSAGE_GENERATION_PARALLELISM, "4");
+    try {
+      runStage(event, new MessageGenerationPhase());
+    } finally {
+      restoreProperty(SystemPropertyKeys.MESSAGE_GENERATION_INCREMENTAL, previousIncremental);
+      restoreProperty(SystemPropertyKeys.MESSAGE_GENERATION_PARALLELISM, previousParallelism);
+    }
+    MessageOutput output = event.getAttribute(AttributeName.MESSAGES_ALL.name());
+
+    Assert.assertTrue(output.getResourceMessageMap("convergedResource").isEmpty());
+    Assert.assertEquals(getTransitions(output, "changedResource"),
+        getTransitions(expectedOutput, "changedResource"));
+    Assert.assertEquals(getTransitions(output, "changedResource").size(), 1);
+    Assert.assertEquals(getTransitions(output, "newResource"),
+        getTransitions(expectedOutput, "newResource"));
+    Assert.assertEquals(getTransitions(output, "newResource").size(), NUM_PARTITIONS * 2);
+  }
+
+  private Set<String> getTransitions(MessageOutput output, String resource) {
+    Set<String> transitions = new HashSet<>();
+    for (List<Message> messages : output.getResourceMessageMap(resource).values()) {
+      for (Message message : messages) {
+        transitions.add(
+            message.getPartitionName() + ":" + message.getTgtName() + ":" + message.getFromState()
+                + "->" + message.getToState());
+      }
+    }
+    return transitions;
+  }
+
+  private void restoreProperty(String key, String value) {
+    if (value == null) {
+      System.clearProperty(key);
+    } else {
+      System.setProperty(key, value);
+    }
+  }
+}
@@ -19,6 +19,8 @@ package org.apache.helix.controller.stages;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -406,6 +408,157 @@ public class TestIntermediateStateCalcStage extends BaseStageTest {
     }
   }
 
+  @Test
+  public void testPendingTransitionChargesAcrossRuns() {
+    String resource = "resource_0";
+    PendingTransitionChargeTracker chargeTracker = setupPendingTransitionCharge(resource);
+    String instance = HOSTNAME_PREFIX + 0;
+    Partition pendingPartition = new Partition(resource + "_0");
+    Partition newPartition = new Partition(resource + "_1");
+    Message pendingMessage = generateMessage("OFFLINE", "ONLINE", instance);
+
+    // First run: the pending transition of partition 0 takes the recovery quota of the instance,
+    // so the new transition of partition 1 on the same instance is throttled.
+    runPendingTransitionStage(resource, pendingPartition, newPartition, "OFFLINE", pendingMessage);
+    Map<String, PendingTransitionChargeTracker.Charge> charges =
+        chargeTracker.getCharges(resource);
+    Assert.assertEquals(charges.keySet(), Collections.singleton(pendingMessage.getId()));
+    Assert.assertEquals(charges.get(pendingMessage.getId()).getInstance(), instance);
+    Assert.assertEquals(charges.get(pendingMessage.getId()).getRebalanceType(),
+        StateTransitionThrottleConfig.RebalanceType.RECOVERY_BALANCE);
+    IntermediateStateOutput output = event.getAttribute(AttributeName.INTERMEDIATE_STATE.name());
+    Assert.assertEquals(output.getPartitionStateMap(resource).getPartitionMap(newPartition)
+        .get(instance), "OFFLINE");
+
+    // Second run: the pending transition completed, its charge is released and the transition of
+    // partition 1 gets the quota.
+    runPendingTransitionStage(resource, pendingPartition, newPartition, "ONLINE", null);
+    Assert.assertTrue(chargeTracker.getCharges(resource).isEmpty());
+    output = event.getAttribute(AttributeName.INTERMEDIATE_STATE.name());
+    Assert.assertEquals(output.getPartitionStateMap(resource).getPartitionMap(newPartition)
+        .get(instance), "ONLINE");
+  }
+
+  @Test
+  public void testPendingTransitionChargeLeavesFromState() {
+    String resource = "resource_0";
+    PendingTransitionChargeTracker chargeTracker = setupPendingTransitionCharge(resource);
+    String instance = HOSTNAME_PREFIX + 0;
+    Partition pendingPartition = new Partition(resource + "_0");
+    Partition newPartition = new Partition(resource + "_1");
+    Message pendingMessage = generateMessage("OFFLINE", "ONLINE", instance);
+
+    runPendingTransitionStage(resource, pendingPartition, newPartition, "OFFLINE", pendingMessage);
+    Assert.assertEquals(chargeTracker.getCharges(resource).keySet(),
+        Collections.singleton(pendingMessage.getId()));
+
+    // The replica has left the from state while the message is still pending, so the message is
+    // not charged anymore and the transition of partition 1 gets the quota.
+    runPendingTransitionStage(resource, pendingPartition, newPartition, "ONLINE", pendingMessage);
+    Assert.assertTrue(chargeTracker.getCharges(resource).isEmpty());
+    IntermediateStateOutput output = event.getAttribute(AttributeName.INTERMEDIATE_STATE.name());
+    Assert.assertEquals(output.getPartitionStateMap(resource).getPartitionMap(newPartition)
+        .get(instance), "ONLINE");
+  }
+
+  @Test
+  public void testPendingTransitionChargeRebalanceTypeChange() {
+    String resource = "resource_0";
+    PendingTransitionChargeTracker chargeTracker = setupPendingTransitionCharge(resource);
+    String instance = HOSTNAME_PREFIX + 0;
+    Partition pendingPartition = new Partition(resource + "_0");
+    Partition newPartition = new Partition(resource + "_1");
+    Message pendingMessage = generateMessage("OFFLINE", "ONLINE", instance);
+
+    Map<String, String> pendingPartitionStates = new HashMap<>();
+    pendingPartitionStates.put(instance, "OFFLINE");
+    pendingPartitionStates.put(HOSTNAME_PREFIX + 1, "ONLINE");
+    pendingPartitionStates.put(HOSTNAME_PREFIX + 2, "ONLINE");
+    runPendingTransitionStage(resource, pendingPartition, newPartition, pendingPartitionStates,
+        pendingMessage);
+    Assert.assertEquals(chargeTracker.getCharges(resource).get(pendingMessage.getId())
+        .getRebalanceType(), StateTransitionThrottleConfig.RebalanceType.RECOVERY_BALANCE);
+    IntermediateStateOutput output = event.getAttribute(AttributeName.INTERMEDIATE_STATE.name());
+    Assert.assertEquals(output.getPartitionStateMap(resource).getPartitionMap(newPartition)
+        .get(instance), "OFFLINE");
+
+    // Another replica of the partition came online, so the required states are satisfied and the
+    // pending transition is charged as a load balance. The recovery quota is free again.
+    pendingPartitionStates.put(HOSTNAME_PREFIX + 3, "ONLINE");
+    runPendingTransitionStage(resource, pendingPartition, newPartition, pendingPartitionStates,
+        pendingMessage);
+    Assert.assertEquals(chargeTracker.getCharges(resource).get(pendingMessage.getId())
+        .getRebalanceType(), StateTransitionThrottleConfig.RebalanceType.LOAD_BALANCE);
+    output = event.getAttribute(AttributeName.INTERMEDIATE_STATE.name());
+    Assert.assertEquals(output.getPartitionStateMap(resource).getPartitionMap(newPartition)
+        .get(instance), "ONLINE");
+  }
+
+  private PendingTransitionChargeTracker setupPendingTransitionCharge(String resource) {
+    String[] resources = new String[] { resource };
+    int nReplica = 3;
+    preSetup(resources, nReplica, nReplica);
+    // Allow a single recovery transition per instance
+    _clusterConfig.setStateTransitionThrottleConfigs(ImmutableList.of(
+        new StateTransitionThrottleConfig(StateTransitionThrottleConfig.RebalanceType.RECOVERY_BALANCE,
+            StateTransitionThrottleConfig.ThrottleScope.INSTANCE, 1)));
+    setClusterConfig(_clusterConfig);
+    event.addAttribute(AttributeName.RESOURCES.name(),
+        getResourceMap(resources, 2, "OnlineOffline"));
+    event.addAttribute(AttributeName.RESOURCES_TO_REBALANCE.name(),
+        getResourceMap(resources, 2, "OnlineOffline"));
+    ResourceControllerDataProvider cache = new ResourceControllerDataProvider();
+    event.addAttribute(AttributeName.ControllerDataProvider.name(), cache);
+    return cache.getPendingTransitionChargeTracker();
+  }
+
+  private void runPendingTransitionStage(String resource, Partition pendingPartition,
+      Partition newPartition, String pendingPartitionState, Message pendingMessage) {
+    Map<String, String> pendingPartitionStates = new HashMap<>();
+    for (int r = 0; r < 3; r++) {
+      pendingPartitionStates.put(HOSTNAME_PREFIX + r, r == 0 ? pendingPartitionState : "ONLINE");
+    }
+    runPendingTransitionStage(resource, pendingPartition, newPartition, pendingPartitionStates,
+        pendingMessage);
+  }
+
+  private void runPendingTransitionStage(String resource, Partition pendingPartition,
+      Partition newPartition, Map<String, String> pendingPartitionStates, Message pendingMessage) {
+    BestPossibleStateOutput bestPossibleStateOutput = new BestPossibleStateOutput();
+    MessageOutput messageSelectOutput = new MessageOutput();
+    CurrentStateOutput currentStateOutput = new CurrentStateOutput();
+    List<String> preferenceList = new ArrayList<>();
+    Map<String, List<String>> preferenceLists = new HashMap<>();
+    for (int r = 0; r < 3; r++) {
+      String instanceName = HOSTNAME_PREFIX + r;
+      preferenceList.add(instanceName);
+      for (Partition partition : Arrays.asList(pendingPartition, newPartition)) {
+        bestPossibleStateOutput.setState(resource, partition, instanceName, "ONLINE");
+      }
+      currentStateOutput.setCurrentState(resource, newPartition, instanceName,
+          r == 0 ? "OFFLINE" : "ONLINE");
+    }
+    for (Map.Entry<String, String> state : pendingPartitionStates.entrySet()) {
+      currentStateOutput.setCurrentState(resource, pendingPartition, state.getKey(),
+          state.getValue());
+    }
+    preferenceLists.put(pendingPartition.getPartitionName(), preferenceList);
+    preferenceLists.put(newPartition.getPartitionName(), preferenceList);
+    bestPossibleStateOutput.setPreferenceLists(resource, preferenceLists);
+    if (pendingMessage != null) {
+      currentStateOutput.setPendingMessage(resource, pendingPartition, HOSTNAME_PREFIX + 0,
+          pendingMessage);
+    }
+    messageSelectOutput.addMessage(resource, newPartition,
+        generateMessage("OFFLINE", "ONLINE", HOSTNAME_PREFIX + 0));
+
+    event.addAttribute(AttributeName.BEST_POSSIBLE_STATE.name(), bestPossibleStateOutput);
+    event.addAttribute(AttributeName.CURRENT_STATE.name(), currentStateOutput);
+    event.addAttribute(AttributeName.MESSAGES_SELECTED.name(), messageSelectOutput);
+    runStage(event, new ReadClusterDataStage());
+    runStage(event, new IntermediateStateCalcStage());
+  }
+
   private void preSetup(String[] resources, int numOfLiveInstances, int numOfReplicas) {
     setupIdealState(numOfLiveInstances, resources, numOfLiveInstances, numOfReplicas,
         IdealState.RebalanceMode.FULL_AUTO, "OnlineOffline");
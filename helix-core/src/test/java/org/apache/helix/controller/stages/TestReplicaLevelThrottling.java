@@ -76,6 +76,8 @@ public class TestReplicaLevelThrottling extends BaseStageTest {
     when(mock.cache.getLiveInstances()).thenReturn(new HashSet<>(
         ((Map<String, List<String>>) cacheMap.get(CacheKeys.preferenceList.name())).values().iterator().next()).stream()
         .collect(Collectors.toMap(e -> e, e -> new LiveInstance(e))));
+    when(mock.cache.getPendingTransitionChargeTracker())
+        .thenReturn(new PendingTransitionChargeTracker());
     when(mock.cache.getIdealState(RESOURCE_NAME)).thenReturn(
         new FullAutoModeISBuilder(RESOURCE_NAME).setMinActiveReplica(
             (Integer) cacheMap.get(CacheKeys.minActiveReplica.name()))
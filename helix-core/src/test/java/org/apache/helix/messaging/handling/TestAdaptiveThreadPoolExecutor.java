@@ -0,0 +1,88 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.TestHelper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestAdaptiveThreadPoolExecutor {
+
+  @Test
+  public void testGrowWithinGlobalCapAndShrink() throws Exception {
+    AdaptiveThreadPoolExecutor.ThreadBudget budget = new AdaptiveThreadPoolExecutor.ThreadBudget(3);
+    AdaptiveThreadPoolExecutor hot = new AdaptiveThreadPoolExecutor("hot", 1, 10, 1, budget);
+    AdaptiveThreadPoolExecutor idle = new AdaptiveThreadPoolExecutor("idle", 1, 10, 1, budget);
+    Assert.assertEquals(budget.getAllocated(), 2);
+
+    CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < 10; i++) {
+      hot.submit(() -> {
+        release.await();
+        return null;
+      });
+    }
+    // The queued tasks grow the hot pool until the global cap is reached
+    for (int i = 0; i < 5; i++) {
+      hot.adjust();
+      idle.adjust();
+    }
+    Assert.assertEquals(hot.getCorePoolSize(), 2);
+    Assert.assertEquals(idle.getCorePoolSize(), 1);
+    Assert.assertEquals(budget.getAllocated(), 3);
+
+    // Once the queue is drained, the pool shrinks back to its minimum size
+    release.countDown();
+    hot.shutdown();
+    Assert.assertTrue(hot.awaitTermination(10, TimeUnit.SECONDS));
+    Assert.assertEquals(budget.getAllocated(), 1);
+
+    AdaptiveThreadPoolExecutor other = new AdaptiveThreadPoolExecutor("other", 1, 3, 1, budget);
+    CountDownLatch otherRelease = new CountDownLatch(1);
+    for (int i = 0; i < 5; i++) {
+      other.submit(() -> {
+        otherRelease.await();
+        return null;
+      });
+    }
+    for (int i = 0; i < 5; i++) {
+      other.adjust();
+    }
+    // Capped by the global cap again
+    Assert.assertEquals(other.getCorePoolSize(), 2);
+    otherRelease.countDown();
+    Assert.assertTrue(TestHelper
+        .verify(() -> other.getActiveCount() == 0 && other.getQueue().isEmpty(),
+            TestHelper.WAIT_DURATION));
+    other.adjust();
+    Assert.assertEquals(other.getCorePoolSize(), 1);
+    Assert.assertEquals(budget.getAllocated(), 2);
+
+    other.shutdown();
+    idle.shutdown();
+    Assert.assertTrue(idle.awaitTermination(10, TimeUnit.SECONDS));
+    Assert.assertTrue(other.awaitTermination(10, TimeUnit.SECONDS));
+    Assert.assertEquals(budget.getAllocated(), 0);
+  }
+}
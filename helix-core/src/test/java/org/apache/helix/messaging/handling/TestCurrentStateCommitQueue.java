@@ -0,0 +1,160 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.helix.HelixProperty;
+import org.apache.helix.MockAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.TestHelper;
+import org.apache.helix.model.CurrentState;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.datamodel.ZNRecordDelta;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestCurrentStateCommitQueue {
+  private static final String INSTANCE = "localhost_12918";
+  private static final String SESSION = "session_0";
+  private static final String RESOURCE = "TestDB";
+
+  private static class CountingAccessor extends MockAccessor {
+    final AtomicInteger _updateCount = new AtomicInteger(0);
+
+    @Override
+    public synchronized <T extends HelixProperty> boolean updateProperty(PropertyKey key,
+        T value) {
+      _updateCount.incrementAndGet();
+      return super.updateProperty(key, value);
+    }
+  }
+
+  @Test
+  public void testConcurrentDeltasAreCoalesced() throws Exception {
+    CountingAccessor accessor = new CountingAccessor();
+    PropertyKey key = accessor.keyBuilder().currentState(INSTANCE, SESSION, RESOURCE);
+    CurrentStateCommitQueue queue = new CurrentStateCommitQueue(200, 1000, null);
+
+    int partitionCount = 20;
+    ExecutorService executor = Executors.newFixedThreadPool(partitionCount);
+    List<Future<Boolean>> results = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      String partition = RESOURCE + "_" + i;
+      results.add(executor.submit(() -> {
+        CurrentState delta = new CurrentState(RESOURCE);
+        delta.setState(partition, "ONLINE");
+        return queue.commit(accessor, key, delta);
+      }));
+    }
+    for (Future<Boolean> result : results) {
+      Assert.assertTrue(result.get());
+    }
+    executor.shutdown();
+
+    CurrentState currentState = accessor.getProperty(key);
+    Assert.assertEquals(currentState.getPartitionStateMap().size(), partitionCount);
+    // All the deltas are committed within one window
+    Assert.assertTrue(accessor._updateCount.get() < partitionCount);
+    queue.shutdown();
+  }
+
+  @Test
+  public void testMaxBatchSizeAndDroppedPartition() {
+    CountingAccessor accessor = new CountingAccessor();
+    PropertyKey key = accessor.keyBuilder().currentState(INSTANCE, SESSION, RESOURCE);
+    // A huge window, so the commit returns only because of the batch size limit
+    CurrentStateCommitQueue queue = new CurrentStateCommitQueue(60 * 1000L, 1, null);
+
+    CurrentState delta = new CurrentState(RESOURCE);
+    delta.setState(RESOURCE + "_0", "OFFLINE");
+    Assert.assertTrue(queue.commit(accessor, key, delta));
+    delta = new CurrentState(RESOURCE);
+    delta.setState(RESOURCE + "_1", "OFFLINE");
+    Assert.assertTrue(queue.commit(accessor, key, delta));
+    Assert.assertEquals(accessor._updateCount.get(), 2);
+
+    // Dropping a partition removes it from the current state
+    ZNRecord dropped = new ZNRecord(RESOURCE);
+    dropped.getMapFields().put(RESOURCE + "_0", null);
+    CurrentState dropDelta = new CurrentState(RESOURCE);
+    dropDelta.setDeltaList(Collections.singletonList(
+        new ZNRecordDelta(dropped, ZNRecordDelta.MergeOperation.SUBTRACT)));
+    Assert.assertTrue(queue.commit(accessor, key, dropDelta));
+
+    CurrentState currentState = accessor.getProperty(key);
+    Assert.assertEquals(currentState.getPartitionStateMap().keySet(),
+        Collections.singleton(RESOURCE + "_1"));
+    queue.shutdown();
+  }
+
+  @Test
+  public void testShutdownWithConcurrentCommits() throws Exception {
+    CountingAccessor accessor = new CountingAccessor();
+    // A huge window, so the commits return only because of the shutdown
+    CurrentStateCommitQueue queue = new CurrentStateCommitQueue(60 * 1000L, 1000, null);
+
+    int partitionCount = 20;
+    ExecutorService executor = Executors.newFixedThreadPool(partitionCount);
+    List<Future<Boolean>> results = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      // Spread the commits over the current states of several resources
+      String resource = RESOURCE + i % 4;
+      PropertyKey key = accessor.keyBuilder().currentState(INSTANCE, SESSION, resource);
+      String partition = resource + "_" + i;
+      results.add(executor.submit(() -> {
+        CurrentState delta = new CurrentState(resource);
+        delta.setState(partition, "ONLINE");
+        return queue.commit(accessor, key, delta);
+      }));
+    }
+    Assert.assertTrue(TestHelper.verify(() -> accessor._updateCount.get() > 0 || Thread
+        .getAllStackTraces().keySet().stream()
+        .anyMatch(thread -> thread.getName().startsWith("CurrentStateCommitQueue-flush_thread_")),
+        TestHelper.WAIT_DURATION));
+    // The flush threads do not keep the JVM alive
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith("CurrentStateCommitQueue-flush_thread_")) {
+        Assert.assertTrue(thread.isDaemon());
+      }
+    }
+
+    // None of the commits racing with the shutdown is left waiting for a cancelled flush
+    queue.shutdown();
+    for (Future<Boolean> result : results) {
+      Assert.assertTrue(result.get(10, TimeUnit.SECONDS));
+    }
+    executor.shutdown();
+    for (int i = 0; i < partitionCount; i++) {
+      String resource = RESOURCE + i % 4;
+      CurrentState currentState =
+          accessor.getProperty(accessor.keyBuilder().currentState(INSTANCE, SESSION, resource));
+      Assert.assertEquals(currentState.getState(resource + "_" + i), "ONLINE");
+    }
+  }
+}
@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -1230,4 +1231,53 @@ public class TestHelixTaskExecutor {
 
     System.out.println("END " + TestHelper.getTestMethodName());
   }
+
+  @Test
+  public void testBatchMessagePartitionResults() throws Exception {
+    System.out.println("START " + TestHelper.getTestMethodName());
+    HelixTaskExecutor executor = new HelixTaskExecutor();
+    HelixManager manager = new MockClusterManager();
+    TestMessageHandlerFactory factory = new TestMessageHandlerFactory(0) {
+      @Override
+      public MessageHandler createHandler(Message message, NotificationContext context) {
+        return new TestMessageHandler(message, context) {
+          @Override
+          public HelixTaskResult handleMessage() throws InterruptedException {
+            HelixTaskResult result = super.handleMessage();
+            result.setSuccess(!_message.getPartitionName().equals("p1"));
+            return result;
+          }
+        };
+      }
+    };
+    for (String type : factory.getMessageTypes()) {
+      executor.registerMessageHandlerFactory(type, factory);
+    }
+
+    Message batchMsg = new Message(factory.getMessageTypes().get(0), UUID.randomUUID().toString());
+    batchMsg.setTgtSessionId(manager.getSessionId());
+    batchMsg.setBatchMessageMode(true);
+    for (String partition : Arrays.asList("p0", "p1", "p2")) {
+      batchMsg.addPartitionName(partition);
+    }
+
+    NotificationContext context = new NotificationContext(manager);
+    BatchMessageHandler handler = new BatchMessageHandler(batchMsg, context, factory,
+        new BatchMessageWrapper(), executor);
+    HelixTaskResult result = handler.handleMessage();
+
+    Assert.assertFalse(result.isSuccess());
+    // The per-partition results are kept under a single key, not mixed into the result map
+    Assert.assertEquals(result.getTaskResultMap().keySet(),
+        Collections.singleton(BatchMessageHandler.PARTITION_RESULTS_KEY));
+    Map<String, String> partitionResults = BatchMessageHandler.getPartitionResults(result);
+    Assert.assertEquals(partitionResults.size(), 3);
+    Assert.assertEquals(partitionResults.get("p0"), "true");
+    Assert.assertEquals(partitionResults.get("p1"), "false");
+    Assert.assertEquals(partitionResults.get("p2"), "true");
+    Assert.assertTrue(BatchMessageHandler.getPartitionResults(new HelixTaskResult()).isEmpty());
+
+    executor.shutdown();
+    System.out.println("END " + TestHelper.getTestMethodName());
+  }
 }
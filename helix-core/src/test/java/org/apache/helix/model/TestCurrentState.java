@@ -0,0 +1,64 @@
+package org.apache.helix.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestCurrentState {
+
+  @Test
+  public void testPartitionStateMapFollowsRecordUpdates() {
+    CurrentState currentState = new CurrentState("TestDB");
+    currentState.setState("TestDB_0", "MASTER");
+    currentState.setState("TestDB_1", "SLAVE");
+    Map<String, String> stateMap = currentState.getPartitionStateMap();
+    Assert.assertEquals(stateMap.size(), 2);
+    // The returned map is the caller's own copy
+    stateMap.put("TestDB_2", "MASTER");
+    Assert.assertEquals(currentState.getPartitionStateMap().size(), 2);
+
+    currentState.setState("TestDB_1", "MASTER");
+    Assert.assertEquals(currentState.getPartitionStateMap().get("TestDB_1"), "MASTER");
+    currentState.getRecord().getMapFields().remove("TestDB_0");
+    Assert.assertEquals(currentState.getPartitionStateMap().keySet().size(), 1);
+    currentState.getRecord().getMapField("TestDB_1").put("CURRENT_STATE", "OFFLINE");
+    Assert.assertEquals(currentState.getPartitionStateMap().get("TestDB_1"), "OFFLINE");
+  }
+
+  @Test
+  public void testTimesFollowRecordUpdates() {
+    CurrentState currentState = new CurrentState("TestDB");
+    Assert.assertEquals(currentState.getEndTime("TestDB_0"), -1L);
+    currentState.setStartTime("TestDB_0", 100L);
+    currentState.setEndTime("TestDB_0", 200L);
+    Assert.assertEquals(currentState.getStartTime("TestDB_0"), 100L);
+    Assert.assertEquals(currentState.getEndTime("TestDB_0"), 200L);
+
+    currentState.setEndTime("TestDB_0", 300L);
+    Assert.assertEquals(currentState.getEndTime("TestDB_0"), 300L);
+    currentState.getRecord().getMapField("TestDB_0").remove("END_TIME");
+    Assert.assertEquals(currentState.getEndTime("TestDB_0"), -1L);
+  }
+}
@@ -169,4 +169,24 @@ public class TestInstanceConfig {
     InstanceConfig testConfig = new InstanceConfig("testConfig");
     testConfig.setTargetTaskThreadPoolSize(-1);
   }
+
+  @Test
+  public void testCachedFieldsFollowRecordUpdates() {
+    InstanceConfig instanceConfig = new InstanceConfig("node_0");
+    Assert.assertTrue(instanceConfig.getInstanceEnabled());
+    instanceConfig.setInstanceEnabled(false);
+    Assert.assertFalse(instanceConfig.getInstanceEnabled());
+    instanceConfig.getRecord()
+        .setSimpleField(InstanceConfig.InstanceConfigProperty.HELIX_ENABLED.name(), "invalid");
+    Assert.assertTrue(instanceConfig.getInstanceEnabled());
+
+    Assert.assertTrue(instanceConfig.getInstanceEnabledForPartition("TestDB", "TestDB_0"));
+    instanceConfig.setInstanceEnabledForPartition("TestDB", "TestDB_0", false);
+    Assert.assertFalse(instanceConfig.getInstanceEnabledForPartition("TestDB", "TestDB_0"));
+    Assert.assertTrue(instanceConfig.getInstanceEnabledForPartition("TestDB", "TestDB_1"));
+    instanceConfig.setInstanceEnabledForPartition("TestDB", "TestDB_1", false);
+    Assert.assertFalse(instanceConfig.getInstanceEnabledForPartition("TestDB", "TestDB_1"));
+    instanceConfig.setInstanceEnabledForPartition("TestDB", "TestDB_0", true);
+    Assert.assertTrue(instanceConfig.getInstanceEnabledForPartition("TestDB", "TestDB_0"));
+  }
 }
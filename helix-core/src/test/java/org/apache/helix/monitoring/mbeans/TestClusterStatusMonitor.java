@@ -22,9 +22,11 @@ package org.apache.helix.monitoring.mbeans;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +45,7 @@ import javax.management.ReflectionException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.TestHelper;
 import org.apache.helix.common.caches.TaskDataCache;
 import org.apache.helix.model.ClusterConfig;
@@ -584,6 +587,93 @@ public class TestClusterStatusMonitor {
     }
   }
 
+  @Test
+  public void testBoundedResourceMBeans() throws Exception {
+    String className = TestHelper.getTestClassName();
+    String methodName = TestHelper.getTestMethodName();
+    String clusterName = className + "_" + methodName;
+
+    ClusterStatusMonitor monitor;
+    System.setProperty(SystemPropertyKeys.CLUSTER_STATUS_MONITOR_MAX_RESOURCE_MBEANS, "1");
+    try {
+      monitor = new ClusterStatusMonitor(clusterName);
+    } finally {
+      System.clearProperty(SystemPropertyKeys.CLUSTER_STATUS_MONITOR_MAX_RESOURCE_MBEANS);
+    }
+    monitor.active();
+
+    List<String> instances = ImmutableList.of("localhost_12918", "localhost_12919");
+    String healthyDB = "HealthyDB";
+    String errorDB = "ErrorDB";
+    StateModelDefinition stateModelDef =
+        BuiltInStateModelDefinitions.MasterSlave.getStateModelDefinition();
+    for (String resource : ImmutableList.of(healthyDB, errorDB)) {
+      ZNRecord idealStateRecord = DefaultIdealStateCalculator
+          .calculateIdealState(instances, 4, 2, resource, "MASTER", "SLAVE");
+      IdealState idealState =
+          new IdealState(TestResourceMonitor.deepCopyZNRecord(idealStateRecord));
+      ExternalView externalView =
+          new ExternalView(TestResourceMonitor.deepCopyZNRecord(idealStateRecord));
+      if (resource.equals(errorDB)) {
+        externalView.setState(resource + "_0", "localhost_12918", "ERROR");
+      }
+      monitor.setResourceState(resource, externalView, idealState, stateModelDef);
+    }
+    monitor.retainResourceMonitor(new HashSet<>(Arrays.asList(healthyDB, errorDB)));
+    ObjectName healthyObjName = monitor.getObjectName(monitor.getResourceBeanName(healthyDB));
+    ObjectName errorObjName = monitor.getObjectName(monitor.getResourceBeanName(errorDB));
+    Assert.assertFalse(_server.isRegistered(errorObjName));
+
+    // Only the unhealthy resource gets an MBean, both are aggregated in the cluster MBean
+    monitor.updateRegisteredResourceMonitors();
+    Assert.assertTrue(_server.isRegistered(errorObjName));
+    Assert.assertFalse(_server.isRegistered(healthyObjName));
+    Assert.assertEquals(monitor.getTotalResourceGauge(), 2);
+    Assert.assertEquals(monitor.getTotalPartitionGauge(), 8);
+    Map<String, Map<String, Long>> resourceSnapshot = monitor.getResourceStatusSnapshot();
+    Assert.assertEquals(resourceSnapshot.keySet(), new HashSet<>(Arrays.asList(healthyDB, errorDB)));
+    Assert.assertEquals((long) resourceSnapshot.get(errorDB).get("ErrorPartitionGauge"), 1L);
+    Assert.assertEquals((long) resourceSnapshot.get(healthyDB).get("ErrorPartitionGauge"), 0L);
+
+    // The per-instance resource MBeans are aggregated to one per instance
+    BestPossibleStateOutput bestPossibleStates = new BestPossibleStateOutput();
+    Map<String, Resource> resourceMap = Maps.newHashMap();
+    for (String resource : ImmutableList.of(healthyDB, errorDB)) {
+      bestPossibleStates
+          .setState(resource, new Partition(resource + "_0"), "localhost_12918", "MASTER");
+      bestPossibleStates
+          .setState(resource, new Partition(resource + "_0"), "localhost_12919", "OFFLINE");
+      Resource db = new Resource(resource);
+      db.setStateModelDefRef("MasterSlave");
+      resourceMap.put(resource, db);
+    }
+    Map<String, InstanceConfig> instanceConfigMap = Maps.newHashMap();
+    for (String instance : instances) {
+      instanceConfigMap.put(instance, new InstanceConfig(instance));
+    }
+    monitor.setPerInstanceResourceStatus(bestPossibleStates, instanceConfigMap, resourceMap,
+        ImmutableMap.of("MasterSlave", stateModelDef));
+    ObjectName aggregatedObjName = monitor.getObjectName(monitor
+        .getPerInstanceResourceBeanName("localhost_12918", ClusterStatusMonitor.ALL_RESOURCES));
+    Assert.assertEquals((long) _server.getAttribute(aggregatedObjName, "PartitionGauge"), 2L);
+    Assert.assertFalse(_server.isRegistered(monitor.getObjectName(
+        monitor.getPerInstanceResourceBeanName("localhost_12918", errorDB))));
+    Map<String, Map<String, Long>> partitionSnapshot =
+        monitor.getPerInstanceResourcePartitionSnapshot();
+    Assert.assertEquals((long) partitionSnapshot.get("localhost_12918").get(errorDB), 1L);
+    Assert.assertEquals((long) partitionSnapshot.get("localhost_12919").get(errorDB), 0L);
+
+    // Dropped resources are unregistered
+    monitor.retainResourceMonitor(new HashSet<>(Collections.singletonList(healthyDB)));
+    Assert.assertFalse(_server.isRegistered(errorObjName));
+    monitor.updateRegisteredResourceMonitors();
+    Assert.assertTrue(_server.isRegistered(healthyObjName));
+
+    monitor.reset();
+    Assert.assertFalse(_server.isRegistered(healthyObjName));
+    Assert.assertFalse(_server.isRegistered(aggregatedObjName));
+  }
+
   private void verifyMessageMetrics(ClusterStatusMonitor monitor, Map<String, Double> maxUsageMap,
       Map<String, Map<String, Integer>> instanceCapacityMap)
       throws MalformedObjectNameException, IOException, AttributeNotFoundException, MBeanException,
@@ -0,0 +1,156 @@
+package org.apache.helix.monitoring.mbeans.dynamicMBeans;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.codahale.metrics.Histogram;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestMetricsTextExporter {
+  private static final String DOMAIN = "TestMetricsExport";
+
+  public static class TestMonitor extends DynamicMBeanProvider {
+    private final String _name;
+    private final SimpleDynamicMetric<Long> _counter;
+    private final SimpleDynamicMetric<Double> _ratio;
+    private final HistogramDynamicMetric _latency;
+
+    public TestMonitor(String name) {
+      _name = name;
+      _counter = new SimpleDynamicMetric<>("EventCounter", 0L);
+      _ratio = new SimpleDynamicMetric<>("RatioGauge", Double.NaN);
+      _latency = new HistogramDynamicMetric("LatencyGauge", new Histogram(
+          new SlidingTimeWindowHistogramReservoir(60, TimeUnit.SECONDS)));
+    }
+
+    @Override
+    public TestMonitor register() throws JMException {
+      doRegister(Arrays.asList(_counter, _ratio, _latency), "Test monitor", DOMAIN, "Name",
+          ObjectName.quote(_name));
+      return this;
+    }
+
+    @Override
+    public String getSensorName() {
+      return DOMAIN + "." + _name;
+    }
+  }
+
+  @Test
+  public void testExportDynamicMetrics() throws Exception {
+    TestMonitor monitor = new TestMonitor("db\"1");
+    monitor._counter.updateValue(42L);
+    monitor._latency.updateValue(100L);
+    monitor._latency.updateValue(100L);
+
+    MetricsTextExporter exporter = new MetricsTextExporter(0);
+    monitor.register();
+    try {
+      ObjectName objectName = new ObjectName(DOMAIN + ":Name=" + ObjectName.quote("db\"1"));
+      exporter.addSource(objectName, monitor);
+      String output = new String(exporter.scrape(), StandardCharsets.UTF_8);
+
+      Assert.assertTrue(output.contains("# TYPE TestMetricsExport_EventCounter gauge\n"));
+      Assert.assertTrue(
+          output.contains("TestMetricsExport_EventCounter{Name=\"db\\\"1\"} 42\n"), output);
+      Assert.assertTrue(output.contains("TestMetricsExport_RatioGauge{Name=\"db\\\"1\"} NaN\n"));
+      Assert.assertTrue(
+          output.contains("TestMetricsExport_LatencyGauge_Max{Name=\"db\\\"1\"} 100\n"), output);
+      Assert.assertTrue(output.contains("TestMetricsExport_LatencyGauge_Pct99th{"));
+      // The SensorName string attribute is not exported
+      Assert.assertFalse(output.contains("SensorName"));
+
+      // The new values are exported once the cache expires
+      monitor._counter.updateValue(43L);
+      output = new String(exporter.scrape(), StandardCharsets.UTF_8);
+      Assert.assertTrue(output.contains("TestMetricsExport_EventCounter{Name=\"db\\\"1\"} 43\n"));
+
+      // A registered provider is exported by the default exporter until it is unregistered
+      int sourceCount = MetricsTextExporter.getDefault().getSourceCount();
+      Assert.assertTrue(sourceCount > 0);
+      monitor.unregister();
+      Assert.assertEquals(MetricsTextExporter.getDefault().getSourceCount(), sourceCount - 1);
+
+      exporter.removeSource(objectName);
+      output = new String(exporter.scrape(), StandardCharsets.UTF_8);
+      Assert.assertEquals(output, "");
+    } finally {
+      monitor.unregister();
+    }
+  }
+
+  @Test
+  public void testScrapeCache() throws Exception {
+    TestMonitor monitor = new TestMonitor("cached").register();
+    MetricsTextExporter exporter = new MetricsTextExporter(TimeUnit.HOURS.toMillis(1));
+    exporter.addSource(new ObjectName(DOMAIN + ":Name=cached"), monitor);
+    try {
+      byte[] output = exporter.scrape();
+      Assert.assertTrue(new String(output, StandardCharsets.UTF_8)
+          .contains("TestMetricsExport_EventCounter{Name=\"cached\"} 0\n"));
+      monitor._counter.updateValue(1L);
+      // Served from the cache within the TTL
+      Assert.assertSame(exporter.scrape(), output);
+    } finally {
+      monitor.unregister();
+    }
+  }
+
+  @Test
+  public void testHttpEndpoint() throws Exception {
+    TestMonitor monitor = new TestMonitor("http").register();
+    monitor._counter.updateValue(7L);
+    MetricsTextExporter exporter = new MetricsTextExporter(0);
+    exporter.addSource(new ObjectName(DOMAIN + ":Name=http"), monitor);
+
+    MetricsHttpEndpoint endpoint = new MetricsHttpEndpoint(0, exporter);
+    try {
+      URL url = new URL(
+          "http://localhost:" + endpoint.getPort() + MetricsHttpEndpoint.METRICS_PATH);
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      Assert.assertEquals(connection.getResponseCode(), 200);
+      Assert.assertEquals(connection.getContentType(), MetricsTextExporter.CONTENT_TYPE);
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      try (InputStream in = connection.getInputStream()) {
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+          body.write(buffer, 0, read);
+        }
+      }
+      Assert.assertTrue(new String(body.toByteArray(), StandardCharsets.UTF_8)
+          .contains("TestMetricsExport_EventCounter{Name=\"http\"} 7\n"));
+    } finally {
+      endpoint.stop();
+      monitor.unregister();
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package org.apache.helix.monitoring.mbeans.dynamicMBeans;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Snapshot;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestSlidingTimeWindowHistogramReservoir {
+  private static final long WINDOW_MS = 60 * 1000;
+
+  private static class ManualClock extends Clock {
+    private final AtomicLong _tick = new AtomicLong();
+
+    @Override
+    public long getTick() {
+      return _tick.get();
+    }
+
+    void advance(long ms) {
+      _tick.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+  }
+
+  private SlidingTimeWindowHistogramReservoir createReservoir(Clock clock) {
+    return new SlidingTimeWindowHistogramReservoir(WINDOW_MS, TimeUnit.MILLISECONDS,
+        SlidingTimeWindowHistogramReservoir.DEFAULT_SLOT_COUNT,
+        SlidingTimeWindowHistogramReservoir.DEFAULT_PRECISION_BITS,
+        SlidingTimeWindowHistogramReservoir.DEFAULT_MAX_TRACKABLE_VALUE, clock);
+  }
+
+  @Test
+  public void testBuckets() {
+    SlidingTimeWindowHistogramReservoir reservoir = createReservoir(new ManualClock());
+    double bound = reservoir.getRelativeErrorBound();
+    int lastIndex = -1;
+    for (long value = 0; value < 1L << 20; value++) {
+      int index = reservoir.bucketIndex(value);
+      Assert.assertTrue(index >= lastIndex);
+      lastIndex = index;
+      long bucketValue = reservoir.bucketValue(index);
+      if (value < 1L << SlidingTimeWindowHistogramReservoir.DEFAULT_PRECISION_BITS) {
+        Assert.assertEquals(bucketValue, value);
+      } else {
+        Assert.assertTrue(Math.abs(bucketValue - value) <= value * bound,
+            value + " is counted as " + bucketValue);
+      }
+    }
+    Assert.assertEquals(reservoir.bucketIndex(Long.MAX_VALUE), reservoir.getBucketCount() - 1);
+  }
+
+  @Test
+  public void testAccuracy() {
+    SlidingTimeWindowHistogramReservoir reservoir = createReservoir(new ManualClock());
+    Random random = new Random(1234);
+    long[] values = new long[100000];
+    for (int i = 0; i < values.length; i++) {
+      // Log-uniformly distributed in [1, 10^9)
+      values[i] = (long) Math.pow(10, random.nextDouble() * 9);
+      reservoir.update(values[i]);
+    }
+    Arrays.sort(values);
+
+    Snapshot snapshot = reservoir.getSnapshot();
+    Assert.assertEquals(snapshot.size(), values.length);
+    Assert.assertEquals(snapshot.getMin(), values[0]);
+    Assert.assertEquals(snapshot.getMax(), values[values.length - 1]);
+    double mean = Arrays.stream(values).average().getAsDouble();
+    Assert.assertEquals(snapshot.getMean(), mean, mean * 1e-9);
+    double squares = 0;
+    for (long value : values) {
+      squares += (value - mean) * (value - mean);
+    }
+    double stdDev = Math.sqrt(squares / (values.length - 1));
+    Assert.assertEquals(snapshot.getStdDev(), stdDev, stdDev * 1e-6);
+
+    double bound = reservoir.getRelativeErrorBound();
+    for (double quantile : new double[] { 0.0, 0.5, 0.75, 0.95, 0.99, 0.999, 1.0 }) {
+      long expected = values[Math.max(0, (int) Math.ceil(quantile * values.length) - 1)];
+      Assert.assertEquals(snapshot.getValue(quantile), expected, expected * bound,
+          "Quantile " + quantile);
+    }
+  }
+
+  @Test
+  public void testSlidingWindow() {
+    ManualClock clock = new ManualClock();
+    SlidingTimeWindowHistogramReservoir reservoir = createReservoir(clock);
+    Assert.assertEquals(reservoir.size(), 0);
+    Assert.assertEquals(reservoir.getSnapshot().getMax(), 0);
+
+    reservoir.update(100);
+    clock.advance(WINDOW_MS / 2);
+    reservoir.update(10);
+    Snapshot snapshot = reservoir.getSnapshot();
+    Assert.assertEquals(snapshot.size(), 2);
+    Assert.assertEquals(snapshot.getMax(), 100);
+    Assert.assertEquals(snapshot.getMin(), 10);
+    Assert.assertEquals(snapshot.getMean(), 55.0);
+
+    // The first value leaves the window
+    clock.advance(WINDOW_MS / 2 + 1);
+    snapshot = reservoir.getSnapshot();
+    Assert.assertEquals(snapshot.size(), 1);
+    Assert.assertEquals(snapshot.getMax(), 10);
+    Assert.assertEquals(snapshot.getStdDev(), 0.0);
+
+    // The slot of the first value is reused
+    reservoir.update(20);
+    Assert.assertEquals(reservoir.size(), 2);
+    Assert.assertEquals(reservoir.getSnapshot().getMax(), 20);
+
+    clock.advance(2 * WINDOW_MS);
+    Assert.assertEquals(reservoir.size(), 0);
+    Assert.assertEquals(reservoir.getSnapshot().getValue(0.99), 0.0);
+  }
+
+  @Test
+  public void testBucketsAllocatedOnUse() {
+    ManualClock clock = new ManualClock();
+    SlidingTimeWindowHistogramReservoir reservoir = createReservoir(clock);
+    Assert.assertEquals(reservoir.getAllocatedBucketCount(), 0);
+
+    // Only the buckets of the [1024, 2048) range are allocated
+    for (long value = 1024; value < 2048; value++) {
+      reservoir.update(value);
+    }
+    int groupSize = 1 << (SlidingTimeWindowHistogramReservoir.DEFAULT_PRECISION_BITS - 1);
+    Assert.assertEquals(reservoir.getAllocatedBucketCount(), groupSize);
+    Assert.assertTrue(reservoir.getAllocatedBucketCount() < reservoir.getBucketCount());
+    Assert.assertEquals(reservoir.getSnapshot().size(), 1024);
+
+    // The expired slot is released by the next snapshot
+    clock.advance(2 * WINDOW_MS);
+    Assert.assertEquals(reservoir.getSnapshot().size(), 0);
+    Assert.assertEquals(reservoir.getAllocatedBucketCount(), 0);
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    SlidingTimeWindowHistogramReservoir reservoir = createReservoir(new ManualClock());
+    int threads = 4;
+    int updates = 100000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < updates; j++) {
+            reservoir.update(j % 1000);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    Snapshot snapshot = reservoir.getSnapshot();
+    Assert.assertEquals(snapshot.size(), threads * updates);
+    Assert.assertEquals(snapshot.getMean(), 499.5);
+    Assert.assertEquals(snapshot.getMax(), 999);
+  }
+
+  @Test
+  public void testHistogramDynamicMetric() {
+    HistogramDynamicMetric metric = new HistogramDynamicMetric("TestGauge", new Histogram(
+        new SlidingTimeWindowHistogramReservoir(WINDOW_MS, TimeUnit.MILLISECONDS)));
+    metric.updateValue(100L);
+    metric.updateValue(300L);
+    Assert.assertEquals(metric.getAttributeValue("TestGauge.Max"), 300L);
+    Assert.assertEquals(metric.getAttributeValue("TestGauge.Mean"), 200.0);
+    Assert.assertEquals((double) metric.getAttributeValue("TestGauge.Pct99th"), 300.0, 3.0);
+  }
+}
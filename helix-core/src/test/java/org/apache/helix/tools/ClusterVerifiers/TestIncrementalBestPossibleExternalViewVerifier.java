@@ -0,0 +1,117 @@
+package org.apache.helix.tools.ClusterVerifiers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.helix.HelixAdmin;
+import org.apache.helix.TestHelper;
+import org.apache.helix.ZkUnitTestBase;
+import org.apache.helix.integration.manager.ClusterControllerManager;
+import org.apache.helix.integration.manager.MockParticipantManager;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.model.IdealState.RebalanceMode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestIncrementalBestPossibleExternalViewVerifier extends ZkUnitTestBase {
+
+  @Test
+  public void testIncrementalVerify() throws Exception {
+    final int NUM_PARTICIPANTS = 3;
+    String clusterName = TestHelper.getTestClassName() + "_" + TestHelper.getTestMethodName();
+    System.out.println("START " + clusterName + " at " + new Date(System.currentTimeMillis()));
+
+    TestHelper.setupCluster(clusterName, ZK_ADDR, 12918, // participant port
+        "localhost", // participant name prefix
+        "TestDB", // resource name prefix
+        3, // resources
+        8, // partitions per resource
+        NUM_PARTICIPANTS, // number of nodes
+        2, // replicas
+        "MasterSlave", RebalanceMode.FULL_AUTO, true); // do rebalance
+
+    MockParticipantManager[] participants = new MockParticipantManager[NUM_PARTICIPANTS];
+    for (int i = 0; i < NUM_PARTICIPANTS; i++) {
+      participants[i] =
+          new MockParticipantManager(ZK_ADDR, clusterName, "localhost_" + (12918 + i));
+      participants[i].syncStart();
+    }
+    ClusterControllerManager controller =
+        new ClusterControllerManager(ZK_ADDR, clusterName, "controller_0");
+    controller.syncStart();
+
+    BestPossibleExternalViewVerifier verifier =
+        new BestPossibleExternalViewVerifier.Builder(clusterName).setZkClient(_gZkClient)
+            .setIncremental(true).build();
+    try {
+      Set<String> resources = ImmutableSet.of("TestDB0", "TestDB1", "TestDB2");
+      Assert.assertTrue(verifier.verify(TestHelper.WAIT_DURATION));
+      Assert.assertEquals(verifier.getRecomputedResources(), resources);
+      Map<String, Boolean> convergence = verifier.getResourceConvergence();
+      Assert.assertEquals(convergence.keySet(), resources);
+      Assert.assertFalse(convergence.containsValue(false));
+      Assert.assertTrue(verifier.getPendingResources().isEmpty());
+
+      // Nothing is recomputed if nothing has changed
+      controller.syncStop();
+      Assert.assertTrue(verifier.verify(TestHelper.WAIT_DURATION));
+      Assert.assertTrue(verifier.getRecomputedResources().isEmpty());
+
+      // Only the resource whose IdealState changed is recomputed
+      HelixAdmin admin = _gSetupTool.getClusterManagementTool();
+      IdealState idealState = admin.getResourceIdealState(clusterName, "TestDB0");
+      idealState.getRecord().setSimpleField("TestField", "TestValue");
+      admin.setResourceIdealState(clusterName, "TestDB0", idealState);
+      Assert.assertTrue(verifier.verify(TestHelper.WAIT_DURATION));
+      Assert.assertEquals(verifier.getRecomputedResources(), ImmutableSet.of("TestDB0"));
+      Assert.assertEquals(verifier.getResourceConvergence(), convergence);
+
+      // A resource added without a running controller is reported as pending
+      _gSetupTool.addResourceToCluster(clusterName, "TestDB3", 8, "MasterSlave",
+          RebalanceMode.FULL_AUTO.name());
+      _gSetupTool.rebalanceStorageCluster(clusterName, "TestDB3", 2);
+      Assert.assertFalse(verifier.verify(3000));
+      Assert.assertEquals(verifier.getResourceConvergence().size(), 4);
+      Assert.assertFalse(verifier.getResourceConvergence().get("TestDB3"));
+      Assert.assertEquals(verifier.getPendingResources(), ImmutableSet.of("TestDB3"));
+
+      // The new resource converges once the controller is back
+      controller = new ClusterControllerManager(ZK_ADDR, clusterName, "controller_0");
+      controller.syncStart();
+      Assert.assertTrue(verifier.verify(TestHelper.WAIT_DURATION));
+      Assert.assertTrue(verifier.getRecomputedResources().contains("TestDB3"));
+      Assert.assertEquals(verifier.getResourceConvergence().size(), 4);
+      Assert.assertTrue(verifier.getResourceConvergence().get("TestDB3"));
+      Assert.assertTrue(verifier.getPendingResources().isEmpty());
+    } finally {
+      controller.syncStop();
+      for (MockParticipantManager participant : participants) {
+        participant.syncStop();
+      }
+      verifier.close();
+      TestHelper.dropCluster(clusterName, _gZkClient);
+    }
+    System.out.println("END " + clusterName + " at " + new Date(System.currentTimeMillis()));
+  }
+}
@@ -19,7 +19,12 @@ package org.apache.helix.tools;
  * under the License.
  */
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.helix.InstanceType;
 import org.apache.helix.TestHelper;
@@ -116,4 +121,78 @@ public class TestZkCopy extends ZkUnitTestBase {
     TestHelper.dropCluster(dstClusterName, _gZkClient);
     System.out.println("END " + testName + " at " + new Date(System.currentTimeMillis()));
   }
+
+  @Test
+  public void testParallelCopyWithCheckpoint() throws Exception {
+    String className = TestHelper.getTestClassName();
+    String methodName = TestHelper.getTestMethodName();
+    String clusterName = className + "_" + methodName;
+
+    System.out.println("START " + clusterName + " at " + new Date(System.currentTimeMillis()));
+    String fromPath = "/" + clusterName + "/from";
+    _gZkClient.createPersistent(fromPath, true);
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 10; j++) {
+        String path = String.format("%s/%d/%d", fromPath, i, j);
+        _gZkClient.createPersistent(path, true);
+        _gZkClient.writeData(path, new ZNRecord(String.format("%d/%d", i, j)));
+      }
+    }
+
+    File checkpointFile = File.createTempFile(clusterName, ".checkpoint");
+    Assert.assertTrue(checkpointFile.delete());
+    String toPath = "/" + clusterName + "/to";
+    String[] args = new String[] {
+        "--src", "zk://" + ZK_ADDR + fromPath, "--dst", "zk://" + ZK_ADDR + toPath,
+        "--parallelism", "4", "--batchSize", "3", "--checkpoint", checkpointFile.getPath()
+    };
+    try {
+      ZkCopy.main(args);
+
+      Assert.assertTrue(_gZkClient.exists(toPath));
+      for (int i = 0; i < 5; i++) {
+        for (int j = 0; j < 10; j++) {
+          String path = String.format("%s/%d/%d", toPath, i, j);
+          ZNRecord record = _gZkClient.readData(path);
+          Assert.assertEquals(String.format("%d/%d", i, j), record.getId());
+        }
+      }
+      // The subtree of each child and the root subtree are recorded
+      List<String> checkpoint =
+          Files.readAllLines(checkpointFile.toPath(), StandardCharsets.UTF_8);
+      Assert.assertTrue(checkpoint.contains("/"));
+      Assert.assertTrue(checkpoint.contains("/0"));
+
+      // The copied subtrees are skipped on resume
+      String deletedPath = toPath + "/0/0";
+      _gZkClient.delete(deletedPath);
+      ZkCopy.main(args);
+      Assert.assertFalse(_gZkClient.exists(deletedPath));
+
+      // Only the subtrees in a partial checkpoint are skipped, the others are copied again
+      String skippedPath = toPath + "/1/0";
+      _gZkClient.delete(skippedPath);
+      Files.write(checkpointFile.toPath(), Arrays.asList(checkpoint.get(0), "/1"),
+          StandardCharsets.UTF_8);
+      ZkCopy.main(args);
+      Assert.assertFalse(_gZkClient.exists(skippedPath));
+      Assert.assertTrue(_gZkClient.exists(deletedPath));
+      ZNRecord record = _gZkClient.readData(deletedPath);
+      Assert.assertEquals(record.getId(), "0/0");
+      checkpoint = Files.readAllLines(checkpointFile.toPath(), StandardCharsets.UTF_8);
+      Assert.assertTrue(checkpoint.contains("/0"));
+      Assert.assertTrue(checkpoint.contains("/"));
+
+      // The existing znodes are skipped without a checkpoint
+      Assert.assertTrue(checkpointFile.delete());
+      ZkCopy.main(args);
+      Assert.assertTrue(_gZkClient.exists(skippedPath));
+      record = _gZkClient.readData(skippedPath);
+      Assert.assertEquals(record.getId(), "1/0");
+    } finally {
+      checkpointFile.delete();
+      _gZkClient.deleteRecursively("/" + clusterName);
+    }
+    System.out.println("END " + clusterName + " at " + new Date(System.currentTimeMillis()));
+  }
 }
@@ -0,0 +1,108 @@
+package org.apache.helix.tools.commandtools;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.server.persistence.FileTxnLog;
+import org.apache.zookeeper.txn.SetDataTxn;
+import org.apache.zookeeper.txn.TxnHeader;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestZkLogScanner {
+
+  @Test
+  public void testContains() {
+    ByteBuffer buffer =
+        ByteBuffer.wrap("x/a/b {\n  \"id\" : \"c\"\n}".getBytes(StandardCharsets.UTF_8));
+    Assert.assertTrue(ZkLogScanner.contains(buffer, 0, buffer.limit(), "/a/b".getBytes()));
+    // The whitespaces are removed from the formatted data
+    Assert.assertTrue(
+        ZkLogScanner.contains(buffer, 0, buffer.limit(), "/a/b{\"id\":\"c\"}".getBytes()));
+    Assert.assertFalse(ZkLogScanner.contains(buffer, 0, buffer.limit(), "/a/c".getBytes()));
+    Assert.assertFalse(ZkLogScanner.contains(buffer, 2, buffer.limit(), "/a/b".getBytes()));
+  }
+
+  @Test
+  public void testScanLog() throws Exception {
+    File tmpDir = Files.createTempDirectory("TestZkLogScanner").toFile();
+    File logDir = new File(tmpDir, "version-2");
+    File indexDir = new File(tmpDir, "index");
+    Assert.assertTrue(indexDir.mkdirs());
+    try {
+      FileTxnLog txnLog = new FileTxnLog(logDir);
+      for (int i = 0; i < 3000; i++) {
+        TxnHeader header = new TxnHeader(1L, i, i + 1, 1000L + i, ZooDefs.OpCode.setData);
+        txnLog.append(header, new SetDataTxn("/TestCluster/node_" + i,
+            ("{\n  \"id\" : \"node_" + i + "\"\n}").getBytes(StandardCharsets.UTF_8), i));
+      }
+      txnLog.commit();
+      txnLog.close();
+      File[] zkLogs = logDir.listFiles();
+      Assert.assertEquals(zkLogs.length, 1);
+
+      // time range [2500, 2509], node_1500 to node_1509
+      for (int i = 0; i < 2; i++) {
+        ZkLogScanner scanner = new ZkLogScanner(2500, 2509, indexDir, "/TestCluster/node_15");
+        List<String> lines = scan(scanner, zkLogs[0]);
+        Assert.assertEquals(lines.size(), 10);
+        Assert.assertTrue(lines.get(0).startsWith("time:2500 "));
+        Assert.assertTrue(lines.get(0).contains("type:setData"));
+        Assert.assertTrue(lines.get(0).contains("data:{\"id\":\"node_1500\"}"));
+        // The time index is built by the first scan
+        Assert.assertTrue(new File(indexDir, zkLogs[0].getName() + ".idx").exists());
+      }
+
+      // The pattern matches the formatted data without the whitespaces
+      ZkLogScanner scanner =
+          new ZkLogScanner(0, Long.MAX_VALUE, null, "/TestCluster/node_42", "node_42\"}");
+      List<String> lines = scan(scanner, zkLogs[0]);
+      Assert.assertEquals(lines.size(), 1);
+      Assert.assertEquals(scanner.getMatchCount(), 1);
+      Assert.assertTrue(scanner.getBytesScanned() > 0);
+    } finally {
+      FileUtils.deleteDirectory(tmpDir);
+    }
+  }
+
+  private static List<String> scan(ZkLogScanner scanner, File zkLog) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    scanner.scanLogs(Collections.singletonList(zkLog), 2, new PrintStream(out, true, "UTF-8"));
+    String output = new String(out.toByteArray(), StandardCharsets.UTF_8);
+    List<String> lines = new ArrayList<>();
+    for (String line : output.split("\n")) {
+      if (!line.isEmpty()) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,158 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.MockAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.Message;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestRingBufferStatusUpdateSink {
+  private static final String INSTANCE = "localhost_12918";
+  private static final String SESSION = "session_0";
+
+  private ZNRecord createRecord(String id, String field) {
+    ZNRecord record = new ZNRecord(id);
+    record.setSimpleField(field, field);
+    return record;
+  }
+
+  @Test
+  public void testErrorsAreFlushedAndOthersAreKeptLocally() {
+    HelixDataAccessor accessor = new MockAccessor();
+    PropertyKey key =
+        accessor.keyBuilder().stateTransitionStatus(INSTANCE, SESSION, "TestDB", "TestDB_0");
+    RingBufferStatusUpdateSink sink = new RingBufferStatusUpdateSink(10, 0, 0, null);
+
+    sink.publish(key, createRecord("TestDB", "info"), StatusUpdateUtil.Level.HELIX_INFO,
+        accessor);
+    Assert.assertEquals(sink.getPendingFlushCount(), 0);
+    sink.publish(key, createRecord("TestDB", "error"), StatusUpdateUtil.Level.HELIX_ERROR,
+        accessor);
+    Assert.assertEquals(sink.getPendingFlushCount(), 1);
+
+    // Nothing is written to ZK before flush
+    Assert.assertNull(accessor.getBaseDataAccessor().get(key.getPath(), null, 0));
+    sink.flush();
+    ZNRecord flushed = accessor.getBaseDataAccessor().get(key.getPath(), null, 0);
+    Assert.assertNotNull(flushed);
+    Assert.assertEquals(flushed.getSimpleField("error"), "error");
+    Assert.assertNull(flushed.getSimpleField("info"));
+    Assert.assertEquals(sink.getPendingFlushCount(), 0);
+
+    // Both updates can be fetched from the local buffer
+    List<ZNRecord> local = sink.fetch(key.getPath());
+    Assert.assertEquals(local.size(), 2);
+    Assert.assertEquals(local.get(0).getSimpleField("info"), "info");
+    Assert.assertEquals(local.get(1).getSimpleField("error"), "error");
+    sink.close();
+  }
+
+  @Test
+  public void testSampledFlushAndRingOverflow() {
+    HelixDataAccessor accessor = new MockAccessor();
+    PropertyKey key =
+        accessor.keyBuilder().stateTransitionStatus(INSTANCE, SESSION, "TestDB", "TestDB_1");
+    RingBufferStatusUpdateSink sink = new RingBufferStatusUpdateSink(4, 0, 2, null);
+
+    for (int i = 0; i < 6; i++) {
+      sink.publish(key, createRecord("TestDB", "field_" + i), StatusUpdateUtil.Level.HELIX_INFO,
+          accessor);
+    }
+    // Only the latest 4 updates are kept in memory
+    List<ZNRecord> local = sink.fetch(key.getPath());
+    Assert.assertEquals(local.size(), 4);
+    Assert.assertEquals(local.get(0).getSimpleField("field_2"), "field_2");
+
+    // Every second update is merged into the pending record
+    sink.flush();
+    ZNRecord flushed = accessor.getBaseDataAccessor().get(key.getPath(), null, 0);
+    Assert.assertEquals(flushed.getSimpleFields().size(), 3);
+    Assert.assertEquals(flushed.getSimpleField("field_1"), "field_1");
+    Assert.assertEquals(flushed.getSimpleField("field_5"), "field_5");
+    sink.close();
+  }
+
+  @Test
+  public void testDefaultSinkIsLookedUpOnEachWrite() {
+    HelixDataAccessor accessor = new MockAccessor();
+    PropertyKey key =
+        accessor.keyBuilder().stateTransitionStatus(INSTANCE, SESSION, "TestDB", "TestDB_2");
+    Message message = new Message(Message.MessageType.STATE_TRANSITION, "msg_0");
+    message.setTgtName(INSTANCE);
+    message.setTgtSessionId(SESSION);
+    message.setResourceName("TestDB");
+    message.setPartitionName("TestDB_2");
+
+    RingBufferStatusUpdateSink oldSink = new RingBufferStatusUpdateSink(10, 0, 0, null);
+    RingBufferStatusUpdateSink newSink = new RingBufferStatusUpdateSink(10, 0, 0, null);
+    StatusUpdateSink previousSink = StatusUpdateUtil.setDefaultStatusUpdateSink(oldSink);
+    try {
+      StatusUpdateUtil statusUpdateUtil = new StatusUpdateUtil();
+      Assert.assertSame(StatusUpdateUtil.setDefaultStatusUpdateSink(newSink), oldSink);
+      statusUpdateUtil.logMessageStatusUpdateRecord(message, StatusUpdateUtil.Level.HELIX_INFO,
+          getClass(), "info", accessor);
+      Assert.assertTrue(oldSink.fetch(key.getPath()).isEmpty());
+      Assert.assertFalse(newSink.fetch(key.getPath()).isEmpty());
+
+      // The replaced sink is not closed, writes that already looked it up still succeed
+      oldSink.publish(key, createRecord("TestDB", "info"), StatusUpdateUtil.Level.HELIX_INFO,
+          accessor);
+      Assert.assertEquals(oldSink.fetch(key.getPath()).size(), 1);
+    } finally {
+      StatusUpdateUtil.setDefaultStatusUpdateSink(previousSink);
+      oldSink.close();
+      newSink.close();
+    }
+  }
+
+  @Test
+  public void testLocalLog() throws Exception {
+    File logFile = File.createTempFile("statusUpdateLog", ".log");
+    logFile.deleteOnExit();
+    MappedStatusUpdateLog log = new MappedStatusUpdateLog(logFile, 1024);
+    for (int i = 0; i < 3; i++) {
+      log.append(i, "/path_" + i, createRecord("record_" + i, "field"));
+    }
+    List<MappedStatusUpdateLog.Entry> entries = log.readAll();
+    Assert.assertEquals(entries.size(), 3);
+    Assert.assertEquals(entries.get(2).getPath(), "/path_2");
+    Assert.assertEquals(entries.get(2).getRecord().getId(), "record_2");
+    log.close();
+
+    // The log survives reopening, and wraps around once full
+    log = new MappedStatusUpdateLog(logFile, 1024);
+    Assert.assertEquals(log.readAll().size(), 3);
+    for (int i = 3; i < 20; i++) {
+      log.append(i, "/path_" + i, createRecord("record_" + i, "field"));
+    }
+    entries = log.readAll();
+    Assert.assertTrue(entries.size() > 0 && entries.size() < 20);
+    Assert.assertEquals(entries.get(entries.size() - 1).getPath(), "/path_19");
+    log.close();
+  }
+}
@@ -0,0 +1,77 @@
+package org.apache.helix.lock;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * Generic interface for managing the Helix distributed locks of one lock user over a shared
+ * connection
+ */
+public interface LockManager {
+  /**
+   * Get the lock of a scope. The same lock object is returned for the same scope until the lock
+   * is closed.
+   * @param scope the scope to lock
+   * @return the lock of the scope
+   */
+  DistributedLock getLock(LockScope scope);
+
+  /**
+   * Blocking call to acquire the locks of a set of scopes in one batch
+   * @param scopes the scopes to lock
+   * @return the scope to whether its lock was successfully acquired mapping
+   */
+  Map<LockScope, Boolean> tryLock(Collection<LockScope> scopes);
+
+  /**
+   * Non-blocking call to acquire the locks of a set of scopes in one batch. The default
+   * implementation runs {@link #tryLock(Collection)} on the common fork-join pool, implementations
+   * that can acquire the locks without blocking a thread should override it.
+   * @param scopes the scopes to lock
+   * @return the future of the scope to whether its lock was successfully acquired mapping
+   */
+  default CompletableFuture<Map<LockScope, Boolean>> tryLockAsync(Collection<LockScope> scopes) {
+    return CompletableFuture.supplyAsync(() -> tryLock(scopes));
+  }
+
+  /**
+   * Blocking call to release the locks of a set of scopes in one batch
+   * @param scopes the scopes to unlock
+   * @return the scope to whether its lock was successfully released mapping
+   */
+  Map<LockScope, Boolean> unlock(Collection<LockScope> scopes);
+
+  /**
+   * Blocking call to renew the leases of the locks of a set of scopes in one batch
+   * @param scopes the scopes of the locks to renew
+   * @return the scope to whether the lease of its lock was renewed mapping
+   */
+  Map<LockScope, Boolean> renewLeases(Collection<LockScope> scopes);
+
+  /**
+   * Close all the locks of the manager and the shared connection. The locks are expected to be
+   * unlocked or expired before this method is called.
+   */
+  void close();
+}
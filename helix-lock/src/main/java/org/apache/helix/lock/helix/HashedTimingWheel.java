@@ -0,0 +1,144 @@
+package org.apache.helix.lock.helix;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A hashed timing wheel running many one-shot timeouts on a single thread. Scheduling and
+ * cancelling a timeout is O(1), and the expired timeouts are found by walking one bucket per
+ * tick, so the timeouts fire up to one tick late. The tasks run on the tick thread and must be
+ * short.
+ */
+class HashedTimingWheel {
+  private static final Logger LOG = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+  private final long _tickMs;
+  private final int _mask;
+  // The buckets are only accessed by the tick thread
+  private final List<List<Timeout>> _buckets;
+  private final Queue<Timeout> _newTimeouts = new ConcurrentLinkedQueue<>();
+  private final ScheduledExecutorService _ticker;
+  private volatile long _tick = 0;
+
+  /**
+   * @param name the name of the tick thread
+   * @param tickMs the duration of a tick
+   * @param wheelSize the number of the buckets, rounded up to a power of 2
+   */
+  HashedTimingWheel(String name, long tickMs, int wheelSize) {
+    if (tickMs <= 0 || wheelSize <= 0) {
+      throw new IllegalArgumentException("Tick duration and wheel size must be positive.");
+    }
+    _tickMs = tickMs;
+    int size = Integer.highestOneBit(wheelSize);
+    if (size < wheelSize) {
+      size <<= 1;
+    }
+    _mask = size - 1;
+    _buckets = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      _buckets.add(new ArrayList<>());
+    }
+    _ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, name);
+      thread.setDaemon(true);
+      return thread;
+    });
+    _ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Schedule a task to run once after the delay.
+   * @return the timeout of the task, which can be cancelled
+   */
+  Timeout schedule(long delayMs, Runnable task) {
+    long ticks = Math.max(1, (Math.max(0, delayMs) + _tickMs - 1) / _tickMs);
+    Timeout timeout = new Timeout(_tick + ticks, task);
+    _newTimeouts.add(timeout);
+    return timeout;
+  }
+
+  void stop() {
+    _ticker.shutdownNow();
+  }
+
+  private void tick() {
+    long currentTick = _tick;
+    Timeout timeout;
+    while ((timeout = _newTimeouts.poll()) != null) {
+      if (timeout._cancelled) {
+        continue;
+      }
+      long remainingTicks = Math.max(0, timeout._deadlineTick - currentTick);
+      timeout._remainingRounds = remainingTicks / _buckets.size();
+      _buckets.get((int) ((currentTick + remainingTicks) & _mask)).add(timeout);
+    }
+
+    Iterator<Timeout> iter = _buckets.get((int) (currentTick & _mask)).iterator();
+    while (iter.hasNext()) {
+      timeout = iter.next();
+      if (timeout._cancelled) {
+        iter.remove();
+      } else if (timeout._remainingRounds > 0) {
+        timeout._remainingRounds--;
+      } else {
+        iter.remove();
+        try {
+          timeout._task.run();
+        } catch (Throwable t) {
+          LOG.error("Failed to run the timeout task.", t);
+        }
+      }
+    }
+    _tick = currentTick + 1;
+  }
+
+  /**
+   * A scheduled task of the timing wheel
+   */
+  static class Timeout {
+    private final long _deadlineTick;
+    private final Runnable _task;
+    // Only accessed by the tick thread
+    private long _remainingRounds;
+    private volatile boolean _cancelled = false;
+
+    private Timeout(long deadlineTick, Runnable task) {
+      _deadlineTick = deadlineTick;
+      _task = task;
+    }
+
+    void cancel() {
+      _cancelled = true;
+    }
+  }
+}
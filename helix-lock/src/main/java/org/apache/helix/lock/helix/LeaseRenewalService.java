@@ -0,0 +1,216 @@
+package org.apache.helix.lock.helix;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Renews the leases of the locks acquired through the ZKLockManagers before they expire. The
+ * renewals are driven by a single hashed timing wheel, and the renewals that are due at the same
+ * time are written in one batch per lock manager. The service also times out the pending async
+ * lock requests of the managers, and runs their ZK operations on a small worker pool.
+ *
+ * One service can be shared by all the lock managers of a process.
+ */
+public class LeaseRenewalService {
+  private static final Logger LOG = LoggerFactory.getLogger(LeaseRenewalService.class);
+
+  public static final long DEFAULT_TICK_MS = 100L;
+  public static final int DEFAULT_WHEEL_SIZE = 512;
+  public static final int DEFAULT_WORKER_THREADS = 2;
+  // The leases are renewed once this fraction of the lease timeout has passed
+  private static final double RENEWAL_RATIO = 0.5;
+  // Delay of retrying the renewals that failed with an exception
+  private static final long MAX_RETRY_DELAY_MS = 1000L;
+
+  private final HashedTimingWheel _timingWheel;
+  private final ExecutorService _workers;
+  // The registered renewal of each lock
+  private final Map<ZKDistributedNonblockingLock, Renewal> _renewals = new ConcurrentHashMap<>();
+  // The renewals that are due and not written yet
+  private final Queue<Renewal> _dueRenewals = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean _renewScheduled = new AtomicBoolean(false);
+
+  public LeaseRenewalService() {
+    this(DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE, DEFAULT_WORKER_THREADS);
+  }
+
+  /**
+   * @param tickMs the tick duration of the timing wheel, which is the accuracy of the renewal
+   *               times and the pending timeouts
+   * @param wheelSize the number of the buckets of the timing wheel
+   * @param workerThreads the number of the threads writing the renewals and finishing the async
+   *                      lock requests
+   */
+  public LeaseRenewalService(long tickMs, int wheelSize, int workerThreads) {
+    _timingWheel = new HashedTimingWheel("LeaseRenewalTimer", tickMs, wheelSize);
+    AtomicInteger threadCount = new AtomicInteger();
+    _workers = Executors.newFixedThreadPool(workerThreads, r -> {
+      Thread thread = new Thread(r, "LeaseRenewalWorker-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Renew the lease of a lock until it is unregistered or a renewal fails.
+   * @param lockManager the manager of the lock, which writes the renewals
+   * @param lock the acquired lock
+   * @param leaseTimeout the lease timeout of the lock
+   */
+  void register(ZKLockManager lockManager, ZKDistributedNonblockingLock lock, long leaseTimeout) {
+    if (leaseTimeout <= 0) {
+      return;
+    }
+    Renewal renewal = new Renewal(lockManager, lock, (long) (leaseTimeout * RENEWAL_RATIO));
+    Renewal previous = _renewals.put(lock, renewal);
+    if (previous != null) {
+      previous.cancel();
+    }
+    schedule(renewal, renewal._renewalDelayMs);
+  }
+
+  /**
+   * Stop renewing the lease of a lock.
+   */
+  void unregister(ZKDistributedNonblockingLock lock) {
+    Renewal renewal = _renewals.remove(lock);
+    if (renewal != null) {
+      renewal.cancel();
+    }
+  }
+
+  /**
+   * @return the number of the leases being renewed
+   */
+  public int getRenewalCount() {
+    return _renewals.size();
+  }
+
+  /**
+   * Run a short task on the timing wheel after the delay.
+   */
+  HashedTimingWheel.Timeout scheduleTimeout(long delayMs, Runnable task) {
+    return _timingWheel.schedule(delayMs, task);
+  }
+
+  ExecutorService getExecutor() {
+    return _workers;
+  }
+
+  /**
+   * Stop the renewals. The leases of the acquired locks expire unless they are released before.
+   */
+  public void shutdown() {
+    _timingWheel.stop();
+    _workers.shutdownNow();
+    for (Renewal renewal : _renewals.values()) {
+      renewal.cancel();
+    }
+    _renewals.clear();
+    _dueRenewals.clear();
+  }
+
+  private void schedule(Renewal renewal, long delayMs) {
+    renewal._timeout = _timingWheel.schedule(delayMs, () -> {
+      // Runs on the tick thread, the renewals due in the same tick are batched by one worker task
+      _dueRenewals.add(renewal);
+      if (_renewScheduled.compareAndSet(false, true)) {
+        _workers.submit(this::renewDueLeases);
+      }
+    });
+  }
+
+  private void renewDueLeases() {
+    _renewScheduled.set(false);
+    Map<ZKLockManager, List<Renewal>> batches = new HashMap<>();
+    Renewal renewal;
+    while ((renewal = _dueRenewals.poll()) != null) {
+      if (_renewals.get(renewal._lock) == renewal) {
+        batches.computeIfAbsent(renewal._lockManager, m -> new ArrayList<>()).add(renewal);
+      }
+    }
+
+    for (Map.Entry<ZKLockManager, List<Renewal>> batch : batches.entrySet()) {
+      List<ZKDistributedNonblockingLock> locks = new ArrayList<>(batch.getValue().size());
+      for (Renewal due : batch.getValue()) {
+        locks.add(due._lock);
+      }
+      Map<String, Boolean> results;
+      try {
+        results = batch.getKey().renewLocks(locks);
+      } catch (Exception e) {
+        LOG.warn("Failed to renew the leases of {} locks, retry later.", locks.size(), e);
+        for (Renewal due : batch.getValue()) {
+          schedule(due, Math.min(due._renewalDelayMs, MAX_RETRY_DELAY_MS));
+        }
+        continue;
+      }
+      for (Renewal due : batch.getValue()) {
+        if (results.getOrDefault(due._lock.getLockPath(), false)) {
+          if (_renewals.get(due._lock) == due) {
+            schedule(due, due._renewalDelayMs);
+          }
+        } else if (_renewals.remove(due._lock, due)) {
+          // The lock is not owned anymore, e.g. preempted or expired
+          LOG.warn("Failed to renew the lease of lock {}, stop renewing it.",
+              due._lock.getLockPath());
+        }
+      }
+    }
+  }
+
+  /**
+   * The lease renewal of an acquired lock
+   */
+  private static class Renewal {
+    private final ZKLockManager _lockManager;
+    private final ZKDistributedNonblockingLock _lock;
+    private final long _renewalDelayMs;
+    private volatile HashedTimingWheel.Timeout _timeout;
+
+    Renewal(ZKLockManager lockManager, ZKDistributedNonblockingLock lock, long renewalDelayMs) {
+      _lockManager = lockManager;
+      _lock = lock;
+      _renewalDelayMs = renewalDelayMs;
+    }
+
+    void cancel() {
+      HashedTimingWheel.Timeout timeout = _timeout;
+      if (timeout != null) {
+        timeout.cancel();
+      }
+    }
+  }
+}
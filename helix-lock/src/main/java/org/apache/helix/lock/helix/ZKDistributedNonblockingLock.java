@@ -19,6 +19,7 @@ package org.apache.helix.lock.helix;
  * under the License.
  */
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -57,9 +58,15 @@ public class ZKDistributedNonblockingLock implements DistributedLock, IZkDataLis
   private final boolean _isForceful;
   private final LockListener _lockListener;
   private final BaseDataAccessor<ZNRecord> _baseDataAccessor;
-  private LockConstants.LockStatus _lockStatus;
+  // The manager sharing its data accessor with the lock, null if the lock owns the data accessor
+  private final ZKLockManager _lockManager;
+  private volatile LockConstants.LockStatus _lockStatus;
   private long _pendingTimeout;
-  private CountDownLatch _countDownLatch = new CountDownLatch(1);
+  // The notification of the current tryLock request, recreated for each request because the lock
+  // manager reuses the lock objects. The latch is awaited by the sync requests and the future by
+  // the async requests.
+  private volatile CountDownLatch _countDownLatch = new CountDownLatch(1);
+  private volatile CompletableFuture<Void> _pendingNotification = new CompletableFuture<>();
 
   /**
    * Initialize the lock with user provided information, e.g.,cluster, scope, etc.
@@ -127,6 +134,19 @@ public class ZKDistributedNonblockingLock implements DistributedLock, IZkDataLis
   private ZKDistributedNonblockingLock(String lockPath, Long leaseTimeout, String lockMsg,
       String userId, int priority, long waitingTimeout, long cleanupTimeout, boolean isForceful,
       LockListener lockListener, BaseDataAccessor<ZNRecord> baseDataAccessor) {
+    this(lockPath, leaseTimeout, lockMsg, userId, priority, waitingTimeout, cleanupTimeout,
+        isForceful, lockListener, baseDataAccessor, null);
+  }
+
+  /**
+   * Internal construction of a lock sharing the data accessor of a lock manager. The lock manager
+   * subscribes to the lock path and dispatches the data changes to the lock.
+   * @param lockManager the lock manager, null if the lock owns the data accessor
+   */
+  ZKDistributedNonblockingLock(String lockPath, Long leaseTimeout, String lockMsg, String userId,
+      int priority, long waitingTimeout, long cleanupTimeout, boolean isForceful,
+      LockListener lockListener, BaseDataAccessor<ZNRecord> baseDataAccessor,
+      ZKLockManager lockManager) {
     _lockPath = lockPath;
     if (leaseTimeout < 0 || waitingTimeout < 0 || cleanupTimeout < 0) {
       throw new IllegalArgumentException("Timeout cannot be negative.");
@@ -143,41 +163,93 @@ public class ZKDistributedNonblockingLock implements DistributedLock, IZkDataLis
     _cleanupTimeout = cleanupTimeout;
     _lockListener = lockListener;
     _isForceful = isForceful;
+    _lockManager = lockManager;
     validateInput();
   }
 
   @Override
   public boolean tryLock() {
+    DataUpdater<ZNRecord> updater = prepareTryLock();
+    boolean updateResult = _baseDataAccessor.update(_lockPath, updater, AccessOption.PERSISTENT);
+    return completeTryLock(updateResult);
+  }
+
+  /**
+   * Subscribe to the lock path and create the updater of a tryLock request. The lock manager
+   * applies the updaters of many locks in one batch.
+   */
+  DataUpdater<ZNRecord> prepareTryLock() {
+    // Reset the state left by a previous request of the lock
+    _lockStatus = null;
+    _countDownLatch = new CountDownLatch(1);
+    _pendingNotification = new CompletableFuture<>();
     // Set lock information fields
-    _baseDataAccessor.subscribeDataChanges(_lockPath, this);
-    LockUpdater updater = new LockUpdater(
+    subscribeDataChanges();
+    return new LockUpdater(
         new LockInfo(_userId, _lockMsg, getNonOverflowTimestamp(_leaseTimeout), _priority,
             _waitingTimeout, _cleanupTimeout, null, 0, 0, 0));
-    boolean updateResult = _baseDataAccessor.update(_lockPath, updater, AccessOption.PERSISTENT);
+  }
 
+  /**
+   * Finish a tryLock request once the updater from prepareTryLock() is applied.
+   * @param updateResult whether the lock node was updated
+   */
+  boolean completeTryLock(boolean updateResult) {
     // Immediately return if the lock statue is not PENDING.
     if (_lockStatus != LockConstants.LockStatus.PENDING) {
-      if (!updateResult) {
-        _baseDataAccessor.unsubscribeDataChanges(_lockPath, this);
-      }
-      return updateResult;
+      return finishTryLock(updateResult);
     }
 
     // When the lock status is still pending, wait for the period recorded in _pendingTimeout.
+    CountDownLatch countDownLatch = _countDownLatch;
     try {
-      _countDownLatch.await(_pendingTimeout, TimeUnit.MILLISECONDS);
+      countDownLatch.await(_pendingTimeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw new HelixException(
           String.format("Interruption happened while %s is waiting for the lock", _userId), e);
     }
+    return finishPendingTryLock();
+  }
 
+  /**
+   * Finish a tryLock request without blocking. A pending request completes once the lock is
+   * acquired or preempted, or the pending timeout that is tracked by the timing wheel of the lease
+   * renewal service has passed.
+   * @param updateResult whether the lock node was updated
+   * @param leaseRenewalService the service timing out the pending request and running its final
+   *                            ZK update
+   */
+  CompletableFuture<Boolean> completeTryLockAsync(boolean updateResult,
+      LeaseRenewalService leaseRenewalService) {
+    if (_lockStatus != LockConstants.LockStatus.PENDING) {
+      return CompletableFuture.completedFuture(finishTryLock(updateResult));
+    }
+    CompletableFuture<Void> pendingNotification = _pendingNotification;
+    HashedTimingWheel.Timeout timeout = leaseRenewalService
+        .scheduleTimeout(_pendingTimeout, () -> pendingNotification.complete(null));
+    // No need to keep the timeout once the request is notified
+    pendingNotification.thenRun(timeout::cancel);
+    return pendingNotification
+        .thenApplyAsync(v -> finishPendingTryLock(), leaseRenewalService.getExecutor());
+  }
+
+  private boolean finishTryLock(boolean updateResult) {
+    if (updateResult) {
+      onLockAcquired();
+    } else {
+      unsubscribeDataChanges();
+    }
+    return updateResult;
+  }
+
+  private boolean finishPendingTryLock() {
     // Note the following checks need to be ordered in the current way. Reordering the sequence of
     // checks would cause problem.
     if (_lockStatus != LockConstants.LockStatus.LOCKED) {
       // If the reason for not being able to acquire the lock is due to high priority lock
       // preemption, directly return false.
       if (_lockStatus == LockConstants.LockStatus.PREEMPTED) {
-        _baseDataAccessor.unsubscribeDataChanges(_lockPath, this);
+        unsubscribeDataChanges();
         return false;
       }
       // Forceful lock request will grab the lock even the current owner has not finished
@@ -187,21 +259,54 @@ public class ZKDistributedNonblockingLock implements DistributedLock, IZkDataLis
         ForcefulUpdater forcefulUpdater = new ForcefulUpdater(new LockInfo(znRecord));
         LOG.info("Updating Zookeeper with new owner {} information", _userId);
         _baseDataAccessor.update(_lockPath, forcefulUpdater, AccessOption.PERSISTENT);
+        onLockAcquired();
         return true;
       } else {
-        _baseDataAccessor.unsubscribeDataChanges(_lockPath, this);
+        unsubscribeDataChanges();
         throw new HelixException("Cleanup has not been finished by lock owner");
       }
     }
+    onLockAcquired();
     return true;
   }
 
+  private void onLockAcquired() {
+    // The lock manager keeps renewing the lease of its acquired locks
+    if (_lockManager != null) {
+      _lockManager.onLockAcquired(this);
+    }
+  }
+
   //TODO: update release lock logic so it would not leave empty znodes after the lock is released
   @Override
   public boolean unlock() {
+    if (_lockManager != null) {
+      _lockManager.onLockReleased(this);
+    }
+    return _baseDataAccessor.update(_lockPath, getUnlockUpdater(), AccessOption.PERSISTENT);
+  }
+
+  DataUpdater<ZNRecord> getUnlockUpdater() {
     // Initialize the lock updater with a default lock info represents the state of a unlocked lock
-    LockUpdater updater = new LockUpdater(LockInfo.defaultLockInfo);
-    return _baseDataAccessor.update(_lockPath, updater, AccessOption.PERSISTENT);
+    return new LockUpdater(LockInfo.defaultLockInfo);
+  }
+
+  /**
+   * Extend the lease of the lock by the lease timeout, starting from now. The other lock fields,
+   * including a pending requestor, are kept.
+   * @return true if the lease was renewed, false if the user is not the current lock owner or the
+   *         update failed
+   */
+  public boolean renewLease() {
+    return _baseDataAccessor.update(_lockPath, getRenewUpdater(), AccessOption.PERSISTENT);
+  }
+
+  DataUpdater<ZNRecord> getRenewUpdater() {
+    return new RenewUpdater(getNonOverflowTimestamp(_leaseTimeout));
+  }
+
+  String getLockPath() {
+    return _lockPath;
   }
 
   @Override
@@ -222,10 +327,28 @@ public class ZKDistributedNonblockingLock implements DistributedLock, IZkDataLis
     if (isCurrentOwner()) {
       throw new HelixException("Please unlock the lock before closing it.");
     }
+    if (_lockManager != null) {
+      // The data accessor is shared with the other locks of the manager
+      _lockManager.removeLock(this);
+      return;
+    }
     _baseDataAccessor.unsubscribeDataChanges(_lockPath, this);
     _baseDataAccessor.close();
   }
 
+  private void subscribeDataChanges() {
+    // The lock manager keeps one subscription per lock path for all the requests
+    if (_lockManager == null) {
+      _baseDataAccessor.subscribeDataChanges(_lockPath, this);
+    }
+  }
+
+  private void unsubscribeDataChanges() {
+    if (_lockManager == null) {
+      _baseDataAccessor.unsubscribeDataChanges(_lockPath, this);
+    }
+  }
+
   @Override
   public void handleDataChange(String dataPath, Object data) throws Exception {
     Stat stat = new Stat();
@@ -272,7 +395,7 @@ public class ZKDistributedNonblockingLock implements DistributedLock, IZkDataLis
    */
   public void onAcquiredLockNotification() {
     _lockStatus = LockConstants.LockStatus.LOCKED;
-    _countDownLatch.countDown();
+    notifyPendingRequest();
   }
 
   /**
@@ -280,7 +403,12 @@ public class ZKDistributedNonblockingLock implements DistributedLock, IZkDataLis
    */
   public void onDeniedPendingLockNotification() {
     _lockStatus = LockConstants.LockStatus.PREEMPTED;
+    notifyPendingRequest();
+  }
+
+  private void notifyPendingRequest() {
     _countDownLatch.countDown();
+    _pendingNotification.complete(null);
   }
 
   @Override
@@ -380,6 +508,31 @@ public class ZKDistributedNonblockingLock implements DistributedLock, IZkDataLis
     }
   }
 
+  /**
+   * Class that specifies how a lock node should be updated when the owner renews the lease
+   */
+  private class RenewUpdater implements DataUpdater<ZNRecord> {
+    final long _timeout;
+
+    public RenewUpdater(long timeout) {
+      _timeout = timeout;
+    }
+
+    @Override
+    public ZNRecord update(ZNRecord current) {
+      LockInfo curLockInfo = new LockInfo(current);
+      if (isCurrentOwner(curLockInfo)) {
+        current.setLongField(LockInfo.LockInfoAttribute.TIMEOUT.name(), _timeout);
+        return current;
+      }
+      LOG.error("User {} is not current lock owner, and cannot renew the lease of {}", _userId,
+          _lockPath);
+      throw new HelixException(String
+          .format("User %s is not current lock owner, and cannot renew the lease of %s", _userId,
+              _lockPath));
+    }
+  }
+
   /**
    * Class that specifies how a lock node should be updated during a forceful get lock operation
    */
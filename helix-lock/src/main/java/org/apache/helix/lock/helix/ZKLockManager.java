@@ -0,0 +1,417 @@
+package org.apache.helix.lock.helix;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.helix.AccessOption;
+import org.apache.helix.BaseDataAccessor;
+import org.apache.helix.HelixException;
+import org.apache.helix.SystemPropertyKeys;
+import org.apache.helix.lock.LockManager;
+import org.apache.helix.lock.LockScope;
+import org.apache.helix.manager.zk.GenericZkHelixApiBuilder;
+import org.apache.helix.manager.zk.ZkBaseDataAccessor;
+import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.zkclient.DataUpdater;
+import org.apache.helix.zookeeper.zkclient.IZkDataListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Lock manager multiplexing the ZK distributed nonblocking locks of one lock user over a shared
+ * data accessor. The manager subscribes once to each lock path and dispatches the data changes to
+ * the lock of the path, and the bulk operations update the lock nodes with one batch of async ZK
+ * requests. With a lease renewal service, the leases of the acquired locks are renewed until the
+ * locks are released, and the locks can be acquired asynchronously.
+ */
+public class ZKLockManager implements LockManager, IZkDataListener {
+  private static final Logger LOG = LoggerFactory.getLogger(ZKLockManager.class);
+
+  private final BaseDataAccessor<ZNRecord> _baseDataAccessor;
+  private final boolean _closeDataAccessor;
+  private final String _userId;
+  private final String _lockMsg;
+  private final long _leaseTimeout;
+  private final int _priority;
+  private final long _waitingTimeout;
+  private final long _cleanupTimeout;
+  private final boolean _isForceful;
+  private final LockListener _lockListener;
+  private final LeaseRenewalService _leaseRenewalService;
+  // Lock path to the lock of the path
+  private final Map<String, ZKDistributedNonblockingLock> _locks = new ConcurrentHashMap<>();
+
+  private ZKLockManager(BaseDataAccessor<ZNRecord> baseDataAccessor, boolean closeDataAccessor,
+      String userId, String lockMsg, long leaseTimeout, int priority, long waitingTimeout,
+      long cleanupTimeout, boolean isForceful, LockListener lockListener,
+      LeaseRenewalService leaseRenewalService) {
+    if (userId == null) {
+      throw new IllegalArgumentException("Owner Id cannot be null");
+    }
+    _baseDataAccessor = baseDataAccessor;
+    _closeDataAccessor = closeDataAccessor;
+    _userId = userId;
+    _lockMsg = lockMsg;
+    _leaseTimeout = leaseTimeout;
+    _priority = priority;
+    _waitingTimeout = waitingTimeout;
+    _cleanupTimeout = cleanupTimeout;
+    _isForceful = isForceful;
+    _lockListener = lockListener;
+    _leaseRenewalService = leaseRenewalService;
+  }
+
+  @Override
+  public ZKDistributedNonblockingLock getLock(LockScope scope) {
+    return _locks.computeIfAbsent(scope.getPath(), path -> {
+      ZKDistributedNonblockingLock lock =
+          new ZKDistributedNonblockingLock(path, _leaseTimeout, _lockMsg, _userId, _priority,
+              _waitingTimeout, _cleanupTimeout, _isForceful, _lockListener, _baseDataAccessor,
+              this);
+      _baseDataAccessor.subscribeDataChanges(path, this);
+      return lock;
+    });
+  }
+
+  @Override
+  public Map<LockScope, Boolean> tryLock(Collection<LockScope> scopes) {
+    Map<String, ZKDistributedNonblockingLock> locks = getLocks(scopes);
+    Map<String, Boolean> results =
+        batchUpdate(locks, ZKDistributedNonblockingLock::prepareTryLock);
+
+    Map<String, Boolean> lockResults = new HashMap<>();
+    for (Map.Entry<String, ZKDistributedNonblockingLock> entry : locks.entrySet()) {
+      // The locks pending on a lower priority owner wait for its cleanup one by one
+      boolean locked;
+      try {
+        locked = entry.getValue().completeTryLock(results.get(entry.getKey()));
+      } catch (HelixException e) {
+        LOG.warn("User {} failed to acquire lock at Lock path {}.", _userId, entry.getKey(), e);
+        locked = false;
+      }
+      lockResults.put(entry.getKey(), locked);
+    }
+    return toScopeResults(scopes, lockResults);
+  }
+
+  @Override
+  public CompletableFuture<Map<LockScope, Boolean>> tryLockAsync(Collection<LockScope> scopes) {
+    if (_leaseRenewalService == null) {
+      CompletableFuture<Map<LockScope, Boolean>> result = new CompletableFuture<>();
+      result.completeExceptionally(
+          new HelixException("Async lock requests require a lease renewal service."));
+      return result;
+    }
+    return CompletableFuture.supplyAsync(() -> {
+      Map<String, ZKDistributedNonblockingLock> locks = getLocks(scopes);
+      Map<String, Boolean> results =
+          batchUpdate(locks, ZKDistributedNonblockingLock::prepareTryLock);
+      // The pending locks wait for the lower priority owners concurrently
+      Map<String, CompletableFuture<Boolean>> lockFutures = new HashMap<>();
+      for (Map.Entry<String, ZKDistributedNonblockingLock> entry : locks.entrySet()) {
+        CompletableFuture<Boolean> lockFuture;
+        try {
+          lockFuture = entry.getValue()
+              .completeTryLockAsync(results.get(entry.getKey()), _leaseRenewalService);
+        } catch (HelixException e) {
+          lockFuture = new CompletableFuture<>();
+          lockFuture.completeExceptionally(e);
+        }
+        lockFutures.put(entry.getKey(), lockFuture.exceptionally(e -> {
+          LOG.warn("User {} failed to acquire lock at Lock path {}.", _userId, entry.getKey(), e);
+          return false;
+        }));
+      }
+      return lockFutures;
+    }, _leaseRenewalService.getExecutor()).thenCompose(lockFutures -> CompletableFuture
+        .allOf(lockFutures.values().toArray(new CompletableFuture[0])).thenApply(v -> {
+          Map<String, Boolean> lockResults = new HashMap<>();
+          for (Map.Entry<String, CompletableFuture<Boolean>> entry : lockFutures.entrySet()) {
+            lockResults.put(entry.getKey(), entry.getValue().join());
+          }
+          return toScopeResults(scopes, lockResults);
+        }));
+  }
+
+  /**
+   * Acquire the lock of a scope asynchronously.
+   * @return the future of whether the lock was successfully acquired
+   */
+  public CompletableFuture<Boolean> tryLockAsync(LockScope scope) {
+    return tryLockAsync(Collections.singletonList(scope)).thenApply(results -> results.get(scope));
+  }
+
+  @Override
+  public Map<LockScope, Boolean> unlock(Collection<LockScope> scopes) {
+    Map<String, ZKDistributedNonblockingLock> locks = getLocks(scopes);
+    for (ZKDistributedNonblockingLock lock : locks.values()) {
+      onLockReleased(lock);
+    }
+    return toScopeResults(scopes,
+        batchUpdate(locks, ZKDistributedNonblockingLock::getUnlockUpdater));
+  }
+
+  @Override
+  public Map<LockScope, Boolean> renewLeases(Collection<LockScope> scopes) {
+    return toScopeResults(scopes,
+        batchUpdate(getLocks(scopes), ZKDistributedNonblockingLock::getRenewUpdater));
+  }
+
+  @Override
+  public void close() {
+    for (Map.Entry<String, ZKDistributedNonblockingLock> entry : _locks.entrySet()) {
+      onLockReleased(entry.getValue());
+      _baseDataAccessor.unsubscribeDataChanges(entry.getKey(), this);
+    }
+    _locks.clear();
+    if (_closeDataAccessor) {
+      _baseDataAccessor.close();
+    }
+  }
+
+  /**
+   * @return the number of the locks of the manager
+   */
+  public int getLockCount() {
+    return _locks.size();
+  }
+
+  /**
+   * Remove a closed lock from the manager.
+   */
+  void removeLock(ZKDistributedNonblockingLock lock) {
+    onLockReleased(lock);
+    if (_locks.remove(lock.getLockPath(), lock)) {
+      _baseDataAccessor.unsubscribeDataChanges(lock.getLockPath(), this);
+    }
+  }
+
+  void onLockAcquired(ZKDistributedNonblockingLock lock) {
+    if (_leaseRenewalService != null) {
+      _leaseRenewalService.register(this, lock, _leaseTimeout);
+    }
+  }
+
+  void onLockReleased(ZKDistributedNonblockingLock lock) {
+    if (_leaseRenewalService != null) {
+      _leaseRenewalService.unregister(lock);
+    }
+  }
+
+  /**
+   * Renew the leases of the locks in one batch.
+   * @return the lock path to whether the lease was renewed mapping
+   */
+  Map<String, Boolean> renewLocks(Collection<ZKDistributedNonblockingLock> locks) {
+    Map<String, ZKDistributedNonblockingLock> lockMap = new LinkedHashMap<>();
+    for (ZKDistributedNonblockingLock lock : locks) {
+      lockMap.put(lock.getLockPath(), lock);
+    }
+    return batchUpdate(lockMap, ZKDistributedNonblockingLock::getRenewUpdater);
+  }
+
+  @Override
+  public void handleDataChange(String dataPath, Object data) throws Exception {
+    ZKDistributedNonblockingLock lock = _locks.get(dataPath);
+    if (lock != null) {
+      lock.handleDataChange(dataPath, data);
+    }
+  }
+
+  @Override
+  public void handleDataDeleted(String dataPath) throws Exception {
+    ZKDistributedNonblockingLock lock = _locks.get(dataPath);
+    if (lock != null) {
+      lock.handleDataDeleted(dataPath);
+    }
+  }
+
+  private Map<String, ZKDistributedNonblockingLock> getLocks(Collection<LockScope> scopes) {
+    // Keyed by the lock path so that the same lock node is updated once in a batch
+    Map<String, ZKDistributedNonblockingLock> locks = new LinkedHashMap<>();
+    for (LockScope scope : scopes) {
+      locks.computeIfAbsent(scope.getPath(), path -> getLock(scope));
+    }
+    return locks;
+  }
+
+  /**
+   * Update the lock nodes of the locks with one batch of async ZK requests.
+   * @return the lock path to whether the lock node was updated mapping
+   */
+  private Map<String, Boolean> batchUpdate(Map<String, ZKDistributedNonblockingLock> locks,
+      Function<ZKDistributedNonblockingLock, DataUpdater<ZNRecord>> updaterFunc) {
+    Map<String, Boolean> results = new HashMap<>();
+    if (locks.isEmpty()) {
+      return results;
+    }
+    List<String> paths = new ArrayList<>(locks.keySet());
+    List<DataUpdater<ZNRecord>> updaters = new ArrayList<>(paths.size());
+    for (String path : paths) {
+      updaters.add(new BatchUpdater(updaterFunc.apply(locks.get(path))));
+    }
+    boolean[] success =
+        _baseDataAccessor.updateChildren(paths, updaters, AccessOption.PERSISTENT);
+    for (int i = 0; i < paths.size(); i++) {
+      results.put(paths.get(i), success[i]);
+    }
+    return results;
+  }
+
+  private static Map<LockScope, Boolean> toScopeResults(Collection<LockScope> scopes,
+      Map<String, Boolean> pathResults) {
+    Map<LockScope, Boolean> results = new LinkedHashMap<>();
+    for (LockScope scope : scopes) {
+      results.put(scope, pathResults.getOrDefault(scope.getPath(), false));
+    }
+    return results;
+  }
+
+  /**
+   * The batch update applies the updaters without catching their exceptions, so a rejected
+   * update of one lock node is turned into a skipped update instead of failing the batch.
+   */
+  private static class BatchUpdater implements DataUpdater<ZNRecord> {
+    private final DataUpdater<ZNRecord> _updater;
+
+    BatchUpdater(DataUpdater<ZNRecord> updater) {
+      _updater = updater;
+    }
+
+    @Override
+    public ZNRecord update(ZNRecord current) {
+      try {
+        return _updater.update(current);
+      } catch (HelixException e) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Builder class to use with ZKLockManager.
+   */
+  public static class Builder extends GenericZkHelixApiBuilder<Builder> {
+    private RealmAwareZkClient _zkClient;
+    private String _userId;
+    private long _timeout;
+    private String _lockMsg;
+    private int _priority;
+    private long _waitingTimeout;
+    private long _cleanupTimeout;
+    private boolean _isForceful;
+    private LockListener _lockListener;
+    private LeaseRenewalService _leaseRenewalService;
+
+    public Builder() {
+    }
+
+    /**
+     * Share an existing ZkClient, which is not closed with the lock manager. The ZkClient must use
+     * the ZNRecord serializer.
+     */
+    public Builder setZkClient(RealmAwareZkClient zkClient) {
+      _zkClient = zkClient;
+      return this;
+    }
+
+    public Builder setUserId(String userId) {
+      _userId = userId;
+      return this;
+    }
+
+    public Builder setTimeout(long timeout) {
+      _timeout = timeout;
+      return this;
+    }
+
+    public Builder setLockMsg(String lockMsg) {
+      _lockMsg = lockMsg;
+      return this;
+    }
+
+    public Builder setPriority(int priority) {
+      _priority = priority;
+      return this;
+    }
+
+    public Builder setWaitingTimeout(long waitingTimeout) {
+      _waitingTimeout = waitingTimeout;
+      return this;
+    }
+
+    public Builder setCleanupTimeout(long cleanupTimeout) {
+      _cleanupTimeout = cleanupTimeout;
+      return this;
+    }
+
+    public Builder setIsForceful(boolean isForceful) {
+      _isForceful = isForceful;
+      return this;
+    }
+
+    public Builder setLockListener(LockListener lockListener) {
+      _lockListener = lockListener;
+      return this;
+    }
+
+    /**
+     * Renew the leases of the acquired locks with the service, which is not shut down with the
+     * lock manager. The service is required by the async lock requests.
+     */
+    public Builder setLeaseRenewalService(LeaseRenewalService leaseRenewalService) {
+      _leaseRenewalService = leaseRenewalService;
+      return this;
+    }
+
+    public ZKLockManager build() {
+      BaseDataAccessor<ZNRecord> baseDataAccessor;
+      boolean closeDataAccessor = true;
+      if (_zkClient != null) {
+        baseDataAccessor = new ZkBaseDataAccessor<>(_zkClient);
+        closeDataAccessor = false;
+      } else if (Boolean.getBoolean(SystemPropertyKeys.MULTI_ZK_ENABLED) || _zkAddress == null) {
+        // If the multi ZK config is enabled, use multi-realm mode with FederatedZkClient
+        baseDataAccessor = new ZkBaseDataAccessor.Builder<ZNRecord>().setRealmMode(_realmMode)
+            .setRealmAwareZkClientConfig(_realmAwareZkClientConfig)
+            .setRealmAwareZkConnectionConfig(_realmAwareZkConnectionConfig).setZkAddress(_zkAddress)
+            .build();
+      } else {
+        baseDataAccessor = new ZkBaseDataAccessor<>(_zkAddress);
+      }
+
+      return new ZKLockManager(baseDataAccessor, closeDataAccessor, _userId, _lockMsg, _timeout,
+          _priority, _waitingTimeout, _cleanupTimeout, _isForceful, _lockListener,
+          _leaseRenewalService);
+    }
+  }
+}
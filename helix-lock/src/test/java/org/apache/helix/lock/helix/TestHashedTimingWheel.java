@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.helix.lock.helix;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestHashedTimingWheel {
+
+  @Test
+  public void testTimeouts() throws Exception {
+    // A small wheel, so that the longer timeouts wrap around it several rounds
+    HashedTimingWheel timingWheel = new HashedTimingWheel("TestTimingWheel", 10, 4);
+    try {
+      int numTimeouts = 50;
+      CountDownLatch fired = new CountDownLatch(numTimeouts);
+      long[] firedTimes = new long[numTimeouts];
+      long startTime = System.currentTimeMillis();
+      for (int i = 0; i < numTimeouts; i++) {
+        int index = i;
+        timingWheel.schedule(i * 5, () -> {
+          firedTimes[index] = System.currentTimeMillis();
+          fired.countDown();
+        });
+      }
+
+      AtomicInteger cancelledRuns = new AtomicInteger();
+      HashedTimingWheel.Timeout cancelled =
+          timingWheel.schedule(100, cancelledRuns::incrementAndGet);
+      cancelled.cancel();
+
+      Assert.assertTrue(fired.await(10, TimeUnit.SECONDS));
+      for (int i = 0; i < numTimeouts; i++) {
+        // Never fired early
+        Assert.assertTrue(firedTimes[i] - startTime >= i * 5, "Timeout " + i + " fired early");
+      }
+      Thread.sleep(200);
+      Assert.assertEquals(cancelledRuns.get(), 0);
+    } finally {
+      timingWheel.stop();
+    }
+  }
+
+  @Test
+  public void testFailedTaskDoesNotStopTheWheel() throws Exception {
+    HashedTimingWheel timingWheel = new HashedTimingWheel("TestTimingWheel", 10, 8);
+    try {
+      timingWheel.schedule(10, () -> {
+        throw new IllegalStateException("Test failure");
+      });
+      CountDownLatch fired = new CountDownLatch(1);
+      timingWheel.schedule(50, fired::countDown);
+      Assert.assertTrue(fired.await(10, TimeUnit.SECONDS));
+    } finally {
+      timingWheel.stop();
+    }
+  }
+}
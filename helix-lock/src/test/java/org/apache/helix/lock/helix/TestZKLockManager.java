@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.helix.lock.helix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.HelixException;
+import org.apache.helix.TestHelper;
+import org.apache.helix.common.ZkTestBase;
+import org.apache.helix.lock.LockInfo;
+import org.apache.helix.lock.LockScope;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class TestZKLockManager extends ZkTestBase {
+  private static final int NUM_SCOPES = 10;
+
+  private final String _clusterName = TestHelper.getTestClassName();
+  private final List<LockScope> _scopes = new ArrayList<>();
+
+  @BeforeClass
+  public void beforeClass() {
+    for (int i = 0; i < NUM_SCOPES; i++) {
+      _scopes.add(new HelixLockScope(HelixLockScope.LockScopeProperty.RESOURCE,
+          Arrays.asList(_clusterName, "Resource_" + i)));
+    }
+  }
+
+  private ZKLockManager createLockManager(String userId) {
+    return new ZKLockManager.Builder().setZkClient(_gZkClient).setUserId(userId)
+        .setTimeout(Long.MAX_VALUE / 2).setLockMsg("Test").build();
+  }
+
+  @Test
+  public void testBulkLockRenewAndUnlock() {
+    String userId = UUID.randomUUID().toString();
+    String otherUserId = UUID.randomUUID().toString();
+    ZKLockManager lockManager = createLockManager(userId);
+    ZKLockManager otherLockManager = createLockManager(otherUserId);
+
+    Map<LockScope, Boolean> results = lockManager.tryLock(_scopes);
+    Assert.assertEquals(results.size(), NUM_SCOPES);
+    for (LockScope scope : _scopes) {
+      Assert.assertTrue(results.get(scope));
+      Assert.assertTrue(_gZkClient.exists(scope.getPath()));
+      Assert.assertTrue(lockManager.getLock(scope).isCurrentOwner());
+      Assert.assertEquals(lockManager.getLock(scope).getCurrentLockInfo().getOwner(), userId);
+    }
+    // All the locks share the connection of the manager
+    Assert.assertEquals(lockManager.getLockCount(), NUM_SCOPES);
+
+    // The locks are owned by another user
+    results = otherLockManager.tryLock(_scopes);
+    for (LockScope scope : _scopes) {
+      Assert.assertFalse(results.get(scope));
+    }
+    results = otherLockManager.renewLeases(_scopes);
+    for (LockScope scope : _scopes) {
+      Assert.assertFalse(results.get(scope));
+    }
+
+    // Renewing the lease keeps the owner and extends the timeout
+    LockScope firstScope = _scopes.get(0);
+    long timeout = lockManager.getLock(firstScope).getCurrentLockInfo().getTimeout();
+    results = lockManager.renewLeases(_scopes);
+    for (LockScope scope : _scopes) {
+      Assert.assertTrue(results.get(scope));
+    }
+    LockInfo lockInfo = lockManager.getLock(firstScope).getCurrentLockInfo();
+    Assert.assertEquals(lockInfo.getOwner(), userId);
+    Assert.assertTrue(lockInfo.getTimeout() >= timeout);
+
+    results = lockManager.unlock(_scopes);
+    for (LockScope scope : _scopes) {
+      Assert.assertTrue(results.get(scope));
+      Assert.assertFalse(lockManager.getLock(scope).isCurrentOwner());
+    }
+
+    // The released locks can be acquired by the other user
+    results = otherLockManager.tryLock(_scopes);
+    for (LockScope scope : _scopes) {
+      Assert.assertTrue(results.get(scope));
+    }
+    otherLockManager.unlock(_scopes);
+
+    lockManager.close();
+    otherLockManager.close();
+    Assert.assertEquals(lockManager.getLockCount(), 0);
+  }
+
+  @Test
+  public void testGetAndCloseLock() {
+    ZKLockManager lockManager = createLockManager(UUID.randomUUID().toString());
+    LockScope scope = _scopes.get(0);
+    ZKDistributedNonblockingLock lock = lockManager.getLock(scope);
+    Assert.assertSame(lockManager.getLock(scope), lock);
+    Assert.assertEquals(lockManager.getLockCount(), 1);
+
+    Assert.assertTrue(lock.tryLock());
+    Assert.assertTrue(lock.isCurrentOwner());
+    Assert.assertTrue(lock.renewLease());
+    Assert.assertTrue(lock.unlock());
+
+    // Closing a lock does not close the shared connection
+    lock.close();
+    Assert.assertEquals(lockManager.getLockCount(), 0);
+    Assert.assertFalse(_gZkClient.isClosed());
+    Assert.assertNotSame(lockManager.getLock(scope), lock);
+    lockManager.close();
+  }
+
+  @Test
+  public void testLeaseRenewalAndAsyncLock() throws Exception {
+    LeaseRenewalService leaseRenewalService = new LeaseRenewalService(10, 64, 2);
+    String userId = UUID.randomUUID().toString();
+    long leaseTimeout = 1000L;
+    ZKLockManager lockManager =
+        new ZKLockManager.Builder().setZkClient(_gZkClient).setUserId(userId)
+            .setTimeout(leaseTimeout).setLockMsg("Test")
+            .setLeaseRenewalService(leaseRenewalService).build();
+    ZKLockManager otherLockManager = createLockManager(UUID.randomUUID().toString());
+    try {
+      CompletableFuture<Map<LockScope, Boolean>> future = lockManager.tryLockAsync(_scopes);
+      Map<LockScope, Boolean> results = future.get(30, TimeUnit.SECONDS);
+      for (LockScope scope : _scopes) {
+        Assert.assertTrue(results.get(scope));
+      }
+      Assert.assertEquals(leaseRenewalService.getRenewalCount(), NUM_SCOPES);
+
+      // The leases are kept after the lease timeout has passed several times
+      Thread.sleep(3 * leaseTimeout);
+      for (LockScope scope : _scopes) {
+        Assert.assertTrue(lockManager.getLock(scope).isCurrentOwner());
+      }
+      Assert.assertFalse(otherLockManager.tryLock(_scopes).get(_scopes.get(0)));
+
+      // The released locks are not renewed anymore
+      lockManager.unlock(_scopes.subList(0, NUM_SCOPES / 2));
+      Assert.assertEquals(leaseRenewalService.getRenewalCount(), NUM_SCOPES / 2);
+      Assert.assertTrue(otherLockManager.tryLock(_scopes.subList(0, 1)).get(_scopes.get(0)));
+
+      // Async requests require a lease renewal service
+      try {
+        otherLockManager.tryLockAsync(_scopes.get(0)).get(30, TimeUnit.SECONDS);
+        Assert.fail("Async lock request should fail without a lease renewal service");
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof HelixException);
+      }
+    } finally {
+      lockManager.unlock(_scopes);
+      otherLockManager.unlock(_scopes);
+      Assert.assertEquals(leaseRenewalService.getRenewalCount(), 0);
+      lockManager.close();
+      otherLockManager.close();
+      leaseRenewalService.shutdown();
+    }
+  }
+
+  @Test
+  public void testSuccessivePendingAsyncLocks() throws Exception {
+    LeaseRenewalService leaseRenewalService = new LeaseRenewalService(10, 64, 2);
+    String ownerId = UUID.randomUUID().toString();
+    String requestorId = UUID.randomUUID().toString();
+    long waitingTimeout = 30 * 1000L;
+    // The low priority owner releases the lock once a higher priority request is pending
+    ZKLockManager ownerLockManager =
+        new ZKLockManager.Builder().setZkClient(_gZkClient).setUserId(ownerId)
+            .setTimeout(Long.MAX_VALUE / 2).setLockMsg("Test").setPriority(0)
+            .setCleanupTimeout(waitingTimeout).setLockListener(() -> {
+        }).build();
+    ZKLockManager requestorLockManager =
+        new ZKLockManager.Builder().setZkClient(_gZkClient).setUserId(requestorId)
+            .setTimeout(Long.MAX_VALUE / 2).setLockMsg("Test").setPriority(1)
+            .setWaitingTimeout(waitingTimeout).setIsForceful(false).setLockListener(() -> {
+        }).setLeaseRenewalService(leaseRenewalService).build();
+    LockScope scope = _scopes.get(NUM_SCOPES - 1);
+    try {
+      // The same managed lock of the requestor serves both the pending requests
+      for (int i = 0; i < 2; i++) {
+        Assert.assertTrue(ownerLockManager.tryLock(Collections.singletonList(scope)).get(scope));
+        long startTime = System.currentTimeMillis();
+        Assert.assertTrue(requestorLockManager.tryLockAsync(scope).get(30, TimeUnit.SECONDS));
+        // The request is completed by the owner cleanup, not by the pending timeout
+        Assert.assertTrue(System.currentTimeMillis() - startTime < waitingTimeout);
+        LockInfo lockInfo = requestorLockManager.getLock(scope).getCurrentLockInfo();
+        Assert.assertEquals(lockInfo.getOwner(), requestorId);
+        Assert.assertTrue(requestorLockManager.unlock(Collections.singletonList(scope)).get(scope));
+      }
+    } finally {
+      requestorLockManager.close();
+      ownerLockManager.close();
+      leaseRenewalService.shutdown();
+    }
+  }
+}
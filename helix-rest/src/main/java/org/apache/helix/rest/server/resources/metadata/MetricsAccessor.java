@@ -0,0 +1,48 @@
+package org.apache.helix.rest.server.resources.metadata;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Response;
+
+import com.codahale.metrics.annotation.ResponseMetered;
+import com.codahale.metrics.annotation.Timed;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.MetricsTextExporter;
+import org.apache.helix.rest.common.HttpConstants;
+import org.apache.helix.rest.server.filters.NamespaceAuth;
+import org.apache.helix.rest.server.resources.AbstractResource;
+
+
+/**
+ * Serves the Helix metrics of the REST server, such as the ZkClient metrics, in the Prometheus
+ * text exposition format.
+ */
+@NamespaceAuth
+@Path("/metrics")
+public class MetricsAccessor extends AbstractResource {
+  @ResponseMetered(name = HttpConstants.READ_REQUEST)
+  @Timed(name = HttpConstants.READ_REQUEST)
+  @GET
+  public Response getMetrics() {
+    return Response.ok(MetricsTextExporter.getDefault().scrape(), MetricsTextExporter.CONTENT_TYPE)
+        .build();
+  }
+}
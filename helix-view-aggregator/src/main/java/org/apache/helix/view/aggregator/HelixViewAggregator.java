@@ -19,12 +19,20 @@ package org.apache.helix.view.aggregator;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixException;
@@ -33,6 +41,7 @@ import org.apache.helix.HelixManagerFactory;
 import org.apache.helix.InstanceType;
 import org.apache.helix.NotificationContext;
 import org.apache.helix.PropertyType;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.api.config.ViewClusterSourceConfig;
 import org.apache.helix.api.listeners.ClusterConfigChangeListener;
 import org.apache.helix.api.listeners.PreFetch;
@@ -64,6 +73,13 @@ public class HelixViewAggregator implements ClusterConfigChangeListener {
   private final DedupEventProcessor<ClusterViewEvent.Type, ClusterViewEvent> _viewConfigProcessor;
   private final ViewAggregatorMonitor _monitor;
 
+  // Refreshes the source cluster caches in parallel, null if they are refreshed one by one
+  private final ExecutorService _sourceRefreshExecutor;
+
+  // Time of the first change of each source cluster that is not published to the view cluster
+  // yet. Only accessed by the aggregator thread.
+  private final Map<String, Long> _pendingSourceChanges = new HashMap<>();
+
   private ClusterConfig _curViewClusterConfig;
   private Timer _viewClusterRefreshTimer;
   private ViewClusterRefresher _viewClusterRefresher;
@@ -92,6 +108,15 @@ public class HelixViewAggregator implements ClusterConfigChangeListener {
         handleViewClusterConfigChange(event);
       }
     };
+
+    int sourceRefreshParallelism =
+        Integer.getInteger(SystemPropertyKeys.VIEW_AGGREGATOR_SOURCE_REFRESH_PARALLELISM, 1);
+    _sourceRefreshExecutor = sourceRefreshParallelism > 1 ? Executors
+        .newFixedThreadPool(sourceRefreshParallelism, r -> {
+          Thread thread = new Thread(r, "SourceClusterRefresher-" + _viewClusterName);
+          thread.setDaemon(true);
+          return thread;
+        }) : null;
   }
 
   public String getAggregatorInstanceName() {
@@ -137,6 +162,10 @@ public class HelixViewAggregator implements ClusterConfigChangeListener {
       _viewClusterRefreshTimer.cancel();
     }
 
+    if (_sourceRefreshExecutor != null) {
+      _sourceRefreshExecutor.shutdownNow();
+    }
+
     // disconnect manager
     if (_viewClusterManager != null && _viewClusterManager.isConnected()) {
       logger.info("Shutting down view cluster helix manager");
@@ -189,6 +218,7 @@ public class HelixViewAggregator implements ClusterConfigChangeListener {
       case InstanceConfigChange:
       case LiveInstanceChange:
         _refreshViewCluster.set(true);
+        _pendingSourceChanges.putIfAbsent(event.getClusterName(), System.currentTimeMillis());
         break;
       case PeriodicViewRefresh:
         // refresh local view cluster data cache
@@ -302,6 +332,7 @@ public class HelixViewAggregator implements ClusterConfigChangeListener {
           _dataProviderMap.get(key).shutdown();
           synchronized (_dataProviderMap) {
             _dataProviderMap.remove(key);
+            _monitor.removeSourceCluster(source.getName());
             // upon successful removal of data provider, set refresh view cluster to true
             // or if no event from source cluster happened before next refresh cycle, this
             // removal will be missed.
@@ -327,6 +358,7 @@ public class HelixViewAggregator implements ClusterConfigChangeListener {
         SourceClusterDataProvider provider = new SourceClusterDataProvider(source, _aggregator);
         provider.setup();
         _dataProviderMap.put(key, provider);
+        _monitor.addSourceCluster(source.getName());
       } catch (Exception e) {
         success = false;
         logger.warn(String.format("Failed to create data provider %s, will retry", key));
@@ -362,19 +394,10 @@ public class HelixViewAggregator implements ClusterConfigChangeListener {
     }
 
     // Refresh data providers
-    // TODO: the following steps can be parallelized
-    for (SourceClusterDataProvider provider : providerView) {
-      try {
-        provider.refreshCache();
-      } catch (Exception e) {
-        logger.warn("Caught exception when refreshing source cluster cache. Abort refresh.", e);
-        _refreshViewCluster.set(true);
-        dataProviderFailure = true;
-
-        // Skip refresh view cluster when we cannot successfully refresh
-        // source cluster caches
-        break;
-      }
+    if (!refreshDataProviders(providerView)) {
+      logger.warn("Failed to refresh source cluster caches. Abort refresh.");
+      _refreshViewCluster.set(true);
+      dataProviderFailure = true;
     }
 
     // Refresh properties in view cluster
@@ -398,8 +421,78 @@ public class HelixViewAggregator implements ClusterConfigChangeListener {
       }
     }
 
-    recordRefreshResults(dataProviderFailure, viewClusterFailure,
+    long endRefreshMs = System.currentTimeMillis();
+    if (!dataProviderFailure && !viewClusterFailure) {
+      recordViewLag(endRefreshMs);
+    }
+    recordRefreshResults(dataProviderFailure, viewClusterFailure, endRefreshMs - startRefreshMs);
+  }
+
+  /**
+   * Refresh the caches of all the data providers, in parallel if the source refresh executor is
+   * enabled. Source cluster caches are not shared, so the providers can be refreshed concurrently.
+   * @return true if all the caches are refreshed
+   */
+  private boolean refreshDataProviders(Set<SourceClusterDataProvider> providerView) {
+    if (_sourceRefreshExecutor == null || providerView.size() <= 1) {
+      for (SourceClusterDataProvider provider : providerView) {
+        // Skip the rest when we cannot successfully refresh a source cluster cache
+        if (!refreshDataProvider(provider)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    List<Future<Boolean>> futures = new ArrayList<>(providerView.size());
+    for (SourceClusterDataProvider provider : providerView) {
+      futures.add(_sourceRefreshExecutor.submit(() -> refreshDataProvider(provider)));
+    }
+    boolean success = true;
+    for (Future<Boolean> future : futures) {
+      try {
+        success &= future.get();
+      } catch (InterruptedException e) {
+        logger.warn("Interrupted when refreshing source cluster caches", e);
+        futures.forEach(f -> f.cancel(true));
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (ExecutionException e) {
+        logger.warn("Caught exception when refreshing source cluster cache", e.getCause());
+        success = false;
+      }
+    }
+    return success;
+  }
+
+  private boolean refreshDataProvider(SourceClusterDataProvider provider) {
+    long startRefreshMs = System.currentTimeMillis();
+    try {
+      provider.refreshCache();
+    } catch (Exception e) {
+      logger.warn(String.format("Caught exception when refreshing cache of source cluster %s",
+          provider.getClusterName()), e);
+      _monitor.recordSourceRefreshFailure(provider.getClusterName());
+      return false;
+    }
+    _monitor.recordSourceRefresh(provider.getClusterName(),
         System.currentTimeMillis() - startRefreshMs);
+    return true;
+  }
+
+  /**
+   * Record the lag between the source cluster changes and the view cluster refresh that published
+   * them.
+   */
+  private void recordViewLag(long endRefreshMs) {
+    if (_pendingSourceChanges.isEmpty()) {
+      return;
+    }
+    for (Map.Entry<String, Long> entry : _pendingSourceChanges.entrySet()) {
+      _monitor.recordSourceViewLag(entry.getKey(), endRefreshMs - entry.getValue());
+    }
+    _monitor.recordViewLag(endRefreshMs - Collections.min(_pendingSourceChanges.values()));
+    _pendingSourceChanges.clear();
   }
 
   private void recordRefreshResults(boolean recordSourceFailure, boolean recordViewFailure,
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import org.apache.helix.AccessOption;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixProperty;
 import org.apache.helix.PropertyKey;
@@ -50,6 +51,16 @@ public class ViewClusterRefresher {
   private final ViewClusterDataCache _viewClusterDataCache;
   private Set<SourceClusterDataProvider> _dataProviderView;
 
+  // The merged external views of the last refresh, by resource name. The merged view of a resource
+  // is reused as long as the source external views it was merged from are not replaced.
+  private Map<String, MergedExternalView> _mergedExternalViews = new HashMap<>();
+
+  // The properties found in sync with the view cluster in the last refresh, by property type and
+  // name. They are still in sync, without comparing the records, if neither the source property
+  // nor the view cluster property has been replaced since.
+  private final Map<PropertyType, Map<String, SyncedProperty>> _syncedProperties =
+      new HashMap<>();
+
   public ViewClusterRefresher(String viewClusterName, HelixDataAccessor viewClusterDataAccessor) {
     _viewClusterName = viewClusterName;
     _viewClusterDataAccessor = viewClusterDataAccessor;
@@ -101,6 +112,42 @@ public class ViewClusterRefresher {
     }
   }
 
+  private static class MergedExternalView {
+    private final List<ExternalView> _sourceExternalViews;
+    private final ExternalView _mergedExternalView;
+
+    MergedExternalView(List<ExternalView> sourceExternalViews, ExternalView mergedExternalView) {
+      _sourceExternalViews = sourceExternalViews;
+      _mergedExternalView = mergedExternalView;
+    }
+
+    /**
+     * @return true if the source external views are the same objects, in the same order, as the
+     *         ones this view was merged from
+     */
+    boolean isMergedFrom(List<ExternalView> sourceExternalViews) {
+      if (sourceExternalViews.size() != _sourceExternalViews.size()) {
+        return false;
+      }
+      for (int i = 0; i < sourceExternalViews.size(); i++) {
+        if (sourceExternalViews.get(i) != _sourceExternalViews.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static class SyncedProperty {
+    private final HelixProperty _sourceProperty;
+    private final HelixProperty _viewProperty;
+
+    SyncedProperty(HelixProperty sourceProperty, HelixProperty viewProperty) {
+      _sourceProperty = sourceProperty;
+      _viewProperty = viewProperty;
+    }
+  }
+
   public void updateProviderView(Set<SourceClusterDataProvider> dataProviderView) {
     _dataProviderView = dataProviderView;
   }
@@ -119,6 +166,7 @@ public class ViewClusterRefresher {
     Set<String> listedNamesInView;
     Set<String> listedNamesInSource = new HashSet<>();
     Map<String, HelixProperty> sourceProperties = new HashMap<>();
+    Map<String, List<ExternalView>> sourceExternalViews = new HashMap<>();
     Map<String, HelixProperty> viewClusterPropertyCache =
         (Map<String, HelixProperty>) getViewClusterPropertyCache(propertyType);
     if (viewClusterPropertyCache == null) {
@@ -149,11 +197,8 @@ public class ViewClusterRefresher {
         case EXTERNALVIEW:
           listedNamesInSource.addAll(provider.getExternalViewNames());
           for (Map.Entry<String, ExternalView> entry : provider.getExternalViews().entrySet()) {
-            String resourceName = entry.getKey();
-            if (!sourceProperties.containsKey(resourceName)) {
-              sourceProperties.put(resourceName, new ExternalView(resourceName));
-            }
-            mergeExternalViews((ExternalView) sourceProperties.get(resourceName), entry.getValue());
+            sourceExternalViews.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                .add(entry.getValue());
           }
           break;
         default:
@@ -163,6 +208,10 @@ public class ViewClusterRefresher {
         }
       }
 
+      if (propertyType == PropertyType.EXTERNALVIEW) {
+        mergeChangedExternalViews(sourceExternalViews, sourceProperties);
+      }
+
       // Perform refresh
       ok = doRefresh(propertyType, listedNamesInView, listedNamesInSource, sourceProperties, viewClusterPropertyCache);
     } catch (Exception e) {
@@ -175,6 +224,36 @@ public class ViewClusterRefresher {
     return ok;
   }
 
+  /**
+   * Merge the source external views of each resource. Only the resources whose source external
+   * views changed since the last refresh are merged again, the others reuse their last merged view.
+   *
+   * @param sourceExternalViews the source external views of each resource, in provider order
+   * @param sourceProperties the map to put the merged external views into
+   */
+  private void mergeChangedExternalViews(Map<String, List<ExternalView>> sourceExternalViews,
+      Map<String, HelixProperty> sourceProperties) throws IllegalArgumentException {
+    Map<String, MergedExternalView> mergedExternalViews = new HashMap<>();
+    int mergedCount = 0;
+    for (Map.Entry<String, List<ExternalView>> entry : sourceExternalViews.entrySet()) {
+      String resourceName = entry.getKey();
+      MergedExternalView merged = _mergedExternalViews.get(resourceName);
+      if (merged == null || !merged.isMergedFrom(entry.getValue())) {
+        ExternalView mergedExternalView = new ExternalView(resourceName);
+        for (ExternalView externalView : entry.getValue()) {
+          mergeExternalViews(mergedExternalView, externalView);
+        }
+        merged = new MergedExternalView(entry.getValue(), mergedExternalView);
+        mergedCount++;
+      }
+      mergedExternalViews.put(resourceName, merged);
+      sourceProperties.put(resourceName, merged._mergedExternalView);
+    }
+    _mergedExternalViews = mergedExternalViews;
+    logger.info(String.format("Merged %s of %s external views for view cluster %s", mergedCount,
+        sourceExternalViews.size(), _viewClusterName));
+  }
+
   /**
    * Merge external view "toMerge" into external view "source":
    *  - if partition in toMerge does not exist in source, we add it into source
@@ -204,16 +283,20 @@ public class ViewClusterRefresher {
    * properties in source clusters, generate ClusterPropertyDiff that contains information about
    * what to add / update or delete
    *
+   * @param propertyType type of the properties
    * @param viewPropertyNames names of all properties (i.e. liveInstances) in view cluster
    * @param sourcePropertyNames names of all properties (i.e. liveInstances) in all source clusters
    * @param cachedSourceProperties all cached properties from source clusters
    * @param viewClusterPropertyCache all properties that are previously set successfully to view cluster
    * @return ClusterPropertyDiff object contains diff information
    */
-  private ClusterPropertyDiff calculatePropertyDiff(
+  private ClusterPropertyDiff calculatePropertyDiff(PropertyType propertyType,
       Set<String> viewPropertyNames, Set<String> sourcePropertyNames,
       Map<String, HelixProperty> cachedSourceProperties, Map<String, HelixProperty> viewClusterPropertyCache) {
     ClusterPropertyDiff diff = new ClusterPropertyDiff();
+    Map<String, SyncedProperty> lastSyncedProperties =
+        _syncedProperties.getOrDefault(propertyType, Collections.emptyMap());
+    Map<String, SyncedProperty> syncedProperties = new HashMap<>();
 
     // items whose names are in view cluster but not in source should be removed for sure
     Set<String> toDelete = new HashSet<>(viewPropertyNames);
@@ -232,12 +315,20 @@ public class ViewClusterRefresher {
       // Else, either this child is already deleted, or we fail to retrieve information
       // from a cache refresh. either way, we will leave it to next ViewClusterRefresh cycle
       // to confirm state
-      if (property != null && sourcePropertyNames.contains(name) && (
-          !viewClusterPropertyCache.containsKey(name) || !viewClusterPropertyCache.get(name)
-              .getRecord().equals(property.getRecord()))) {
+      if (property == null || !sourcePropertyNames.contains(name)) {
+        continue;
+      }
+      HelixProperty viewProperty = viewClusterPropertyCache.get(name);
+      SyncedProperty lastSynced = lastSyncedProperties.get(name);
+      if (viewProperty != null && ((lastSynced != null && lastSynced._sourceProperty == property
+          && lastSynced._viewProperty == viewProperty) || viewProperty.getRecord()
+          .equals(property.getRecord()))) {
+        syncedProperties.put(name, new SyncedProperty(property, viewProperty));
+      } else {
         diff.addPropertyToSet(name, property);
       }
     }
+    _syncedProperties.put(propertyType, syncedProperties);
     return diff;
   }
 
@@ -263,7 +354,8 @@ public class ViewClusterRefresher {
     boolean ok = true;
     // Calculate diff
     ClusterPropertyDiff diff =
-        calculatePropertyDiff(viewPropertyNames, sourcePropertyNames, cachedSourceProperties, viewClusterPropertyCache);
+        calculatePropertyDiff(propertyType, viewPropertyNames, sourcePropertyNames,
+            cachedSourceProperties, viewClusterPropertyCache);
 
     // Generate property keys
     List<PropertyKey> keysToSet = new ArrayList<>();
@@ -376,7 +468,23 @@ public class ViewClusterRefresher {
   private <T extends HelixProperty> boolean deleteProperties(List<PropertyKey> keysToDelete) {
     boolean ok = true;
     logger.info(String.format("Deleting %s objects: %s", keysToDelete.size(), keysToDelete));
+    if (keysToDelete.isEmpty()) {
+      return ok;
+    }
+
+    // Delete all the properties in one batch of async requests, and fall back to the recursive
+    // removal for the ones that failed, e.g. nodes with children
+    List<String> paths = new ArrayList<>(keysToDelete.size());
     for (PropertyKey key : keysToDelete) {
+      paths.add(key.getPath());
+    }
+    boolean[] deleted =
+        _viewClusterDataAccessor.getBaseDataAccessor().remove(paths, AccessOption.PERSISTENT);
+    for (int i = 0; i < keysToDelete.size(); i++) {
+      if (deleted != null && i < deleted.length && deleted[i]) {
+        continue;
+      }
+      PropertyKey key = keysToDelete.get(i);
       if (!_viewClusterDataAccessor.removeProperty(key)) {
         ok = false;
         logger.warn(String.format("Failed to create or update live instance %s, will retry later",
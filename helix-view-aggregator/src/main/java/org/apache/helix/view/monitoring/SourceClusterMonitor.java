@@ -0,0 +1,124 @@
+package org.apache.helix.view.monitoring;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import org.apache.helix.monitoring.mbeans.MBeanRegistrar;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMBeanProvider;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.HistogramDynamicMetric;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.SimpleDynamicMetric;
+
+/**
+ * Per source cluster metrics of a view aggregator. Registered under the view cluster MBean name
+ * with an additional source cluster key.
+ */
+public class SourceClusterMonitor extends DynamicMBeanProvider {
+  /* package */ static final String SOURCE_KEY = "SourceClusterName";
+  private static final String MBEAN_DESCRIPTION =
+      "Monitor helix view aggregator activity of a source cluster";
+  private final String _viewClusterName;
+  private final String _sourceClusterName;
+  private final String _sensorName;
+  private volatile long _lastSuccessfulRefreshMs;
+
+  // Counters
+  private final SimpleDynamicMetric<Long> _refreshFailureCounter;
+
+  // Gauges
+  // Time since the last successful refresh, computed when the gauge is read so that it keeps
+  // growing if the refreshes stop
+  private final SimpleDynamicMetric<Long> _stalenessGauge;
+  private final HistogramDynamicMetric _refreshLatencyGauge;
+  private final HistogramDynamicMetric _lagGauge;
+
+  public SourceClusterMonitor(String viewClusterName, String sourceClusterName) {
+    _viewClusterName = viewClusterName;
+    _sourceClusterName = sourceClusterName;
+    _sensorName = String.format("%s.%s.%s.%s.%s", ViewAggregatorMonitor.MBEAN_DOMAIN,
+        ViewAggregatorMonitor.MONITOR_KEY, viewClusterName, SOURCE_KEY, sourceClusterName);
+    _lastSuccessfulRefreshMs = System.currentTimeMillis();
+
+    _refreshFailureCounter = new SimpleDynamicMetric<>("SourceClusterRefreshFailureCounter", 0L);
+    _stalenessGauge = new SimpleDynamicMetric<Long>("SourceClusterStalenessGauge", 0L) {
+      @Override
+      protected Long getMetricObject() {
+        return System.currentTimeMillis() - _lastSuccessfulRefreshMs;
+      }
+    };
+    _refreshLatencyGauge = new HistogramDynamicMetric("SourceClusterRefreshDurationGauge",
+        new Histogram(
+            new SlidingTimeWindowArrayReservoir(DEFAULT_RESET_INTERVAL_MS, TimeUnit.MILLISECONDS)));
+    _lagGauge = new HistogramDynamicMetric("SourceClusterViewLagGauge", new Histogram(
+        new SlidingTimeWindowArrayReservoir(DEFAULT_RESET_INTERVAL_MS, TimeUnit.MILLISECONDS)));
+  }
+
+  /**
+   * Record a successful refresh of the source cluster cache.
+   * @param latency time spent refreshing the cache
+   */
+  public synchronized void recordRefresh(long latency) {
+    _lastSuccessfulRefreshMs = System.currentTimeMillis();
+    _refreshLatencyGauge.updateValue(latency);
+  }
+
+  /**
+   * Record a failed refresh of the source cluster cache.
+   */
+  public synchronized void recordRefreshFailure() {
+    incrementSimpleDynamicMetric(_refreshFailureCounter);
+  }
+
+  /**
+   * Record the time between the first change of the source cluster and the view cluster refresh
+   * that published it.
+   */
+  public void recordViewLag(long lag) {
+    _lagGauge.updateValue(lag);
+  }
+
+  public String getSourceClusterName() {
+    return _sourceClusterName;
+  }
+
+  @Override
+  public String getSensorName() {
+    return _sensorName;
+  }
+
+  @Override
+  public DynamicMBeanProvider register() throws JMException {
+    List<DynamicMetric<?, ?>> attributeList = new ArrayList<>();
+    attributeList.add(_refreshFailureCounter);
+    attributeList.add(_stalenessGauge);
+    attributeList.add(_refreshLatencyGauge);
+    attributeList.add(_lagGauge);
+
+    doRegister(attributeList, MBEAN_DESCRIPTION, MBeanRegistrar
+        .buildObjectName(ViewAggregatorMonitor.MBEAN_DOMAIN, ViewAggregatorMonitor.MONITOR_KEY,
+            _viewClusterName, SOURCE_KEY, _sourceClusterName));
+    return this;
+  }
+}
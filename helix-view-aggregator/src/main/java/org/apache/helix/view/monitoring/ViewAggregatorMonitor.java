@@ -4,6 +4,8 @@ import com.codahale.metrics.Histogram;
 import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import javax.management.JMException;
 import org.apache.helix.monitoring.mbeans.MBeanRegistrar;
@@ -28,6 +30,11 @@ public class ViewAggregatorMonitor extends DynamicMBeanProvider {
 
   // Gauges
   private final HistogramDynamicMetric _viewRefreshLatencyGauge;
+  private final HistogramDynamicMetric _viewLagGauge;
+
+  // Per source cluster monitors of the source clusters that are aggregated
+  private final Map<String, SourceClusterMonitor> _sourceClusterMonitors =
+      new ConcurrentHashMap<>();
 
   public ViewAggregatorMonitor(String clusterName) {
     _clusterName = clusterName;
@@ -45,6 +52,8 @@ public class ViewAggregatorMonitor extends DynamicMBeanProvider {
     _viewRefreshLatencyGauge = new HistogramDynamicMetric("ViewClusterRefreshDurationGauge",
         new Histogram(
             new SlidingTimeWindowArrayReservoir(DEFAULT_RESET_INTERVAL_MS, TimeUnit.MILLISECONDS)));
+    _viewLagGauge = new HistogramDynamicMetric("ViewClusterLagGauge", new Histogram(
+        new SlidingTimeWindowArrayReservoir(DEFAULT_RESET_INTERVAL_MS, TimeUnit.MILLISECONDS)));
   }
 
   public void recordViewRefreshFailure() {
@@ -68,6 +77,62 @@ public class ViewAggregatorMonitor extends DynamicMBeanProvider {
     _viewRefreshLatencyGauge.updateValue(latency);
   }
 
+  /**
+   * Record the time between the first unpublished source cluster change and the end of the view
+   * cluster refresh that published it.
+   */
+  public void recordViewLag(long lag) {
+    _viewLagGauge.updateValue(lag);
+  }
+
+  public void recordSourceRefresh(String sourceClusterName, long latency) {
+    SourceClusterMonitor monitor = _sourceClusterMonitors.get(sourceClusterName);
+    if (monitor != null) {
+      monitor.recordRefresh(latency);
+    }
+  }
+
+  public void recordSourceRefreshFailure(String sourceClusterName) {
+    SourceClusterMonitor monitor = _sourceClusterMonitors.get(sourceClusterName);
+    if (monitor != null) {
+      monitor.recordRefreshFailure();
+    }
+  }
+
+  public void recordSourceViewLag(String sourceClusterName, long lag) {
+    SourceClusterMonitor monitor = _sourceClusterMonitors.get(sourceClusterName);
+    if (monitor != null) {
+      monitor.recordViewLag(lag);
+    }
+  }
+
+  /**
+   * Register the metrics of a source cluster that is aggregated. The records of the source
+   * clusters that are not added, or already removed, are ignored.
+   */
+  public void addSourceCluster(String sourceClusterName) {
+    _sourceClusterMonitors.computeIfAbsent(sourceClusterName, name -> {
+      SourceClusterMonitor monitor = new SourceClusterMonitor(_clusterName, name);
+      try {
+        monitor.register();
+      } catch (JMException e) {
+        _logger.warn("Failed to register monitor for source cluster {} of view cluster {}", name,
+            _clusterName, e);
+      }
+      return monitor;
+    });
+  }
+
+  /**
+   * Unregister the metrics of a source cluster that is no longer aggregated.
+   */
+  public void removeSourceCluster(String sourceClusterName) {
+    SourceClusterMonitor monitor = _sourceClusterMonitors.remove(sourceClusterName);
+    if (monitor != null) {
+      monitor.unregister();
+    }
+  }
+
   @Override
   public String getSensorName() {
     return _sensorName;
@@ -81,9 +146,18 @@ public class ViewAggregatorMonitor extends DynamicMBeanProvider {
     attributeList.add(_processViewConfigFailureCounter);
     attributeList.add(_processedSourceClusterEventCounter);
     attributeList.add(_viewRefreshLatencyGauge);
+    attributeList.add(_viewLagGauge);
 
     doRegister(attributeList, MBEAN_DESCRIPTION, MBeanRegistrar
         .buildObjectName(MBEAN_DOMAIN, MONITOR_KEY, _clusterName));
     return this;
   }
+
+  @Override
+  public synchronized void unregister() {
+    for (String sourceClusterName : _sourceClusterMonitors.keySet()) {
+      removeSourceCluster(sourceClusterName);
+    }
+    super.unregister();
+  }
 }
@@ -19,6 +19,8 @@ package org.apache.helix.view.aggregator;
  * under the License.
  */
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -28,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.helix.BaseDataAccessor;
 import org.apache.helix.HelixConstants;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixProperty;
@@ -41,6 +44,7 @@ import org.apache.helix.model.InstanceConfig;
 import org.apache.helix.model.LiveInstance;
 import org.apache.helix.view.dataprovider.SourceClusterDataProvider;
 import org.apache.helix.view.mock.MockSourceClusterDataProvider;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -56,10 +60,30 @@ public class TestViewClusterRefresher extends ZkTestBase {
   private static class CounterBasedMockAccessor extends MockAccessor {
     private AtomicInteger _setCount = new AtomicInteger(0);
     private AtomicInteger _removeCount = new AtomicInteger(0);
+    private final BaseDataAccessor _countingBaseDataAccessor;
 
     public CounterBasedMockAccessor(String clusterName) {
       super(clusterName);
       resetCounters();
+      // Count the paths removed in batches through the base data accessor as well
+      BaseDataAccessor baseDataAccessor = super.getBaseDataAccessor();
+      _countingBaseDataAccessor = (BaseDataAccessor) Proxy
+          .newProxyInstance(BaseDataAccessor.class.getClassLoader(),
+              new Class<?>[] { BaseDataAccessor.class }, (proxy, method, args) -> {
+                if (method.getName().equals("remove") && args[0] instanceof List) {
+                  _removeCount.addAndGet(((List<?>) args[0]).size());
+                }
+                try {
+                  return method.invoke(baseDataAccessor, args);
+                } catch (InvocationTargetException e) {
+                  throw e.getCause();
+                }
+              });
+    }
+
+    @Override
+    public BaseDataAccessor getBaseDataAccessor() {
+      return _countingBaseDataAccessor;
     }
 
     public void resetCounters() {
@@ -197,6 +221,49 @@ public class TestViewClusterRefresher extends ZkTestBase {
     verifyExternalView(accessor, 0, 0, 0);
   }
 
+  @Test
+  public void testRefreshWithSingleExternalViewChange() {
+    CounterBasedMockAccessor accessor = new CounterBasedMockAccessor(viewClusterName);
+    Map<String, SourceClusterDataProvider> dataProviderMap = new HashMap<>();
+    createMockDataProviders(dataProviderMap);
+
+    ViewClusterRefresher refresher = new ViewClusterRefresher(viewClusterName, accessor);
+    refresher.updateProviderView(new HashSet<>(dataProviderMap.values()));
+    MockSourceClusterDataProvider sampleProvider =
+        (MockSourceClusterDataProvider) dataProviderMap.get("cluster0");
+
+    Assert.assertTrue(refresher.refreshPropertiesInViewCluster(PropertyType.EXTERNALVIEW));
+    refresher.refreshViewClusterDataCache();
+    accessor.resetCounters();
+
+    // Only the changed resource is merged again and written to the view cluster
+    List<ExternalView> externalViews = new ArrayList<>(sampleProvider.getExternalViews().values());
+    ExternalView changedExternalView = null;
+    for (int i = 0; i < externalViews.size(); i++) {
+      if (externalViews.get(i).getId().equals("Resource0")) {
+        changedExternalView = new ExternalView(new ZNRecord(externalViews.get(i).getRecord()));
+        changedExternalView.getStateMap("Partition0").put("cluster0-instance", "SLAVE");
+        externalViews.set(i, changedExternalView);
+      }
+    }
+    Assert.assertNotNull(changedExternalView);
+    sampleProvider.setExternalViews(externalViews);
+    Assert.assertTrue(refresher.refreshPropertiesInViewCluster(PropertyType.EXTERNALVIEW));
+    Assert.assertEquals(accessor.getSetCount(), 1);
+    Assert.assertEquals(accessor.getRemoveCount(), 0);
+    verifyExternalView(accessor, numExternalViewPerSourceCluster, numPartition, numSourceCluster);
+    ExternalView viewExternalView =
+        accessor.getProperty(accessor.keyBuilder().externalView("Resource0"));
+    Assert.assertEquals(viewExternalView.getStateMap("Partition0").get("cluster0-instance"),
+        "SLAVE");
+
+    // No more write once the view cluster is in sync
+    refresher.refreshViewClusterDataCache();
+    accessor.resetCounters();
+    Assert.assertTrue(refresher.refreshPropertiesInViewCluster(PropertyType.EXTERNALVIEW));
+    Assert.assertEquals(accessor.getSetCount(), 0);
+  }
+
   @Test
   public void testRefreshWithProviderChange() {
     CounterBasedMockAccessor viewClusterDataAccessor = new CounterBasedMockAccessor(viewClusterName);
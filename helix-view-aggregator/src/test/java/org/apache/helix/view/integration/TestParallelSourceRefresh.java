@@ -0,0 +1,152 @@
+package org.apache.helix.view.integration;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.helix.ConfigAccessor;
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.PropertyType;
+import org.apache.helix.SystemPropertyKeys;
+import org.apache.helix.TestHelper;
+import org.apache.helix.api.config.ViewClusterSourceConfig;
+import org.apache.helix.integration.manager.MockParticipantManager;
+import org.apache.helix.manager.zk.ZKHelixDataAccessor;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.monitoring.mbeans.MBeanRegistrar;
+import org.apache.helix.monitoring.mbeans.MonitorDomainNames;
+import org.apache.helix.view.aggregator.HelixViewAggregator;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestParallelSourceRefresh extends ViewAggregatorIntegrationTestBase {
+  private static final int numSourceCluster = 3;
+  private static final int viewClusterRefreshPeriodSec = 2;
+  private static final String viewClusterName = "ViewCluster-TestParallelSourceRefresh";
+  private static final MBeanServer _beanServer = ManagementFactory.getPlatformMBeanServer();
+  private ConfigAccessor _configAccessor;
+  private HelixDataAccessor _viewClusterAccessor;
+  private HelixViewAggregator _aggregator;
+
+  @BeforeClass
+  public void beforeClass() throws Exception {
+    super.beforeClass();
+    System.setProperty(SystemPropertyKeys.VIEW_AGGREGATOR_SOURCE_REFRESH_PARALLELISM,
+        String.valueOf(numSourceCluster));
+
+    _configAccessor = new ConfigAccessor(_gZkClient);
+    _viewClusterAccessor = new ZKHelixDataAccessor(viewClusterName, _baseAccessor);
+    _gSetupTool.addCluster(viewClusterName, true);
+    ClusterConfig viewClusterConfig = new ClusterConfig(viewClusterName);
+    viewClusterConfig.setViewCluster();
+    viewClusterConfig.setViewClusterRefreshPeriod(viewClusterRefreshPeriodSec);
+    _configAccessor.setClusterConfig(viewClusterName, viewClusterConfig);
+    setSourceClusters(_allSourceClusters);
+  }
+
+  @AfterClass
+  public void afterClass() throws Exception {
+    if (_aggregator != null) {
+      _aggregator.shutdown();
+    }
+    System.clearProperty(SystemPropertyKeys.VIEW_AGGREGATOR_SOURCE_REFRESH_PARALLELISM);
+    super.afterClass();
+  }
+
+  @Test
+  public void testParallelSourceRefresh() throws Exception {
+    _aggregator = new HelixViewAggregator(viewClusterName, ZK_ADDR);
+    _aggregator.start();
+
+    // The source clusters are refreshed in parallel, and all of them are aggregated
+    Assert.assertTrue(TestHelper.verify(
+        () -> getViewLiveInstances().equals(getParticipantNames(_allSourceClusters)),
+        TestHelper.WAIT_DURATION));
+    for (String sourceCluster : _allSourceClusters) {
+      Assert.assertTrue(_beanServer.isRegistered(getSourceClusterObjectName(sourceCluster)));
+    }
+
+    // Stop aggregating one of the source clusters
+    String removedSourceCluster = _allSourceClusters.get(0);
+    List<String> remainingSourceClusters =
+        new ArrayList<>(_allSourceClusters.subList(1, _allSourceClusters.size()));
+    setSourceClusters(remainingSourceClusters);
+    Assert.assertTrue(TestHelper.verify(
+        () -> getViewLiveInstances().equals(getParticipantNames(remainingSourceClusters)),
+        TestHelper.WAIT_DURATION));
+    ObjectName removedObjectName = getSourceClusterObjectName(removedSourceCluster);
+    Assert.assertFalse(_beanServer.isRegistered(removedObjectName));
+
+    // The following refreshes do not register the removed source cluster again
+    Thread.sleep(2 * viewClusterRefreshPeriodSec * 1000);
+    Assert.assertFalse(_beanServer.isRegistered(removedObjectName));
+    for (String sourceCluster : remainingSourceClusters) {
+      ObjectName objectName = getSourceClusterObjectName(sourceCluster);
+      Assert.assertTrue(_beanServer.isRegistered(objectName));
+      Assert.assertTrue(
+          (long) _beanServer.getAttribute(objectName, "SourceClusterStalenessGauge") >= 0);
+    }
+  }
+
+  private void setSourceClusters(List<String> sourceClusters) {
+    List<ViewClusterSourceConfig> sourceConfigs = new ArrayList<>();
+    for (String sourceCluster : sourceClusters) {
+      sourceConfigs.add(new ViewClusterSourceConfig(sourceCluster, ZK_ADDR,
+          ViewClusterSourceConfig.getValidPropertyTypes()));
+    }
+    ClusterConfig viewClusterConfig = _configAccessor.getClusterConfig(viewClusterName);
+    viewClusterConfig.setViewClusterSourceConfigs(sourceConfigs);
+    _configAccessor.setClusterConfig(viewClusterName, viewClusterConfig);
+  }
+
+  private Set<String> getViewLiveInstances() {
+    return new HashSet<>(_viewClusterAccessor
+        .getChildNames(_viewClusterAccessor.keyBuilder().liveInstances()));
+  }
+
+  private Set<String> getParticipantNames(List<String> sourceClusters) {
+    Set<String> participantNames = new HashSet<>();
+    for (MockParticipantManager participant : _allParticipants) {
+      if (sourceClusters.contains(participant.getClusterName())) {
+        participantNames.add(participant.getInstanceName());
+      }
+    }
+    return participantNames;
+  }
+
+  private ObjectName getSourceClusterObjectName(String sourceCluster) throws JMException {
+    return MBeanRegistrar
+        .buildObjectName(MonitorDomainNames.ClusterStatus.name(), "ViewClusterName",
+            viewClusterName, "SourceClusterName", sourceCluster);
+  }
+
+  @Override
+  protected int getNumSourceCluster() {
+    return numSourceCluster;
+  }
+}
@@ -83,6 +83,61 @@ public class TestViewAggregatorMonitor {
         _beanServer.getAttribute(objectName, "ViewClusterRefreshDurationGauge.StdDev"), 0.0);
   }
 
+  @Test
+  public void testSourceClusterMonitorDataRecording() throws Exception {
+    String cluster = "testViewClusterWithSources";
+    String source = "sourceCluster";
+    ViewAggregatorMonitor monitor = new ViewAggregatorMonitor(cluster);
+    monitor.register();
+    ObjectName objectName = MBeanRegistrar
+        .buildObjectName(ViewAggregatorMonitor.MBEAN_DOMAIN, ViewAggregatorMonitor.MONITOR_KEY,
+            cluster, SourceClusterMonitor.SOURCE_KEY, source);
+
+    // The records of a source cluster that is not added are ignored
+    monitor.recordSourceRefresh(source, 50);
+    Assert.assertFalse(_beanServer.isRegistered(objectName));
+    monitor.addSourceCluster(source);
+    Assert.assertTrue(_beanServer.isRegistered(objectName));
+    monitor.recordSourceRefresh(source, 50);
+    Assert.assertEquals(
+        (long) _beanServer.getAttribute(objectName, "SourceClusterRefreshDurationGauge.Max"), 50);
+
+    // The staleness keeps growing without any refresh or failure
+    Thread.sleep(100);
+    Assert.assertTrue(
+        (long) _beanServer.getAttribute(objectName, "SourceClusterStalenessGauge") >= 100);
+    monitor.recordSourceRefreshFailure(source);
+    Assert.assertEquals(
+        (long) _beanServer.getAttribute(objectName, "SourceClusterRefreshFailureCounter"), 1);
+    Assert.assertTrue(
+        (long) _beanServer.getAttribute(objectName, "SourceClusterStalenessGauge") >= 100);
+    monitor.recordSourceRefresh(source, 50);
+    Assert.assertTrue(
+        (long) _beanServer.getAttribute(objectName, "SourceClusterStalenessGauge") < 100);
+
+    monitor.recordSourceViewLag(source, 200);
+    monitor.recordViewLag(300);
+    Assert.assertEquals(
+        (long) _beanServer.getAttribute(objectName, "SourceClusterViewLagGauge.Max"), 200);
+    Assert.assertEquals(
+        (long) _beanServer.getAttribute(generateObjectName(cluster), "ViewClusterLagGauge.Max"),
+        300);
+
+    monitor.removeSourceCluster(source);
+    Assert.assertFalse(_beanServer.isRegistered(objectName));
+
+    // A refresh that completes after the removal does not register the source cluster again
+    monitor.recordSourceRefresh(source, 50);
+    monitor.recordSourceViewLag(source, 200);
+    Assert.assertFalse(_beanServer.isRegistered(objectName));
+
+    monitor.addSourceCluster(source);
+    Assert.assertTrue(_beanServer.isRegistered(objectName));
+    monitor.unregister();
+    Assert.assertFalse(_beanServer.isRegistered(objectName));
+    Assert.assertFalse(_beanServer.isRegistered(generateObjectName(cluster)));
+  }
+
   private ObjectName generateObjectName(String viewClusterName) throws JMException {
     return MBeanRegistrar
         .buildObjectName(ViewAggregatorMonitor.MBEAN_DOMAIN, ViewAggregatorMonitor.MONITOR_KEY,
@@ -56,6 +56,7 @@ public abstract class DynamicMBeanProvider implements DynamicMBean, SensorNamePr
 
   // Attribute name to the DynamicMetric object mapping
   private Map<String, DynamicMetric> _attributeMap = new HashMap<>();
+  private List<DynamicMetric<?, ?>> _dynamicMetrics = new ArrayList<>();
   private ObjectName _objectName = null;
   private MBeanInfo _mBeanInfo;
 
@@ -87,6 +88,7 @@ public abstract class DynamicMBeanProvider implements DynamicMBean, SensorNamePr
     }
     updateAttributesInfo(dynamicMetrics, description);
     _objectName = MBeanRegistrar.register(this, objectName);
+    MetricsTextExporter.getDefault().addSource(_objectName, this);
     return true;
   }
 
@@ -144,6 +146,7 @@ public abstract class DynamicMBeanProvider implements DynamicMBean, SensorNamePr
 
     // Update _attributeMap reference.
     _attributeMap = newAttributeMap;
+    _dynamicMetrics = new ArrayList<>(dynamicMetrics);
   }
 
   /**
@@ -156,10 +159,18 @@ public abstract class DynamicMBeanProvider implements DynamicMBean, SensorNamePr
    * Note that all the metric data is kept even after unregister.
    */
   public synchronized void unregister() {
+    MetricsTextExporter.getDefault().removeSource(_objectName);
     MBeanRegistrar.unregister(_objectName);
     _objectName = null;
   }
 
+  /**
+   * @return the DynamicMetrics exposed by this provider
+   */
+  List<DynamicMetric<?, ?>> getDynamicMetrics() {
+    return _dynamicMetrics;
+  }
+
   @Override
   public Object getAttribute(String attribute) throws AttributeNotFoundException {
     if (SENSOR_NAME_TAG.equals(attribute)) {
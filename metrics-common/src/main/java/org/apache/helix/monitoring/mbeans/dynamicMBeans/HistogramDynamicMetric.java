@@ -20,8 +20,9 @@ package org.apache.helix.monitoring.mbeans.dynamicMBeans;
  */
 
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import javax.management.MBeanAttributeInfo;
 
@@ -37,7 +38,8 @@ import org.slf4j.LoggerFactory;
 public class HistogramDynamicMetric extends DynamicMetric<Histogram, Long> {
   private static final Logger _logger = LoggerFactory.getLogger(HistogramDynamicMetric.class);
 
-  private final Set<String> _attributeNameSet;
+  // Attribute name to the snapshot attribute it reports
+  private final Map<String, SnapshotAttribute> _attributeMap;
 
   /**
    * The enum statistic attributes
@@ -57,6 +59,25 @@ public class HistogramDynamicMetric extends DynamicMetric<Histogram, Long> {
       _getMethodName = getMethodName;
       _attributeName = attributeName;
     }
+
+    Number getValue(Snapshot snapshot) {
+      switch (this) {
+      case Pct75th:
+        return snapshot.get75thPercentile();
+      case Pct95th:
+        return snapshot.get95thPercentile();
+      case Pct99th:
+        return snapshot.get99thPercentile();
+      case Max:
+        return snapshot.getMax();
+      case Mean:
+        return snapshot.getMean();
+      case StdDev:
+        return snapshot.getStdDev();
+      default:
+        return null;
+      }
+    }
   }
 
   /**
@@ -68,38 +89,39 @@ public class HistogramDynamicMetric extends DynamicMetric<Histogram, Long> {
   public HistogramDynamicMetric(String metricName, Histogram metricObject) {
     super(metricName, metricObject);
 
-    _attributeNameSet = new HashSet<>();
-    Iterator<MBeanAttributeInfo> iter = getAttributeInfos().iterator();
-    while (iter.hasNext()) {
-      MBeanAttributeInfo attributeInfo = iter.next();
-      _attributeNameSet.add(attributeInfo.getName());
+    _attributeMap = new HashMap<>();
+    for (SnapshotAttribute snapshotAttribute : SnapshotAttribute.values()) {
+      _attributeMap.put(getSnapshotAttributeName(metricName, snapshotAttribute.name()),
+          snapshotAttribute);
     }
   }
 
   @Override
   public Number getAttributeValue(String attributeName) {
-    if (!_attributeNameSet.contains(attributeName)) {
+    if (!_attributeMap.containsKey(attributeName)) {
       return null;
     }
+    Snapshot snapshot = getMetricObject().getSnapshot();
+    if (snapshot == null) {
+      return null;
+    }
+    return getSnapshotValue(attributeName, snapshot);
+  }
 
-    String[] attributeNameParts = attributeName.split("\\.");
-    if (attributeNameParts.length == 2) {
-      try {
-        SnapshotAttribute snapshotAttribute = SnapshotAttribute.valueOf(attributeNameParts[1]);
-        Method getMethod = Snapshot.class.getMethod(snapshotAttribute._getMethodName);
-        Snapshot snapshot = getMetricObject().getSnapshot();
-        if (snapshot != null) {
-          return (Number) getMethod.invoke(snapshot);
-        }
-      } catch (Exception ex) {
-        _logger
-            .error(String.format("Failed to get Snapshot value for attribute: %s", attributeName),
-                ex);
-      }
-    } else {
-      _logger.error(String.format("Invalid attribute name format: %s", attributeName));
+  /**
+   * Get the attribute value from a snapshot, so that all the attributes of a histogram can be
+   * read from one snapshot.
+   * @param attributeName the attribute name
+   * @param snapshot the snapshot of the histogram
+   * @return the attribute value, or null if the attribute is not reported by this metric
+   */
+  Number getSnapshotValue(String attributeName, Snapshot snapshot) {
+    SnapshotAttribute snapshotAttribute = _attributeMap.get(attributeName);
+    if (snapshotAttribute == null) {
+      _logger.error(String.format("Invalid attribute name: %s", attributeName));
+      return null;
     }
-    return null;
+    return snapshotAttribute.getValue(snapshot);
   }
 
   @Override
@@ -0,0 +1,126 @@
+package org.apache.helix.monitoring.mbeans.dynamicMBeans;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A lightweight embedded HTTP endpoint serving the metrics of the default MetricsTextExporter at
+ * /metrics. The endpoint is shared by all the users in the JVM, it is started by the first
+ * acquire() and stopped when all the users have released it.
+ */
+public class MetricsHttpEndpoint {
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsHttpEndpoint.class);
+
+  public static final String METRICS_PATH = "/metrics";
+
+  private static MetricsHttpEndpoint _sharedEndpoint = null;
+  private static int _refCount = 0;
+
+  private final HttpServer _server;
+  private final int _port;
+  private final ExecutorService _executor;
+
+  /**
+   * Start an endpoint serving the metrics of the exporter.
+   * @param port the port to listen on, 0 to pick a free port
+   * @param exporter the metrics exporter
+   */
+  public MetricsHttpEndpoint(int port, MetricsTextExporter exporter) throws IOException {
+    _server = HttpServer.create(new InetSocketAddress(port), 0);
+    _port = _server.getAddress().getPort();
+    _server.createContext(METRICS_PATH, exchange -> handle(exchange, exporter));
+    _executor = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "HelixMetricsHttpEndpoint-" + _port);
+      thread.setDaemon(true);
+      return thread;
+    });
+    _server.setExecutor(_executor);
+    _server.start();
+    LOG.info("Metrics endpoint started on port {}.", getPort());
+  }
+
+  /**
+   * Start the shared endpoint if it is not started yet.
+   * @param port the port of the shared endpoint, ignored if the endpoint is already started
+   * @return the shared endpoint
+   */
+  public static synchronized MetricsHttpEndpoint acquire(int port) throws IOException {
+    if (_sharedEndpoint == null) {
+      _sharedEndpoint = new MetricsHttpEndpoint(port, MetricsTextExporter.getDefault());
+    } else if (port != 0 && port != _sharedEndpoint.getPort()) {
+      LOG.warn("Metrics endpoint is already started on port {}, ignore port {}.",
+          _sharedEndpoint.getPort(), port);
+    }
+    _refCount++;
+    return _sharedEndpoint;
+  }
+
+  /**
+   * Release the shared endpoint, it is stopped once all the acquirers have released it.
+   */
+  public static synchronized void release() {
+    if (_refCount == 0) {
+      return;
+    }
+    if (--_refCount == 0) {
+      _sharedEndpoint.stop();
+      _sharedEndpoint = null;
+    }
+  }
+
+  public int getPort() {
+    return _port;
+  }
+
+  public void stop() {
+    _server.stop(0);
+    _executor.shutdownNow();
+    LOG.info("Metrics endpoint on port {} stopped.", getPort());
+  }
+
+  private static void handle(HttpExchange exchange, MetricsTextExporter exporter)
+      throws IOException {
+    try {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      byte[] body = exporter.scrape();
+      exchange.getResponseHeaders().set("Content-Type", MetricsTextExporter.CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+}
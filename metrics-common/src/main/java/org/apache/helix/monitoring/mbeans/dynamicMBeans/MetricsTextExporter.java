@@ -0,0 +1,297 @@
+package org.apache.helix.monitoring.mbeans.dynamicMBeans;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+import com.codahale.metrics.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Exports the metrics of the registered MBeans in the Prometheus text exposition format, without
+ * going through the MBean server. The DynamicMBeanProviders add themselves to the default exporter
+ * when they are registered, other MBeans can be added with addSource().
+ *
+ * A metric is named after the MBean domain and the attribute, and labeled with the ObjectName key
+ * properties. The histogram snapshots are taken once per scrape, and the scrape output is cached
+ * for a short time so that concurrent scrapers do not walk the metrics again.
+ */
+public class MetricsTextExporter {
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsTextExporter.class);
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  public static final long DEFAULT_CACHE_TTL_MS = 1000L;
+
+  private static final MetricsTextExporter DEFAULT_EXPORTER =
+      new MetricsTextExporter(DEFAULT_CACHE_TTL_MS);
+
+  private final Map<ObjectName, Source> _sources = new ConcurrentHashMap<>();
+  private final long _cacheTtlMs;
+
+  // Scrape buffers, reused across the scrapes. Guarded by this.
+  private final Map<String, StringBuilder> _samples = new TreeMap<>();
+  private final StringBuilder _output = new StringBuilder();
+  private byte[] _cachedOutput = new byte[0];
+  private long _cachedTime = Long.MIN_VALUE;
+
+  public MetricsTextExporter(long cacheTtlMs) {
+    _cacheTtlMs = cacheTtlMs;
+  }
+
+  /**
+   * @return the exporter of the MBeans registered in this JVM
+   */
+  public static MetricsTextExporter getDefault() {
+    return DEFAULT_EXPORTER;
+  }
+
+  /**
+   * Add an MBean to the exported metrics.
+   * @param objectName the ObjectName that the MBean is registered with
+   * @param mbean the MBean
+   */
+  public void addSource(ObjectName objectName, DynamicMBean mbean) {
+    if (objectName != null && mbean != null) {
+      _sources.put(objectName, new Source(objectName, mbean));
+    }
+  }
+
+  /**
+   * Remove an MBean from the exported metrics.
+   * @param objectName the ObjectName that the MBean is registered with
+   */
+  public void removeSource(ObjectName objectName) {
+    if (objectName != null) {
+      _sources.remove(objectName);
+    }
+  }
+
+  /**
+   * @return the number of the exported MBeans
+   */
+  public int getSourceCount() {
+    return _sources.size();
+  }
+
+  /**
+   * Write the current metrics to the output stream.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(scrape());
+  }
+
+  /**
+   * @return the current metrics in the text exposition format, UTF-8 encoded. The result is
+   *         cached for the cache TTL of the exporter.
+   */
+  public synchronized byte[] scrape() {
+    long now = System.currentTimeMillis();
+    if (_cachedTime != Long.MIN_VALUE && now - _cachedTime < _cacheTtlMs) {
+      return _cachedOutput;
+    }
+
+    for (StringBuilder samples : _samples.values()) {
+      samples.setLength(0);
+    }
+    for (Source source : _sources.values()) {
+      try {
+        collect(source);
+      } catch (Exception e) {
+        LOG.warn("Failed to collect the metrics of {}.", source._objectName, e);
+      }
+    }
+
+    _output.setLength(0);
+    Iterator<Map.Entry<String, StringBuilder>> iter = _samples.entrySet().iterator();
+    while (iter.hasNext()) {
+      Map.Entry<String, StringBuilder> entry = iter.next();
+      if (entry.getValue().length() == 0) {
+        // The metric is gone with its MBeans
+        iter.remove();
+        continue;
+      }
+      _output.append("# TYPE ").append(entry.getKey()).append(" gauge\n");
+      _output.append(entry.getValue());
+    }
+
+    _cachedOutput = _output.toString().getBytes(StandardCharsets.UTF_8);
+    _cachedTime = now;
+    return _cachedOutput;
+  }
+
+  private void collect(Source source) throws Exception {
+    if (source._mbean instanceof DynamicMBeanProvider) {
+      for (DynamicMetric<?, ?> metric : ((DynamicMBeanProvider) source._mbean)
+          .getDynamicMetrics()) {
+        if (metric instanceof HistogramDynamicMetric) {
+          HistogramDynamicMetric histogram = (HistogramDynamicMetric) metric;
+          Snapshot snapshot = histogram.getMetricObject().getSnapshot();
+          if (snapshot == null) {
+            continue;
+          }
+          for (MBeanAttributeInfo attributeInfo : metric.getAttributeInfos()) {
+            appendSample(source, attributeInfo.getName(),
+                histogram.getSnapshotValue(attributeInfo.getName(), snapshot));
+          }
+        } else {
+          for (MBeanAttributeInfo attributeInfo : metric.getAttributeInfos()) {
+            appendSample(source, attributeInfo.getName(),
+                metric.getAttributeValue(attributeInfo.getName()));
+          }
+        }
+      }
+    } else {
+      MBeanInfo mBeanInfo = source._mbean.getMBeanInfo();
+      for (MBeanAttributeInfo attributeInfo : mBeanInfo.getAttributes()) {
+        appendSample(source, attributeInfo.getName(),
+            source._mbean.getAttribute(attributeInfo.getName()));
+      }
+    }
+  }
+
+  private void appendSample(Source source, String attributeName, Object value) {
+    if (!(value instanceof Number) && !(value instanceof Boolean)) {
+      return;
+    }
+    String metricName = source.getMetricName(attributeName);
+    StringBuilder samples = _samples.get(metricName);
+    if (samples == null) {
+      samples = new StringBuilder();
+      _samples.put(metricName, samples);
+    }
+    samples.append(metricName).append(source._labels).append(' ');
+    appendValue(samples, value);
+    samples.append('\n');
+  }
+
+  private static void appendValue(StringBuilder sb, Object value) {
+    if (value instanceof Boolean) {
+      sb.append((Boolean) value ? 1 : 0);
+    } else if (value instanceof Double || value instanceof Float) {
+      double d = ((Number) value).doubleValue();
+      if (Double.isNaN(d)) {
+        sb.append("NaN");
+      } else if (Double.isInfinite(d)) {
+        sb.append(d > 0 ? "+Inf" : "-Inf");
+      } else {
+        sb.append(d);
+      }
+    } else {
+      sb.append(((Number) value).longValue());
+    }
+  }
+
+  /**
+   * Replace the characters that are not allowed in a metric or label name with '_'.
+   */
+  static String sanitizeName(String name) {
+    StringBuilder sb = new StringBuilder(name.length());
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_'
+          || (i > 0 && c >= '0' && c <= '9');
+      sb.append(valid ? c : '_');
+    }
+    return sb.toString();
+  }
+
+  static void appendEscapedLabelValue(StringBuilder sb, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+      case '\\':
+        sb.append("\\\\");
+        break;
+      case '"':
+        sb.append("\\\"");
+        break;
+      case '\n':
+        sb.append("\\n");
+        break;
+      default:
+        sb.append(c);
+      }
+    }
+  }
+
+  /**
+   * An exported MBean, with the label set and the metric names rendered once.
+   */
+  private static class Source {
+    private final ObjectName _objectName;
+    private final DynamicMBean _mbean;
+    private final String _prefix;
+    private final String _labels;
+    // Attribute name to metric name, only accessed by the scrape
+    private final Map<String, String> _metricNames = new HashMap<>();
+
+    Source(ObjectName objectName, DynamicMBean mbean) {
+      _objectName = objectName;
+      _mbean = mbean;
+      _prefix = sanitizeName(objectName.getDomain()) + "_";
+
+      StringBuilder labels = new StringBuilder();
+      Map<String, String> keyProperties = new TreeMap<>(objectName.getKeyPropertyList());
+      for (Map.Entry<String, String> property : keyProperties.entrySet()) {
+        labels.append(labels.length() == 0 ? '{' : ',');
+        labels.append(sanitizeName(property.getKey())).append("=\"");
+        appendEscapedLabelValue(labels, unquote(property.getValue()));
+        labels.append('"');
+      }
+      if (labels.length() > 0) {
+        labels.append('}');
+      }
+      _labels = labels.toString();
+    }
+
+    String getMetricName(String attributeName) {
+      String metricName = _metricNames.get(attributeName);
+      if (metricName == null) {
+        metricName = _prefix + sanitizeName(attributeName);
+        _metricNames.put(attributeName, metricName);
+      }
+      return metricName;
+    }
+
+    private static String unquote(String value) {
+      if (value.length() > 1 && value.charAt(0) == '"') {
+        try {
+          return ObjectName.unquote(value);
+        } catch (IllegalArgumentException e) {
+          return value;
+        }
+      }
+      return value;
+    }
+  }
+}
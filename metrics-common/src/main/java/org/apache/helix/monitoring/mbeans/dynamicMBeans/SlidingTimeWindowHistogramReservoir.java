@@ -0,0 +1,379 @@
+package org.apache.helix.monitoring.mbeans.dynamicMBeans;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+
+/**
+ * A fixed memory reservoir of the values recorded in a sliding time window. Unlike
+ * SlidingTimeWindowArrayReservoir, which retains every sample of the window, the values are
+ * counted in log-linear buckets as HdrHistogram does: every power of two range is split into
+ * 2^(precisionBits - 1) buckets. A quantile is reported within a relative error of
+ * 2^-precisionBits of the recorded value, and values below 2^precisionBits are exact. Values
+ * larger than the max trackable value are counted in the last bucket. The max, min, mean and
+ * standard deviation are computed from the exact values.
+ *
+ * The window is divided into slots that are rotated as time passes. A slot is allocated on the
+ * first update of its period and released by the first snapshot after it leaves the window, so an
+ * idle reservoir holds no buckets. The buckets of a slot are allocated by power of two range, on
+ * the first value of the range, so a slot only holds the buckets of the ranges actually recorded.
+ * Updates are lock-free, an update racing with the rotation of its slot may be lost.
+ */
+public class SlidingTimeWindowHistogramReservoir implements Reservoir {
+  public static final int DEFAULT_SLOT_COUNT = 6;
+  // Quantiles are accurate within 1.6%
+  public static final int DEFAULT_PRECISION_BITS = 6;
+  // About 2 years in ms
+  public static final long DEFAULT_MAX_TRACKABLE_VALUE = (1L << 36) - 1;
+  private static final int MAX_PRECISION_BITS = 20;
+
+  private final Clock _clock;
+  private final long _slotLengthNs;
+  private final int _precisionBits;
+  private final int _subBucketHalfCount;
+  private final long _maxTrackableValue;
+  private final int _bucketCount;
+  private final int _bucketGroupCount;
+  private final AtomicReferenceArray<Slot> _slots;
+
+  /**
+   * Instantiates a reservoir with the default accuracy.
+   *
+   * @param window     the window of the values
+   * @param windowUnit the time unit of the window
+   */
+  public SlidingTimeWindowHistogramReservoir(long window, TimeUnit windowUnit) {
+    this(window, windowUnit, DEFAULT_SLOT_COUNT, DEFAULT_PRECISION_BITS,
+        DEFAULT_MAX_TRACKABLE_VALUE, Clock.defaultClock());
+  }
+
+  /**
+   * Instantiates a reservoir.
+   *
+   * @param window            the window of the values
+   * @param windowUnit        the time unit of the window
+   * @param slotCount         the number of slots the window is divided into. The snapshots cover
+   *                          the current slot and the previous slotCount - 1 ones.
+   * @param precisionBits     the relative error of the quantiles is 2^-precisionBits
+   * @param maxTrackableValue the largest value counted in its own bucket
+   * @param clock             the clock of the window
+   */
+  public SlidingTimeWindowHistogramReservoir(long window, TimeUnit windowUnit, int slotCount,
+      int precisionBits, long maxTrackableValue, Clock clock) {
+    if (window <= 0 || slotCount <= 0) {
+      throw new IllegalArgumentException(String
+          .format("Invalid window %d %s with %d slots", window, windowUnit, slotCount));
+    }
+    if (precisionBits < 1 || precisionBits > MAX_PRECISION_BITS) {
+      throw new IllegalArgumentException(String
+          .format("Precision bits %d is not in [1..%d]", precisionBits, MAX_PRECISION_BITS));
+    }
+    if (maxTrackableValue < 1) {
+      throw new IllegalArgumentException("Invalid max trackable value " + maxTrackableValue);
+    }
+    _clock = clock;
+    _slotLengthNs = Math.max(1, windowUnit.toNanos(window) / slotCount);
+    _precisionBits = precisionBits;
+    _subBucketHalfCount = 1 << (precisionBits - 1);
+    _maxTrackableValue = maxTrackableValue;
+    _bucketCount = bucketIndex(maxTrackableValue) + 1;
+    _bucketGroupCount = (_bucketCount - 1) / _subBucketHalfCount + 1;
+    _slots = new AtomicReferenceArray<>(slotCount);
+  }
+
+  @Override
+  public int size() {
+    long currentEpoch = currentEpoch();
+    long count = 0;
+    for (int i = 0; i < _slots.length(); i++) {
+      Slot slot = _slots.get(i);
+      if (isInWindow(slot, currentEpoch)) {
+        count += slot._count.sum();
+      }
+    }
+    return (int) Math.min(count, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Record a value. Negative values are recorded as 0.
+   */
+  @Override
+  public void update(long value) {
+    long epoch = currentEpoch();
+    getSlot(epoch).record(Math.max(value, 0), this);
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    long currentEpoch = currentEpoch();
+    long[] counts = new long[_bucketCount];
+    long count = 0;
+    long sum = 0;
+    double sumOfSquares = 0;
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < _slots.length(); i++) {
+      Slot slot = _slots.get(i);
+      if (!isInWindow(slot, currentEpoch)) {
+        if (slot != null && slot._epoch <= currentEpoch - _slots.length()) {
+          // Release the expired slot, it is allocated again by the next update of its period
+          _slots.compareAndSet(i, slot, null);
+        }
+        continue;
+      }
+      for (int j = 0; j < _bucketGroupCount; j++) {
+        AtomicLongArray bucketGroup = slot._bucketGroups.get(j);
+        if (bucketGroup == null) {
+          continue;
+        }
+        int offset = j * _subBucketHalfCount;
+        for (int k = 0; k < bucketGroup.length() && offset + k < _bucketCount; k++) {
+          long bucketCount = bucketGroup.get(k);
+          counts[offset + k] += bucketCount;
+          count += bucketCount;
+        }
+      }
+      sum += slot._sum.sum();
+      sumOfSquares += slot._sumOfSquares.sum();
+      min = Math.min(min, slot._min.get());
+      max = Math.max(max, slot._max.get());
+    }
+    return new HistogramSnapshot(counts, count, sum, sumOfSquares, min, max);
+  }
+
+  /**
+   * @return the number of buckets of a slot
+   */
+  public int getBucketCount() {
+    return _bucketCount;
+  }
+
+  /**
+   * @return the number of buckets currently allocated by all the slots
+   */
+  /* package */ int getAllocatedBucketCount() {
+    int allocated = 0;
+    for (int i = 0; i < _slots.length(); i++) {
+      Slot slot = _slots.get(i);
+      if (slot == null) {
+        continue;
+      }
+      for (int j = 0; j < _bucketGroupCount; j++) {
+        if (slot._bucketGroups.get(j) != null) {
+          allocated += _subBucketHalfCount;
+        }
+      }
+    }
+    return allocated;
+  }
+
+  /**
+   * @return the relative error bound of the quantiles
+   */
+  public double getRelativeErrorBound() {
+    return Math.scalb(1.0, -_precisionBits);
+  }
+
+  /* package */ int bucketIndex(long value) {
+    long v = Math.min(value, _maxTrackableValue);
+    if (v < 2L * _subBucketHalfCount) {
+      return (int) v;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(v) - (_precisionBits - 1);
+    return shift * _subBucketHalfCount + (int) (v >>> shift);
+  }
+
+  /**
+   * @return the middle of the values counted in the bucket
+   */
+  /* package */ long bucketValue(int index) {
+    if (index < 2 * _subBucketHalfCount) {
+      return index;
+    }
+    int shift = index / _subBucketHalfCount - 1;
+    long lowest = (long) (index % _subBucketHalfCount + _subBucketHalfCount) << shift;
+    return lowest + ((1L << shift) - 1) / 2;
+  }
+
+  private long currentEpoch() {
+    return _clock.getTick() / _slotLengthNs;
+  }
+
+  private boolean isInWindow(Slot slot, long currentEpoch) {
+    return slot != null && slot._epoch > currentEpoch - _slots.length()
+        && slot._epoch <= currentEpoch;
+  }
+
+  private Slot getSlot(long epoch) {
+    int index = (int) Math.floorMod(epoch, (long) _slots.length());
+    while (true) {
+      Slot slot = _slots.get(index);
+      // An update that started before the rotation goes to the newer slot
+      if (slot != null && slot._epoch >= epoch) {
+        return slot;
+      }
+      Slot newSlot = new Slot(epoch, _bucketGroupCount);
+      if (_slots.compareAndSet(index, slot, newSlot)) {
+        return newSlot;
+      }
+    }
+  }
+
+  private static final class Slot {
+    private final long _epoch;
+    // The buckets by group of subBucketHalfCount buckets, allocated on the first recorded value
+    private final AtomicReferenceArray<AtomicLongArray> _bucketGroups;
+    private final LongAdder _count = new LongAdder();
+    private final LongAdder _sum = new LongAdder();
+    private final DoubleAdder _sumOfSquares = new DoubleAdder();
+    private final LongAccumulator _min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator _max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    Slot(long epoch, int bucketGroupCount) {
+      _epoch = epoch;
+      _bucketGroups = new AtomicReferenceArray<>(bucketGroupCount);
+    }
+
+    void record(long value, SlidingTimeWindowHistogramReservoir reservoir) {
+      int index = reservoir.bucketIndex(value);
+      int groupSize = reservoir._subBucketHalfCount;
+      AtomicLongArray bucketGroup = _bucketGroups.get(index / groupSize);
+      if (bucketGroup == null) {
+        AtomicLongArray newBucketGroup = new AtomicLongArray(groupSize);
+        bucketGroup = _bucketGroups.compareAndSet(index / groupSize, null, newBucketGroup)
+            ? newBucketGroup : _bucketGroups.get(index / groupSize);
+      }
+      bucketGroup.incrementAndGet(index % groupSize);
+      _count.increment();
+      _sum.add(value);
+      _sumOfSquares.add((double) value * value);
+      _min.accumulate(value);
+      _max.accumulate(value);
+    }
+  }
+
+  private class HistogramSnapshot extends Snapshot {
+    private final long[] _counts;
+    private final long _count;
+    private final long _sum;
+    private final double _sumOfSquares;
+    private final long _min;
+    private final long _max;
+
+    HistogramSnapshot(long[] counts, long count, long sum, double sumOfSquares, long min,
+        long max) {
+      _counts = counts;
+      _count = count;
+      _sum = sum;
+      _sumOfSquares = sumOfSquares;
+      _min = count == 0 ? 0 : min;
+      _max = count == 0 ? 0 : max;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+      if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+        throw new IllegalArgumentException(quantile + " is not in [0..1]");
+      }
+      if (_count == 0) {
+        return 0.0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(quantile * _count));
+      long seen = 0;
+      for (int i = 0; i < _counts.length; i++) {
+        seen += _counts[i];
+        if (seen >= rank) {
+          return Math.min(Math.max(bucketValue(i), _min), _max);
+        }
+      }
+      return _max;
+    }
+
+    /**
+     * @return the middle values of the buckets, repeated by their counts
+     */
+    @Override
+    public long[] getValues() {
+      long[] values = new long[size()];
+      int pos = 0;
+      for (int i = 0; i < _counts.length && pos < values.length; i++) {
+        long value = Math.min(Math.max(bucketValue(i), _min), _max);
+        for (long j = 0; j < _counts[i] && pos < values.length; j++) {
+          values[pos++] = value;
+        }
+      }
+      return values;
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.min(_count, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long getMax() {
+      return _max;
+    }
+
+    @Override
+    public double getMean() {
+      return _count == 0 ? 0.0 : (double) _sum / _count;
+    }
+
+    @Override
+    public long getMin() {
+      return _min;
+    }
+
+    @Override
+    public double getStdDev() {
+      if (_count <= 1) {
+        return 0.0;
+      }
+      double mean = getMean();
+      double variance = (_sumOfSquares - mean * _sum) / (_count - 1);
+      return variance > 0 ? Math.sqrt(variance) : 0.0;
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+      try (PrintWriter out = new PrintWriter(
+          new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+        for (long value : getValues()) {
+          out.printf("%d%n", value);
+        }
+      }
+    }
+  }
+}
@@ -60,6 +60,27 @@ public class ZkSystemPropertyKeys {
   public static final String ZK_SERIALIZER_ZNRECORD_WRITE_SIZE_LIMIT_BYTES =
       "zk.serializer.znrecord.write.size.limit.bytes";
 
+  /**
+   * Setting this property to true in system properties enables string deduplication in the
+   * ZNRecord serializers created with their default constructors:
+   * 1. {@link org.apache.helix.zookeeper.datamodel.serializer.ZNRecordSerializer}
+   * 2. {@link org.apache.helix.zookeeper.datamodel.serializer.ZNRecordStreamingSerializer}.
+   * The equal string values of the deserialized ZNRecords then share one String object, which
+   * reduces the heap usage when many similar records are cached, e.g. the current states of a
+   * large cluster.
+   * <p>
+   * The default value is "false" (disabled).
+   */
+  public static final String ZK_SERIALIZER_ZNRECORD_STRING_DEDUP_ENABLED =
+      "zk.serializer.znrecord.string-dedup.enabled";
+
+  /**
+   * The maximum number of strings kept for deduplication by one ZNRecord serializer, see
+   * {@value ZK_SERIALIZER_ZNRECORD_STRING_DEDUP_ENABLED}. The default value is 100000.
+   */
+  public static final String ZK_SERIALIZER_ZNRECORD_STRING_DEDUP_POOL_SIZE =
+      "zk.serializer.znrecord.string-dedup.pool.size";
+
   /**
    * This property determines the behavior of ZkClient issuing an sync() to server upon new session
    * established.
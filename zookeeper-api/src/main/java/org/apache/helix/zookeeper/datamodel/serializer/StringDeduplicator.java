@@ -0,0 +1,80 @@
+package org.apache.helix.zookeeper.datamodel.serializer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * A bounded pool of weakly referenced strings, used to share one String object among the equal
+ * values of the deserialized ZNRecords, e.g. the instance, partition and state names repeated in
+ * all the current states of a cluster. A string stays in the pool only while it is referenced
+ * elsewhere. Once the pool is full, new strings are returned as they are.
+ */
+class StringDeduplicator {
+  private static final int STRIPE_COUNT = 16;
+
+  private final Map<String, WeakReference<String>>[] _stripes;
+  private final int _maxStripeSize;
+
+  @SuppressWarnings("unchecked")
+  StringDeduplicator(int maxSize) {
+    _stripes = new Map[STRIPE_COUNT];
+    for (int i = 0; i < STRIPE_COUNT; i++) {
+      _stripes[i] = new WeakHashMap<>();
+    }
+    _maxStripeSize = Math.max(1, maxSize / STRIPE_COUNT);
+  }
+
+  /**
+   * @return the pooled string equal to the value if any, otherwise the value itself
+   */
+  String deduplicate(String value) {
+    if (value == null) {
+      return null;
+    }
+    int hash = value.hashCode();
+    Map<String, WeakReference<String>> stripe =
+        _stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+    synchronized (stripe) {
+      WeakReference<String> reference = stripe.get(value);
+      String pooled = reference == null ? null : reference.get();
+      if (pooled != null) {
+        return pooled;
+      }
+      if (stripe.size() < _maxStripeSize) {
+        stripe.put(value, new WeakReference<>(value));
+      }
+      return value;
+    }
+  }
+
+  int size() {
+    int size = 0;
+    for (Map<String, WeakReference<String>> stripe : _stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+}
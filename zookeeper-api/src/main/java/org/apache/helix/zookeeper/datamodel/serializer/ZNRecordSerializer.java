@@ -21,13 +21,20 @@ package org.apache.helix.zookeeper.datamodel.serializer;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.apache.helix.zookeeper.constant.ZkSystemPropertyKeys;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.zookeeper.introspect.CodehausJacksonIntrospector;
 import org.apache.helix.zookeeper.util.GZipCompressionUtil;
@@ -44,6 +51,50 @@ public class ZNRecordSerializer implements ZkSerializer {
       // TODO: remove it after upgrading ZNRecord's annotations to Jackson 2
       .setAnnotationIntrospector(new CodehausJacksonIntrospector());
 
+  // The mapper used by this serializer, a copy of the shared mapper if strings are deduplicated
+  private final ObjectMapper _mapper;
+
+  /**
+   * Create a serializer, which deduplicates the strings of the deserialized records if enabled by
+   * {@link ZkSystemPropertyKeys#ZK_SERIALIZER_ZNRECORD_STRING_DEDUP_ENABLED}
+   */
+  public ZNRecordSerializer() {
+    this(ZNRecordUtil.getSerializerStringDedupPoolSize());
+  }
+
+  /**
+   * @param stringDedupPoolSize the number of strings kept to deduplicate the string values of the
+   *                            deserialized records, or 0 to disable the deduplication
+   */
+  public ZNRecordSerializer(int stringDedupPoolSize) {
+    if (stringDedupPoolSize > 0) {
+      SimpleModule module = new SimpleModule("StringDeduplication");
+      module.addDeserializer(String.class,
+          new DeduplicatingStringDeserializer(new StringDeduplicator(stringDedupPoolSize)));
+      _mapper = mapper.copy().registerModule(module);
+    } else {
+      _mapper = mapper;
+    }
+  }
+
+  /**
+   * Deserializes the string values through the string deduplicator. The field names, which include
+   * the keys of the ZNRecord fields, are already canonicalized by the Jackson parser.
+   */
+  private static class DeduplicatingStringDeserializer extends StdScalarDeserializer<String> {
+    private final StringDeduplicator _deduplicator;
+
+    DeduplicatingStringDeserializer(StringDeduplicator deduplicator) {
+      super(String.class);
+      _deduplicator = deduplicator;
+    }
+
+    @Override
+    public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      return _deduplicator.deduplicate(StringDeserializer.instance.deserialize(p, ctxt));
+    }
+  }
+
   private static int getListFieldBound(ZNRecord record) {
     int max = Integer.MAX_VALUE;
     if (record.getSimpleFields().containsKey(ZNRecord.LIST_FIELD_BOUND)) {
@@ -81,16 +132,16 @@ public class ZNRecordSerializer implements ZkSerializer {
     }
 
     // do serialization
-    mapper.enable(SerializationFeature.INDENT_OUTPUT);
-    mapper.enable(MapperFeature.AUTO_DETECT_FIELDS);
-    mapper.enable(MapperFeature.CAN_OVERRIDE_ACCESS_MODIFIERS);
+    _mapper.enable(SerializationFeature.INDENT_OUTPUT);
+    _mapper.enable(MapperFeature.AUTO_DETECT_FIELDS);
+    _mapper.enable(MapperFeature.CAN_OVERRIDE_ACCESS_MODIFIERS);
 
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     byte[] serializedBytes;
     boolean isCompressed = false;
 
     try {
-      mapper.writeValue(baos, data);
+      _mapper.writeValue(baos, data);
       serializedBytes = baos.toByteArray();
       // apply compression if needed
       if (ZNRecordUtil.shouldCompress(record, serializedBytes.length)) {
@@ -126,9 +177,9 @@ public class ZNRecordSerializer implements ZkSerializer {
 
     ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
 
-    mapper.enable(MapperFeature.AUTO_DETECT_FIELDS);
-    mapper.enable(MapperFeature.AUTO_DETECT_SETTERS);
-    mapper.enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    _mapper.enable(MapperFeature.AUTO_DETECT_FIELDS);
+    _mapper.enable(MapperFeature.AUTO_DETECT_SETTERS);
+    _mapper.enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     try {
       //decompress the data if its already compressed
       if (GZipCompressionUtil.isCompressed(bytes)) {
@@ -136,7 +187,7 @@ public class ZNRecordSerializer implements ZkSerializer {
         bais = new ByteArrayInputStream(uncompressedBytes);
       }
 
-      return mapper.readValue(bais, ZNRecord.class);
+      return _mapper.readValue(bais, ZNRecord.class);
     } catch (Exception e) {
       LOG.error("Exception during deserialization of bytes: {}", new String(bytes), e);
       return null;
@@ -21,6 +21,7 @@ package org.apache.helix.zookeeper.datamodel.serializer;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -28,6 +29,7 @@ import java.util.Map;
 import java.util.TreeMap;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.helix.zookeeper.constant.ZkSystemPropertyKeys;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.zookeeper.util.GZipCompressionUtil;
 import org.apache.helix.zookeeper.util.ZNRecordUtil;
@@ -44,6 +46,32 @@ import org.slf4j.LoggerFactory;
 public class ZNRecordStreamingSerializer implements ZkSerializer {
   private static final Logger LOG = LoggerFactory.getLogger(ZNRecordStreamingSerializer.class);
 
+  // Deduplicates the string values of the deserialized records, null if disabled
+  private final StringDeduplicator _deduplicator;
+
+  /**
+   * Create a serializer, which deduplicates the strings of the deserialized records if enabled by
+   * {@link ZkSystemPropertyKeys#ZK_SERIALIZER_ZNRECORD_STRING_DEDUP_ENABLED}
+   */
+  public ZNRecordStreamingSerializer() {
+    this(ZNRecordUtil.getSerializerStringDedupPoolSize());
+  }
+
+  /**
+   * @param stringDedupPoolSize the number of strings kept to deduplicate the string values of the
+   *                            deserialized records, or 0 to disable the deduplication
+   */
+  public ZNRecordStreamingSerializer(int stringDedupPoolSize) {
+    _deduplicator = stringDedupPoolSize > 0 ? new StringDeduplicator(stringDedupPoolSize) : null;
+  }
+
+  // The field names, which include the keys of the ZNRecord fields, are already canonicalized by
+  // the Jackson parser, so only the values are deduplicated.
+  private String getText(JsonParser jp) throws IOException {
+    String text = jp.getText();
+    return _deduplicator == null ? text : _deduplicator.deduplicate(text);
+  }
+
   private static int getListFieldBound(ZNRecord record) {
     int max = Integer.MAX_VALUE;
     if (record.getSimpleFields().containsKey(ZNRecord.LIST_FIELD_BOUND)) {
@@ -211,12 +239,12 @@ public class ZNRecordStreamingSerializer implements ZkSerializer {
         jp.nextToken(); // move to value, or START_OBJECT/START_ARRAY
         if ("id".equals(fieldname)) {
           // contains an object
-          id = jp.getText();
+          id = getText(jp);
         } else if ("simpleFields".equals(fieldname)) {
           while (jp.nextToken() != JsonToken.END_OBJECT) {
             String key = jp.getCurrentName();
             jp.nextToken(); // move to value
-            simpleFields.put(key, jp.getText());
+            simpleFields.put(key, getText(jp));
           }
         } else if ("mapFields".equals(fieldname)) {
           // user.setVerified(jp.getCurrentToken() == JsonToken.VALUE_TRUE);
@@ -228,7 +256,7 @@ public class ZNRecordStreamingSerializer implements ZkSerializer {
             while (jp.nextToken() != JsonToken.END_OBJECT) {
               String mapKey = jp.getCurrentName();
               jp.nextToken(); // move to value
-              mapFields.get(key).put(mapKey, jp.getText());
+              mapFields.get(key).put(mapKey, getText(jp));
             }
           }
 
@@ -239,7 +267,7 @@ public class ZNRecordStreamingSerializer implements ZkSerializer {
             listFields.put(key, new ArrayList<String>());
             jp.nextToken(); // move to value
             while (jp.nextToken() != JsonToken.END_ARRAY) {
-              listFields.get(key).add(jp.getText());
+              listFields.get(key).add(getText(jp));
             }
 
           }
@@ -27,6 +27,7 @@ import org.apache.helix.zookeeper.datamodel.ZNRecord;
  * This utility class contains various methods for manipulating ZNRecord.
  */
 public class ZNRecordUtil {
+  private static final int DEFAULT_STRING_DEDUP_POOL_SIZE = 100000;
 
   /**
    * Checks whether or not a serialized ZNRecord bytes should be compressed before being written to
@@ -80,4 +81,20 @@ public class ZNRecordUtil {
 
     return writeSizeLimit;
   }
+
+  /**
+   * Returns the number of strings a ZNRecord serializer keeps to deduplicate the string values of
+   * the deserialized ZNRecords, or 0 if the string deduplication is disabled.
+   */
+  public static int getSerializerStringDedupPoolSize() {
+    if (!Boolean.getBoolean(ZkSystemPropertyKeys.ZK_SERIALIZER_ZNRECORD_STRING_DEDUP_ENABLED)) {
+      return 0;
+    }
+    Integer poolSize =
+        Integer.getInteger(ZkSystemPropertyKeys.ZK_SERIALIZER_ZNRECORD_STRING_DEDUP_POOL_SIZE);
+    if (poolSize == null || poolSize <= 0) {
+      return DEFAULT_STRING_DEDUP_POOL_SIZE;
+    }
+    return poolSize;
+  }
 }
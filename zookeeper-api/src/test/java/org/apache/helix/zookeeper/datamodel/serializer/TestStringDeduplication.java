@@ -0,0 +1,78 @@
+package org.apache.helix.zookeeper.datamodel.serializer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestStringDeduplication {
+
+  private static ZNRecord createRecord(String id) {
+    ZNRecord record = new ZNRecord(id);
+    record.setSimpleField("STATE_MODEL_DEF", "MasterSlave");
+    record.setListField("TestDB_0", Arrays.asList("localhost_1", "localhost_2"));
+    record.setMapField("TestDB_0", new TreeMap<>());
+    record.getMapField("TestDB_0").put("CURRENT_STATE", "MASTER");
+    return record;
+  }
+
+  private static void verifyDeduplication(ZkSerializer serializer, boolean deduplicated) {
+    ZNRecord record1 = (ZNRecord) serializer.deserialize(serializer.serialize(createRecord("r1")));
+    ZNRecord record2 = (ZNRecord) serializer.deserialize(serializer.serialize(createRecord("r2")));
+    Assert.assertEquals(record1.getMapFields(), record2.getMapFields());
+    Assert.assertEquals(record1.getListFields(), record2.getListFields());
+    Assert.assertEquals(
+        record1.getSimpleField("STATE_MODEL_DEF") == record2.getSimpleField("STATE_MODEL_DEF"),
+        deduplicated);
+    Assert.assertEquals(record1.getListField("TestDB_0").get(0) == record2.getListField("TestDB_0")
+        .get(0), deduplicated);
+    Assert.assertEquals(record1.getMapField("TestDB_0").get("CURRENT_STATE") == record2
+        .getMapField("TestDB_0").get("CURRENT_STATE"), deduplicated);
+  }
+
+  @Test
+  public void testSerializers() {
+    verifyDeduplication(new ZNRecordSerializer(0), false);
+    verifyDeduplication(new ZNRecordSerializer(1000), true);
+    verifyDeduplication(new ZNRecordStreamingSerializer(0), false);
+    verifyDeduplication(new ZNRecordStreamingSerializer(1000), true);
+  }
+
+  @Test
+  public void testBoundedPool() {
+    StringDeduplicator deduplicator = new StringDeduplicator(32);
+    String[] values = new String[1000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = "value_" + i;
+      Assert.assertSame(deduplicator.deduplicate(values[i]), values[i]);
+    }
+    Assert.assertTrue(deduplicator.size() <= 32);
+    // A pooled string is returned for an equal value
+    String value = new String(values[0]);
+    Assert.assertSame(deduplicator.deduplicate(value), values[0]);
+    Assert.assertNull(deduplicator.deduplicate(null));
+  }
+}